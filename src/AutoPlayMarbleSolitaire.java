@@ -0,0 +1,50 @@
+import model.MarbleSolitaireModel;
+import model.MctsPlayer;
+import model.PackedMove;
+
+/**
+ * Class for letting the Monte Carlo tree search player play a game from the command line. Takes
+ * the same arguments as (@code PlayMarbleSolitaire), plus an optional "-threads [count]" (every
+ * available core by default), "-iterations [count]" and "-millis [time]", the most iterations and
+ * milliseconds of each move (1000 milliseconds by default), and prints each move as it is made
+ * along with the iterations it took, then the marbles left and the time taken.
+ */
+public class AutoPlayMarbleSolitaire {
+  /**
+   * The main method to play the game.
+   * @param args command-line arguments
+   */
+  public static void main(String[] args) {
+    MarbleSolitaireModel model = SolveMarbleSolitaire.modelFor(args);
+    if (model == null) {
+      System.out.println("Usage: (english|european|triangular) (-size [size]) (-hole [row col])"
+              + " (-threads [count]) (-iterations [count]) (-millis [time])");
+      return;
+    }
+    int threads = Runtime.getRuntime().availableProcessors();
+    long iterations = Long.MAX_VALUE;
+    long millis = 1000;
+    for (int i = 0; i < args.length; i++) {
+      if (args[i].equals("-threads")) {
+        threads = Integer.parseInt(args[i + 1]);
+      } else if (args[i].equals("-iterations")) {
+        iterations = Long.parseLong(args[i + 1]);
+      } else if (args[i].equals("-millis")) {
+        millis = Long.parseLong(args[i + 1]);
+      }
+    }
+    MctsPlayer player = new MctsPlayer(threads, iterations, millis);
+    int size = model.getBoardSize();
+    long start = System.nanoTime();
+    for (int move = player.suggest(model); move >= 0; move = player.suggest(model)) {
+      System.out.println((PackedMove.fromRow(move, size) + 1) + " "
+              + (PackedMove.fromCol(move, size) + 1) + " "
+              + (PackedMove.toRow(move, size) + 1) + " "
+              + (PackedMove.toCol(move, size) + 1) + " (" + player.getIterations()
+              + " iterations)");
+      PackedMove.apply(model, move);
+    }
+    System.out.println(model.getScore() + " marbles left in "
+            + (System.nanoTime() - start) / 1_000_000 + " ms");
+  }
+}
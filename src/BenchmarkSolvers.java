@@ -0,0 +1,101 @@
+import java.util.ArrayList;
+import java.util.List;
+
+import model.MarbleSolitaireModel;
+import model.ParallelSolitaireSolver;
+import model.SolitaireSolver;
+import model.SolverResult;
+
+/**
+ * Class for measuring how the parallel solver scales with the number of threads. Takes the same
+ * arguments as (@code PlayMarbleSolitaire), plus an optional "-threads [max]" (every available
+ * core by default) and "-runs [count]" (3 by default). Solves the game with the single-threaded
+ * solver, then with the parallel solver on 1, 2, 4, ... threads up to the maximum, and prints the
+ * best time of each along with its speedup over the single-threaded solver.
+ *
+ * <p>Given "-target [row col]" instead, solves for the last marble in that slot with the
+ * single-threaded solver, with and without its pagoda function cuts, and prints how many positions
+ * the cuts saved.
+ */
+public class BenchmarkSolvers {
+  /**
+   * The main method to run the benchmark.
+   * @param args command-line arguments
+   */
+  public static void main(String[] args) {
+    MarbleSolitaireModel model = SolveMarbleSolitaire.modelFor(args);
+    if (model == null) {
+      System.out.println("Usage: (english|european|triangular) (-size [size]) (-hole [row col])"
+              + " (-threads [max]) (-runs [count]) (-target [row col])");
+      return;
+    }
+    int maxThreads = Runtime.getRuntime().availableProcessors();
+    int runs = 3;
+    for (int i = 0; i < args.length; i++) {
+      if (args[i].equals("-threads")) {
+        maxThreads = Integer.parseInt(args[i + 1]);
+      } else if (args[i].equals("-runs")) {
+        runs = Integer.parseInt(args[i + 1]);
+      } else if (args[i].equals("-target")) {
+        benchmarkPagoda(model, Integer.parseInt(args[i + 1]) - 1,
+                Integer.parseInt(args[i + 2]) - 1, runs);
+        return;
+      }
+    }
+
+    long baseline = Long.MAX_VALUE;
+    SolverResult result = null;
+    for (int run = 0; run < runs; run++) {
+      result = new SolitaireSolver().solve(model);
+      baseline = Math.min(baseline, result.getNanos());
+    }
+    System.out.println("threads  time (ms)  nodes  speedup");
+    System.out.println(String.format("sequential  %d  %d  1.00", baseline / 1_000_000,
+            result.getNodeCount()));
+
+    // 1, 2, 4, ... threads, and also the exact maximum when it is not a power of two
+    List<Integer> counts = new ArrayList<>();
+    for (int threads = 1; threads <= maxThreads; threads *= 2) {
+      counts.add(threads);
+    }
+    if (maxThreads > 0 && counts.get(counts.size() - 1) != maxThreads) {
+      counts.add(maxThreads);
+    }
+    for (int threads : counts) {
+      long best = Long.MAX_VALUE;
+      for (int run = 0; run < runs; run++) {
+        result = new ParallelSolitaireSolver(threads).solve(model);
+        best = Math.min(best, result.getNanos());
+      }
+      System.out.println(String.format("%d  %d  %d  %.2f", threads, best / 1_000_000,
+              result.getNodeCount(), (double) baseline / best));
+    }
+  }
+
+  /**
+   * Solves the given game for the given target slot with and without pagoda function cuts, and
+   * prints the best time and the number of positions searched by each.
+   *
+   * @param model     the game to solve
+   * @param targetRow the row of the target slot, starting at 0
+   * @param targetCol the column of the target slot, starting at 0
+   * @param runs      the number of times to solve it each way
+   */
+  private static void benchmarkPagoda(MarbleSolitaireModel model, int targetRow, int targetCol,
+                                      int runs) {
+    System.out.println("pagoda  time (ms)  nodes");
+    long[] nodes = new long[2];
+    for (int on = 0; on < 2; on++) {
+      long best = Long.MAX_VALUE;
+      for (int run = 0; run < runs; run++) {
+        SolverResult result = new SolitaireSolver(on == 1).solve(model, targetRow, targetCol);
+        best = Math.min(best, result.getNanos());
+        nodes[on] = result.getNodeCount();
+      }
+      System.out.println(String.format("%s  %d  %d", on == 1 ? "on" : "off", best / 1_000_000,
+              nodes[on]));
+    }
+    System.out.println(String.format("pruned %d nodes (%.1f%%)", nodes[0] - nodes[1],
+            100.0 * (nodes[0] - nodes[1]) / nodes[0]));
+  }
+}
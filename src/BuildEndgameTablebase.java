@@ -0,0 +1,58 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import model.BoardGeometry;
+import model.EndgameTablebase;
+
+/**
+ * Class for generating an endgame tablebase, as a batch job from the command line. Takes the board
+ * as "english", "european" or "triangular" with an optional "-size [size]" (3, 3 and 5 by
+ * default), "-marbles [count]", the most marbles of the positions to cover (10 by default),
+ * "-threads [count]" (every available core by default) and "-out [file]", the file to write
+ * (endgame.bin by default).
+ */
+public class BuildEndgameTablebase {
+  /**
+   * The main method to generate the tablebase.
+   * @param args command-line arguments
+   * @throws IOException if the tablebase cannot be written
+   */
+  public static void main(String[] args) throws IOException {
+    BoardGeometry.Shape shape = null;
+    int size = 0;
+    int marbles = 10;
+    int threads = Runtime.getRuntime().availableProcessors();
+    String file = "endgame.bin";
+    for (int i = 0; i < args.length; i++) {
+      if (args[i].equals("english")) {
+        shape = BoardGeometry.Shape.English;
+        size = 3;
+      } else if (args[i].equals("european")) {
+        shape = BoardGeometry.Shape.European;
+        size = 3;
+      } else if (args[i].equals("triangular")) {
+        shape = BoardGeometry.Shape.Triangle;
+        size = 5;
+      } else if (args[i].equals("-size")) {
+        size = Integer.parseInt(args[i + 1]);
+      } else if (args[i].equals("-marbles")) {
+        marbles = Integer.parseInt(args[i + 1]);
+      } else if (args[i].equals("-threads")) {
+        threads = Integer.parseInt(args[i + 1]);
+      } else if (args[i].equals("-out")) {
+        file = args[i + 1];
+      }
+    }
+    if (shape == null) {
+      System.out.println("Usage: (english|european|triangular) (-size [size])"
+              + " (-marbles [count]) (-threads [count]) (-out [file])");
+      return;
+    }
+    BoardGeometry geometry = BoardGeometry.of(shape, size);
+    long start = System.nanoTime();
+    EndgameTablebase.generate(geometry, Math.min(marbles, geometry.getCellCount()),
+            Paths.get(file), threads);
+    System.out.println("Wrote " + file + " in " + (System.nanoTime() - start) / 1_000_000
+            + " ms");
+  }
+}
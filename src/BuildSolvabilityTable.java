@@ -0,0 +1,53 @@
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.EnumMap;
+import java.util.Map;
+
+import model.BoardGeometry;
+import model.SolvabilityTable;
+
+/**
+ * Class for building the table of which starting holes can be won, as a batch job from the
+ * command line. Takes the largest size of each board to include, as "-english [size]",
+ * "-european [size]" and "-triangular [size]" (3, 3 and 6 by default), an optional
+ * "-threads [count]" (every available core by default) and "-out [file]", the file to write
+ * (src/solvability.bin by default, where (@code PlayMarbleSolitaire) finds it on the class path).
+ */
+public class BuildSolvabilityTable {
+  /**
+   * The main method to build the table.
+   * @param args command-line arguments
+   * @throws IOException if the table cannot be written
+   */
+  public static void main(String[] args) throws IOException {
+    Map<BoardGeometry.Shape, Integer> maxSizes = new EnumMap<>(BoardGeometry.Shape.class);
+    maxSizes.put(BoardGeometry.Shape.English, 3);
+    maxSizes.put(BoardGeometry.Shape.European, 3);
+    maxSizes.put(BoardGeometry.Shape.Triangle, 6);
+    int threads = Runtime.getRuntime().availableProcessors();
+    String file = "src/solvability.bin";
+    for (int i = 0; i < args.length; i++) {
+      if (args[i].equals("-english")) {
+        maxSizes.put(BoardGeometry.Shape.English, Integer.parseInt(args[i + 1]));
+      } else if (args[i].equals("-european")) {
+        maxSizes.put(BoardGeometry.Shape.European, Integer.parseInt(args[i + 1]));
+      } else if (args[i].equals("-triangular")) {
+        maxSizes.put(BoardGeometry.Shape.Triangle, Integer.parseInt(args[i + 1]));
+      } else if (args[i].equals("-threads")) {
+        threads = Integer.parseInt(args[i + 1]);
+      } else if (args[i].equals("-out")) {
+        file = args[i + 1];
+      }
+    }
+    long start = System.nanoTime();
+    SolvabilityTable table = SolvabilityTable.build(maxSizes, threads);
+    try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(Paths.get(file)))) {
+      table.write(out);
+    }
+    System.out.println("Wrote " + file + " in " + (System.nanoTime() - start) / 1_000_000
+            + " ms");
+  }
+}
@@ -0,0 +1,90 @@
+import java.math.BigInteger;
+import java.util.Arrays;
+
+import model.BoardGeometry;
+import model.BoardSymmetry;
+import model.MarbleSolitaireModel;
+import model.SolutionCounter;
+
+/**
+ * Class for counting the solutions of a game from the command line. Takes the same arguments as
+ * (@code PlayMarbleSolitaire), plus an optional "-target [row col]" for the slot the last marble
+ * should be left in, and prints the number of distinct move sequences that win the game. Without a
+ * "-hole", it prints the count for every starting hole of the board instead.
+ */
+public class CountMarbleSolitaire {
+  /**
+   * The main method to count solutions.
+   * @param args command-line arguments
+   */
+  public static void main(String[] args) {
+    MarbleSolitaireModel model = SolveMarbleSolitaire.modelFor(args);
+    if (model == null) {
+      System.out.println("Usage: (english|european|triangular) (-size [size]) (-hole [row col])"
+              + " (-target [row col])");
+      return;
+    }
+    int targetRow = -1;
+    int targetCol = -1;
+    boolean everyHole = true;
+    for (int i = 0; i < args.length; i++) {
+      if (args[i].equals("-target")) {
+        targetRow = Integer.parseInt(args[i + 1]) - 1;
+        targetCol = Integer.parseInt(args[i + 2]) - 1;
+      } else if (args[i].equals("-hole")) {
+        everyHole = false;
+      }
+    }
+    SolutionCounter counter = new SolutionCounter();
+    if (!everyHole) {
+      long start = System.nanoTime();
+      BigInteger count = count(counter, model, targetRow, targetCol);
+      System.out.println(count + " solutions, " + (System.nanoTime() - start) / 1_000_000
+              + " ms");
+      return;
+    }
+
+    // holes that a symmetry fixing the target maps onto each other have the same count
+    BoardGeometry geometry = BoardGeometry.of(model);
+    BoardSymmetry symmetry = BoardSymmetry.of(geometry);
+    int target = targetRow < 0 ? -1 : geometry.cellIndex(targetRow, targetCol);
+    BigInteger[] counts = new BigInteger[geometry.getCellCount()];
+    String[] holeArgs = Arrays.copyOf(args, args.length + 3);
+    holeArgs[args.length] = "-hole";
+    for (int cell = 0; cell < counts.length; cell++) {
+      long start = System.nanoTime();
+      for (int t = 0; t < symmetry.getTransformCount() && counts[cell] == null; t++) {
+        int image = symmetry.transformCell(t, cell);
+        if (image < cell && (target < 0 || symmetry.transformCell(t, target) == target)) {
+          counts[cell] = counts[image];
+        }
+      }
+      if (counts[cell] == null) {
+        holeArgs[args.length + 1] = String.valueOf(geometry.getCellRow(cell) + 1);
+        holeArgs[args.length + 2] = String.valueOf(geometry.getCellCol(cell) + 1);
+        counts[cell] = count(counter, SolveMarbleSolitaire.modelFor(holeArgs), targetRow,
+                targetCol);
+      }
+      System.out.println("Hole " + (geometry.getCellRow(cell) + 1) + " "
+              + (geometry.getCellCol(cell) + 1) + ": " + counts[cell] + " solutions, "
+              + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+  }
+
+  /**
+   * Counts the solutions of the given game, to the given target if there is one.
+   *
+   * @param counter   the counter to use
+   * @param model     the game
+   * @param targetRow the row of the target slot, or -1 for any slot
+   * @param targetCol the column of the target slot
+   * @return the number of solutions
+   */
+  private static BigInteger count(SolutionCounter counter, MarbleSolitaireModel model,
+                                  int targetRow, int targetCol) {
+    if (targetRow < 0) {
+      return counter.count(model);
+    }
+    return counter.count(model, targetRow, targetCol);
+  }
+}
@@ -0,0 +1,51 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import model.DiskStateEnumerator;
+import model.EnumerationResult;
+import model.MarbleSolitaireModel;
+import model.StateEnumerator;
+
+/**
+ * Class for counting every position reachable from a game from the command line. Takes the same
+ * arguments as (@code PlayMarbleSolitaire), plus an optional "-threads [count]" (every available
+ * core by default) and "-min [marbles]" to stop early, and prints the number of distinct positions
+ * up to symmetry, and the time taken, for each number of marbles. With "-disk [directory]", the
+ * levels are kept in files in that directory instead of in memory, and running the same game again
+ * carries on from the last completed level.
+ */
+public class EnumerateMarbleSolitaire {
+  /**
+   * The main method to run the enumeration.
+   * @param args command-line arguments
+   * @throws IOException if the level files cannot be read or written
+   */
+  public static void main(String[] args) throws IOException {
+    MarbleSolitaireModel model = SolveMarbleSolitaire.modelFor(args);
+    if (model == null) {
+      System.out.println("Usage: (english|european|triangular) (-size [size]) (-hole [row col])"
+              + " (-threads [count]) (-min [marbles]) (-disk [directory])");
+      return;
+    }
+    int threads = Runtime.getRuntime().availableProcessors();
+    int minMarbles = 1;
+    String directory = null;
+    for (int i = 0; i < args.length; i++) {
+      if (args[i].equals("-threads")) {
+        threads = Integer.parseInt(args[i + 1]);
+      } else if (args[i].equals("-min")) {
+        minMarbles = Integer.parseInt(args[i + 1]);
+      } else if (args[i].equals("-disk")) {
+        directory = args[i + 1];
+      }
+    }
+    EnumerationResult result;
+    if (directory == null) {
+      result = new StateEnumerator(threads).enumerate(model, minMarbles);
+    } else {
+      result = new DiskStateEnumerator(Paths.get(directory), threads, 1 << 22)
+              .enumerate(model, minMarbles);
+    }
+    System.out.println(result);
+  }
+}
@@ -1,9 +1,14 @@
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 
 import controller.MarbleSolitaireControllerImpl;
+import model.BoardGeometry;
 import model.EnglishSolitaireModel;
 import model.MarbleSolitaireModel;
 import model.EuropeanSolitaireModel;
+import model.PositionClass;
+import model.SolvabilityTable;
 import model.TriangleSolitaireModel;
 import view.MarbleSolitaireTextView;
 import view.MarbleSolitaireView;
@@ -13,6 +18,9 @@ import view.TriangleSolitaireTextView;
  * Class for play testing the game. Represents a game.
  */
 public class PlayMarbleSolitaire {
+  // the table of which starting holes can be won, looked for on the class path
+  private static final String SOLVABILITY_TABLE = "/solvability.bin";
+
   /**
    * The main method to play the game.
    * @param args command-line arguments
@@ -77,8 +85,45 @@ public class PlayMarbleSolitaire {
         break;
     }
 
+    // warn before playing if the chosen hole can never be won
+    if (inputPos && model != null) {
+      warnIfUnwinnable(gameType, size, row, col, model);
+    }
+
     // make controller from information and use it to play the game
     MarbleSolitaireControllerImpl controller = new MarbleSolitaireControllerImpl(model, view, in);
     controller.playGame();
   }
+
+  /**
+   * Prints a warning if the game started at the given hole cannot be won. The solvability table
+   * is only read here, when a hole was asked for. On a board it does not cover, or when it is
+   * missing, the game's position class is checked instead, which catches fewer such holes but
+   * takes constant time on a board of any size.
+   *
+   * @param gameType the type of board, as given on the command line
+   * @param size     the size of the board
+   * @param row      the row of the starting hole, starting at 0
+   * @param col      the column of the starting hole, starting at 0
+   * @param model    the game started at the hole
+   */
+  private static void warnIfUnwinnable(String gameType, int size, int row, int col,
+                                       MarbleSolitaireModel model) {
+    BoardGeometry.Shape shape = gameType.equals("english") ? BoardGeometry.Shape.English
+            : gameType.equals("european") ? BoardGeometry.Shape.European
+            : BoardGeometry.Shape.Triangle;
+    boolean winnable;
+    try (InputStream table = PlayMarbleSolitaire.class.getResourceAsStream(SOLVABILITY_TABLE)) {
+      SolvabilityTable solvability = table == null ? null : SolvabilityTable.read(table);
+      winnable = solvability != null && solvability.covers(shape, size)
+              ? solvability.canWin(shape, size, row, col) : PositionClass.canFinish(model);
+    } catch (IOException e) {
+      // a broken table is no reason not to play, or not to check the class
+      winnable = PositionClass.canFinish(model);
+    }
+    if (!winnable) {
+      System.out.println("Warning: this game cannot be won, no sequence of moves from this hole"
+              + " leaves a single marble.");
+    }
+  }
 }
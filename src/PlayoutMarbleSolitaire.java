@@ -0,0 +1,58 @@
+import model.MarbleSolitaireModel;
+import model.PackedMove;
+import model.PlayoutEngine;
+import model.PlayoutResult;
+
+/**
+ * Class for playing random games out from the command line. Takes the same arguments as
+ * (@code PlayMarbleSolitaire), plus an optional "-playouts [count]", the games to play after each
+ * first move (1,000,000 by default), "-threads [count]" (every available core by default) and
+ * "-seed [seed]", and prints for each first move the share of its games that were won, the
+ * average number of marbles left and how many games left each number of marbles.
+ */
+public class PlayoutMarbleSolitaire {
+  /**
+   * The main method to play the games.
+   * @param args command-line arguments
+   */
+  public static void main(String[] args) {
+    MarbleSolitaireModel model = SolveMarbleSolitaire.modelFor(args);
+    if (model == null) {
+      System.out.println("Usage: (english|european|triangular) (-size [size]) (-hole [row col])"
+              + " (-playouts [count]) (-threads [count]) (-seed [seed])");
+      return;
+    }
+    long playouts = 1_000_000;
+    int threads = Runtime.getRuntime().availableProcessors();
+    long seed = System.nanoTime();
+    for (int i = 0; i < args.length; i++) {
+      if (args[i].equals("-playouts")) {
+        playouts = Long.parseLong(args[i + 1]);
+      } else if (args[i].equals("-threads")) {
+        threads = Integer.parseInt(args[i + 1]);
+      } else if (args[i].equals("-seed")) {
+        seed = Long.parseLong(args[i + 1]);
+      }
+    }
+    PlayoutResult result = new PlayoutEngine(threads).run(model, playouts, seed);
+    int size = model.getBoardSize();
+    int marbles = model.getScore();
+    for (int i = 0; i < result.getMoveCount(); i++) {
+      int move = result.getMove(i);
+      StringBuilder line = new StringBuilder();
+      line.append(PackedMove.fromRow(move, size) + 1).append(' ')
+              .append(PackedMove.fromCol(move, size) + 1).append(' ')
+              .append(PackedMove.toRow(move, size) + 1).append(' ')
+              .append(PackedMove.toCol(move, size) + 1)
+              .append(String.format(": won %.4f%%, %.2f marbles left on average;",
+                      100 * result.getWinRate(i), result.getMeanMarbles(i)));
+      for (int left = 1; left < marbles; left++) {
+        if (result.getCount(i, left) > 0) {
+          line.append(' ').append(left).append('=').append(result.getCount(i, left));
+        }
+      }
+      System.out.println(line);
+    }
+    System.out.println(result);
+  }
+}
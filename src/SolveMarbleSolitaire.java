@@ -0,0 +1,150 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import model.BeamSearchResult;
+import model.BeamSearchSolver;
+import model.BidirectionalSolver;
+import model.EndgameTablebase;
+import model.EnglishSolitaireModel;
+import model.EuropeanSolitaireModel;
+import model.MarbleSolitaireModel;
+import model.PackedMove;
+import model.SolitaireSolver;
+import model.SolverResult;
+import model.TriangleSolitaireModel;
+
+/**
+ * Class for solving a game from the command line. Takes the same arguments as
+ * (@code PlayMarbleSolitaire), plus an optional "-target [row col]" for the slot the last marble
+ * should be left in, "-tablebase [file]" for an endgame tablebase of the board made by
+ * (@code BuildEndgameTablebase), and "-bidirectional" to search from both ends at once, which
+ * suits large boards, and prints the moves of a solution along with the number of positions
+ * searched and the time taken. With "-beam [width]", and optionally "-heuristic
+ * (isolated|spread|pagoda)", it instead runs a beam search and prints the positions kept and the
+ * time taken at each depth, then the fewest marbles found.
+ */
+public class SolveMarbleSolitaire {
+  /**
+   * The main method to solve a game.
+   * @param args command-line arguments
+   * @throws IOException if the tablebase cannot be read
+   */
+  public static void main(String[] args) throws IOException {
+    MarbleSolitaireModel model = modelFor(args);
+    if (model == null) {
+      System.out.println("Usage: (english|european|triangular) (-size [size]) (-hole [row col])"
+              + " (-target [row col]) (-tablebase [file]) (-bidirectional)"
+              + " (-beam [width] (-heuristic (isolated|spread|pagoda)))");
+      return;
+    }
+    EndgameTablebase tablebase = null;
+    boolean bidirectional = false;
+    int beamWidth = 0;
+    BeamSearchSolver.Heuristic heuristic = BeamSearchSolver.Heuristic.Spread;
+    int targetRow = -1;
+    int targetCol = -1;
+    for (int i = 0; i < args.length; i++) {
+      if (args[i].equals("-tablebase")) {
+        tablebase = EndgameTablebase.open(Paths.get(args[i + 1]));
+      } else if (args[i].equals("-bidirectional")) {
+        bidirectional = true;
+      } else if (args[i].equals("-beam")) {
+        beamWidth = Integer.parseInt(args[i + 1]);
+      } else if (args[i].equals("-heuristic")) {
+        heuristic = BeamSearchSolver.Heuristic.valueOf(
+                args[i + 1].substring(0, 1).toUpperCase() + args[i + 1].substring(1));
+      } else if (args[i].equals("-target")) {
+        targetRow = Integer.parseInt(args[i + 1]) - 1;
+        targetCol = Integer.parseInt(args[i + 2]) - 1;
+      }
+    }
+    if (beamWidth > 0) {
+      BeamSearchResult result = new BeamSearchSolver(beamWidth, heuristic).solve(model);
+      int marbles = model.getScore();
+      for (int depth = 1; depth <= result.getDepthCount(); depth++) {
+        System.out.println((marbles - depth) + " marbles: " + result.getWidth(depth)
+                + " positions, " + result.getDepthNanos(depth) / 1_000_000 + " ms");
+      }
+      System.out.println(result);
+      return;
+    }
+    SolverResult result;
+    if (bidirectional) {
+      BidirectionalSolver solver = new BidirectionalSolver();
+      result = targetRow < 0 ? solver.solve(model) : solver.solve(model, targetRow, targetCol);
+    } else {
+      SolitaireSolver solver = new SolitaireSolver(true, null, tablebase);
+      result = targetRow < 0 ? solver.solve(model) : solver.solve(model, targetRow, targetCol);
+    }
+    printResult(model, result);
+  }
+
+  /**
+   * Builds the game described by the given command-line arguments, in the format of
+   * (@code PlayMarbleSolitaire).
+   *
+   * @param args command-line arguments
+   * @return the game, or null if no board type was given
+   * @throws IllegalArgumentException if the size or hole is invalid for the board type
+   */
+  static MarbleSolitaireModel modelFor(String[] args) throws IllegalArgumentException {
+    String gameType = "";
+    int size = 0;
+    int row = 0;
+    int col = 0;
+    boolean inputPos = false;
+
+    for (int i = 0; i < args.length; i++) {
+      if (args[i].equals("english") || args[i].equals("european")) {
+        gameType = args[i];
+        size = 3;
+      } else if (args[i].equals("triangular")) {
+        gameType = args[i];
+        size = 5;
+        row = 0;
+        col = 0;
+      } else if (args[i].equals("-size")) {
+        size = Integer.parseInt(args[i + 1]);
+      } else if (args[i].equals("-hole")) {
+        row = Integer.parseInt(args[i + 1]) - 1;
+        col = Integer.parseInt(args[i + 2]) - 1;
+        inputPos = true;
+      }
+    }
+
+    // dynamically calculate the center for english/european if only size was provided
+    if (!inputPos && !gameType.equals("triangular")) {
+      double center = (1.5 * size) - 1.5;
+      row = (int) center;
+      col = (int) center;
+    }
+
+    switch (gameType) {
+      case "english":
+        return new EnglishSolitaireModel(size, row, col);
+      case "european":
+        return new EuropeanSolitaireModel(size, row, col);
+      case "triangular":
+        return new TriangleSolitaireModel(size, row, col);
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * Prints the moves of a solution, 1-indexed as the game takes them, and the search statistics.
+   *
+   * @param model  the solved game
+   * @param result the outcome of the search
+   */
+  static void printResult(MarbleSolitaireModel model, SolverResult result) {
+    int size = model.getBoardSize();
+    for (int move : result.getMoves()) {
+      System.out.println((PackedMove.fromRow(move, size) + 1) + " "
+              + (PackedMove.fromCol(move, size) + 1) + " "
+              + (PackedMove.toRow(move, size) + 1) + " "
+              + (PackedMove.toCol(move, size) + 1));
+    }
+    System.out.println(result);
+  }
+}
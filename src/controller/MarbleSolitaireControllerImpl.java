@@ -6,7 +6,10 @@ import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Scanner;
 
+import model.HintEngine;
 import model.MarbleSolitaireModel;
+import model.MarbleSolitaireModelState.MoveResult;
+import model.PackedMove;
 import view.MarbleSolitaireView;
 
 /**
@@ -16,9 +19,10 @@ public class MarbleSolitaireControllerImpl implements MarbleSolitaireController
   MarbleSolitaireModel model;
   MarbleSolitaireView view;
   Readable in;
+  HintEngine hints;
 
   /**
-   * Creates a controller.
+   * Creates a controller that gives hints within 50 milliseconds.
    *
    * @param model the MarbleSolitaireModel object
    * @param view  the MarbleSolitaireView object
@@ -30,12 +34,28 @@ public class MarbleSolitaireControllerImpl implements MarbleSolitaireController
   // Appendable object was used to set it up.
   public MarbleSolitaireControllerImpl(MarbleSolitaireModel model, MarbleSolitaireView view,
                                        Readable in) throws IllegalArgumentException {
-    if (model == null || view == null || in == null) {
+    this(model, view, in, new HintEngine());
+  }
+
+  /**
+   * Creates a controller that asks the given engine for hints.
+   *
+   * @param model the MarbleSolitaireModel object
+   * @param view  the MarbleSolitaireView object
+   * @param in    the input stream
+   * @param hints the engine that suggests moves when the user types "hint"
+   * @throws IllegalArgumentException when any of the inputs are null
+   */
+  public MarbleSolitaireControllerImpl(MarbleSolitaireModel model, MarbleSolitaireView view,
+                                       Readable in, HintEngine hints)
+          throws IllegalArgumentException {
+    if (model == null || view == null || in == null || hints == null) {
       throw new IllegalArgumentException("must have non-null model, view, and input");
     } else {
       this.model = model;
       this.view = view;
       this.in = in;
+      this.hints = hints;
     }
   }
 
@@ -63,6 +83,14 @@ public class MarbleSolitaireControllerImpl implements MarbleSolitaireController
         } else if (scan.hasNext("q") || scan.hasNext("Q")) {
           // quit if "q" or "Q"
           quit = true; // logically break out of loop, not just a break/return escape
+        } else if (scan.hasNext("hint") || scan.hasNext("HINT")) {
+          // suggest a move, keeping any part of a move already typed
+          scan.next();
+          try {
+            this.renderHint();
+          } catch (IOException e) {
+            throw new IllegalStateException(e);
+          }
         } else {
           // ignore all other character inputs
           try {
@@ -82,8 +110,17 @@ public class MarbleSolitaireControllerImpl implements MarbleSolitaireController
         int toCol = input.get(3) - 1;
 
         // make the move, or ask for new move if invalid move
-        try {
-          this.model.move(fromRow, fromCol, toRow, toCol);
+        // (checked up front, so an invalid move never costs an exception)
+        boolean moved = false;
+        if (this.model.canMove(fromRow, fromCol, toRow, toCol) == MoveResult.Valid) {
+          try {
+            this.model.move(fromRow, fromCol, toRow, toCol);
+            moved = true;
+          } catch (IllegalArgumentException e) {
+            // a model whose canMove accepts a move its move() rejects gets the same message
+          }
+        }
+        if (moved) {
           // display board and score
           try {
             if (!model.isGameOver()) {
@@ -92,9 +129,8 @@ public class MarbleSolitaireControllerImpl implements MarbleSolitaireController
           } catch (IOException e) {
             throw new IllegalStateException(e);
           }
-        } catch (IllegalArgumentException e) {
+        } else {
           try {
-            // this.view.renderMessage("Invalid move. Play again. (" + e.getMessage() + ")\n");
             this.view.renderMessage("Invalid move. Play again.\n");
           } catch (IOException io) {
             throw new IllegalStateException(io);
@@ -125,6 +161,29 @@ public class MarbleSolitaireControllerImpl implements MarbleSolitaireController
     }
   }
 
+  /**
+   * Renders a suggested move, 1-indexed in the same form moves are typed in.
+   *
+   * @throws IOException when any input/output error occurs
+   */
+  private void renderHint() throws IOException {
+    int move;
+    try {
+      move = this.hints.hint(this.model);
+    } catch (IllegalArgumentException e) {
+      // the engine only knows the standard boards
+      move = -1;
+    }
+    if (move < 0) {
+      this.view.renderMessage("No hint available.\n");
+      return;
+    }
+    int size = this.model.getBoardSize();
+    this.view.renderMessage("Hint: " + (PackedMove.fromRow(move, size) + 1) + " "
+            + (PackedMove.fromCol(move, size) + 1) + " " + (PackedMove.toRow(move, size) + 1) + " "
+            + (PackedMove.toCol(move, size) + 1) + "\n");
+  }
+
   /**
    * Renders the board, and score on new lines.
    *
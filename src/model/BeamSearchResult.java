@@ -0,0 +1,103 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Represents the outcome of a beam search: the fewest marbles it could leave, and for each move
+ * deep it went, how many positions it kept and how long the move took.
+ */
+public final class BeamSearchResult {
+  private final int marbles;
+  private final int[] widths;
+  private final long[] depthNanos;
+  private final long nanos;
+
+  /**
+   * Constructs the outcome of a beam search.
+   *
+   * @param marbles    the fewest marbles left by any position the search reached
+   * @param widths     for each move deep, the number of positions kept
+   * @param depthNanos for each move deep, the time it took, in nanoseconds
+   * @param nanos      the time the whole search took, in nanoseconds
+   * @throws IllegalArgumentException when the two arrays differ in length
+   */
+  public BeamSearchResult(int marbles, int[] widths, long[] depthNanos, long nanos)
+          throws IllegalArgumentException {
+    if (widths.length != depthNanos.length) {
+      throw new IllegalArgumentException("Must provide one time per depth");
+    }
+    this.marbles = marbles;
+    this.widths = widths.clone();
+    this.depthNanos = depthNanos.clone();
+    this.nanos = nanos;
+  }
+
+  /**
+   * Returns the fewest marbles left by any position the search reached.
+   *
+   * @return the number of marbles, 1 if the search won the game
+   */
+  public int getMarbles() {
+    return this.marbles;
+  }
+
+  /**
+   * Returns the number of moves deep the search went.
+   *
+   * @return the number of depths
+   */
+  public int getDepthCount() {
+    return this.widths.length;
+  }
+
+  /**
+   * Returns the number of positions kept after the given number of moves.
+   *
+   * @param depth the number of moves, from 1
+   * @return the number of positions
+   */
+  public int getWidth(int depth) {
+    return this.widths[depth - 1];
+  }
+
+  /**
+   * Returns the time the search took to make the given move.
+   *
+   * @param depth the number of moves, from 1
+   * @return the elapsed time, in nanoseconds
+   */
+  public long getDepthNanos(int depth) {
+    return this.depthNanos[depth - 1];
+  }
+
+  /**
+   * Returns the time the whole search took.
+   *
+   * @return the elapsed time, in nanoseconds
+   */
+  public long getNanos() {
+    return this.nanos;
+  }
+
+  @Override
+  public String toString() {
+    return this.marbles + (this.marbles == 1 ? " marble" : " marbles") + " left after "
+            + this.widths.length + " moves, " + (this.nanos / 1_000_000) + " ms";
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (!(other instanceof BeamSearchResult)) {
+      return false;
+    }
+    BeamSearchResult that = (BeamSearchResult) other;
+    return this.marbles == that.marbles && Arrays.equals(this.widths, that.widths)
+            && Arrays.equals(this.depthNanos, that.depthNanos) && this.nanos == that.nanos;
+  }
+
+  @Override
+  public int hashCode() {
+    return this.marbles ^ Arrays.hashCode(this.widths) ^ Arrays.hashCode(this.depthNanos)
+            ^ Long.hashCode(this.nanos);
+  }
+}
@@ -0,0 +1,421 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Searches for the fewest marbles a game can be left with by beam search, for boards too large for
+ * the exhaustive solvers. The search goes one move deeper at a time, like a breadth-first search,
+ * but of all the distinct positions one move past those it kept, it keeps only a fixed number,
+ * the width: those a (@code Heuristic) ranks best. Positions that are the same under the board's
+ * symmetries are kept once, and a position that some pagoda function of the board shows cannot be
+ * cleared down to one marble is ranked below every other, so it is only kept when too few others
+ * are left.
+ *
+ * <p>The search holds at most the positions it kept and twice the width of the positions one move
+ * past them, each as a packed board and a word for its rank, so its memory grows with the width
+ * and the size of the board and not with the number of positions reachable. The new positions are
+ * gathered in a buffer, and whenever the buffer fills, the repeats of each board are dropped and
+ * all but the best width of the rest by rank are thrown away.
+ *
+ * <p>A beam search cannot show that a game cannot be won, and how close it gets depends on the
+ * width and the heuristic: it reports the fewest marbles of any position it reached, along with
+ * the positions kept and the time taken at each depth, but not the moves that reach it.
+ */
+public class BeamSearchSolver {
+  /**
+   * How positions are ranked, the best first.
+   */
+  public enum Heuristic {
+    // the fewest marbles with no marble next to them, then the smallest spread
+    Isolated,
+    // the fewest pairs of neighbouring slots with a marble in only one, which is smallest when the
+    // marbles are packed together
+    Spread,
+    // the largest total value over the board's pagoda functions, then the smallest spread
+    Pagoda
+  }
+
+  // the positions kept at each depth when no width is given
+  private static final int DEFAULT_WIDTH = 1 << 12;
+  // the secondary rank of a position takes the low bits of its rank word
+  private static final int TIE_SHIFT = 24;
+  // added to the rank of a position that cannot be won, which is kept only when too few others are
+  private static final long DEAD = 1L << 61;
+  // every rank at least this large is that of a position that cannot be won
+  private static final long DEAD_RANKS = DEAD >> 1;
+  // the most pagoda functions used, as each costs time on every new position
+  private static final int MAX_FUNCTIONS = 16;
+
+  private final int width;
+  private final Heuristic heuristic;
+
+  /**
+   * Constructs a solver that keeps 4096 positions at each depth, ranked by their spread.
+   */
+  public BeamSearchSolver() {
+    this(DEFAULT_WIDTH, Heuristic.Spread);
+  }
+
+  /**
+   * Constructs a solver that keeps the given number of positions at each depth, ranked by the
+   * given heuristic.
+   *
+   * @param width     the number of positions to keep
+   * @param heuristic how to rank positions
+   * @throws IllegalArgumentException when (@code width) is not positive or (@code heuristic) is
+   *                                  null
+   */
+  public BeamSearchSolver(int width, Heuristic heuristic) throws IllegalArgumentException {
+    if (width < 1) {
+      throw new IllegalArgumentException("Width must be positive");
+    }
+    if (heuristic == null) {
+      throw new IllegalArgumentException("Must provide a non-null heuristic");
+    }
+    this.width = width;
+    this.heuristic = heuristic;
+  }
+
+  /**
+   * Searches for the fewest marbles the given game can be left with.
+   *
+   * @param model the game, which is left unchanged
+   * @return the fewest marbles found, and the work done at each depth
+   * @throws IllegalArgumentException when (@code model) is null or its board is of no known type
+   */
+  public BeamSearchResult solve(MarbleSolitaireModelState model) throws IllegalArgumentException {
+    long start = System.nanoTime();
+    BoardGeometry geometry = BoardGeometry.of(model);
+    return new Search(geometry, this.width, this.heuristic).run(model, start);
+  }
+
+  /**
+   * A beam search of one game.
+   */
+  private static final class Search {
+    private final int width;
+    private final Heuristic heuristic;
+    private final BoardSymmetry symmetry;
+    private final int words;
+    // the words of a record: its rank, then the packed board in the higher words
+    private final int record;
+    private final int[] from;
+    private final int[] over;
+    private final int[] to;
+    // the neighbouring slots of each pair, and the neighbours of each slot
+    private final int[] left;
+    private final int[] right;
+    private final int[][] neighbours;
+    // the strongest of the board's pagoda functions, the least value of each that can still be
+    // won, and the change each jump makes to each, by jump and then function
+    private final PagodaFunction[] functions;
+    private final int[] bounds;
+    private final int[] deltas;
+
+    /**
+     * Prepares to search on the given board.
+     *
+     * @param geometry  the board
+     * @param width     the number of positions to keep
+     * @param heuristic how to rank positions
+     */
+    private Search(BoardGeometry geometry, int width, Heuristic heuristic) {
+      this.width = width;
+      this.heuristic = heuristic;
+      this.symmetry = BoardSymmetry.of(geometry);
+      this.words = (geometry.getCellCount() + 63) >>> 6;
+      this.record = this.words + 1;
+      this.from = geometry.jumpFromTable();
+      this.over = geometry.jumpOverTable();
+      this.to = geometry.jumpToTable();
+      // every jump's from and over slots neighbour, each pair being found by one or two jumps
+      long[] pairs = new long[this.from.length];
+      for (int jump = 0; jump < this.from.length; jump++) {
+        pairs[jump] = ((long) Math.min(this.from[jump], this.over[jump]) << 32)
+                | Math.max(this.from[jump], this.over[jump]);
+      }
+      pairs = Arrays.stream(pairs).sorted().distinct().toArray();
+      this.left = new int[pairs.length];
+      this.right = new int[pairs.length];
+      int[] degree = new int[geometry.getCellCount()];
+      for (int i = 0; i < pairs.length; i++) {
+        this.left[i] = (int) (pairs[i] >>> 32);
+        this.right[i] = (int) pairs[i];
+        degree[this.left[i]] += 1;
+        degree[this.right[i]] += 1;
+      }
+      this.neighbours = new int[degree.length][];
+      for (int cell = 0; cell < degree.length; cell++) {
+        this.neighbours[cell] = new int[degree[cell]];
+        degree[cell] = 0;
+      }
+      for (int i = 0; i < pairs.length; i++) {
+        this.neighbours[this.left[i]][degree[this.left[i]]++] = this.right[i];
+        this.neighbours[this.right[i]][degree[this.right[i]]++] = this.left[i];
+      }
+      // of the functions that weigh every slot, those whose lightest slot is the largest share of
+      // their total weight cut the soonest
+      List<PagodaFunction> library = new ArrayList<>();
+      for (PagodaFunction function : PagodaFunction.libraryOf(geometry)) {
+        if (function.getMinWeight() > 0) {
+          library.add(function);
+        }
+      }
+      library.sort(Comparator.comparingDouble(
+          (PagodaFunction function) -> -function.getMinWeight()
+                  / (double) function.getTotalWeight()));
+      this.functions = library.subList(0, Math.min(library.size(), MAX_FUNCTIONS))
+              .toArray(new PagodaFunction[0]);
+      this.bounds = new int[this.functions.length];
+      this.deltas = new int[this.from.length * this.functions.length];
+      for (int i = 0; i < this.functions.length; i++) {
+        // one marble left anywhere is worth at least the function's lightest slot
+        this.bounds[i] = this.functions[i].getMinWeight();
+        for (int jump = 0; jump < this.from.length; jump++) {
+          this.deltas[jump * this.functions.length + i] = this.functions[i].getJumpDelta(jump);
+        }
+      }
+    }
+
+    /**
+     * Runs the search.
+     *
+     * @param model the game
+     * @param start the time the search started, by (@code System.nanoTime)
+     * @return the outcome of the search
+     */
+    private BeamSearchResult run(MarbleSolitaireModelState model, long start) {
+      long[] board = new long[this.words];
+      BoardGeometry.of(model).pack(model, board);
+      int marbles = model.getScore();
+      long[] kept = new long[this.width * this.words];
+      this.canonical(board, kept, 0, new long[this.words]);
+      int count = 1;
+
+      long[] buffer = new long[2 * this.width * this.record];
+      long[] parent = new long[this.words];
+      long[] child = new long[this.words];
+      long[] scratch = new long[this.words];
+      int[] values = new int[this.functions.length];
+      int[] widths = new int[Math.max(0, marbles - 1)];
+      long[] depthNanos = new long[widths.length];
+      int depth = 0;
+      while (marbles > 1) {
+        long time = System.nanoTime();
+        int found = 0;
+        for (int position = 0; position < count; position++) {
+          System.arraycopy(kept, position * this.words, parent, 0, this.words);
+          for (int i = 0; i < this.functions.length; i++) {
+            values[i] = this.functions[i].valueOf(parent);
+          }
+          for (int jump = 0; jump < this.from.length; jump++) {
+            if (!this.canJump(parent, jump)) {
+              continue;
+            }
+            System.arraycopy(parent, 0, child, 0, this.words);
+            this.jump(child, jump);
+            int slot = found * this.record;
+            this.canonical(child, buffer, slot + 1, scratch);
+            buffer[slot] = this.rank(child, values, jump)
+                    + (this.canWin(values, jump) ? 0 : DEAD);
+            found += 1;
+            if (found == 2 * this.width) {
+              found = this.best(buffer, found);
+            }
+          }
+        }
+        found = this.best(buffer, found);
+        if (found == 0) {
+          break;
+        }
+        for (int position = 0; position < found; position++) {
+          System.arraycopy(buffer, position * this.record + 1, kept, position * this.words,
+                  this.words);
+        }
+        count = found;
+        marbles -= 1;
+        widths[depth] = count;
+        depthNanos[depth] = System.nanoTime() - time;
+        depth += 1;
+      }
+      return new BeamSearchResult(marbles, Arrays.copyOf(widths, depth),
+              Arrays.copyOf(depthNanos, depth), System.nanoTime() - start);
+    }
+
+    /**
+     * Drops the repeats of each board from the given records, and keeps the best width of the rest
+     * by rank. The pagoda functions are not closed under the board's symmetries, so the copies of
+     * a board reached from differently placed parents may be ranked differently: they are matched
+     * on the board alone, which keeps the best of their ranks, unless any of them shows the board
+     * cannot be won.
+     *
+     * @param records the records, at the front of the array
+     * @param count   the number of records
+     * @return the number of records kept
+     */
+    private int best(long[] records, int count) {
+      // the board is the most significant part of a record, so the copies of each board end up
+      // together, the best ranked first
+      StateEnumerator.sort(records, count, this.record);
+      int kept = 0;
+      for (int i = 0; i < count; i++) {
+        int at = i * this.record;
+        int last = (kept - 1) * this.record;
+        if (kept == 0
+                || StateEnumerator.compare(records, at + 1, records, last + 1, this.words) != 0) {
+          System.arraycopy(records, at, records, kept * this.record, this.record);
+          kept += 1;
+        } else if (records[at] >= DEAD_RANKS && records[last] < DEAD_RANKS) {
+          records[last] += DEAD;
+        }
+      }
+      if (kept <= this.width) {
+        return kept;
+      }
+      // the rank of the last record that fits, and how many of those ranked the same fit
+      long[] ranks = new long[kept];
+      for (int i = 0; i < kept; i++) {
+        ranks[i] = records[i * this.record];
+      }
+      Arrays.sort(ranks);
+      long cut = ranks[this.width - 1];
+      int ties = 0;
+      for (int i = this.width - 1; i >= 0 && ranks[i] == cut; i--) {
+        ties += 1;
+      }
+      int selected = 0;
+      for (int i = 0; i < kept; i++) {
+        long rank = records[i * this.record];
+        if (rank < cut || (rank == cut && ties > 0)) {
+          ties -= rank == cut ? 1 : 0;
+          System.arraycopy(records, i * this.record, records, selected * this.record,
+                  this.record);
+          selected += 1;
+        }
+      }
+      return selected;
+    }
+
+    /**
+     * Ranks the given position by the search's heuristic, the best lowest.
+     *
+     * @param board  the packed board
+     * @param values the values of the pagoda functions before the jump that led to it
+     * @param jump   the jump that led to it
+     * @return the rank
+     */
+    private long rank(long[] board, int[] values, int jump) {
+      long spread = 0;
+      for (int i = 0; i < this.left.length; i++) {
+        int a = this.left[i];
+        int b = this.right[i];
+        spread += ((board[a >>> 6] >>> a) ^ (board[b >>> 6] >>> b)) & 1;
+      }
+      switch (this.heuristic) {
+        case Isolated:
+          long isolated = 0;
+          for (int w = 0; w < board.length; w++) {
+            for (long bits = board[w]; bits != 0; bits &= bits - 1) {
+              isolated += this.isolated(board, (w << 6) | Long.numberOfTrailingZeros(bits));
+            }
+          }
+          return (isolated << TIE_SHIFT) + spread;
+        case Pagoda:
+          long slack = 0;
+          for (int i = 0; i < values.length; i++) {
+            slack += values[i] + this.deltas[jump * values.length + i] - this.bounds[i];
+          }
+          return (-slack << TIE_SHIFT) + spread;
+        default:
+          return spread;
+      }
+    }
+
+    /**
+     * Determines if the marble in the given slot has no marble next to it.
+     *
+     * @param board the packed board
+     * @param cell  the dense index of the slot
+     * @return 1 if the marble is isolated, 0 otherwise
+     */
+    private int isolated(long[] board, int cell) {
+      for (int neighbour : this.neighbours[cell]) {
+        if ((board[neighbour >>> 6] & (1L << neighbour)) != 0) {
+          return 0;
+        }
+      }
+      return 1;
+    }
+
+    /**
+     * Determines if every pagoda function still allows one marble after the given jump.
+     *
+     * @param values the value of each function before the jump
+     * @param jump   the index of the jump
+     * @return false if some function shows the position after the jump cannot be won
+     */
+    private boolean canWin(int[] values, int jump) {
+      for (int i = 0; i < values.length; i++) {
+        if (values[i] + this.deltas[jump * values.length + i] < this.bounds[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Determines if the given jump is valid on the given board.
+     *
+     * @param board the packed board
+     * @param jump  the index of the jump
+     * @return true if the jump's from and over slots are full and its to slot is empty
+     */
+    private boolean canJump(long[] board, int jump) {
+      int f = this.from[jump];
+      int o = this.over[jump];
+      int t = this.to[jump];
+      return (board[f >>> 6] & (1L << f)) != 0 && (board[o >>> 6] & (1L << o)) != 0
+              && (board[t >>> 6] & (1L << t)) == 0;
+    }
+
+    /**
+     * Makes the given jump on the given board.
+     *
+     * @param board the packed board
+     * @param jump  the index of the jump
+     */
+    private void jump(long[] board, int jump) {
+      int f = this.from[jump];
+      int o = this.over[jump];
+      int t = this.to[jump];
+      board[f >>> 6] ^= 1L << f;
+      board[o >>> 6] ^= 1L << o;
+      board[t >>> 6] ^= 1L << t;
+    }
+
+    /**
+     * Writes the smallest image of the given board under the board's symmetries.
+     *
+     * @param board   the packed board
+     * @param keys    filled with the packed image
+     * @param at      the offset in (@code keys) to write at
+     * @param scratch working space
+     */
+    private void canonical(long[] board, long[] keys, int at, long[] scratch) {
+      if (this.words == 1) {
+        keys[at] = this.symmetry.canonical(board[0]);
+        return;
+      }
+      System.arraycopy(board, 0, keys, at, this.words);
+      for (int t = 1; t < this.symmetry.getTransformCount(); t++) {
+        this.symmetry.transform(t, board, scratch);
+        if (StateEnumerator.compare(scratch, 0, keys, at, this.words) < 0) {
+          System.arraycopy(scratch, 0, keys, at, this.words);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,749 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Finds a sequence of moves that leaves a single marble on the board by searching from both ends
+ * at once, meeting in the middle. A game played backwards is the same game on the complemented
+ * board: taking a jump back fills the two slots it left and empties the one it landed in. So the
+ * positions that can still be cleared down to one marble can be grown breadth-first from the
+ * single-marble positions just as the reachable ones are grown from the start, and a game of n
+ * moves is found where the positions i moves from the start meet those n - i moves from the end,
+ * neither side having to go more than about half way.
+ *
+ * <p>Each side keeps its levels as sorted arrays of primitive longs with no duplicates, as the
+ * (@code StateEnumerator) does: each position is stored as its smallest image under the symmetries
+ * that leave the target in place, one word per 64 slots. The side whose last level is smaller grows
+ * the next one, on a (@code ForkJoinPool), and once the two last levels hold as many marbles each,
+ * the positions they share are found in one pass over both. Positions of the wrong class are never
+ * searched, and when the last marble must be left in a given slot, the forward side drops the
+ * positions that a pagoda function proves cannot reach it.
+ *
+ * <p>On large boards the levels grow too many to keep long before they meet. When the next level
+ * would take the kept positions past the solver's budget, the backward side stops, and the forward
+ * side goes on down to it keeping only the most compact positions of each level, which nearly
+ * always meet it. Should they not, a depth-first search from the positions of the last whole
+ * forward level bridges the gap instead: every position it reaches with as few marbles as the last
+ * backward level is won exactly when that level holds it, so the search never looks further, and
+ * the positions it cannot win are remembered in a (@code TranspositionTable), as the
+ * (@code SolitaireSolver) does. As narrowed levels leave positions out, only whole levels or this
+ * search can prove that a game cannot be won.
+ *
+ * <p>Once the sides meet, the solution is read back from the levels: back from the meeting
+ * position through the forward levels to the start, and down from it through the backward levels
+ * to one marble, each step being the jump to a position the next level holds. The search works on
+ * packed copies of the game, so the given game is never changed, and a solver keeps nothing from
+ * one call to the next.
+ */
+public class BidirectionalSolver {
+  // the number of positions expanded by one task, which keeps each task's children in a few MB
+  private static final int CHUNK = 1 << 13;
+  // the positions kept over both sides' levels when no budget is given
+  private static final long DEFAULT_MAX_POSITIONS = 1L << 22;
+  // the most positions kept in each level once the forward side's levels are narrowed
+  private static final int NARROW_WIDTH = 1 << 14;
+
+  private final int parallelism;
+  private final long maxPositions;
+
+  /**
+   * Constructs a solver that uses every available core and keeps up to 4M positions.
+   */
+  public BidirectionalSolver() {
+    this(Runtime.getRuntime().availableProcessors(), DEFAULT_MAX_POSITIONS);
+  }
+
+  /**
+   * Constructs a solver that uses the given number of worker threads and keeps up to the given
+   * number of positions over both sides' levels, and as many dead positions when it bridges them.
+   *
+   * @param parallelism  the number of threads to grow levels with
+   * @param maxPositions the most positions to keep
+   * @throws IllegalArgumentException when (@code parallelism) or (@code maxPositions) is not
+   *                                  positive
+   */
+  public BidirectionalSolver(int parallelism, long maxPositions) throws IllegalArgumentException {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Parallelism must be positive");
+    }
+    if (maxPositions < 1) {
+      throw new IllegalArgumentException("Capacity must be positive");
+    }
+    this.parallelism = parallelism;
+    this.maxPositions = maxPositions;
+  }
+
+  /**
+   * Searches for a way to win the given game.
+   *
+   * @param model the game to solve, which is left unchanged
+   * @return the solution if there is one, along with the positions searched and time taken
+   * @throws IllegalArgumentException when (@code model) is null or its board is of no known type
+   */
+  public SolverResult solve(MarbleSolitaireModelState model) throws IllegalArgumentException {
+    return new Search(model, -1).run();
+  }
+
+  /**
+   * Searches for a way to win the given game with the last marble in the given slot.
+   *
+   * @param model     the game to solve, which is left unchanged
+   * @param targetRow the row of the slot the last marble should be left in, starting at 0
+   * @param targetCol the column of the slot the last marble should be left in, starting at 0
+   * @return the solution if there is one, along with the positions searched and time taken
+   * @throws IllegalArgumentException when (@code model) is null, its board is of no known type, or
+   *                                  the target is not a valid slot
+   */
+  public SolverResult solve(MarbleSolitaireModelState model, int targetRow, int targetCol)
+          throws IllegalArgumentException {
+    BoardGeometry geometry = BoardGeometry.of(model);
+    if (!geometry.isValid(targetRow, targetCol)) {
+      throw new IllegalArgumentException("Invalid target position (" + targetRow + ","
+              + targetCol + ")");
+    }
+    return new Search(model, geometry.cellIndex(targetRow, targetCol)).run();
+  }
+
+  /**
+   * One search, from one game to one target.
+   */
+  private final class Search {
+    private final long begin = System.nanoTime();
+    private final BoardGeometry geometry;
+    private final BoardSymmetry symmetry;
+    private final int words;
+    // the slot the last marble should be left in, or -1 for any slot
+    private final int target;
+    private final long[] start;
+    private final int marbles;
+    // the transforms that leave the target in place, under which positions are stored
+    private final int[] transforms;
+    // the two sides, and their levels: from the start, and from the single-marble positions
+    private final Side ahead;
+    private final Side behind;
+    private final List<long[]> forward = new ArrayList<>();
+    private final List<long[]> backward = new ArrayList<>();
+    private long nodes;
+    // the depth-first bridge from a forward position to the last backward level
+    private PackedPosition position;
+    private TranspositionTable dead;
+    private int[] path;
+    private int depth;
+
+    /**
+     * Prepares a search of the given game.
+     *
+     * @param model  the game
+     * @param target the dense index of the slot the last marble should be left in, or -1 for any
+     * @throws IllegalArgumentException when (@code model) is null or its board is of no known type
+     */
+    private Search(MarbleSolitaireModelState model, int target) throws IllegalArgumentException {
+      this.geometry = BoardGeometry.of(model);
+      this.symmetry = BoardSymmetry.of(this.geometry);
+      this.words = (this.geometry.getCellCount() + 63) >>> 6;
+      this.target = target;
+      this.start = new long[this.words];
+      this.geometry.pack(model, this.start);
+      this.marbles = model.getScore();
+      int count = 0;
+      int[] transforms = new int[this.symmetry.getTransformCount()];
+      for (int t = 0; t < transforms.length; t++) {
+        if (target < 0 || this.symmetry.transformCell(t, target) == target) {
+          transforms[count] = t;
+          count += 1;
+        }
+      }
+      this.transforms = Arrays.copyOf(transforms, count);
+      this.ahead = new Side(this.geometry, this.transforms, false, target);
+      this.behind = new Side(this.geometry, this.transforms, true, -1);
+    }
+
+    /**
+     * Runs the search.
+     *
+     * @return the solution if there is one, along with the positions searched and time taken
+     */
+    private SolverResult run() {
+      PositionClass classes = PositionClass.of(this.geometry);
+      int startClass = classes.classOf(this.start);
+      if (this.marbles < 1 || (this.target < 0 ? !classes.canFinish(startClass)
+              : !classes.canFinishAt(startClass, this.target))) {
+        return this.result(null);
+      }
+
+      this.forward.add(this.ahead.canonical(this.start));
+      long[] singles = new long[this.geometry.getCellCount() * this.words];
+      int count = 0;
+      long[] single = new long[this.words];
+      for (int cell = 0; cell < this.geometry.getCellCount(); cell++) {
+        if (this.target < 0 ? classes.canFinishAt(startClass, cell) : cell == this.target) {
+          Arrays.fill(single, 0);
+          single[cell >>> 6] = 1L << cell;
+          System.arraycopy(this.behind.canonical(single), 0, singles, count * this.words,
+                  this.words);
+          count += 1;
+        }
+      }
+      StateEnumerator.sort(singles, count, this.words);
+      this.backward.add(Arrays.copyOf(singles,
+              StateEnumerator.unique(singles, count, this.words) * this.words));
+
+      // grow the side with the smaller last level, until they meet or the budget runs out
+      long kept = 1 + this.backward.get(0).length / this.words;
+      ForkJoinPool pool = new ForkJoinPool(BidirectionalSolver.this.parallelism);
+      try {
+        while (this.forward.size() + this.backward.size() - 1 < this.marbles) {
+          long[] ahead = this.forward.get(this.forward.size() - 1);
+          long[] behind = this.backward.get(this.backward.size() - 1);
+          if (ahead.length == 0 || behind.length == 0) {
+            return this.result(null);
+          }
+          boolean forwards = ahead.length <= behind.length;
+          List<long[]> levels = forwards ? this.forward : this.backward;
+          long[] last = levels.get(levels.size() - 1);
+          // a level that would grow as fast as the last one did and not fit is not worth growing
+          long[] grown = levels.size() > 1 && (double) kept + (double) last.length / this.words
+                  * last.length / levels.get(levels.size() - 2).length
+                  > BidirectionalSolver.this.maxPositions ? null
+                  : pool.invoke(new ExpandTask(forwards ? this.ahead : this.behind, last, 0,
+                          last.length / this.words));
+          if (grown == null
+                  || kept + grown.length / this.words > BidirectionalSolver.this.maxPositions) {
+            List<long[]> boards = this.narrow(pool,
+                    BidirectionalSolver.this.maxPositions - kept);
+            return this.result(boards != null ? boards : this.bridge());
+          }
+          this.nodes += grown.length / this.words;
+          kept += grown.length / this.words;
+          (forwards ? this.forward : this.backward).add(grown);
+        }
+      } finally {
+        pool.shutdown();
+      }
+      return this.result(this.meet());
+    }
+
+    /**
+     * Finds a position that both sides' last levels hold, which have as many marbles.
+     *
+     * @return the boards of a solution through the position, or null if there is none
+     */
+    private List<long[]> meet() {
+      long[] ahead = this.forward.get(this.forward.size() - 1);
+      long[] behind = this.backward.get(this.backward.size() - 1);
+      int i = 0;
+      int j = 0;
+      while (i < ahead.length && j < behind.length) {
+        int order = StateEnumerator.compare(ahead, i, behind, j, this.words);
+        if (order == 0) {
+          return this.through(Arrays.copyOfRange(ahead, i, i + this.words), new int[0]);
+        }
+        if (order < 0) {
+          i += this.words;
+        } else {
+          j += this.words;
+        }
+      }
+      return null;
+    }
+
+    /**
+     * Grows the forward side on down to the last backward level, keeping only the most compact
+     * positions of each new level, those with the fewest neighbouring slots of which one holds a
+     * marble and the other does not. Marbles left in tight clusters can most often still be
+     * cleared, so these levels usually meet the backward side long before whole levels could, but
+     * as they leave positions out, failing to meet proves nothing, and the levels are dropped
+     * again.
+     *
+     * @param pool the pool to grow levels on
+     * @param room the positions the new levels may keep
+     * @return the boards of a solution through the levels, or null if they do not meet
+     */
+    private List<long[]> narrow(ForkJoinPool pool, long room) {
+      int exact = this.forward.size();
+      int levels = this.marbles - exact + 1 - this.backward.size();
+      int width = (int) Math.min(NARROW_WIDTH, room / levels);
+      while (width > 0 && this.forward.size() < exact + levels) {
+        long[] last = this.forward.get(this.forward.size() - 1);
+        if (last.length / this.words > width) {
+          // only the most compact of the last whole level are grown
+          last = this.ahead.mostCompact(last, width);
+        }
+        long[] grown = pool.invoke(new ExpandTask(this.ahead, last, 0, last.length / this.words));
+        this.nodes += grown.length / this.words;
+        if (grown.length == 0) {
+          break;
+        }
+        this.forward.add(grown.length / this.words > width
+                ? this.ahead.mostCompact(grown, width) : grown);
+      }
+      List<long[]> boards = this.forward.size() == exact + levels ? this.meet() : null;
+      while (this.forward.size() > exact) {
+        this.forward.remove(this.forward.size() - 1);
+      }
+      return boards;
+    }
+
+    /**
+     * Searches depth-first from each position of the last forward level for a way down to a
+     * position of the last backward level.
+     *
+     * @return the boards of a solution through the bridge found, or null if there is none
+     */
+    private List<long[]> bridge() {
+      long[] roots = this.forward.get(this.forward.size() - 1);
+      this.dead = TranspositionTable.forBoard(this.geometry,
+              BidirectionalSolver.this.maxPositions);
+      long[] root = new long[this.words];
+      for (int at = 0; at < roots.length; at += this.words) {
+        System.arraycopy(roots, at, root, 0, this.words);
+        this.position = new PackedPosition(this.geometry, root, this.target);
+        this.path = new int[this.position.getMarbles() - this.backward.size()];
+        this.depth = 0;
+        if (this.search()) {
+          return this.through(root, Arrays.copyOf(this.path, this.depth));
+        }
+      }
+      return null;
+    }
+
+    /**
+     * Searches the current position for a way down to the last backward level, leaving the jumps
+     * in the path if it finds them.
+     *
+     * @return true if the current position leads to a position of the last backward level
+     */
+    private boolean search() {
+      this.nodes += 1;
+      if (this.position.getMarbles() == this.backward.size()) {
+        return this.find(this.backward.get(this.backward.size() - 1),
+                this.ahead.canonical(this.position.getBoard())) >= 0;
+      }
+      if (!this.position.canReachTarget()) {
+        return false;
+      }
+      long key = this.position.key();
+      if (this.dead.contains(key)) {
+        return false;
+      }
+      for (int jump = 0; jump < this.position.getJumpCount(); jump++) {
+        if (this.position.canJump(jump)) {
+          this.position.jump(jump);
+          this.path[this.depth] = jump;
+          this.depth += 1;
+          if (this.search()) {
+            return true;
+          }
+          this.depth -= 1;
+          this.position.unjump(jump);
+        }
+      }
+      this.dead.put(key, this.position.getMarbles());
+      return false;
+    }
+
+    /**
+     * Finds the given position in the given level.
+     *
+     * @param level the level
+     * @param key   the position's smallest image
+     * @return the index of the position's first word, or -1 if the level does not hold it
+     */
+    private int find(long[] level, long[] key) {
+      int lo = 0;
+      int hi = level.length / this.words - 1;
+      while (lo <= hi) {
+        int mid = (lo + hi) >>> 1;
+        int order = StateEnumerator.compare(level, mid * this.words, key, 0, this.words);
+        if (order == 0) {
+          return mid * this.words;
+        } else if (order < 0) {
+          lo = mid + 1;
+        } else {
+          hi = mid - 1;
+        }
+      }
+      return -1;
+    }
+
+    /**
+     * Reads back the boards of a whole game through the given position of the last forward level
+     * and the given jumps from it, which lead to a position of the last backward level.
+     *
+     * @param root  the position of the last forward level
+     * @param jumps the jumps from it
+     * @return the boards of the game, from the start to one marble
+     */
+    private List<long[]> through(long[] root, int[] jumps) {
+      List<long[]> boards = new ArrayList<>();
+      long[] board = root.clone();
+      boards.add(board);
+      // back through the forward levels, each step taking back a jump to a position the level
+      // before holds
+      for (int level = this.forward.size() - 2; level >= 0; level--) {
+        board = this.step(board, this.forward.get(level), true);
+        boards.add(0, board);
+      }
+      board = root.clone();
+      for (int jump : jumps) {
+        board = board.clone();
+        this.flip(board, jump);
+        boards.add(board);
+      }
+      for (int level = this.backward.size() - 2; level >= 0; level--) {
+        board = this.step(board, this.backward.get(level), false);
+        boards.add(board);
+      }
+
+      // the boards are in the frame of the stored positions, whose first is an image of the start
+      long[] image = new long[this.words];
+      int inverse = -1;
+      for (int t : this.transforms) {
+        this.symmetry.transform(t, this.start, image);
+        if (Arrays.equals(image, boards.get(0))) {
+          inverse = this.symmetry.inverse(t);
+          break;
+        }
+      }
+      for (int i = 0; i < boards.size(); i++) {
+        long[] original = new long[this.words];
+        this.symmetry.transform(inverse, boards.get(i), original);
+        boards.set(i, original);
+      }
+      return boards;
+    }
+
+    /**
+     * Returns the position one jump from the given one that the given level holds.
+     *
+     * @param board     the position
+     * @param level     the level
+     * @param backwards true to take a jump back, false to make one
+     * @return the position found
+     */
+    private long[] step(long[] board, long[] level, boolean backwards) {
+      for (int jump = 0; jump < this.geometry.getJumpCount(); jump++) {
+        if (this.can(board, jump, backwards)) {
+          long[] next = board.clone();
+          this.flip(next, jump);
+          if (this.find(level, this.ahead.canonical(next)) >= 0) {
+            return next;
+          }
+        }
+      }
+      throw new IllegalStateException("Level does not follow from the one before");
+    }
+
+    /**
+     * Determines if the given jump can be made, or taken back, on the given board.
+     *
+     * @param board     the packed board
+     * @param jump      the index of the jump
+     * @param backwards true to take the jump back, false to make it
+     * @return true if the jump's from and over slots are full and its to slot empty, or the
+     *         other way round when taking it back
+     */
+    private boolean can(long[] board, int jump, boolean backwards) {
+      int from = this.geometry.getJumpFrom(jump);
+      int over = this.geometry.getJumpOver(jump);
+      int to = this.geometry.getJumpTo(jump);
+      boolean full = (board[from >>> 6] & (1L << from)) != 0
+              && (board[over >>> 6] & (1L << over)) != 0;
+      boolean empty = (board[from >>> 6] & (1L << from)) == 0
+              && (board[over >>> 6] & (1L << over)) == 0;
+      boolean landed = (board[to >>> 6] & (1L << to)) != 0;
+      return backwards ? empty && landed : full && !landed;
+    }
+
+    /**
+     * Flips the three slots of the given jump.
+     *
+     * @param board the packed board
+     * @param jump  the index of the jump
+     */
+    private void flip(long[] board, int jump) {
+      int from = this.geometry.getJumpFrom(jump);
+      int over = this.geometry.getJumpOver(jump);
+      int to = this.geometry.getJumpTo(jump);
+      board[from >>> 6] ^= 1L << from;
+      board[over >>> 6] ^= 1L << over;
+      board[to >>> 6] ^= 1L << to;
+    }
+
+    /**
+     * Returns the result of the search.
+     *
+     * @param boards the boards of the solution found, or null if there is none
+     * @return the result
+     */
+    private SolverResult result(List<long[]> boards) {
+      int[] moves = new int[boards == null ? 0 : boards.size() - 1];
+      for (int i = 0; i < moves.length; i++) {
+        for (int jump = 0; jump < this.geometry.getJumpCount(); jump++) {
+          long[] next = boards.get(i).clone();
+          this.flip(next, jump);
+          if (this.can(boards.get(i), jump, false) && Arrays.equals(next, boards.get(i + 1))) {
+            int from = this.geometry.getJumpFrom(jump);
+            moves[i] = PackedMove.of(this.geometry.getCellRow(from),
+                    this.geometry.getCellCol(from), this.geometry.getJumpDirection(jump),
+                    this.geometry.getDimension());
+            break;
+          }
+        }
+      }
+      return new SolverResult(boards != null, moves, this.nodes, System.nanoTime() - this.begin);
+    }
+  }
+
+  /**
+   * Grows the positions of one side: every position one jump away, or one jump back, by its
+   * smallest image under the search's transforms.
+   */
+  private static final class Side {
+    private final BoardSymmetry symmetry;
+    private final int words;
+    private final int[] transforms;
+    // true to take jumps back, growing the positions that can be cleared down to one marble
+    private final boolean backwards;
+    // the shared from, over and to slots of each jump
+    private final int[] from;
+    private final int[] over;
+    private final int[] to;
+    // the pagoda functions that can rule the target out, with the weight of the target in each
+    private final PagodaFunction[] functions;
+    private final int[] bounds;
+    // the change in value of each function per jump, indexed by jump * functions + function
+    private final int[] deltas;
+    // each pair of neighbouring slots, those a jump starts from and passes over
+    private final int[] left;
+    private final int[] right;
+
+    /**
+     * Prepares to grow positions on the given board.
+     *
+     * @param geometry   the board
+     * @param transforms the transforms positions are stored under
+     * @param backwards  true to take jumps back, false to make them
+     * @param target     the dense index of the slot the last marble should be left in, or -1 to
+     *                   keep every position
+     */
+    private Side(BoardGeometry geometry, int[] transforms, boolean backwards, int target) {
+      this.symmetry = BoardSymmetry.of(geometry);
+      this.words = (geometry.getCellCount() + 63) >>> 6;
+      this.transforms = transforms;
+      this.backwards = backwards;
+      this.from = geometry.jumpFromTable();
+      this.over = geometry.jumpOverTable();
+      this.to = geometry.jumpToTable();
+      this.functions = target < 0 ? new PagodaFunction[0]
+              : PagodaFunction.libraryOf(geometry, target).toArray(new PagodaFunction[0]);
+      this.bounds = new int[this.functions.length];
+      this.deltas = new int[this.from.length * this.functions.length];
+      for (int i = 0; i < this.functions.length; i++) {
+        this.bounds[i] = this.functions[i].getWeight(target);
+        for (int jump = 0; jump < this.from.length; jump++) {
+          this.deltas[jump * this.functions.length + i] = this.functions[i].getJumpDelta(jump);
+        }
+      }
+      // every jump's from and over slots neighbour, each pair being found by one or two jumps
+      long[] pairs = new long[this.from.length];
+      for (int jump = 0; jump < this.from.length; jump++) {
+        pairs[jump] = ((long) Math.min(this.from[jump], this.over[jump]) << 32)
+                | Math.max(this.from[jump], this.over[jump]);
+      }
+      pairs = Arrays.stream(pairs).sorted().distinct().toArray();
+      this.left = new int[pairs.length];
+      this.right = new int[pairs.length];
+      for (int i = 0; i < pairs.length; i++) {
+        this.left[i] = (int) (pairs[i] >>> 32);
+        this.right[i] = (int) pairs[i];
+      }
+    }
+
+    /**
+     * Returns the given positions' most compact: those with the fewest neighbouring slots of
+     * which one holds a marble and the other does not.
+     *
+     * @param records the records of the positions
+     * @param width   the number of positions to keep
+     * @return the records of the positions kept, sorted
+     */
+    private long[] mostCompact(long[] records, int width) {
+      int count = records.length / this.words;
+      // each position's count in the high half of a word and its index in the low half, so that
+      // sorting the words ranks the positions
+      long[] ranked = new long[count];
+      for (int position = 0; position < count; position++) {
+        int at = position * this.words;
+        int edges = 0;
+        for (int i = 0; i < this.left.length; i++) {
+          int a = this.left[i];
+          int b = this.right[i];
+          edges += (int) (((records[at + (a >>> 6)] >>> a) ^ (records[at + (b >>> 6)] >>> b))
+                  & 1);
+        }
+        ranked[position] = ((long) edges << 32) | position;
+      }
+      Arrays.sort(ranked);
+      long[] kept = new long[width * this.words];
+      for (int i = 0; i < width; i++) {
+        System.arraycopy(records, (int) ranked[i] * this.words, kept, i * this.words, this.words);
+      }
+      StateEnumerator.sort(kept, width, this.words);
+      return kept;
+    }
+
+    /**
+     * Returns the smallest image of the given board under the search's transforms.
+     *
+     * @param board the packed board
+     * @return the packed image
+     */
+    private long[] canonical(long[] board) {
+      long[] key = new long[this.words];
+      this.canonical(board, key, new long[this.words]);
+      return key;
+    }
+
+    /**
+     * Writes the smallest image of the given board under the search's transforms.
+     *
+     * @param board   the packed board
+     * @param key     filled with the packed image
+     * @param scratch working space
+     */
+    private void canonical(long[] board, long[] key, long[] scratch) {
+      if (this.words == 1) {
+        long best = board[0];
+        for (int t : this.transforms) {
+          best = Math.min(best, this.symmetry.transform(t, board[0]));
+        }
+        key[0] = best;
+        return;
+      }
+      System.arraycopy(board, 0, key, 0, this.words);
+      for (int t : this.transforms) {
+        this.symmetry.transform(t, board, scratch);
+        if (StateEnumerator.compare(scratch, 0, key, 0, this.words) < 0) {
+          System.arraycopy(scratch, 0, key, 0, this.words);
+        }
+      }
+    }
+
+    /**
+     * Determines if a position with the given values of this side's functions can still reach the
+     * target.
+     *
+     * @param values the value of each function
+     * @return true if the position is kept
+     */
+    private boolean allows(int[] values) {
+      for (int i = 0; i < values.length; i++) {
+        if (values[i] < this.bounds[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Returns the sorted, deduplicated positions one jump from the given positions that this side
+     * keeps.
+     *
+     * @param source the records of the positions
+     * @param lo     the index of the first position to expand
+     * @param hi     the index after the last position to expand
+     * @return the records of the children
+     */
+    private long[] expand(long[] source, int lo, int hi) {
+      int words = this.words;
+      long[] children = new long[Math.max(words, (hi - lo) * words * 4)];
+      int count = 0;
+      long[] board = new long[words];
+      long[] scratch = new long[words];
+      long[] key = new long[words];
+      int[] values = new int[this.functions.length];
+      int[] child = new int[this.functions.length];
+      // the slots a jump needs full, then the slot it needs empty, whichever way it is taken
+      long need = this.backwards ? 0 : 1;
+      for (int position = lo; position < hi; position++) {
+        System.arraycopy(source, position * words, board, 0, words);
+        for (int i = 0; i < values.length; i++) {
+          values[i] = this.functions[i].valueOf(board);
+        }
+        for (int jump = 0; jump < this.from.length; jump++) {
+          int f = this.from[jump];
+          int o = this.over[jump];
+          int t = this.to[jump];
+          if (((board[f >>> 6] >>> f) & 1) != need || ((board[o >>> 6] >>> o) & 1) != need
+                  || ((board[t >>> 6] >>> t) & 1) == need) {
+            continue;
+          }
+          for (int i = 0; i < values.length; i++) {
+            child[i] = values[i] + this.deltas[jump * values.length + i];
+          }
+          if (!this.allows(child)) {
+            continue;
+          }
+          if ((count + 1) * words > children.length) {
+            children = Arrays.copyOf(children, children.length * 2);
+          }
+          board[f >>> 6] ^= 1L << f;
+          board[o >>> 6] ^= 1L << o;
+          board[t >>> 6] ^= 1L << t;
+          this.canonical(board, key, scratch);
+          System.arraycopy(key, 0, children, count * words, words);
+          board[f >>> 6] ^= 1L << f;
+          board[o >>> 6] ^= 1L << o;
+          board[t >>> 6] ^= 1L << t;
+          count += 1;
+        }
+      }
+      StateEnumerator.sort(children, count, words);
+      return Arrays.copyOf(children, StateEnumerator.unique(children, count, words) * words);
+    }
+  }
+
+  /**
+   * Expands a range of a level's positions, splitting it between tasks when it is large.
+   */
+  // tasks are only ever run in this process, never serialized
+  @SuppressWarnings("serial")
+  private static final class ExpandTask extends RecursiveTask<long[]> {
+    private final Side side;
+    private final long[] source;
+    private final int lo;
+    private final int hi;
+
+    /**
+     * Constructs a task for the given range of positions.
+     *
+     * @param side   the side growing the level
+     * @param source the records of the level
+     * @param lo     the index of the first position to expand
+     * @param hi     the index after the last position to expand
+     */
+    private ExpandTask(Side side, long[] source, int lo, int hi) {
+      this.side = side;
+      this.source = source;
+      this.lo = lo;
+      this.hi = hi;
+    }
+
+    @Override
+    protected long[] compute() {
+      if (this.hi - this.lo <= CHUNK) {
+        return this.side.expand(this.source, this.lo, this.hi);
+      }
+      int mid = (this.lo + this.hi) >>> 1;
+      ExpandTask left = new ExpandTask(this.side, this.source, this.lo, mid);
+      left.fork();
+      long[] right = new ExpandTask(this.side, this.source, mid, this.hi).compute();
+      return StateEnumerator.merge(left.join(), right, this.side.words);
+    }
+  }
+}
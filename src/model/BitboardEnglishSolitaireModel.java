@@ -0,0 +1,308 @@
+package model;
+
+/**
+ * Represents the default (arm size 3) English Solitaire game board, stored as a single bitboard.
+ * Each slot of the 7x7 board is one bit of a (@code long), laid out row by row with 8 bits per row.
+ * The eighth bit of every row is never a valid slot, so it acts as a guard column that stops
+ * horizontal jumps from wrapping around onto the next row.
+ */
+public class BitboardEnglishSolitaireModel implements MarbleSolitaireModel {
+  // the number of rows/columns of the board
+  private static final int DIMENSION = 7;
+  // the number of bits used per row (one more than the dimension for the guard column)
+  private static final int ROW_BITS = 8;
+  // the bits of every valid slot on the board, shared by every game
+  private static final long VALID = validMask();
+  // the Zobrist key of each bit, the same keys every other model uses for the 7x7 grid
+  private static final long[] KEYS = zobristKeys();
+
+  // the bits of every slot that currently holds a marble
+  protected long marbles;
+  // the Zobrist hash of the position, kept up to date by move()
+  protected long hash;
+  // the moves made so far, for undo and redo
+  protected final MoveJournal journal = new MoveJournal();
+
+  /**
+   * Constructs a default solitaire game board, with the center slot empty.
+   */
+  public BitboardEnglishSolitaireModel() {
+    this(3, 3);
+  }
+
+  /**
+   * Constructs a solitaire game board given the empty slot position.
+   *
+   * @param sRow the vertical index of the empty slot
+   * @param sCol the horizontal index of the empty slot
+   * @throws IllegalArgumentException throws when the given position is invalid
+   */
+  public BitboardEnglishSolitaireModel(int sRow, int sCol) throws IllegalArgumentException {
+    if (!isValidSlot(sRow, sCol)) {
+      throw new IllegalArgumentException("Invalid empty cell position (" + sRow + "," + sCol + ")");
+    }
+    // fill every valid slot, then clear the empty one
+    this.marbles = VALID & ~bit(sRow, sCol);
+    for (long bits = this.marbles; bits != 0; bits &= bits - 1) {
+      this.hash ^= KEYS[Long.numberOfTrailingZeros(bits)];
+    }
+  }
+
+  /**
+   * Constructs a game in the given position.
+   *
+   * @param marbles the bits of every slot that holds a marble
+   * @param hash    the Zobrist hash of the position
+   */
+  private BitboardEnglishSolitaireModel(long marbles, long hash) {
+    this.marbles = marbles;
+    this.hash = hash;
+  }
+
+  /**
+   * Computes the bits of the valid slots of the marble cross.
+   *
+   * @return the mask of valid slots
+   */
+  private static long validMask() {
+    long mask = 0;
+    for (int row = 0; row < DIMENSION; row++) {
+      for (int col = 0; col < DIMENSION; col++) {
+        // the middle three rows and the middle three columns make up the cross
+        if ((row >= 2 && row <= 4) || (col >= 2 && col <= 4)) {
+          mask |= bit(row, col);
+        }
+      }
+    }
+    return mask;
+  }
+
+  /**
+   * Computes the Zobrist key of every bit of the board.
+   *
+   * @return the keys, indexed by bit
+   */
+  private static long[] zobristKeys() {
+    long[] keys = new long[DIMENSION * ROW_BITS];
+    for (int row = 0; row < DIMENSION; row++) {
+      for (int col = 0; col < DIMENSION; col++) {
+        keys[row * ROW_BITS + col] = BoardGeometry.zobristKey(DIMENSION, row, col);
+      }
+    }
+    return keys;
+  }
+
+  /**
+   * Returns the single bit that represents the given slot.
+   *
+   * @param row the row of the slot, must be in bounds
+   * @param col the column of the slot, must be in bounds
+   * @return the bit of the slot
+   */
+  private static long bit(int row, int col) {
+    return 1L << (row * ROW_BITS + col);
+  }
+
+  /**
+   * Determines if the given position is inside the grid of the board.
+   *
+   * @param row the row of the position
+   * @param col the column of the position
+   * @return true if the position is in bounds
+   */
+  private static boolean inBounds(int row, int col) {
+    return row >= 0 && row < DIMENSION && col >= 0 && col < DIMENSION;
+  }
+
+  /**
+   * Determines if the given position is a valid slot of the board.
+   *
+   * @param row the row of the position
+   * @param col the column of the position
+   * @return true if the position is in bounds and part of the marble cross
+   */
+  private static boolean isValidSlot(int row, int col) {
+    return inBounds(row, col) && (VALID & bit(row, col)) != 0;
+  }
+
+  @Override
+  public void move(int fromRow, int fromCol, int toRow, int toCol) throws IllegalArgumentException {
+    MoveResult result = this.canMove(fromRow, fromCol, toRow, toCol);
+    if (result != MoveResult.Valid) {
+      throw new IllegalArgumentException(result.getMessage());
+    }
+    // the move is packed before the board changes, so nothing is left half done
+    long move = MoveJournal.pack(fromRow, fromCol, toRow, toCol);
+    this.jump(fromRow, fromCol, toRow, toCol);
+    this.journal.record(move);
+  }
+
+  /**
+   * Makes a jump that is known to be valid, or takes it back if it was just made.
+   *
+   * @param fromRow the row of the starting position
+   * @param fromCol the column of the starting position
+   * @param toRow   the row of the end position
+   * @param toCol   the column of the end position
+   */
+  private void jump(int fromRow, int fromCol, int toRow, int toCol) {
+    // a jump flips all three slots: from and over lose their marbles, to gains one,
+    // and taking it back flips them again
+    this.marbles ^= bit(fromRow, fromCol) | bit((fromRow + toRow) / 2, (fromCol + toCol) / 2)
+            | bit(toRow, toCol);
+    this.hash ^= KEYS[fromRow * ROW_BITS + fromCol]
+            ^ KEYS[((fromRow + toRow) / 2) * ROW_BITS + (fromCol + toCol) / 2]
+            ^ KEYS[toRow * ROW_BITS + toCol];
+  }
+
+  @Override
+  public MarbleSolitaireModel fork() {
+    // the whole board is one long
+    return new BitboardEnglishSolitaireModel(this.marbles, this.hash);
+  }
+
+  @Override
+  public boolean canUndo() {
+    return this.journal.canUndo();
+  }
+
+  @Override
+  public boolean canRedo() {
+    return this.journal.canRedo();
+  }
+
+  @Override
+  public void undo() throws IllegalStateException {
+    long move = this.journal.undo();
+    this.jump(MoveJournal.fromRow(move), MoveJournal.fromCol(move), MoveJournal.toRow(move),
+            MoveJournal.toCol(move));
+  }
+
+  @Override
+  public void redo() throws IllegalStateException {
+    long move = this.journal.redo();
+    this.jump(MoveJournal.fromRow(move), MoveJournal.fromCol(move), MoveJournal.toRow(move),
+            MoveJournal.toCol(move));
+  }
+
+  @Override
+  public MoveResult canMove(int fromRow, int fromCol, int toRow, int toCol) {
+    // check that they are 2 slots away
+    // diagonals NOT permitted
+    if (!((Math.abs(toRow - fromRow) == 2 && toCol == fromCol)
+            || (Math.abs(toCol - fromCol) == 2 && toRow == fromRow))) {
+      return MoveResult.NotTwoSlots;
+    }
+    if (!inBounds(fromRow, fromCol)) {
+      return MoveResult.FromOutOfBounds;
+    }
+    if (!inBounds(toRow, toCol)) {
+      return MoveResult.ToOutOfBounds;
+    }
+    if ((this.marbles & bit(fromRow, fromCol)) == 0) {
+      return MoveResult.FromNotMarble;
+    }
+    // the to slot must be a valid slot without a marble
+    if ((VALID & ~this.marbles & bit(toRow, toCol)) == 0) {
+      return MoveResult.ToNotEmpty;
+    }
+    if ((this.marbles & bit((fromRow + toRow) / 2, (fromCol + toCol) / 2)) == 0) {
+      return MoveResult.OverNotMarble;
+    }
+    return MoveResult.Valid;
+  }
+
+  @Override
+  public boolean isGameOver() {
+    long empty = VALID & ~this.marbles;
+    for (int dir = 0; dir < 4; dir++) {
+      if (this.movesFrom(dir, empty) != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Finds every marble that can jump in the given direction. A bit survives only where a marble
+   * has a marble next to it and an empty slot two away in that direction.
+   *
+   * @param dir   the direction of the jump: 0 up, 1 down, 2 left or 3 right
+   * @param empty the bits of the empty slots
+   * @return the bits of the marbles that can jump in the direction
+   */
+  private long movesFrom(int dir, long empty) {
+    switch (dir) {
+      case 0:
+        return this.marbles & (this.marbles << ROW_BITS) & (empty << (2 * ROW_BITS));
+      case 1:
+        return this.marbles & (this.marbles >>> ROW_BITS) & (empty >>> (2 * ROW_BITS));
+      case 2:
+        return this.marbles & (this.marbles << 1) & (empty << 2);
+      default:
+        return this.marbles & (this.marbles >>> 1) & (empty >>> 2);
+    }
+  }
+
+  @Override
+  public int getLegalMoves(int[] moves) throws IllegalArgumentException {
+    if (moves == null) {
+      throw new IllegalArgumentException("Must provide a non-null move buffer");
+    }
+    long empty = VALID & ~this.marbles;
+    long up = this.movesFrom(0, empty);
+    long down = this.movesFrom(1, empty);
+    long left = this.movesFrom(2, empty);
+    long right = this.movesFrom(3, empty);
+    // visit every marble that can move, in slot order, then each of its directions
+    long any = up | down | left | right;
+    int count = 0;
+    while (any != 0) {
+      int index = Long.numberOfTrailingZeros(any);
+      long bit = any & -any;
+      any ^= bit;
+      for (int dir = 0; dir < 4; dir++) {
+        long movable = dir == 0 ? up : dir == 1 ? down : dir == 2 ? left : right;
+        if ((movable & bit) != 0) {
+          if (count == moves.length) {
+            throw new IllegalArgumentException("Move buffer is too small");
+          }
+          moves[count] = PackedMove.of(index / ROW_BITS, index % ROW_BITS, dir, DIMENSION);
+          count += 1;
+        }
+      }
+    }
+    return count;
+  }
+
+  @Override
+  public int getBoardSize() {
+    return DIMENSION;
+  }
+
+  @Override
+  public SlotState getSlotAt(int row, int col) throws IllegalArgumentException {
+    // if the position is out of the bounds of the solitaire board grid
+    if (!inBounds(row, col)) {
+      throw new IllegalArgumentException("Position out of bounds");
+    } else if ((VALID & bit(row, col)) == 0) {
+      return SlotState.Invalid;
+    } else if ((this.marbles & bit(row, col)) != 0) {
+      return SlotState.Marble;
+    } else {
+      return SlotState.Empty;
+    }
+  }
+
+  @Override
+  public int getScore() {
+    // every marble is one set bit
+    return Long.bitCount(this.marbles);
+  }
+
+  @Override
+  public long getPositionHash() {
+    // kept up to date by move()
+    return this.hash;
+  }
+}
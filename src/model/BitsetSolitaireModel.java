@@ -0,0 +1,366 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Represents a marble solitaire game of any board type and size, stored as a bitset. The board
+ * keeps one bit per valid slot, numbered by its shared (@code BoardGeometry), so invalid corners
+ * take no space and very large boards cost about one bit per slot.
+ */
+public class BitsetSolitaireModel implements MarbleSolitaireModel {
+  protected final BoardGeometry geometry;
+  // bit i is set when the valid slot with dense index i holds a marble
+  protected final long[] marbles;
+  protected int score;
+  // the Zobrist hash of the position, kept up to date by move()
+  protected long hash;
+  // the number of valid moves on the board, kept up to date by move()
+  protected int legalMoves;
+  // the moves made so far, for undo and redo
+  protected final MoveJournal journal = new MoveJournal();
+  // the rows and columns of the slots changed by a move, reused by every move
+  private final int[] changedRows = new int[3];
+  private final int[] changedCols = new int[3];
+
+  /**
+   * Constructs a default solitaire game board of the given type.
+   *
+   * @param shape the type of board
+   * @throws IllegalArgumentException when (@code shape) is null
+   */
+  public BitsetSolitaireModel(BoardGeometry.Shape shape) throws IllegalArgumentException {
+    this(shape, BoardGeometry.defaultSize(shape));
+  }
+
+  /**
+   * Constructs a solitaire game board of the given type and its default size,
+   * given the empty slot position.
+   *
+   * @param shape the type of board
+   * @param sRow  the vertical index of the empty slot
+   * @param sCol  the horizontal index of the empty slot
+   * @throws IllegalArgumentException throws when the given position is invalid
+   */
+  public BitsetSolitaireModel(BoardGeometry.Shape shape, int sRow, int sCol)
+          throws IllegalArgumentException {
+    this(shape, BoardGeometry.defaultSize(shape), sRow, sCol);
+  }
+
+  /**
+   * Constructs a solitaire game board of the given type and size. English and European boards
+   * start with their center slot empty, and Triangle boards with their top slot empty.
+   *
+   * @param shape the type of board
+   * @param size  the arm size (English) or side length (European, Triangle) of the board
+   * @throws IllegalArgumentException throws when (@code size) is invalid for the board type
+   */
+  public BitsetSolitaireModel(BoardGeometry.Shape shape, int size)
+          throws IllegalArgumentException {
+    this(shape, size, BoardGeometry.defaultEmptySlot(shape, size),
+            BoardGeometry.defaultEmptySlot(shape, size));
+  }
+
+  /**
+   * Constructs a solitaire game board of the given type and size, given the empty slot position.
+   *
+   * @param shape the type of board
+   * @param size  the arm size (English) or side length (European, Triangle) of the board
+   * @param sRow  the vertical index of the empty slot
+   * @param sCol  the horizontal index of the empty slot
+   * @throws IllegalArgumentException when the given position is invalid
+   *                                  or when (@code size) is invalid for the board type
+   */
+  public BitsetSolitaireModel(BoardGeometry.Shape shape, int size, int sRow, int sCol)
+          throws IllegalArgumentException {
+    this.geometry = BoardGeometry.of(shape, size);
+    if (!this.geometry.isValid(sRow, sCol)) {
+      throw new IllegalArgumentException("Invalid empty cell position (" + sRow + "," + sCol + ")");
+    }
+    int cells = this.geometry.getCellCount();
+    this.marbles = new long[(cells + 63) >>> 6];
+    // fill every valid slot with a marble, clearing the unused bits of the last word
+    Arrays.fill(this.marbles, -1L);
+    if ((cells & 63) != 0) {
+      this.marbles[this.marbles.length - 1] = (1L << (cells & 63)) - 1;
+    }
+    this.flip(this.geometry.cellIndex(sRow, sCol));
+    this.score = cells - 1;
+    this.hash = this.geometry.getFullHash()
+            ^ BoardGeometry.zobristKey(this.geometry.getDimension(), sRow, sCol);
+    // every other slot holds a marble, so only moves into the empty slot are valid
+    this.legalMoves = this.countMovesTouching(new int[]{sRow}, new int[]{sCol}, 1);
+  }
+
+  /**
+   * Constructs a game in the given position, taking ownership of the given words.
+   *
+   * @param geometry   the board
+   * @param marbles    the packed board, as built by (@code BoardGeometry.pack)
+   * @param score      the number of marbles on the board
+   * @param hash       the Zobrist hash of the position
+   * @param legalMoves the number of valid moves in the position
+   */
+  BitsetSolitaireModel(BoardGeometry geometry, long[] marbles, int score, long hash,
+                       int legalMoves) {
+    this.geometry = geometry;
+    this.marbles = marbles;
+    this.score = score;
+    this.hash = hash;
+    this.legalMoves = legalMoves;
+  }
+
+  /**
+   * Constructs a new game in the same position as the given game, on any kind of model.
+   *
+   * @param model the game to copy
+   * @return an independent copy of the position, with nothing to undo
+   * @throws IllegalArgumentException when (@code model) is null or its board is of no known type
+   */
+  public static BitsetSolitaireModel copyOf(MarbleSolitaireModelState model)
+          throws IllegalArgumentException {
+    BoardGeometry geometry = BoardGeometry.of(model);
+    long[] marbles = new long[(geometry.getCellCount() + 63) >>> 6];
+    geometry.pack(model, marbles);
+    return new BitsetSolitaireModel(geometry, marbles, model.getScore(),
+            model.getPositionHash(), model.getLegalMoves(new int[8 * model.getScore()]));
+  }
+
+  /**
+   * Determines if the valid slot with the given index holds a marble.
+   *
+   * @param cell the dense index of the slot
+   * @return true if the slot holds a marble
+   */
+  protected boolean hasMarble(int cell) {
+    return (this.marbles[cell >>> 6] & (1L << cell)) != 0;
+  }
+
+  /**
+   * Toggles whether the valid slot with the given index holds a marble.
+   *
+   * @param cell the dense index of the slot
+   */
+  protected void flip(int cell) {
+    this.marbles[cell >>> 6] ^= 1L << cell;
+  }
+
+  @Override
+  public void move(int fromRow, int fromCol, int toRow, int toCol) throws IllegalArgumentException {
+    MoveResult result = this.canMove(fromRow, fromCol, toRow, toCol);
+    if (result != MoveResult.Valid) {
+      throw new IllegalArgumentException(result.getMessage());
+    }
+    // the move is packed before the board changes, so nothing is left half done
+    long move = MoveJournal.pack(fromRow, fromCol, toRow, toCol);
+    this.jump(fromRow, fromCol, toRow, toCol, true);
+    this.journal.record(move);
+  }
+
+  /**
+   * Makes or takes back a jump that is known to be valid, keeping the score, hash and count of
+   * valid moves up to date.
+   *
+   * @param fromRow the row of the starting position
+   * @param fromCol the column of the starting position
+   * @param toRow   the row of the end position
+   * @param toCol   the column of the end position
+   * @param forward true to make the jump, false to take it back
+   */
+  protected void jump(int fromRow, int fromCol, int toRow, int toCol, boolean forward) {
+    // only moves that touch the three changed slots can change from valid to invalid or back,
+    // so recount just those moves before and after the change
+    this.changedRows[0] = fromRow;
+    this.changedCols[0] = fromCol;
+    this.changedRows[1] = (fromRow + toRow) / 2;
+    this.changedCols[1] = (fromCol + toCol) / 2;
+    this.changedRows[2] = toRow;
+    this.changedCols[2] = toCol;
+    this.legalMoves -= this.countMovesTouching(this.changedRows, this.changedCols, 3);
+    // a jump flips all three slots: from and over lose their marbles, to gains one,
+    // and taking it back flips them again
+    this.flip(this.geometry.cellIndex(fromRow, fromCol));
+    this.flip(this.geometry.cellIndex((fromRow + toRow) / 2, (fromCol + toCol) / 2));
+    this.flip(this.geometry.cellIndex(toRow, toCol));
+    this.score += forward ? -1 : 1;
+    int dimension = this.geometry.getDimension();
+    this.hash ^= BoardGeometry.zobristKey(dimension, fromRow, fromCol)
+            ^ BoardGeometry.zobristKey(dimension, (fromRow + toRow) / 2, (fromCol + toCol) / 2)
+            ^ BoardGeometry.zobristKey(dimension, toRow, toCol);
+    this.legalMoves += this.countMovesTouching(this.changedRows, this.changedCols, 3);
+  }
+
+  @Override
+  public MarbleSolitaireModel fork() {
+    // the geometry never changes, so only the marbles need copying
+    return new BitsetSolitaireModel(this.geometry, this.marbles.clone(), this.score, this.hash,
+            this.legalMoves);
+  }
+
+  @Override
+  public boolean canUndo() {
+    return this.journal.canUndo();
+  }
+
+  @Override
+  public boolean canRedo() {
+    return this.journal.canRedo();
+  }
+
+  @Override
+  public void undo() throws IllegalStateException {
+    long move = this.journal.undo();
+    this.jump(MoveJournal.fromRow(move), MoveJournal.fromCol(move), MoveJournal.toRow(move),
+            MoveJournal.toCol(move), false);
+  }
+
+  @Override
+  public void redo() throws IllegalStateException {
+    long move = this.journal.redo();
+    this.jump(MoveJournal.fromRow(move), MoveJournal.fromCol(move), MoveJournal.toRow(move),
+            MoveJournal.toCol(move), true);
+  }
+
+  /**
+   * Counts the valid moves that start from, jump over or land in any of the given slots. A move
+   * that touches more than one of the slots is only counted once.
+   *
+   * @param rows  the rows of the slots
+   * @param cols  the columns of the slots
+   * @param count the number of slots given
+   * @return the number of valid moves touching the slots
+   */
+  protected int countMovesTouching(int[] rows, int[] cols, int count) {
+    int moves = 0;
+    for (int k = 0; k < count; k++) {
+      for (int dir = 0; dir < this.geometry.getDirectionCount(); dir++) {
+        int rowStep = BoardGeometry.ROW_STEP[dir];
+        int colStep = BoardGeometry.COL_STEP[dir];
+        // the slot is the from (0), over (1) or to (2) slot of at most one move per direction
+        for (int role = 0; role < 3; role++) {
+          int fromRow = rows[k] - role * rowStep;
+          int fromCol = cols[k] - role * colStep;
+          if (!BoardGeometry.touchesAny(fromRow, fromCol, rowStep, colStep, rows, cols, k)
+                  && this.canMove(fromRow, fromCol, fromRow + 2 * rowStep,
+                  fromCol + 2 * colStep) == MoveResult.Valid) {
+            moves += 1;
+          }
+        }
+      }
+    }
+    return moves;
+  }
+
+  @Override
+  public MoveResult canMove(int fromRow, int fromCol, int toRow, int toCol) {
+    int rowStep = toRow - fromRow;
+    int colStep = toCol - fromCol;
+    // check that they are 2 slots away, diagonals only permitted on Triangle boards
+    boolean orthogonal = (Math.abs(rowStep) == 2 && colStep == 0)
+            || (Math.abs(colStep) == 2 && rowStep == 0);
+    boolean diagonal = Math.abs(rowStep) == 2 && Math.abs(colStep) == 2;
+    if (!(orthogonal || (diagonal && this.geometry.getDirectionCount() == 8))) {
+      return MoveResult.NotTwoSlots;
+    }
+    if (!this.geometry.inBounds(fromRow, fromCol)) {
+      return MoveResult.FromOutOfBounds;
+    }
+    if (!this.geometry.inBounds(toRow, toCol)) {
+      return MoveResult.ToOutOfBounds;
+    }
+    int overRow = fromRow + rowStep / 2;
+    int overCol = fromCol + colStep / 2;
+    if (!this.geometry.isValid(fromRow, fromCol)
+            || !this.hasMarble(this.geometry.cellIndex(fromRow, fromCol))) {
+      return MoveResult.FromNotMarble;
+    }
+    if (!this.geometry.isValid(toRow, toCol)
+            || this.hasMarble(this.geometry.cellIndex(toRow, toCol))) {
+      return MoveResult.ToNotEmpty;
+    }
+    if (!this.geometry.isValid(overRow, overCol)
+            || !this.hasMarble(this.geometry.cellIndex(overRow, overCol))) {
+      return MoveResult.OverNotMarble;
+    }
+    return MoveResult.Valid;
+  }
+
+  @Override
+  public boolean isGameOver() {
+    // the count of valid moves is kept up to date by move()
+    return this.legalMoves == 0;
+  }
+
+  @Override
+  public int getLegalMoves(int[] moves) throws IllegalArgumentException {
+    if (moves == null) {
+      throw new IllegalArgumentException("Must provide a non-null move buffer");
+    }
+    int dimension = this.geometry.getDimension();
+    int count = 0;
+    int cell = 0;
+    for (int row = 0; row < dimension; row++) {
+      for (int col = this.geometry.getRowStart(row); col <= this.geometry.getRowEnd(row);
+           col++, cell++) {
+        if (!this.hasMarble(cell)) {
+          continue;
+        }
+        for (int dir = 0; dir < this.geometry.getDirectionCount(); dir++) {
+          int overRow = row + BoardGeometry.ROW_STEP[dir];
+          int overCol = col + BoardGeometry.COL_STEP[dir];
+          int toRow = overRow + BoardGeometry.ROW_STEP[dir];
+          int toCol = overCol + BoardGeometry.COL_STEP[dir];
+          if (this.geometry.isValid(toRow, toCol) && this.geometry.isValid(overRow, overCol)
+                  && this.hasMarble(this.geometry.cellIndex(overRow, overCol))
+                  && !this.hasMarble(this.geometry.cellIndex(toRow, toCol))) {
+            if (count == moves.length) {
+              throw new IllegalArgumentException("Move buffer is too small");
+            }
+            moves[count] = PackedMove.of(row, col, dir, dimension);
+            count += 1;
+          }
+        }
+      }
+    }
+    return count;
+  }
+
+  @Override
+  public int getBoardSize() {
+    return this.geometry.getDimension();
+  }
+
+  @Override
+  public SlotState getSlotAt(int row, int col) throws IllegalArgumentException {
+    // if the position is out of the bounds of the solitaire board grid
+    if (!this.geometry.inBounds(row, col)) {
+      throw new IllegalArgumentException("Position out of bounds");
+    } else if (!this.geometry.isValid(row, col)) {
+      return SlotState.Invalid;
+    } else if (this.hasMarble(this.geometry.cellIndex(row, col))) {
+      return SlotState.Marble;
+    } else {
+      return SlotState.Empty;
+    }
+  }
+
+  @Override
+  public int getScore() {
+    // calculate as board is made/changed for efficiency
+    return this.score;
+  }
+
+  @Override
+  public long getPositionHash() {
+    // kept up to date by move()
+    return this.hash;
+  }
+
+  /**
+   * Returns the shared geometry of this board.
+   *
+   * @return the geometry of the board
+   */
+  public BoardGeometry getGeometry() {
+    return this.geometry;
+  }
+}
@@ -0,0 +1,740 @@
+package model;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Represents the shape of a marble solitaire board of a given type and size: which slots of its
+ * square grid are valid, and which directions marbles may jump in. Geometries are immutable and
+ * cached, so every game on the same board type and size shares a single instance.
+ *
+ * <p>On every supported board, the valid slots of a row form one contiguous run of columns, so the
+ * shape is stored as the first and last valid column of each row. The valid slots are also numbered
+ * densely, row by row, which lets a board store exactly one bit per valid slot.
+ *
+ * <p>Every possible jump on the board is precomputed as a (from, over, to) triple of slot indices,
+ * numbered by from slot and then direction. These tables are built the first time they are used,
+ * so boards that never need them (such as huge bitset boards) only pay for the row bounds.
+ */
+public final class BoardGeometry {
+  /**
+   * The types of board that a geometry can describe.
+   */
+  public enum Shape { English, European, Triangle }
+
+  // the row and column steps of each jump direction: up, down, left, right, then the diagonals
+  // up-left, down-right, down-left, up-right (only the Triangle board uses the diagonals)
+  static final int[] ROW_STEP = {-1, 1, 0, 0, -1, 1, 1, -1};
+  static final int[] COL_STEP = {0, 0, -1, 1, -1, 1, -1, 1};
+
+  // the seed of the Zobrist keys, fixed so that hashes are the same in every run
+  private static final long ZOBRIST_SEED = 0x2545F4914F6CDD1DL;
+  // the odd constant SplittableRandom steps by, which spreads consecutive slots across the keys
+  private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+  // every geometry that has been created so far, keyed by shape and size
+  private static final ConcurrentMap<Long, BoardGeometry> CACHE = new ConcurrentHashMap<>();
+
+  private final Shape shape;
+  private final int size;
+  private final int dimension;
+  // the first and last valid column of each row
+  private final int[] rowStart;
+  private final int[] rowEnd;
+  // the dense index of the first valid slot of each row
+  private final int[] rowOffset;
+  private final int cellCount;
+  // the jump and slot tables, built the first time they are needed
+  private volatile Tables tables;
+  // the hash of a board with a marble in every valid slot, computed on first use
+  private volatile long fullHash;
+  private volatile boolean fullHashed;
+
+  /**
+   * Constructs the geometry of the given board type and size.
+   *
+   * @param shape the type of board
+   * @param size  the arm size (English) or side length (European, Triangle) of the board
+   * @throws IllegalArgumentException when the board has more slots than can be indexed
+   */
+  private BoardGeometry(Shape shape, int size) throws IllegalArgumentException {
+    this.shape = shape;
+    this.size = size;
+    this.dimension = dimensionOf(shape, size);
+
+    // count the slots first, so oversized boards are rejected before anything is allocated
+    long cells = 0;
+    for (int row = 0; row < this.dimension; row++) {
+      cells += this.rowEndOf(row) - this.rowStartOf(row) + 1;
+      if (cells > Integer.MAX_VALUE) {
+        throw new IllegalArgumentException("Invalid size");
+      }
+    }
+    this.cellCount = (int) cells;
+
+    this.rowStart = new int[this.dimension];
+    this.rowEnd = new int[this.dimension];
+    this.rowOffset = new int[this.dimension];
+    int offset = 0;
+    for (int row = 0; row < this.dimension; row++) {
+      this.rowStart[row] = this.rowStartOf(row);
+      this.rowEnd[row] = this.rowEndOf(row);
+      this.rowOffset[row] = offset;
+      offset += this.rowEnd[row] - this.rowStart[row] + 1;
+    }
+  }
+
+  /**
+   * Returns the shared geometry of the given board type and size.
+   *
+   * @param shape the type of board
+   * @param size  the arm size (English) or side length (European, Triangle) of the board
+   * @return the geometry of the board
+   * @throws IllegalArgumentException when (@code shape) is null or the size is invalid for it
+   */
+  public static BoardGeometry of(Shape shape, int size) throws IllegalArgumentException {
+    if (shape == null) {
+      throw new IllegalArgumentException("Must provide a non-null board shape");
+    }
+    if (!isValidSize(shape, size)) {
+      throw new IllegalArgumentException("Invalid size");
+    }
+    long key = ((long) shape.ordinal() << 32) | size;
+    BoardGeometry geometry = CACHE.get(key);
+    if (geometry == null) {
+      // two threads may both build it, but only the first one is ever handed out
+      BoardGeometry built = new BoardGeometry(shape, size);
+      geometry = CACHE.putIfAbsent(key, built);
+      if (geometry == null) {
+        geometry = built;
+      }
+    }
+    return geometry;
+  }
+
+  /**
+   * Returns the shared geometry of the board the given game is played on, recognized from which of
+   * its slots are invalid.
+   *
+   * @param model the game
+   * @return the geometry of the game's board
+   * @throws IllegalArgumentException when (@code model) is null or its board is of no known type
+   */
+  public static BoardGeometry of(MarbleSolitaireModelState model)
+          throws IllegalArgumentException {
+    if (model == null) {
+      throw new IllegalArgumentException("Must provide a non-null model");
+    }
+    int dimension = model.getBoardSize();
+    for (Shape shape : Shape.values()) {
+      // English and European boards of dimension 3(size - 1) + 1, Triangle boards of side dimension
+      int size = shape == Shape.Triangle ? dimension : (dimension + 2) / 3;
+      if (!isValidSize(shape, size) || dimensionOf(shape, size) != dimension) {
+        continue;
+      }
+      BoardGeometry geometry = of(shape, size);
+      boolean matches = true;
+      for (int row = 0; row < dimension && matches; row++) {
+        for (int col = 0; col < dimension && matches; col++) {
+          matches = geometry.isValid(row, col)
+                  == (model.getSlotAt(row, col) != MarbleSolitaireModelState.SlotState.Invalid);
+        }
+      }
+      if (matches) {
+        return geometry;
+      }
+    }
+    throw new IllegalArgumentException("Board does not match any board type");
+  }
+
+  /**
+   * Determines if a board of the given type can be built with the given size.
+   *
+   * @param shape the type of board
+   * @param size  the arm size (English) or side length (European, Triangle) of the board
+   * @return true if English boards have a positive odd arm size, or other boards a positive side
+   */
+  public static boolean isValidSize(Shape shape, int size) {
+    if (shape == Shape.English) {
+      return size > 0 && size % 2 == 1;
+    } else {
+      return size > 0;
+    }
+  }
+
+  /**
+   * Returns the size used by a board of the given type when no size is given.
+   *
+   * @param shape the type of board
+   * @return the default size of the board
+   */
+  public static int defaultSize(Shape shape) {
+    return shape == Shape.Triangle ? 5 : 3;
+  }
+
+  /**
+   * Returns the row and column of the slot left empty when only a size is given: the center of
+   * English and European boards, and the top of Triangle boards.
+   *
+   * @param shape the type of board
+   * @param size  the size of the board
+   * @return the row (and column) of the default empty slot
+   */
+  public static int defaultEmptySlot(Shape shape, int size) {
+    if (shape == Shape.Triangle) {
+      return 0;
+    }
+    // for odd sizes this is exact; for even European sizes it rounds toward the top left
+    return (int) ((1.5 * size) - 1.5);
+  }
+
+  /**
+   * Calculates the number of rows/columns of the grid of a board.
+   *
+   * @param shape the type of board
+   * @param size  the size of the board
+   * @return the dimension of the grid
+   */
+  private static int dimensionOf(Shape shape, int size) {
+    if (shape == Shape.Triangle) {
+      return size;
+    }
+    long dimension = 3L * (size - 1) + 1;
+    if (dimension > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Invalid size");
+    }
+    return (int) dimension;
+  }
+
+  /**
+   * Calculates the first valid column of the given row.
+   *
+   * @param row the row of the grid
+   * @return the column of the row's first valid slot
+   */
+  private int rowStartOf(int row) {
+    switch (this.shape) {
+      case English:
+        // the middle band of rows spans the whole grid, other rows are only the middle arm
+        if (row > this.size - 2 && row < (2 * this.size) - 1) {
+          return 0;
+        }
+        return this.size - 1;
+      case European:
+        // the octagon's rows grow by one slot on each side until the middle band
+        return Math.max(0, Math.max(this.size - 1 - row, row - (2 * this.size) + 2));
+      default:
+        // the triangle's rows all start at the left edge
+        return 0;
+    }
+  }
+
+  /**
+   * Calculates the last valid column of the given row.
+   *
+   * @param row the row of the grid
+   * @return the column of the row's last valid slot
+   */
+  private int rowEndOf(int row) {
+    if (this.shape == Shape.Triangle) {
+      return row;
+    }
+    // English and European boards are symmetric from left to right
+    return this.dimension - 1 - this.rowStartOf(row);
+  }
+
+  /**
+   * Returns the type of board this geometry describes.
+   *
+   * @return the shape of the board
+   */
+  public Shape getShape() {
+    return this.shape;
+  }
+
+  /**
+   * Returns the arm size (English) or side length (European, Triangle) of the board.
+   *
+   * @return the size of the board
+   */
+  public int getSize() {
+    return this.size;
+  }
+
+  /**
+   * Returns the number of rows/columns of the board's grid.
+   *
+   * @return the dimension of the grid
+   */
+  public int getDimension() {
+    return this.dimension;
+  }
+
+  /**
+   * Returns the number of valid slots on the board.
+   *
+   * @return the number of valid slots
+   */
+  public int getCellCount() {
+    return this.cellCount;
+  }
+
+  /**
+   * Returns the number of directions a marble may jump in on this board: the four orthogonal
+   * directions, plus the four diagonals on a Triangle board.
+   *
+   * @return the number of jump directions
+   */
+  public int getDirectionCount() {
+    return this.shape == Shape.Triangle ? 8 : 4;
+  }
+
+  /**
+   * Returns the first valid column of the given row.
+   *
+   * @param row the row of the grid, which must be in bounds
+   * @return the column of the row's first valid slot
+   */
+  public int getRowStart(int row) {
+    return this.rowStart[row];
+  }
+
+  /**
+   * Returns the last valid column of the given row.
+   *
+   * @param row the row of the grid, which must be in bounds
+   * @return the column of the row's last valid slot
+   */
+  public int getRowEnd(int row) {
+    return this.rowEnd[row];
+  }
+
+  /**
+   * Determines if the given position is in the bounds of the grid.
+   *
+   * @param row the row of the position
+   * @param col the column of the position
+   * @return true if the position is in bounds
+   */
+  public boolean inBounds(int row, int col) {
+    return row >= 0 && row < this.dimension && col >= 0 && col < this.dimension;
+  }
+
+  /**
+   * Determines if the given position is a valid slot of the board.
+   *
+   * @param row the row of the position
+   * @param col the column of the position
+   * @return true if the position is in bounds and a slot of the board
+   */
+  public boolean isValid(int row, int col) {
+    return row >= 0 && row < this.dimension
+            && col >= this.rowStart[row] && col <= this.rowEnd[row];
+  }
+
+  /**
+   * Returns the dense index of the given valid slot. Valid slots are numbered from 0 to
+   * (@code getCellCount() - 1), row by row.
+   *
+   * @param row the row of the slot, which must be valid
+   * @param col the column of the slot, which must be valid
+   * @return the index of the slot
+   */
+  public int cellIndex(int row, int col) {
+    return this.rowOffset[row] + col - this.rowStart[row];
+  }
+
+  /**
+   * Returns the direction whose two-slot jump covers the given row and column distance.
+   *
+   * @param rowDelta the row distance of the jump (to row minus from row)
+   * @param colDelta the column distance of the jump (to column minus from column)
+   * @return the direction, from 0 to 7, or -1 if no direction jumps that far
+   */
+  public static int directionOf(int rowDelta, int colDelta) {
+    for (int dir = 0; dir < ROW_STEP.length; dir++) {
+      if (rowDelta == 2 * ROW_STEP[dir] && colDelta == 2 * COL_STEP[dir]) {
+        return dir;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the row of the valid slot with the given index.
+   *
+   * @param cell the dense index of the slot
+   * @return the row of the slot
+   */
+  public int getCellRow(int cell) {
+    return this.tables().cellRow[cell];
+  }
+
+  /**
+   * Returns the column of the valid slot with the given index.
+   *
+   * @param cell the dense index of the slot
+   * @return the column of the slot
+   */
+  public int getCellCol(int cell) {
+    return this.tables().cellCol[cell];
+  }
+
+  /**
+   * Returns the number of jumps on the board, that is the number of (from, over, to) triples of
+   * valid slots in a line, counted once per direction.
+   *
+   * @return the number of jumps
+   */
+  public int getJumpCount() {
+    return this.tables().from.length;
+  }
+
+  /**
+   * Returns the slot a marble starts from in the given jump.
+   *
+   * @param jump the index of the jump
+   * @return the dense index of the from slot
+   */
+  public int getJumpFrom(int jump) {
+    return this.tables().from[jump];
+  }
+
+  /**
+   * Returns the slot a marble jumps over in the given jump.
+   *
+   * @param jump the index of the jump
+   * @return the dense index of the over slot
+   */
+  public int getJumpOver(int jump) {
+    return this.tables().over[jump];
+  }
+
+  /**
+   * Returns the slot a marble lands in for the given jump.
+   *
+   * @param jump the index of the jump
+   * @return the dense index of the to slot
+   */
+  public int getJumpTo(int jump) {
+    return this.tables().to[jump];
+  }
+
+  /**
+   * Returns the direction of the given jump.
+   *
+   * @param jump the index of the jump
+   * @return the direction, from 0 to 7
+   */
+  public int getJumpDirection(int jump) {
+    return this.tables().direction[jump];
+  }
+
+  /**
+   * Returns the jump that starts from the given slot in the given direction.
+   *
+   * @param cell      the dense index of the from slot
+   * @param direction the direction, from 0 to 7
+   * @return the index of the jump, or -1 if it would leave the board
+   */
+  public int getJump(int cell, int direction) {
+    return this.tables().jumpAt[(cell << 3) | direction];
+  }
+
+  /**
+   * Returns the number of jumps that start from, jump over or land in the given slot.
+   *
+   * @param cell the dense index of the slot
+   * @return the number of jumps touching the slot
+   */
+  public int getTouchingCount(int cell) {
+    Tables t = this.tables();
+    return t.touchStart[cell + 1] - t.touchStart[cell];
+  }
+
+  /**
+   * Returns one of the jumps that start from, jump over or land in the given slot.
+   *
+   * @param cell the dense index of the slot
+   * @param i    which of the slot's jumps to return, from 0 to (@code getTouchingCount(cell) - 1)
+   * @return the index of the jump
+   */
+  public int getTouchingJump(int cell, int i) {
+    Tables t = this.tables();
+    return t.touching[t.touchStart[cell] + i];
+  }
+
+  /**
+   * Determines if the given jump starts from, jumps over or lands in the given slot.
+   *
+   * @param jump the index of the jump
+   * @param cell the dense index of the slot
+   * @return true if the slot is one of the jump's three slots
+   */
+  public boolean jumpTouches(int jump, int cell) {
+    Tables t = this.tables();
+    return t.from[jump] == cell || t.over[jump] == cell || t.to[jump] == cell;
+  }
+
+  /**
+   * Returns the Zobrist key of the given slot of a board grid. A position is hashed by XORing the
+   * keys of every slot holding a marble, so a move changes the hash by the keys of its three slots.
+   * Keys are a fixed pseudo-random function of the grid's dimension and the slot, so every model
+   * hashes the same position the same way, in every run.
+   *
+   * @param dimension the number of rows/columns of the grid
+   * @param row       the row of the slot
+   * @param col       the column of the slot
+   * @return the key of the slot
+   */
+  public static long zobristKey(int dimension, int row, int col) {
+    // the grid and the slot are mixed in separately, so that no slot of one grid shares its key
+    // with a slot of another just because their dimensions and indices add up the same
+    long grid = mix(ZOBRIST_SEED + dimension * GOLDEN_GAMMA);
+    return mix(grid ^ (((long) row * dimension + col + 1) * GOLDEN_GAMMA));
+  }
+
+  /**
+   * Scrambles the bits of the given number with the SplitMix64 finalizer, as used by
+   * (@code SplittableRandom).
+   *
+   * @param z the number
+   * @return the scrambled number
+   */
+  private static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
+  /**
+   * Returns the Zobrist key of the valid slot with the given index, from a table shared by every
+   * game on this board.
+   *
+   * @param cell the dense index of the slot
+   * @return the key of the slot, the same as (@code zobristKey) of its row and column
+   */
+  public long getZobristKey(int cell) {
+    return this.tables().zobrist[cell];
+  }
+
+  /**
+   * Returns the hash of a board of this geometry with a marble in every valid slot. A new game's
+   * hash is this with the key of its empty slot XORed out.
+   *
+   * @return the XOR of the keys of every valid slot
+   */
+  public long getFullHash() {
+    if (!this.fullHashed) {
+      // any thread computing this gets the same value, so racing threads do no harm
+      long hash = 0;
+      for (int row = 0; row < this.dimension; row++) {
+        for (int col = this.rowStart[row]; col <= this.rowEnd[row]; col++) {
+          hash ^= zobristKey(this.dimension, row, col);
+        }
+      }
+      this.fullHash = hash;
+      this.fullHashed = true;
+    }
+    return this.fullHash;
+  }
+
+  /**
+   * Packs the marbles of the given game on this board into a single (@code long): bit i is set
+   * when the valid slot with dense index i holds a marble.
+   *
+   * @param model the game to pack, which must be played on a board of this geometry
+   * @return the packed board
+   * @throws IllegalArgumentException if the board has more than 64 valid slots
+   */
+  public long pack(MarbleSolitaireModelState model) throws IllegalArgumentException {
+    if (this.cellCount > 64) {
+      throw new IllegalArgumentException("Board is too large to pack into a long");
+    }
+    long[] words = new long[1];
+    this.pack(model, words);
+    return words[0];
+  }
+
+  /**
+   * Packs the marbles of the given game on this board into the given words: bit (@code i & 63) of
+   * word (@code i >>> 6) is set when the valid slot with dense index i holds a marble.
+   *
+   * @param model the game to pack, which must be played on a board of this geometry
+   * @param words the words to fill, at least (@code (getCellCount() + 63) / 64) long
+   * @throws IllegalArgumentException if there are too few words
+   */
+  public void pack(MarbleSolitaireModelState model, long[] words)
+          throws IllegalArgumentException {
+    if (words.length < (this.cellCount + 63) >>> 6) {
+      throw new IllegalArgumentException("Too few words to pack the board into");
+    }
+    Arrays.fill(words, 0L);
+    int cell = 0;
+    for (int row = 0; row < this.dimension; row++) {
+      for (int col = this.rowStart[row]; col <= this.rowEnd[row]; col++, cell++) {
+        if (model.getSlotAt(row, col) == MarbleSolitaireModelState.SlotState.Marble) {
+          words[cell >>> 6] |= 1L << cell;
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the from slot of every jump, for the search engines of this package, which read the
+   * shared table directly and must never modify it.
+   *
+   * @return the from slots, indexed by jump
+   */
+  int[] jumpFromTable() {
+    return this.tables().from;
+  }
+
+  /**
+   * Returns the over slot of every jump, shared and never to be modified.
+   *
+   * @return the over slots, indexed by jump
+   */
+  int[] jumpOverTable() {
+    return this.tables().over;
+  }
+
+  /**
+   * Returns the to slot of every jump, shared and never to be modified.
+   *
+   * @return the to slots, indexed by jump
+   */
+  int[] jumpToTable() {
+    return this.tables().to;
+  }
+
+  /**
+   * Returns the jump and slot tables of this geometry, building them on first use.
+   *
+   * @return the tables
+   */
+  private Tables tables() {
+    Tables t = this.tables;
+    if (t == null) {
+      synchronized (this) {
+        t = this.tables;
+        if (t == null) {
+          t = new Tables(this);
+          this.tables = t;
+        }
+      }
+    }
+    return t;
+  }
+
+  /**
+   * The precomputed slot and jump tables of a geometry. They never change once built.
+   */
+  private static final class Tables {
+    // the row and column of each valid slot
+    private final int[] cellRow;
+    private final int[] cellCol;
+    // the from, over and to slots and the direction of each jump
+    private final int[] from;
+    private final int[] over;
+    private final int[] to;
+    private final int[] direction;
+    // the jump starting at each slot in each direction (slot * 8 + direction), or -1
+    private final int[] jumpAt;
+    // the jumps touching each slot are touching[touchStart[slot]] to touching[touchStart[slot+1]]
+    private final int[] touchStart;
+    private final int[] touching;
+    // the Zobrist key of each valid slot
+    private final long[] zobrist;
+
+    /**
+     * Builds the tables of the given geometry.
+     *
+     * @param geometry the geometry to build the tables of
+     */
+    private Tables(BoardGeometry geometry) {
+      int cells = geometry.cellCount;
+      if (cells > Integer.MAX_VALUE / 8) {
+        throw new IllegalArgumentException("Board is too large to precompute its jumps");
+      }
+      this.cellRow = new int[cells];
+      this.cellCol = new int[cells];
+      this.jumpAt = new int[cells * 8];
+      this.zobrist = new long[cells];
+      int cell = 0;
+      int jumps = 0;
+      for (int row = 0; row < geometry.dimension; row++) {
+        for (int col = geometry.rowStart[row]; col <= geometry.rowEnd[row]; col++, cell++) {
+          this.cellRow[cell] = row;
+          this.cellCol[cell] = col;
+          this.zobrist[cell] = zobristKey(geometry.dimension, row, col);
+          for (int dir = 0; dir < 8; dir++) {
+            boolean onBoard = dir < geometry.getDirectionCount()
+                    && geometry.isValid(row + ROW_STEP[dir], col + COL_STEP[dir])
+                    && geometry.isValid(row + 2 * ROW_STEP[dir], col + 2 * COL_STEP[dir]);
+            this.jumpAt[(cell << 3) | dir] = onBoard ? jumps++ : -1;
+          }
+        }
+      }
+
+      this.from = new int[jumps];
+      this.over = new int[jumps];
+      this.to = new int[jumps];
+      this.direction = new int[jumps];
+      this.touchStart = new int[cells + 1];
+      for (cell = 0; cell < cells; cell++) {
+        for (int dir = 0; dir < 8; dir++) {
+          int jump = this.jumpAt[(cell << 3) | dir];
+          if (jump >= 0) {
+            int row = this.cellRow[cell];
+            int col = this.cellCol[cell];
+            this.from[jump] = cell;
+            this.over[jump] = geometry.cellIndex(row + ROW_STEP[dir], col + COL_STEP[dir]);
+            this.to[jump] = geometry.cellIndex(row + 2 * ROW_STEP[dir], col + 2 * COL_STEP[dir]);
+            this.direction[jump] = dir;
+            this.touchStart[this.from[jump] + 1] += 1;
+            this.touchStart[this.over[jump] + 1] += 1;
+            this.touchStart[this.to[jump] + 1] += 1;
+          }
+        }
+      }
+
+      // turn the counts into offsets, then place each jump in the lists of its three slots
+      for (cell = 0; cell < cells; cell++) {
+        this.touchStart[cell + 1] += this.touchStart[cell];
+      }
+      this.touching = new int[3 * jumps];
+      int[] next = this.touchStart.clone();
+      for (int jump = 0; jump < jumps; jump++) {
+        this.touching[next[this.from[jump]]++] = jump;
+        this.touching[next[this.over[jump]]++] = jump;
+        this.touching[next[this.to[jump]]++] = jump;
+      }
+    }
+  }
+
+  /**
+   * Determines if the move starting at the given slot touches any of the first given slots.
+   *
+   * @param fromRow the row of the move's starting slot
+   * @param fromCol the column of the move's starting slot
+   * @param rowStep the row step of the move's direction
+   * @param colStep the column step of the move's direction
+   * @param rows    the rows of the slots
+   * @param cols    the columns of the slots
+   * @param count   the number of slots to look at
+   * @return true if the from, over or to slot of the move is one of the slots
+   */
+  static boolean touchesAny(int fromRow, int fromCol, int rowStep, int colStep,
+                            int[] rows, int[] cols, int count) {
+    for (int j = 0; j < count; j++) {
+      for (int role = 0; role < 3; role++) {
+        if (fromRow + role * rowStep == rows[j] && fromCol + role * colStep == cols[j]) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,387 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Represents the symmetries of a board: the ways of turning or mirroring it that map its slots
+ * onto its slots and its jumps onto its jumps. Positions related by a symmetry play out the same
+ * way, so a cache or solver table only needs to keep one of them, the canonical one.
+ *
+ * <p>English and European boards have the eight symmetries of the square. The Triangle board's
+ * candidates are the six symmetries of the triangle, but because this game also permits jumps along
+ * the anti-diagonal, only the mirror through its bottom left corner maps every jump onto a jump.
+ *
+ * <p>Positions are given as packed boards, as built by (@code BoardGeometry.pack). Boards of up to
+ * 64 slots are turned with precomputed tables that permute one byte of the board at a time.
+ * Symmetries are immutable and cached, so every game on the same board shares a single instance.
+ */
+public final class BoardSymmetry {
+  // every symmetry that has been created so far, keyed by geometry
+  private static final ConcurrentMap<BoardGeometry, BoardSymmetry> CACHE =
+          new ConcurrentHashMap<>();
+
+  private final BoardGeometry geometry;
+  // the dense slot each slot is mapped to, per transform
+  private final int[][] cellMap;
+  // the direction each direction is mapped to, per transform
+  private final int[][] directionMap;
+  // the transform that undoes each transform
+  private final int[] inverse;
+  // for boards of up to 64 slots, the image of every value of every byte of a board, per
+  // transform, indexed by (byte << 8) | value
+  private final long[][] byteMap;
+  // the Zobrist key of each slot's image, per transform, so the hash of every image of a position
+  // can be kept up to date as moves are made
+  private final long[][] imageKeys;
+
+  /**
+   * Finds the symmetries of the given board.
+   *
+   * @param geometry the board
+   */
+  private BoardSymmetry(BoardGeometry geometry) {
+    this.geometry = geometry;
+    int cells = geometry.getCellCount();
+    List<int[]> cellMaps = new ArrayList<>();
+    List<int[]> directionMaps = new ArrayList<>();
+    int candidates = geometry.getShape() == BoardGeometry.Shape.Triangle ? 6 : 8;
+    for (int candidate = 0; candidate < candidates; candidate++) {
+      int[] cellMap = new int[cells];
+      int[] directionMap = new int[geometry.getDirectionCount()];
+      if (this.fits(candidate, cellMap, directionMap)) {
+        cellMaps.add(cellMap);
+        directionMaps.add(directionMap);
+      }
+    }
+    this.cellMap = cellMaps.toArray(new int[0][]);
+    this.directionMap = directionMaps.toArray(new int[0][]);
+
+    // the symmetries form a group, so each one's inverse is among them
+    this.inverse = new int[this.cellMap.length];
+    for (int t = 0; t < this.cellMap.length; t++) {
+      for (int u = 0; u < this.cellMap.length; u++) {
+        boolean undoes = true;
+        for (int cell = 0; cell < cells && undoes; cell++) {
+          undoes = this.cellMap[u][this.cellMap[t][cell]] == cell;
+        }
+        if (undoes) {
+          this.inverse[t] = u;
+        }
+      }
+    }
+
+    if (cells <= 64) {
+      this.byteMap = new long[this.cellMap.length][8 << 8];
+      for (int t = 0; t < this.cellMap.length; t++) {
+        for (int cell = 0; cell < cells; cell++) {
+          int b = cell >>> 3;
+          // every value of the slot's byte with the slot's bit set gets the slot's image
+          for (int value = 0; value < 256; value++) {
+            if ((value & (1 << (cell & 7))) != 0) {
+              this.byteMap[t][(b << 8) | value] |= 1L << this.cellMap[t][cell];
+            }
+          }
+        }
+      }
+    } else {
+      this.byteMap = null;
+    }
+
+    this.imageKeys = new long[this.cellMap.length][cells];
+    for (int t = 0; t < this.cellMap.length; t++) {
+      for (int cell = 0; cell < cells; cell++) {
+        this.imageKeys[t][cell] = geometry.getZobristKey(this.cellMap[t][cell]);
+      }
+    }
+  }
+
+  /**
+   * Returns the shared symmetries of the given board.
+   *
+   * @param geometry the board
+   * @return the symmetries of the board
+   * @throws IllegalArgumentException when (@code geometry) is null
+   */
+  public static BoardSymmetry of(BoardGeometry geometry) throws IllegalArgumentException {
+    if (geometry == null) {
+      throw new IllegalArgumentException("Must provide a non-null board geometry");
+    }
+    BoardSymmetry symmetry = CACHE.get(geometry);
+    if (symmetry == null) {
+      // two threads may both build it, but only the first one is ever handed out
+      BoardSymmetry built = new BoardSymmetry(geometry);
+      symmetry = CACHE.putIfAbsent(geometry, built);
+      if (symmetry == null) {
+        symmetry = built;
+      }
+    }
+    return symmetry;
+  }
+
+  /**
+   * Maps a position of the grid by one of the candidate transforms, and checks whether the
+   * transform is a symmetry of the board, filling in its slot and direction maps if it is.
+   *
+   * @param candidate    the candidate transform: one of the 8 of the square, or the 6 of the
+   *                     triangle on a Triangle board
+   * @param cellMap      filled with the dense slot each slot maps to
+   * @param directionMap filled with the direction each permitted direction maps to
+   * @return true if the transform maps every slot to a slot and every jump to a jump
+   */
+  private boolean fits(int candidate, int[] cellMap, int[] directionMap) {
+    // the transforms are affine, so a step maps to the same step from anywhere on the grid
+    int[] origin = this.map(candidate, 0, 0);
+    for (int dir = 0; dir < directionMap.length; dir++) {
+      int[] step = this.map(candidate, BoardGeometry.ROW_STEP[dir], BoardGeometry.COL_STEP[dir]);
+      directionMap[dir] = BoardGeometry.directionOf(2 * (step[0] - origin[0]),
+              2 * (step[1] - origin[1]));
+      if (directionMap[dir] < 0 || directionMap[dir] >= directionMap.length) {
+        return false;
+      }
+    }
+    for (int cell = 0; cell < cellMap.length; cell++) {
+      int[] image = this.map(candidate, this.geometry.getCellRow(cell),
+              this.geometry.getCellCol(cell));
+      if (!this.geometry.isValid(image[0], image[1])) {
+        return false;
+      }
+      cellMap[cell] = this.geometry.cellIndex(image[0], image[1]);
+    }
+    return true;
+  }
+
+  /**
+   * Maps a position of the grid by one of the candidate transforms.
+   *
+   * @param candidate the candidate transform
+   * @param row       the row of the position
+   * @param col       the column of the position
+   * @return the row and column of the image
+   */
+  private int[] map(int candidate, int row, int col) {
+    int last = this.geometry.getDimension() - 1;
+    if (this.geometry.getShape() == BoardGeometry.Shape.Triangle) {
+      // a slot's distances from the three sides: left, diagonal and bottom
+      int[] sides = {col, row - col, last - row};
+      // each candidate permutes the three distances
+      int[][] permutations = {{0, 1, 2}, {2, 1, 0}, {1, 0, 2}, {0, 2, 1}, {1, 2, 0}, {2, 0, 1}};
+      int[] p = permutations[candidate];
+      return new int[]{last - sides[p[2]], sides[p[0]]};
+    }
+    switch (candidate) {
+      case 0:
+        return new int[]{row, col};
+      case 1:
+        // a quarter turn clockwise
+        return new int[]{col, last - row};
+      case 2:
+        // a half turn
+        return new int[]{last - row, last - col};
+      case 3:
+        // a quarter turn counterclockwise
+        return new int[]{last - col, row};
+      case 4:
+        // mirror top to bottom
+        return new int[]{last - row, col};
+      case 5:
+        // mirror left to right
+        return new int[]{row, last - col};
+      case 6:
+        // mirror across the main diagonal
+        return new int[]{col, row};
+      default:
+        // mirror across the anti-diagonal
+        return new int[]{last - col, last - row};
+    }
+  }
+
+  /**
+   * Returns the board these symmetries belong to.
+   *
+   * @return the geometry of the board
+   */
+  public BoardGeometry getGeometry() {
+    return this.geometry;
+  }
+
+  /**
+   * Returns the number of symmetries of the board, including the identity as transform 0.
+   *
+   * @return the number of transforms
+   */
+  public int getTransformCount() {
+    return this.cellMap.length;
+  }
+
+  /**
+   * Returns the transform that undoes the given one.
+   *
+   * @param transform the transform
+   * @return its inverse
+   */
+  public int inverse(int transform) {
+    return this.inverse[transform];
+  }
+
+  /**
+   * Maps a valid slot by the given transform.
+   *
+   * @param transform the transform
+   * @param cell      the dense index of the slot
+   * @return the dense index of its image
+   */
+  public int transformCell(int transform, int cell) {
+    return this.cellMap[transform][cell];
+  }
+
+  /**
+   * Maps a move by the given transform, so that a move found in a transformed position can be
+   * played in the original one by mapping it with the inverse transform.
+   *
+   * @param transform the transform
+   * @param move      the move, packed by (@code PackedMove)
+   * @return the image of the move, packed the same way
+   */
+  public int transformMove(int transform, int move) {
+    int size = this.geometry.getDimension();
+    int from = this.cellMap[transform][this.geometry.cellIndex(PackedMove.fromRow(move, size),
+            PackedMove.fromCol(move, size))];
+    return PackedMove.of(this.geometry.getCellRow(from), this.geometry.getCellCol(from),
+            this.directionMap[transform][PackedMove.direction(move)], size);
+  }
+
+  /**
+   * Returns the Zobrist key of the image of every slot under the given transform, for the search
+   * engines of this package, which must never modify it. XORing these keys over a position's
+   * marbles gives the hash of the position's image.
+   *
+   * @param transform the transform
+   * @return the keys, indexed by dense slot
+   */
+  long[] imageKeys(int transform) {
+    return this.imageKeys[transform];
+  }
+
+  /**
+   * Maps a packed board of up to 64 slots by the given transform.
+   *
+   * @param transform the transform
+   * @param board     the packed board
+   * @return the packed image of the board
+   * @throws IllegalArgumentException if the board has more than 64 slots
+   */
+  public long transform(int transform, long board) throws IllegalArgumentException {
+    if (this.byteMap == null) {
+      throw new IllegalArgumentException("Board is too large to pack into a long");
+    }
+    long[] table = this.byteMap[transform];
+    long image = 0;
+    for (int b = 0; b < 8 && board != 0; b++, board >>>= 8) {
+      image |= table[(b << 8) | (int) (board & 0xFF)];
+    }
+    return image;
+  }
+
+  /**
+   * Finds the transform that maps the given packed board of up to 64 slots to its smallest image,
+   * comparing images as unsigned numbers. Equal positions, and positions related by a symmetry,
+   * share the same smallest image.
+   *
+   * @param board the packed board
+   * @return the transform giving the smallest image (the lowest such transform on ties)
+   * @throws IllegalArgumentException if the board has more than 64 slots
+   */
+  public int canonicalTransform(long board) throws IllegalArgumentException {
+    int best = 0;
+    long bestImage = board;
+    for (int t = 1; t < this.cellMap.length; t++) {
+      long image = this.transform(t, board);
+      if (Long.compareUnsigned(image, bestImage) < 0) {
+        best = t;
+        bestImage = image;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Returns the canonical key of the given packed board of up to 64 slots: its smallest image
+   * under the board's symmetries.
+   *
+   * @param board the packed board
+   * @return the canonical key
+   * @throws IllegalArgumentException if the board has more than 64 slots
+   */
+  public long canonical(long board) throws IllegalArgumentException {
+    long best = board;
+    for (int t = 1; t < this.cellMap.length; t++) {
+      long image = this.transform(t, board);
+      if (Long.compareUnsigned(image, best) < 0) {
+        best = image;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Maps a packed board of any size by the given transform.
+   *
+   * @param transform the transform
+   * @param board     the packed board
+   * @param image     filled with the packed image, the same length as (@code board)
+   */
+  public void transform(int transform, long[] board, long[] image) {
+    int[] map = this.cellMap[transform];
+    for (int w = 0; w < image.length; w++) {
+      image[w] = 0;
+    }
+    for (int w = 0; w < board.length; w++) {
+      for (long bits = board[w]; bits != 0; bits &= bits - 1) {
+        int cell = map[(w << 6) | Long.numberOfTrailingZeros(bits)];
+        image[cell >>> 6] |= 1L << cell;
+      }
+    }
+  }
+
+  /**
+   * Writes the canonical key of the given packed board of any size, its smallest image under the
+   * board's symmetries, comparing images as unsigned numbers from the highest word down.
+   *
+   * @param board   the packed board
+   * @param key     filled with the canonical key, the same length as (@code board)
+   * @param scratch working space, the same length as (@code board)
+   * @return the transform giving the canonical key (the lowest such transform on ties)
+   */
+  public int canonical(long[] board, long[] key, long[] scratch) {
+    System.arraycopy(board, 0, key, 0, board.length);
+    int best = 0;
+    for (int t = 1; t < this.cellMap.length; t++) {
+      this.transform(t, board, scratch);
+      if (compare(scratch, key) < 0) {
+        System.arraycopy(scratch, 0, key, 0, key.length);
+        best = t;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Compares two packed boards of the same length as unsigned numbers.
+   *
+   * @param a the first board
+   * @param b the second board
+   * @return a negative number, zero or a positive number as (@code a) is below, equal to or above
+   *         (@code b)
+   */
+  public static int compare(long[] a, long[] b) {
+    for (int w = a.length - 1; w >= 0; w--) {
+      if (a[w] != b[w]) {
+        return Long.compareUnsigned(a[w], b[w]);
+      }
+    }
+    return 0;
+  }
+}
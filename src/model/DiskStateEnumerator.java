@@ -0,0 +1,466 @@
+package model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Counts every position that can be reached from a game, level by level like
+ * (@code StateEnumerator), but keeps each level on disk instead of in memory, so boards whose
+ * levels are far larger than memory can still be enumerated.
+ *
+ * <p>A level is read back in batches of positions that fit in memory. Each batch's children are
+ * generated in parallel, sorted and deduplicated as in (@code StateEnumerator), and written out as
+ * a sorted run. Once the whole level has been read, the runs are merged in one pass, dropping
+ * repeats, into the file of the next level. Every file is read and written sequentially, in
+ * windows of records moved between a direct buffer and the file's channel, so no file stays mapped
+ * and each can be renamed or deleted as soon as it is closed.
+ *
+ * <p>A level file is only given its final name once it is complete, and it records the board, the
+ * starting position and the counts of every level so far. If the process is stopped, enumerating
+ * the same game into the same directory carries on from the last completed level. Only the latest
+ * level file is kept, and any older one left by a process stopped before it could delete it is
+ * deleted on the next run.
+ */
+public class DiskStateEnumerator {
+  // the first word of every level file
+  private static final long MAGIC = 0x4D5353544154453EL;
+  // the number of positions expanded at once by default, 256 MB of single-word children
+  private static final int DEFAULT_BATCH = 1 << 22;
+
+  private final Path directory;
+  private final int parallelism;
+  private final int batch;
+
+  /**
+   * Constructs an enumerator that keeps its levels in the given directory and uses every available
+   * core.
+   *
+   * @param directory the directory to keep the level files in, created if needed
+   * @throws IllegalArgumentException when (@code directory) is null
+   */
+  public DiskStateEnumerator(Path directory) throws IllegalArgumentException {
+    this(directory, Runtime.getRuntime().availableProcessors(), DEFAULT_BATCH);
+  }
+
+  /**
+   * Constructs an enumerator that keeps its levels in the given directory.
+   *
+   * @param directory   the directory to keep the level files in, created if needed
+   * @param parallelism the number of threads to generate positions with
+   * @param batch       the number of positions to expand in memory at once
+   * @throws IllegalArgumentException when (@code directory) is null, or (@code parallelism) or
+   *                                  (@code batch) is not positive
+   */
+  public DiskStateEnumerator(Path directory, int parallelism, int batch)
+          throws IllegalArgumentException {
+    if (directory == null) {
+      throw new IllegalArgumentException("Must provide a non-null directory");
+    }
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Parallelism must be positive");
+    }
+    if (batch < 1) {
+      throw new IllegalArgumentException("Batch size must be positive");
+    }
+    this.directory = directory;
+    this.parallelism = parallelism;
+    this.batch = batch;
+  }
+
+  /**
+   * Counts every position that can be reached from the given game, carrying on from the last
+   * completed level if the directory already holds part of the same enumeration.
+   *
+   * @param model the game to start from, which is left unchanged
+   * @return the number of positions and the time taken at each level
+   * @throws IllegalArgumentException when (@code model) is null, its board is of no known type, or
+   *                                  the directory holds the enumeration of another game
+   * @throws IOException              if the level files cannot be read or written
+   */
+  public EnumerationResult enumerate(MarbleSolitaireModelState model)
+          throws IllegalArgumentException, IOException {
+    return this.enumerate(model, 1);
+  }
+
+  /**
+   * Counts every position that can be reached from the given game with at least the given number
+   * of marbles left, carrying on from the last completed level if the directory already holds part
+   * of the same enumeration.
+   *
+   * @param model      the game to start from, which is left unchanged
+   * @param minMarbles the number of marbles to stop at
+   * @return the number of positions and the time taken at each level
+   * @throws IllegalArgumentException when (@code model) is null, its board is of no known type, or
+   *                                  the directory holds the enumeration of another game
+   * @throws IOException              if the level files cannot be read or written
+   */
+  public EnumerationResult enumerate(MarbleSolitaireModelState model, int minMarbles)
+          throws IllegalArgumentException, IOException {
+    long begin = System.nanoTime();
+    BoardGeometry geometry = BoardGeometry.of(model);
+    StateEnumerator.Expansion expansion = new StateEnumerator.Expansion(geometry);
+    int words = expansion.words;
+    long[] start = expansion.keyOf(model);
+    int marbles = model.getScore();
+    Files.createDirectories(this.directory);
+    this.deleteUnfinished();
+
+    int level = this.latestLevel();
+    this.deleteCompletedBefore(level);
+    long[] positions;
+    long[] nanos;
+    if (level < 0) {
+      level = 0;
+      positions = new long[] {1};
+      nanos = new long[] {System.nanoTime() - begin};
+      try (RecordFile.Writer writer = new RecordFile.Writer(this.temporary(0),
+              headerBytes(words, 0), words)) {
+        writer.write(start, 0);
+        this.writeHeader(writer.channel(), geometry, start, marbles, positions, nanos);
+      }
+      this.complete(0);
+    } else {
+      long[][] counts = this.readHeader(level, geometry, start, marbles);
+      positions = counts[0];
+      nanos = counts[1];
+    }
+
+    ForkJoinPool pool = new ForkJoinPool(this.parallelism);
+    try {
+      while (marbles - level > Math.max(minMarbles, 1)) {
+        begin = System.nanoTime();
+        int runs = this.writeRuns(pool, expansion, level, positions[level]);
+        long count = this.mergeRuns(words, level + 1, runs, positions.length + 1);
+        if (count == 0) {
+          Files.delete(this.temporary(level + 1));
+          break;
+        }
+        positions = Arrays.copyOf(positions, level + 2);
+        nanos = Arrays.copyOf(nanos, level + 2);
+        positions[level + 1] = count;
+        nanos[level + 1] = System.nanoTime() - begin;
+        try (FileChannel channel = FileChannel.open(this.temporary(level + 1),
+                StandardOpenOption.WRITE)) {
+          this.writeHeader(channel, geometry, start, marbles, positions, nanos);
+          channel.force(true);
+        }
+        this.complete(level + 1);
+        Files.delete(this.completed(level));
+        level += 1;
+      }
+    } finally {
+      pool.shutdown();
+    }
+
+    int levels = Math.min(positions.length, Math.max(1, marbles - Math.max(minMarbles, 1) + 1));
+    return new EnumerationResult(marbles, Arrays.copyOf(positions, levels),
+            Arrays.copyOf(nanos, levels));
+  }
+
+  /**
+   * Expands the positions of the given level in batches, writing each batch's sorted children to
+   * a run file of its own.
+   *
+   * @param pool      the pool to generate on
+   * @param expansion the board's child generator
+   * @param level     the level to expand
+   * @param count     the number of positions of the level
+   * @return the number of runs written
+   * @throws IOException if a file cannot be read or written
+   */
+  private int writeRuns(ForkJoinPool pool, StateEnumerator.Expansion expansion, int level,
+                        long count) throws IOException {
+    int words = expansion.words;
+    int runs = 0;
+    long[] positions = new long[this.batch * words];
+    try (RecordFile.Reader reader = new RecordFile.Reader(this.completed(level),
+            headerBytes(words, level), words, count)) {
+      while (reader.remaining() > 0) {
+        int read = 0;
+        while (read < this.batch && reader.read(positions, read * words)) {
+          read += 1;
+        }
+        long[] children = StateEnumerator.expand(pool, expansion, positions, read);
+        try (RecordFile.Writer writer = new RecordFile.Writer(this.run(level + 1, runs), 0,
+                words)) {
+          writer.writeAll(children, children.length);
+        }
+        runs += 1;
+      }
+    }
+    return runs;
+  }
+
+  /**
+   * Merges the sorted runs of the given level into its unfinished level file, dropping repeats, and
+   * deletes the runs.
+   *
+   * @param words  the words of each record
+   * @param level  the level being built
+   * @param runs   the number of runs
+   * @param levels the number of levels the header of the level file needs room for
+   * @return the number of distinct positions written
+   * @throws IOException if a file cannot be read or written
+   */
+  private long mergeRuns(int words, int level, int runs, int levels) throws IOException {
+    RecordFile.Reader[] readers = new RecordFile.Reader[runs];
+    // the current record of each run, and a heap of the runs ordered by their current records
+    long[] heads = new long[runs * words];
+    int[] heap = new int[runs];
+    int size = 0;
+    long[] last = new long[words];
+    long count;
+    try (RecordFile.Writer writer = new RecordFile.Writer(this.temporary(level),
+            headerBytes(words, levels - 1), words)) {
+      for (int run = 0; run < runs; run++) {
+        Path path = this.run(level, run);
+        readers[run] = new RecordFile.Reader(path, 0, words, Files.size(path) / (8L * words));
+        if (readers[run].read(heads, run * words)) {
+          heap[size] = run;
+          size += 1;
+          siftUp(heap, size - 1, heads, words);
+        }
+      }
+      while (size > 0) {
+        int run = heap[0];
+        if (writer.count() == 0
+                || StateEnumerator.compare(heads, run * words, last, 0, words) != 0) {
+          writer.write(heads, run * words);
+          System.arraycopy(heads, run * words, last, 0, words);
+        }
+        if (!readers[run].read(heads, run * words)) {
+          size -= 1;
+          heap[0] = heap[size];
+        }
+        siftDown(heap, size, heads, words);
+      }
+      count = writer.count();
+    } finally {
+      for (RecordFile.Reader reader : readers) {
+        if (reader != null) {
+          reader.close();
+        }
+      }
+    }
+    for (int run = 0; run < runs; run++) {
+      Files.delete(this.run(level, run));
+    }
+    return count;
+  }
+
+  /**
+   * Moves the entry at the given index of a heap of runs up until its parent is no greater.
+   */
+  private static void siftUp(int[] heap, int index, long[] heads, int words) {
+    while (index > 0) {
+      int parent = (index - 1) / 2;
+      if (StateEnumerator.compare(heads, heap[index] * words, heads, heap[parent] * words, words)
+              >= 0) {
+        return;
+      }
+      int swap = heap[index];
+      heap[index] = heap[parent];
+      heap[parent] = swap;
+      index = parent;
+    }
+  }
+
+  /**
+   * Moves the top entry of a heap of runs down until its children are no smaller.
+   */
+  private static void siftDown(int[] heap, int size, long[] heads, int words) {
+    int index = 0;
+    while (2 * index + 1 < size) {
+      int child = 2 * index + 1;
+      if (child + 1 < size && StateEnumerator.compare(heads, heap[child + 1] * words, heads,
+              heap[child] * words, words) < 0) {
+        child += 1;
+      }
+      if (StateEnumerator.compare(heads, heap[index] * words, heads, heap[child] * words, words)
+              <= 0) {
+        return;
+      }
+      int swap = heap[index];
+      heap[index] = heap[child];
+      heap[child] = swap;
+      index = child;
+    }
+  }
+
+  /**
+   * Returns the size of the header of a level file.
+   *
+   * @param words the words of each record
+   * @param level the level of the file
+   * @return the size of the header, in bytes
+   */
+  private static long headerBytes(int words, int level) {
+    return 32 + 8L * words + 16L * (level + 1);
+  }
+
+  /**
+   * Writes the header of a level file: the board, the starting position, and the number of
+   * positions and time taken of every level up to the file's own.
+   *
+   * @param channel   the channel of the level file
+   * @param geometry  the board
+   * @param start     the record of the starting position
+   * @param marbles   the number of marbles of the starting position
+   * @param positions the number of positions of each level
+   * @param nanos     the time taken by each level
+   * @throws IOException if the file cannot be written
+   */
+  private void writeHeader(FileChannel channel, BoardGeometry geometry, long[] start,
+                           int marbles, long[] positions, long[] nanos) throws IOException {
+    int level = positions.length - 1;
+    ByteBuffer header = ByteBuffer.allocate((int) headerBytes(start.length, level))
+            .order(ByteOrder.LITTLE_ENDIAN);
+    header.putLong(MAGIC).putInt(geometry.getShape().ordinal()).putInt(geometry.getSize())
+            .putInt(start.length).putInt(marbles).putInt(level).putInt(0);
+    for (long word : start) {
+      header.putLong(word);
+    }
+    for (int i = 0; i <= level; i++) {
+      header.putLong(positions[i]).putLong(nanos[i]);
+    }
+    header.flip();
+    long at = 0;
+    while (header.hasRemaining()) {
+      at += channel.write(header, at);
+    }
+  }
+
+  /**
+   * Reads the header of the given completed level file and checks that it belongs to this
+   * enumeration.
+   *
+   * @param level    the level of the file
+   * @param geometry the board being enumerated
+   * @param start    the record of the starting position
+   * @param marbles  the number of marbles of the starting position
+   * @return the number of positions of each level, then the time taken by each level
+   * @throws IllegalArgumentException if the file belongs to the enumeration of another game
+   * @throws IOException              if the file cannot be read
+   */
+  private long[][] readHeader(int level, BoardGeometry geometry, long[] start, int marbles)
+          throws IllegalArgumentException, IOException {
+    ByteBuffer header = ByteBuffer.allocate((int) headerBytes(start.length, level))
+            .order(ByteOrder.LITTLE_ENDIAN);
+    try (FileChannel channel = FileChannel.open(this.completed(level), StandardOpenOption.READ)) {
+      while (header.hasRemaining()) {
+        if (channel.read(header, header.position()) < 0) {
+          break;
+        }
+      }
+    }
+    header.flip();
+    boolean matches = header.remaining() == header.capacity() && header.getLong() == MAGIC
+            && header.getInt() == geometry.getShape().ordinal()
+            && header.getInt() == geometry.getSize() && header.getInt() == start.length
+            && header.getInt() == marbles && header.getInt() == level;
+    if (matches) {
+      header.getInt();
+      for (long word : start) {
+        matches &= header.getLong() == word;
+      }
+    }
+    if (!matches) {
+      throw new IllegalArgumentException("Directory holds the enumeration of another game");
+    }
+    long[][] counts = new long[2][level + 1];
+    for (int i = 0; i <= level; i++) {
+      counts[0][i] = header.getLong();
+      counts[1][i] = header.getLong();
+    }
+    return counts;
+  }
+
+  /**
+   * Finds the latest completed level file in the directory.
+   *
+   * @return its level, or -1 if there is none
+   * @throws IOException if the directory cannot be read
+   */
+  private int latestLevel() throws IOException {
+    int latest = -1;
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(this.directory, "level-*.bin")) {
+      for (Path file : files) {
+        String name = file.getFileName().toString();
+        try {
+          latest = Math.max(latest,
+                  Integer.parseInt(name.substring("level-".length(), name.length() - 4)));
+        } catch (NumberFormatException e) {
+          //do nothing; not one of ours
+        }
+      }
+    }
+    return latest;
+  }
+
+  /**
+   * Deletes the runs and unfinished level files left behind by an enumeration that was stopped.
+   *
+   * @throws IOException if the directory cannot be read or a file cannot be deleted
+   */
+  private void deleteUnfinished() throws IOException {
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(this.directory,
+            "level-*.{run-*,tmp}")) {
+      for (Path file : files) {
+        Files.delete(file);
+      }
+    }
+  }
+
+  /**
+   * Deletes the completed level files older than the given level, left behind by an enumeration
+   * that was stopped between completing a level and deleting the one before it.
+   *
+   * @param latest the latest completed level
+   * @throws IOException if a file cannot be deleted
+   */
+  private void deleteCompletedBefore(int latest) throws IOException {
+    for (int level = 0; level < latest; level++) {
+      Files.deleteIfExists(this.completed(level));
+    }
+  }
+
+  /**
+   * Gives the unfinished file of the given level its final name, in one step.
+   *
+   * @param level the level
+   * @throws IOException if the file cannot be moved
+   */
+  private void complete(int level) throws IOException {
+    Files.move(this.temporary(level), this.completed(level), StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Returns the file of the given completed level.
+   */
+  private Path completed(int level) {
+    return this.directory.resolve("level-" + level + ".bin");
+  }
+
+  /**
+   * Returns the file the given level is written to before it is complete.
+   */
+  private Path temporary(int level) {
+    return this.directory.resolve("level-" + level + ".tmp");
+  }
+
+  /**
+   * Returns the file of one sorted run of the given level.
+   */
+  private Path run(int level, int run) {
+    return this.directory.resolve("level-" + level + ".run-" + run);
+  }
+}
@@ -0,0 +1,400 @@
+package model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Records whether every position of a board with up to some number of marbles can be cleared down
+ * to one marble. Searches spend most of their time among positions with few marbles left, and a
+ * tablebase answers those in a few word operations instead.
+ *
+ * <p>The positions with (@code m) marbles are numbered from 0 to C(slots, m) - 1 by the
+ * combinatorial number system: the marbles in slots c1 &lt; c2 &lt; ... &lt; cm give the number
+ * C(c1, 1) + C(c2, 2) + ... + C(cm, m). No two positions share a number and no number is unused,
+ * so each level of the table is a plain array of one bit per position, and finding a position's
+ * bit takes one addition per marble. Every position counts, not only those reachable from some
+ * start, so one table serves every game on the board.
+ *
+ * <p>A table is generated once, level by level in parallel, each position being won when one of
+ * its jumps leads to a won position of the level below, and saved to a file: a header of the
+ * board and the number of levels, then each level's bits as little-endian longs. An opened table
+ * is a read-only mapping of that file, so it is ready as soon as the file is mapped, with nothing
+ * to read or decode, and every thread may share it. Tables cover boards of up to 64 slots.
+ */
+public final class EndgameTablebase {
+  // "MSENDGAM", the first word of every tablebase file
+  private static final long MAGIC = 0x4D53454E4447414DL;
+  // the magic number, shape, size, number of slots and number of levels
+  private static final int HEADER_BYTES = 32;
+  // the number of positions decided by one task, a multiple of 64 so no two tasks share a word
+  private static final int CHUNK = 1 << 16;
+
+  private final BoardGeometry geometry;
+  private final int maxMarbles;
+  // the number of ways of choosing each number of slots from each number, by [slots][marbles]
+  private final long[][] binomial;
+  // the byte offset of each level's bits in the file, by number of marbles
+  private final long[] offsets;
+  private final MappedByteBuffer bits;
+
+  /**
+   * Constructs a tablebase over the given mapping of its file.
+   *
+   * @param geometry   the board
+   * @param maxMarbles the number of marbles of the largest positions covered
+   * @param bits       the mapping of the whole file
+   */
+  private EndgameTablebase(BoardGeometry geometry, int maxMarbles, MappedByteBuffer bits) {
+    this.geometry = geometry;
+    this.maxMarbles = maxMarbles;
+    this.binomial = binomials(geometry.getCellCount());
+    this.offsets = offsets(this.binomial, geometry.getCellCount(), maxMarbles);
+    this.bits = bits;
+    this.bits.order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   * Returns the table of binomial coefficients up to the given number of slots.
+   *
+   * @param cells the number of slots
+   * @return C(n, k) at [n][k], for n and k up to (@code cells)
+   */
+  private static long[][] binomials(int cells) {
+    long[][] binomial = new long[cells + 1][cells + 1];
+    for (int n = 0; n <= cells; n++) {
+      binomial[n][0] = 1;
+      for (int k = 1; k <= n; k++) {
+        binomial[n][k] = binomial[n - 1][k - 1] + binomial[n - 1][k];
+      }
+    }
+    return binomial;
+  }
+
+  /**
+   * Returns the byte offset of each level of a tablebase file, each level padded to whole longs.
+   *
+   * @param binomial   the binomial coefficients of the board
+   * @param cells      the number of slots
+   * @param maxMarbles the number of levels
+   * @return the offset of each level, by number of marbles, and the size of the file last
+   */
+  private static long[] offsets(long[][] binomial, int cells, int maxMarbles) {
+    long[] offsets = new long[maxMarbles + 2];
+    offsets[1] = HEADER_BYTES;
+    for (int marbles = 1; marbles <= maxMarbles; marbles++) {
+      offsets[marbles + 1] = offsets[marbles] + (binomial[cells][marbles] + 63) / 64 * 8;
+    }
+    return offsets;
+  }
+
+  /**
+   * Returns the number of the given position among the positions with as many marbles.
+   *
+   * @param binomial the binomial coefficients of the board
+   * @param board    the packed board
+   * @return the position's number
+   */
+  private static long rank(long[][] binomial, long board) {
+    long rank = 0;
+    for (int i = 1; board != 0; i++) {
+      rank += binomial[Long.numberOfTrailingZeros(board)][i];
+      board &= board - 1;
+    }
+    return rank;
+  }
+
+  /**
+   * Returns the position with the given number among the positions with the given number of
+   * marbles.
+   *
+   * @param binomial the binomial coefficients of the board
+   * @param cells    the number of slots
+   * @param marbles  the number of marbles
+   * @param rank     the position's number
+   * @return the packed board
+   */
+  private static long unrank(long[][] binomial, int cells, int marbles, long rank) {
+    long board = 0;
+    int cell = cells;
+    for (int i = marbles; i >= 1; i--) {
+      do {
+        cell -= 1;
+      } while (binomial[cell][i] > rank);
+      rank -= binomial[cell][i];
+      board |= 1L << cell;
+    }
+    return board;
+  }
+
+  /**
+   * Generates the tablebase of the given board and saves it to the given file.
+   *
+   * @param geometry    the board
+   * @param maxMarbles  the number of marbles of the largest positions to cover
+   * @param file        the file to write, replacing any file already there
+   * @param parallelism the number of threads to generate with
+   * @throws IllegalArgumentException when (@code geometry) or (@code file) is null, the board has
+   *                                  more than 64 slots, the table would not fit in one mapping,
+   *                                  or (@code maxMarbles) or (@code parallelism) is out of range
+   * @throws IOException              if the file cannot be written
+   */
+  public static void generate(BoardGeometry geometry, int maxMarbles, Path file, int parallelism)
+          throws IllegalArgumentException, IOException {
+    if (geometry == null) {
+      throw new IllegalArgumentException("Must provide a non-null board geometry");
+    }
+    if (file == null) {
+      throw new IllegalArgumentException("Must provide a non-null file");
+    }
+    int cells = geometry.getCellCount();
+    if (cells > 64) {
+      throw new IllegalArgumentException("Board has too many slots");
+    }
+    if (maxMarbles < 1 || maxMarbles > cells) {
+      throw new IllegalArgumentException("Invalid number of marbles " + maxMarbles);
+    }
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Parallelism must be positive");
+    }
+    long[][] binomial = binomials(cells);
+    long[] offsets = offsets(binomial, cells, maxMarbles);
+    if (offsets[maxMarbles + 1] > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Tablebase is too large");
+    }
+    // the two slots a jump needs filled, and the slot it needs empty
+    int jumps = geometry.getJumpCount();
+    long[] filled = new long[jumps];
+    long[] empty = new long[jumps];
+    for (int jump = 0; jump < jumps; jump++) {
+      filled[jump] = (1L << geometry.getJumpFrom(jump)) | (1L << geometry.getJumpOver(jump));
+      empty[jump] = 1L << geometry.getJumpTo(jump);
+    }
+
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    try (RecordFile.Writer writer = new RecordFile.Writer(file, HEADER_BYTES, 1)) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+      header.putLong(MAGIC).putInt(geometry.getShape().ordinal()).putInt(geometry.getSize())
+              .putInt(cells).putInt(maxMarbles).flip();
+      int at = 0;
+      while (header.hasRemaining()) {
+        at += writer.channel().write(header, at);
+      }
+
+      long[] below = null;
+      for (int marbles = 1; marbles <= maxMarbles; marbles++) {
+        long count = binomial[cells][marbles];
+        long[] level = new long[(int) ((count + 63) / 64)];
+        if (marbles == 1) {
+          // a single marble is already won
+          for (long rank = 0; rank < count; rank++) {
+            level[(int) (rank >>> 6)] |= 1L << rank;
+          }
+        } else {
+          pool.invoke(new LevelTask(new Level(binomial, cells, marbles, filled, empty, below,
+                  level), 0, count));
+        }
+        writer.writeAll(level, level.length);
+        below = level;
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * The state shared by every task deciding one level of a tablebase.
+   */
+  private static final class Level {
+    private final long[][] binomial;
+    private final int cells;
+    private final int marbles;
+    private final long[] filled;
+    private final long[] empty;
+    // the bits of the level below, and the bits being decided
+    private final long[] below;
+    private final long[] bits;
+
+    /**
+     * Constructs the state of one level.
+     *
+     * @param binomial the binomial coefficients of the board
+     * @param cells    the number of slots
+     * @param marbles  the number of marbles of the level's positions
+     * @param filled   the two slots each jump needs filled
+     * @param empty    the slot each jump needs empty
+     * @param below    the bits of the level with one marble fewer
+     * @param bits     the bits of this level, all clear
+     */
+    private Level(long[][] binomial, int cells, int marbles, long[] filled, long[] empty,
+                  long[] below, long[] bits) {
+      this.binomial = binomial;
+      this.cells = cells;
+      this.marbles = marbles;
+      this.filled = filled;
+      this.empty = empty;
+      this.below = below;
+      this.bits = bits;
+    }
+  }
+
+  /**
+   * Decides a range of the positions of one level, splitting it between tasks when it is large.
+   */
+  // tasks are only ever run in this process, never serialized
+  @SuppressWarnings("serial")
+  private static final class LevelTask extends RecursiveAction {
+    private final Level level;
+    private final long lo;
+    private final long hi;
+
+    /**
+     * Constructs a task for the given range of positions.
+     *
+     * @param level the level
+     * @param lo    the number of the first position to decide
+     * @param hi    the number after the last position to decide
+     */
+    private LevelTask(Level level, long lo, long hi) {
+      this.level = level;
+      this.lo = lo;
+      this.hi = hi;
+    }
+
+    @Override
+    protected void compute() {
+      if (this.hi - this.lo > CHUNK) {
+        long mid = this.lo + Math.max(1, (this.hi - this.lo) / CHUNK / 2) * CHUNK;
+        invokeAll(new LevelTask(this.level, this.lo, mid),
+                new LevelTask(this.level, mid, this.hi));
+        return;
+      }
+      Level level = this.level;
+      long board = unrank(level.binomial, level.cells, level.marbles, this.lo);
+      for (long rank = this.lo; rank < this.hi; rank++) {
+        for (int jump = 0; jump < level.filled.length; jump++) {
+          if ((board & level.filled[jump]) == level.filled[jump]
+                  && (board & level.empty[jump]) == 0) {
+            long child = rank(level.binomial, board ^ level.filled[jump] ^ level.empty[jump]);
+            if ((level.below[(int) (child >>> 6)] & (1L << child)) != 0) {
+              level.bits[(int) (rank >>> 6)] |= 1L << rank;
+              break;
+            }
+          }
+        }
+        // the next position with as many marbles, in the order of their numbers
+        long carry = board | (board - 1);
+        board = (carry + 1)
+                | (((~carry & -~carry) - 1) >>> (Long.numberOfTrailingZeros(board) + 1));
+      }
+    }
+  }
+
+  /**
+   * Opens the tablebase saved in the given file, mapping it into memory.
+   *
+   * @param file the file
+   * @return the tablebase
+   * @throws IllegalArgumentException when (@code file) is null
+   * @throws IOException              if the file cannot be read or does not hold a tablebase
+   */
+  public static EndgameTablebase open(Path file) throws IllegalArgumentException, IOException {
+    if (file == null) {
+      throw new IllegalArgumentException("Must provide a non-null file");
+    }
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      MappedByteBuffer bits = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      bits.order(ByteOrder.LITTLE_ENDIAN);
+      if (bits.capacity() < HEADER_BYTES || bits.getLong(0) != MAGIC) {
+        throw new IOException("Not an endgame tablebase");
+      }
+      int shape = bits.getInt(8);
+      int size = bits.getInt(12);
+      int cells = bits.getInt(16);
+      int maxMarbles = bits.getInt(20);
+      if (shape < 0 || shape >= BoardGeometry.Shape.values().length
+              || !BoardGeometry.isValidSize(BoardGeometry.Shape.values()[shape], size)) {
+        throw new IOException("Not an endgame tablebase");
+      }
+      BoardGeometry geometry = BoardGeometry.of(BoardGeometry.Shape.values()[shape], size);
+      if (geometry.getCellCount() != cells || cells > 64 || maxMarbles < 1 || maxMarbles > cells
+              || offsets(binomials(cells), cells, maxMarbles)[maxMarbles + 1] != channel.size()) {
+        throw new IOException("Not an endgame tablebase");
+      }
+      // the mapping stays valid once the channel is closed
+      return new EndgameTablebase(geometry, maxMarbles, bits);
+    }
+  }
+
+  /**
+   * Returns the board this tablebase covers.
+   *
+   * @return the geometry of the board
+   */
+  public BoardGeometry getGeometry() {
+    return this.geometry;
+  }
+
+  /**
+   * Returns the number of marbles of the largest positions this tablebase covers.
+   *
+   * @return the number of marbles
+   */
+  public int getMaxMarbles() {
+    return this.maxMarbles;
+  }
+
+  /**
+   * Determines if the given position, which must be covered, can be cleared down to one marble.
+   * This is the search engines' lookup, which checks nothing.
+   *
+   * @param board   the packed board
+   * @param marbles the number of marbles on the board, from 1 to the largest covered
+   * @return true if the position can be won
+   */
+  boolean isWon(long board, int marbles) {
+    long rank = rank(this.binomial, board);
+    return (this.bits.getLong((int) (this.offsets[marbles] + (rank >>> 6) * 8))
+            & (1L << rank)) != 0;
+  }
+
+  /**
+   * Determines if the given packed position can be cleared down to one marble.
+   *
+   * @param board the packed board, numbered by this tablebase's geometry
+   * @return true if the position can be won
+   * @throws IllegalArgumentException when the position has no marbles or more than this
+   *                                  tablebase covers, or marbles outside the board
+   */
+  public boolean canWin(long board) throws IllegalArgumentException {
+    int marbles = Long.bitCount(board);
+    if (marbles < 1 || marbles > this.maxMarbles) {
+      throw new IllegalArgumentException("Position is not covered by the tablebase");
+    }
+    if (this.geometry.getCellCount() < 64 && board >>> this.geometry.getCellCount() != 0) {
+      throw new IllegalArgumentException("Position out of bounds");
+    }
+    return this.isWon(board, marbles);
+  }
+
+  /**
+   * Determines if the given game can be cleared down to one marble.
+   *
+   * @param model the game, on this tablebase's board
+   * @return true if the game can be won
+   * @throws IllegalArgumentException when (@code model) is null, on another board, or has no
+   *                                  marbles or more than this tablebase covers
+   */
+  public boolean canWin(MarbleSolitaireModelState model) throws IllegalArgumentException {
+    if (BoardGeometry.of(model) != this.geometry) {
+      throw new IllegalArgumentException("Game is on another board");
+    }
+    return this.canWin(this.geometry.pack(model));
+  }
+}
@@ -6,6 +6,19 @@ package model;
 public class EnglishSolitaireModel implements MarbleSolitaireModel {
   protected SlotState[][] board;
   protected int score;
+  // the shared shape and jump tables of this board type and size
+  protected BoardGeometry geometry;
+  // the Zobrist hash of the position, kept up to date by move()
+  protected long hash;
+  // the number of valid moves on the board, kept up to date by move()
+  protected int legalMoves;
+  // the board packed one bit per valid slot, kept in step with (@code board) so that fork()
+  // copies words rather than slots
+  protected long[] marbles;
+  // the moves made so far, for undo and redo
+  protected final MoveJournal journal = new MoveJournal();
+  // the slots changed by a move, reused by every move
+  private final int[] changedCells = new int[3];
 
 
   /**
@@ -14,6 +27,7 @@ public class EnglishSolitaireModel implements MarbleSolitaireModel {
   public EnglishSolitaireModel() {
     score = 0;
     this.generateBoard(3, 3, 3);
+    this.legalMoves = this.countMovesInto(3, 3);
   }
 
   /**
@@ -32,6 +46,7 @@ public class EnglishSolitaireModel implements MarbleSolitaireModel {
       throw new IllegalArgumentException("Invalid empty cell position (" + sRow + "," + sCol + ")");
     } else {
       this.generateBoard(3, sRow, sCol);
+      this.legalMoves = this.countMovesInto(sRow, sCol);
     }
   }
 
@@ -51,6 +66,7 @@ public class EnglishSolitaireModel implements MarbleSolitaireModel {
       // since the armSize is implied to be odd in this if branch,
       // this computation will result in an integer (so we can safely cast it from double to int)
       this.generateBoard(armSize, (int) center, (int) center);
+      this.legalMoves = this.countMovesInto((int) center, (int) center);
     }
   }
 
@@ -74,11 +90,22 @@ public class EnglishSolitaireModel implements MarbleSolitaireModel {
       throw new IllegalArgumentException("Invalid empty cell position (" + sRow + "," + sCol + ")");
     } else {
       this.generateBoard(armSize, sRow, sCol);
+      this.legalMoves = this.countMovesInto(sRow, sCol);
     }
   }
 
   protected boolean invalidSize(int armSize) {
-    return armSize < 0 || (armSize % 2 == 0);
+    return !BoardGeometry.isValidSize(this.shape(), armSize);
+  }
+
+  /**
+   * Returns the type of board this model plays on. Subclasses override this to play on a
+   * different board, which is then built from the shared (@code BoardGeometry) of that type.
+   *
+   * @return the shape of the board
+   */
+  protected BoardGeometry.Shape shape() {
+    return BoardGeometry.Shape.English;
   }
 
   /**
@@ -89,11 +116,7 @@ public class EnglishSolitaireModel implements MarbleSolitaireModel {
    * @return true if the empty slot position is invalid
    */
   protected boolean invalidEmptyPos(int armSize, int sRow, int sCol) {
-    return (sRow <= armSize - 2 && sCol <= armSize - 2)
-            || (sRow <= armSize - 2 && sCol >= (2 * armSize) - 1)
-            || (sRow >= (2 * armSize) - 1 && sCol <= armSize - 2)
-            || (sRow >= (2 * armSize) - 1 && sCol >= (2 * armSize) - 1)
-            || sRow < 0 || sRow >= (armSize * 3) - 2 || sCol < 0 || sCol >= (armSize * 3) - 2;
+    return !BoardGeometry.of(this.shape(), armSize).isValid(sRow, sCol);
   }
 
   /**
@@ -104,19 +127,17 @@ public class EnglishSolitaireModel implements MarbleSolitaireModel {
    * @param sCol    the horizontal index of the starting empty slot
    */
   protected void generateBoard(int armSize, int sRow, int sCol) {
+    this.geometry = BoardGeometry.of(this.shape(), armSize);
     // calculate the length/width of the board
-    int dimension = 3 * (armSize - 1) + 1;
+    int dimension = this.geometry.getDimension();
     //create board of proper size, all slots are initialized to null
     this.board = new SlotState[dimension][dimension];
 
     for (int row = 0; row < dimension; row++) {
       for (int col = 0; col < dimension; col++) {
-        // check to make marble cross
-        if (((row > armSize - 2) && (row < (2 * armSize) - 1))
-                || ((col > armSize - 2) && (col < (2 * armSize) - 1))) {
+        // fill the shape of the board with marbles
+        if (this.geometry.isValid(row, col)) {
           this.board[row][col] = SlotState.Marble;
-          // count the marble in the score
-          this.score += 1;
         }
         // make others Invalid
         else {
@@ -124,11 +145,16 @@ public class EnglishSolitaireModel implements MarbleSolitaireModel {
         }
       }
     }
+    // count the marbles in the score
+    this.score += this.geometry.getCellCount();
     // make the input position empty
     this.board[sRow][sCol] = SlotState.Empty;
     // account for changing the marble to empty in the score
     this.score -= 1;
-
+    this.hash = this.geometry.getFullHash()
+            ^ this.geometry.getZobristKey(this.geometry.cellIndex(sRow, sCol));
+    this.marbles = new long[(this.geometry.getCellCount() + 63) >>> 6];
+    this.geometry.pack(this, this.marbles);
   }
 
   @Override
@@ -138,35 +164,138 @@ public class EnglishSolitaireModel implements MarbleSolitaireModel {
     // move method will stop here if an exception is thrown (if it is not a valid move)
 
     // if it is a valid move...
-
-    // make the old slot empty
-    this.board[fromRow][fromCol] = SlotState.Empty;
-    // make the middle slot empty
-    this.board[(toRow + fromRow) / 2][(toCol + fromCol) / 2] = SlotState.Empty;
-    // move the marble to the end slot
-    this.board[toRow][toCol] = SlotState.Marble;
-    this.score -= 1;
+    // the move is packed before the board changes, so nothing is left half done
+    long move = MoveJournal.pack(fromRow, fromCol, toRow, toCol);
+    this.jump(fromRow, fromCol, toRow, toCol, true);
+    this.journal.record(move);
   }
 
   /**
-   * Processes the given move, throws an appropriate error if the move is not valid.
+   * Makes or takes back a jump that is known to be valid, keeping the score, hash and count of
+   * valid moves up to date.
    *
    * @param fromRow the row of the starting position
    * @param fromCol the column of the starting position
    * @param toRow   the row of the end position
    * @param toCol   the column of the end position
-   * @throws IllegalArgumentException when the move is not valid
+   * @param forward true to make the jump, false to take it back
    */
-  protected void checkValidMove(int fromRow, int fromCol, int toRow, int toCol)
-          throws IllegalArgumentException {
-    // check that they are 2 slots away
-    // diagonals NOT permitted
-    if (!((Math.abs(toRow - fromRow) == 2 && toCol == fromCol)
-            || (Math.abs(toCol - fromCol) == 2 && toRow == fromRow))) {
-      throw new IllegalArgumentException("Must move 2 slots");
+  protected void jump(int fromRow, int fromCol, int toRow, int toCol, boolean forward) {
+    // only moves that touch the three changed slots can change from valid to invalid or back,
+    // so recount just those moves before and after the change
+    this.changedCells[0] = this.geometry.cellIndex(fromRow, fromCol);
+    this.changedCells[1] = this.geometry.cellIndex((toRow + fromRow) / 2, (toCol + fromCol) / 2);
+    this.changedCells[2] = this.geometry.cellIndex(toRow, toCol);
+    this.legalMoves -= this.countMovesTouching(this.changedCells, 3);
+
+    SlotState left = forward ? SlotState.Empty : SlotState.Marble;
+    // make the old slot empty
+    this.board[fromRow][fromCol] = left;
+    // make the middle slot empty
+    this.board[(toRow + fromRow) / 2][(toCol + fromCol) / 2] = left;
+    // move the marble to the end slot
+    this.board[toRow][toCol] = forward ? SlotState.Marble : SlotState.Empty;
+    this.score += forward ? -1 : 1;
+    // each of the three slots flips between marble and empty
+    this.hash ^= this.geometry.getZobristKey(this.changedCells[0])
+            ^ this.geometry.getZobristKey(this.changedCells[1])
+            ^ this.geometry.getZobristKey(this.changedCells[2]);
+    for (int cell : this.changedCells) {
+      this.marbles[cell >>> 6] ^= 1L << cell;
     }
-    // check rest
-    this.checkValidMoveHelper(fromRow, fromCol, toRow, toCol);
+
+    this.legalMoves += this.countMovesTouching(this.changedCells, 3);
+  }
+
+  @Override
+  public MarbleSolitaireModel fork() {
+    // the copy plays on the packed board, sharing the immutable geometry
+    return new BitsetSolitaireModel(this.geometry, this.marbles.clone(), this.score, this.hash,
+            this.legalMoves);
+  }
+
+  @Override
+  public boolean canUndo() {
+    return this.journal.canUndo();
+  }
+
+  @Override
+  public boolean canRedo() {
+    return this.journal.canRedo();
+  }
+
+  @Override
+  public void undo() throws IllegalStateException {
+    long move = this.journal.undo();
+    this.jump(MoveJournal.fromRow(move), MoveJournal.fromCol(move), MoveJournal.toRow(move),
+            MoveJournal.toCol(move), false);
+  }
+
+  @Override
+  public void redo() throws IllegalStateException {
+    long move = this.journal.redo();
+    this.jump(MoveJournal.fromRow(move), MoveJournal.fromCol(move), MoveJournal.toRow(move),
+            MoveJournal.toCol(move), true);
+  }
+
+  /**
+   * Counts the valid moves into the given empty slot. On a newly generated board every other slot
+   * holds a marble, so these are the only valid moves.
+   *
+   * @param sRow the vertical index of the empty slot
+   * @param sCol the horizontal index of the empty slot
+   * @return the number of valid moves into the slot
+   */
+  protected int countMovesInto(int sRow, int sCol) {
+    return this.countMovesTouching(new int[]{this.geometry.cellIndex(sRow, sCol)}, 1);
+  }
+
+  /**
+   * Counts the valid moves that start from, jump over or land in any of the given slots. A move
+   * that touches more than one of the slots is only counted once.
+   *
+   * @param cells the dense indices of the slots
+   * @param count the number of slots given
+   * @return the number of valid moves touching the slots
+   */
+  protected int countMovesTouching(int[] cells, int count) {
+    int moves = 0;
+    for (int k = 0; k < count; k++) {
+      for (int i = 0; i < this.geometry.getTouchingCount(cells[k]); i++) {
+        int jump = this.geometry.getTouchingJump(cells[k], i);
+        // skip jumps already counted for an earlier slot
+        boolean counted = false;
+        for (int j = 0; j < k; j++) {
+          counted |= this.geometry.jumpTouches(jump, cells[j]);
+        }
+        if (!counted && this.isValidJump(jump)) {
+          moves += 1;
+        }
+      }
+    }
+    return moves;
+  }
+
+  /**
+   * Determines if the given jump of the board's geometry is a valid move right now.
+   *
+   * @param jump the index of the jump
+   * @return true if the from and over slots hold marbles and the to slot is empty
+   */
+  protected boolean isValidJump(int jump) {
+    return this.slotOf(this.geometry.getJumpFrom(jump)) == SlotState.Marble
+            && this.slotOf(this.geometry.getJumpOver(jump)) == SlotState.Marble
+            && this.slotOf(this.geometry.getJumpTo(jump)) == SlotState.Empty;
+  }
+
+  /**
+   * Returns the state of the valid slot with the given index.
+   *
+   * @param cell the dense index of the slot
+   * @return the state of the slot
+   */
+  protected SlotState slotOf(int cell) {
+    return this.board[this.geometry.getCellRow(cell)][this.geometry.getCellCol(cell)];
   }
 
   /**
@@ -178,80 +307,75 @@ public class EnglishSolitaireModel implements MarbleSolitaireModel {
    * @param toCol   the column of the end position
    * @throws IllegalArgumentException when the move is not valid
    */
-  protected void checkValidMoveHelper(int fromRow, int fromCol, int toRow, int toCol)
+  protected void checkValidMove(int fromRow, int fromCol, int toRow, int toCol)
           throws IllegalArgumentException {
+    MoveResult result = this.canMove(fromRow, fromCol, toRow, toCol);
+    if (result != MoveResult.Valid) {
+      throw new IllegalArgumentException(result.getMessage());
+    }
+  }
+
+  @Override
+  public MoveResult canMove(int fromRow, int fromCol, int toRow, int toCol) {
+    // check that they are 2 slots away, in one of the permitted directions
+    int dir = BoardGeometry.directionOf(toRow - fromRow, toCol - fromCol);
+    if (dir < 0 || dir >= this.geometry.getDirectionCount()) {
+      return MoveResult.NotTwoSlots;
+    }
     // check valid from position (not out of bounds)
     if (fromRow < 0 || fromRow >= this.getBoardSize() || fromCol < 0
             || fromCol >= this.getBoardSize()) {
-      throw new IllegalArgumentException("From position out of bounds");
+      return MoveResult.FromOutOfBounds;
     }
     // check valid to position (not out of bounds)
     if (toRow < 0 || toRow >= this.getBoardSize()
             || toCol < 0 || toCol >= this.getBoardSize()) {
-      throw new IllegalArgumentException("To position out of bounds");
+      return MoveResult.ToOutOfBounds;
     }
     // check from is marble
     if (this.board[fromRow][fromCol] != SlotState.Marble) {
-      throw new IllegalArgumentException("Must move from a marble");
+      return MoveResult.FromNotMarble;
     }
+    // from is a valid slot, so the geometry knows its jump in this direction
+    // (there is none when the to slot is not on the board)
+    int jump = this.geometry.getJump(this.geometry.cellIndex(fromRow, fromCol), dir);
     // check to is empty
-    if (this.board[toRow][toCol] != SlotState.Empty) {
-      throw new IllegalArgumentException("Must move to an empty slot");
+    if (jump < 0 || this.slotOf(this.geometry.getJumpTo(jump)) != SlotState.Empty) {
+      return MoveResult.ToNotEmpty;
     }
     // check if the middle slot in a move is a marble
-    if (this.board[(toRow + fromRow) / 2][(toCol + fromCol) / 2] != SlotState.Marble) {
-      throw new IllegalArgumentException("Must move over a marble");
+    if (this.slotOf(this.geometry.getJumpOver(jump)) != SlotState.Marble) {
+      return MoveResult.OverNotMarble;
     }
+    return MoveResult.Valid;
   }
 
   @Override
   public boolean isGameOver() {
-    for (int row = 0; row < this.getBoardSize(); row++) {
-      for (int col = 0; col < this.getBoardSize(); col++) {
-        // check for a move in all directions for each slot
-        // if no exception is thrown, return false
-        // (i.e. there is a valid move to be made, so the game is not over)
-
-        // if theres a valid move up --> false
-        // catch IllegalArgumentException
-        try {
-          this.checkValidMove(row, col, row + 2, col);
-          return false;
-        } catch (IllegalArgumentException e) {
-          // do nothing
-        }
-
-        // if theres a valid move down --> false
-        // catch IllegalArgumentException
-        try {
-          this.checkValidMove(row, col, row - 2, col);
-          return false;
-        } catch (IllegalArgumentException e) {
-          // do nothing
-        }
-
-        // if theres a valid move left --> false
-        // catch IllegalArgumentException
-        try {
-          this.checkValidMove(row, col, row, col - 2);
-          return false;
-        } catch (IllegalArgumentException e) {
-          // do nothing
-        }
+    // the count of valid moves is kept up to date by move()
+    return this.legalMoves == 0;
+  }
 
-        // if theres a valid move right --> false
-        // catch IllegalArgumentException
-        try {
-          this.checkValidMove(row, col, row, col + 2);
-          return false;
-        } catch (IllegalArgumentException e) {
-          // do nothing
+  @Override
+  public int getLegalMoves(int[] moves) throws IllegalArgumentException {
+    if (moves == null) {
+      throw new IllegalArgumentException("Must provide a non-null move buffer");
+    }
+    int count = 0;
+    // the geometry numbers its jumps by from slot and then direction
+    for (int jump = 0; jump < this.geometry.getJumpCount(); jump++) {
+      if (this.isValidJump(jump)) {
+        if (count == moves.length) {
+          throw new IllegalArgumentException("Move buffer is too small");
         }
+        int from = this.geometry.getJumpFrom(jump);
+        moves[count] = PackedMove.of(this.geometry.getCellRow(from),
+                this.geometry.getCellCol(from), this.geometry.getJumpDirection(jump),
+                this.getBoardSize());
+        count += 1;
       }
     }
-
-    // if no move was found while looping through the board, then the game is over
-    return true;
+    return count;
   }
 
   @Override
@@ -275,4 +399,10 @@ public class EnglishSolitaireModel implements MarbleSolitaireModel {
     // calculate as board is made/changed for efficiency
     return this.score;
   }
+
+  @Override
+  public long getPositionHash() {
+    // kept up to date by move()
+    return this.hash;
+  }
 }
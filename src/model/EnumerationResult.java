@@ -0,0 +1,123 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Represents the outcome of enumerating every position reachable from a game: how many distinct
+ * positions, up to symmetry, there are after each number of moves, and how long each level took.
+ */
+public final class EnumerationResult {
+  private final int startMarbles;
+  private final long[] positions;
+  private final long[] nanos;
+
+  /**
+   * Constructs the outcome of an enumeration.
+   *
+   * @param startMarbles the number of marbles of the starting position
+   * @param positions    the number of distinct positions after each number of moves, from 0
+   * @param nanos        the time each level took to build, in nanoseconds
+   * @throws IllegalArgumentException when the two arrays differ in length
+   */
+  public EnumerationResult(int startMarbles, long[] positions, long[] nanos)
+          throws IllegalArgumentException {
+    if (positions.length != nanos.length) {
+      throw new IllegalArgumentException("Must provide one time per level");
+    }
+    this.startMarbles = startMarbles;
+    this.positions = positions.clone();
+    this.nanos = nanos.clone();
+  }
+
+  /**
+   * Returns the number of levels enumerated, including the starting position.
+   *
+   * @return the number of levels
+   */
+  public int getLevelCount() {
+    return this.positions.length;
+  }
+
+  /**
+   * Returns the number of marbles on the board at the given level.
+   *
+   * @param level the number of moves made, starting at 0
+   * @return the number of marbles
+   */
+  public int getMarbles(int level) {
+    return this.startMarbles - level;
+  }
+
+  /**
+   * Returns the number of distinct positions, up to symmetry, at the given level.
+   *
+   * @param level the number of moves made, starting at 0
+   * @return the number of positions
+   */
+  public long getPositionCount(int level) {
+    return this.positions[level];
+  }
+
+  /**
+   * Returns the time the given level took to build from the one before it.
+   *
+   * @param level the number of moves made, starting at 0
+   * @return the time taken, in nanoseconds
+   */
+  public long getNanos(int level) {
+    return this.nanos[level];
+  }
+
+  /**
+   * Returns the number of distinct positions, up to symmetry, at every level together.
+   *
+   * @return the total number of positions
+   */
+  public long getTotalPositions() {
+    long total = 0;
+    for (long count : this.positions) {
+      total += count;
+    }
+    return total;
+  }
+
+  /**
+   * Returns the time the whole enumeration took.
+   *
+   * @return the total time, in nanoseconds
+   */
+  public long getTotalNanos() {
+    long total = 0;
+    for (long time : this.nanos) {
+      total += time;
+    }
+    return total;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder();
+    for (int level = 0; level < this.positions.length; level++) {
+      builder.append(this.getMarbles(level)).append(" marbles: ").append(this.positions[level])
+              .append(" positions, ").append(this.nanos[level] / 1_000_000).append(" ms\n");
+    }
+    return builder.append("Total: ").append(this.getTotalPositions()).append(" positions, ")
+            .append(this.getTotalNanos() / 1_000_000).append(" ms").toString();
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (!(other instanceof EnumerationResult)) {
+      return false;
+    }
+    EnumerationResult that = (EnumerationResult) other;
+    return this.startMarbles == that.startMarbles && Arrays.equals(this.positions, that.positions)
+            && Arrays.equals(this.nanos, that.nanos);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * (31 * this.startMarbles + Arrays.hashCode(this.positions))
+            + Arrays.hashCode(this.nanos);
+  }
+}
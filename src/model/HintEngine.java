@@ -0,0 +1,232 @@
+package model;
+
+/**
+ * Suggests a next move within a fixed time budget, for players who are stuck. The suggestion is
+ * the move after which the fewest marbles can be left on the board, as far as a search can tell
+ * before its deadline.
+ *
+ * <p>The search is iterative deepening on a packed copy of the game: every move is looked at one
+ * move deep, then two, and so on, each round trying the moves in the order the last round ranked
+ * them. Each position costs a look at every jump of the board, so the clock is checked every few
+ * thousand jumps looked at, which is every few dozen positions on the standard boards and every
+ * position on the largest ones. When time runs out the search stops at once and the moves are
+ * ranked by the last round that finished, so the move given may be only the first valid one. A
+ * search that sees every move through to the end, or finds a way down to one marble, stops early.
+ *
+ * <p>The first hint on a board also builds the board's tables and the engine's table of positions,
+ * which on the largest boards takes longer than the budget, so that hint is not bounded by it. A
+ * caller that needs every hint bounded gives the game to (@code prepare) before asking.
+ *
+ * <p>What the search learns about each position is kept in a (@code TranspositionTable), which is
+ * kept from one hint to the next while the board stays the same, so hints later in a game start
+ * from what earlier hints found. An engine given an (@code EndgameTablebase) also looks up every
+ * position with few enough marbles on the tablebase's board, so once a game is that far along,
+ * any move that can still lead to one marble is found at once. An engine is not safe to use from
+ * several threads at once.
+ */
+public class HintEngine {
+  // the time budget of a hint when none is given, short enough for an interactive prompt
+  private static final long DEFAULT_BUDGET_MILLIS = 50;
+  // the number of jumps looked at between looks at the clock, about 50 microseconds of work
+  private static final int CLOCK_JUMPS = 1 << 12;
+  // the entries of the table, small enough to build well within a budget
+  private static final long TABLE_CAPACITY = 1L << 18;
+
+  private final long budgetNanos;
+  // the tablebase to look positions up in, or null for none
+  private final EndgameTablebase tablebase;
+  // the most marbles of the positions the tablebase answers in the current hint, or 0
+  private int tablebaseMarbles;
+  // the board the table was built for, and what is known of its positions, each stored as the
+  // number of moves searched below it, shifted up 16 bits, over the fewest marbles reachable
+  private BoardGeometry geometry;
+  private TranspositionTable table;
+  private PackedPosition position;
+  private long deadline;
+  // the positions searched between looks at the clock, and those left until the next look
+  private int clockNodes;
+  private int untilClock;
+  private boolean expired;
+
+  /**
+   * Constructs an engine that gives a hint within 50 milliseconds.
+   */
+  public HintEngine() {
+    this(DEFAULT_BUDGET_MILLIS);
+  }
+
+  /**
+   * Constructs an engine that gives a hint within the given time.
+   *
+   * @param budgetMillis the time each hint may take, in milliseconds
+   * @throws IllegalArgumentException when (@code budgetMillis) is not positive
+   */
+  public HintEngine(long budgetMillis) throws IllegalArgumentException {
+    this(budgetMillis, null);
+  }
+
+  /**
+   * Constructs an engine that gives a hint within the given time, looking positions up in the
+   * given tablebase when the game is on its board.
+   *
+   * @param budgetMillis the time each hint may take, in milliseconds
+   * @param tablebase    the tablebase, or null for none
+   * @throws IllegalArgumentException when (@code budgetMillis) is not positive
+   */
+  public HintEngine(long budgetMillis, EndgameTablebase tablebase)
+          throws IllegalArgumentException {
+    if (budgetMillis < 1) {
+      throw new IllegalArgumentException("Time budget must be positive");
+    }
+    this.budgetNanos = budgetMillis * 1_000_000;
+    this.tablebase = tablebase;
+  }
+
+  /**
+   * Builds everything a hint on the given game's board needs ahead of time, so that the next hint
+   * on that board spends its budget searching.
+   *
+   * @param model the game, which is left unchanged
+   * @throws IllegalArgumentException when (@code model) is null or its board is of no known type
+   */
+  public void prepare(MarbleSolitaireModelState model) throws IllegalArgumentException {
+    this.useBoard(new PackedPosition(model).getGeometry());
+  }
+
+  /**
+   * Uses the given board from now on, starting a new table of positions if the board changed.
+   *
+   * @param geometry the board
+   */
+  private void useBoard(BoardGeometry geometry) {
+    if (geometry != this.geometry) {
+      this.geometry = geometry;
+      this.table = new TranspositionTable(TABLE_CAPACITY, TranspositionTable.Replacement.Largest);
+    }
+  }
+
+  /**
+   * Suggests a move for the given game. The budget bounds the hint only on a board the engine has
+   * already seen, through (@code prepare) or an earlier hint.
+   *
+   * @param model the game, which is left unchanged
+   * @return the suggested move, packed by (@code PackedMove), or -1 if there is no valid move
+   * @throws IllegalArgumentException when (@code model) is null or its board is of no known type
+   */
+  public int hint(MarbleSolitaireModelState model) throws IllegalArgumentException {
+    this.deadline = System.nanoTime() + this.budgetNanos;
+    this.expired = false;
+    this.position = new PackedPosition(model);
+    this.useBoard(this.position.getGeometry());
+    this.tablebaseMarbles = this.tablebase != null
+            && this.position.getGeometry() == this.tablebase.getGeometry()
+            ? this.tablebase.getMaxMarbles() : 0;
+    this.clockNodes = Math.max(1, CLOCK_JUMPS / Math.max(1, this.position.getJumpCount()));
+    this.untilClock = this.clockNodes;
+
+    // the valid moves, in the order the last finished round ranked them, with what each can lead
+    // to as far as that round saw, and what the round under way has seen so far
+    int[] jumps = new int[this.position.getJumpCount()];
+    int[] marbles = new int[jumps.length];
+    int[] reached = new int[jumps.length];
+    int count = 0;
+    for (int jump = 0; jump < jumps.length; jump++) {
+      if (this.position.canJump(jump)) {
+        jumps[count] = jump;
+        marbles[count] = this.position.getMarbles() - 1;
+        count += 1;
+      }
+    }
+    if (count == 0) {
+      this.position = null;
+      return -1;
+    }
+    // building the board's tables for a new board counts against the budget too
+    this.expired = System.nanoTime() - this.deadline >= 0;
+
+    for (int depth = 2; depth < this.position.getMarbles() && marbles[0] > 1 && !this.expired;
+         depth++) {
+      for (int i = 0; i < count && !this.expired; i++) {
+        this.position.jump(jumps[i]);
+        int reachable = this.search(depth - 1);
+        this.position.unjump(jumps[i]);
+        if (reachable == 1) {
+          // nothing beats a way down to one marble, whatever the rest of the round would find
+          int move = this.position.toMove(jumps[i]);
+          this.position = null;
+          return move;
+        }
+        reached[i] = reachable;
+      }
+      if (this.expired) {
+        // a round cut short saw some moves deeper than others, so it does not change the ranking
+        break;
+      }
+      System.arraycopy(reached, 0, marbles, 0, count);
+      // rank the moves for the next round, keeping the order of moves that tie
+      for (int i = 1; i < count; i++) {
+        int jump = jumps[i];
+        int reachable = marbles[i];
+        int j = i;
+        while (j > 0 && marbles[j - 1] > reachable) {
+          jumps[j] = jumps[j - 1];
+          marbles[j] = marbles[j - 1];
+          j -= 1;
+        }
+        jumps[j] = jump;
+        marbles[j] = reachable;
+      }
+    }
+    int move = this.position.toMove(jumps[0]);
+    this.position = null;
+    return move;
+  }
+
+  /**
+   * Finds the fewest marbles that can be left within the given number of moves of the current
+   * position.
+   *
+   * @param remaining the number of moves to look ahead
+   * @return the fewest marbles reachable, or -1 if time ran out first
+   */
+  private int search(int remaining) {
+    int marbles = this.position.getMarbles();
+    // no game lasts longer than this, so looking further ahead finds nothing more
+    remaining = Math.min(remaining, marbles - 1);
+    if (marbles <= this.tablebaseMarbles
+            && this.tablebase.isWon(this.position.getBoard()[0], marbles)) {
+      return 1;
+    }
+    if (remaining == 0) {
+      return marbles;
+    }
+    this.untilClock -= 1;
+    if (this.untilClock == 0) {
+      this.untilClock = this.clockNodes;
+      this.expired = System.nanoTime() - this.deadline >= 0;
+    }
+    if (this.expired) {
+      return -1;
+    }
+    long key = this.position.key();
+    long known = this.table.get(key, -1);
+    if (known >= 0 && (known >>> 16) >= remaining) {
+      return (int) (known & 0xFFFF);
+    }
+    int best = marbles;
+    for (int jump = 0; jump < this.position.getJumpCount() && best > 1; jump++) {
+      if (this.position.canJump(jump)) {
+        this.position.jump(jump);
+        int reachable = this.search(remaining - 1);
+        this.position.unjump(jump);
+        if (reachable < 0) {
+          return -1;
+        }
+        best = Math.min(best, reachable);
+      }
+    }
+    // a position that can be cleared down to one marble needs no deeper search
+    this.table.put(key, ((long) (best == 1 ? marbles - 1 : remaining) << 16) | best);
+    return best;
+  }
+}
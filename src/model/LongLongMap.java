@@ -0,0 +1,132 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * A hash map from long keys to long values, stored in two flat arrays with open addressing and
+ * linear probing, so that entries cost 16 bytes and nothing is boxed. The table doubles when it is
+ * three quarters full. Key 0 marks an empty slot in the table, so its entry is kept beside it.
+ *
+ * <p>This map is not safe to use from several threads at once.
+ */
+final class LongLongMap {
+  private long[] keys;
+  private long[] values;
+  // the number of entries in the table, not counting key 0
+  private int size;
+  private boolean hasZero;
+  private long zeroValue;
+
+  /**
+   * Constructs an empty map with room for the given number of entries before it first grows.
+   *
+   * @param expected the number of entries expected
+   */
+  LongLongMap(int expected) {
+    int capacity = Integer.highestOneBit(Math.max(16, expected / 3 * 4) - 1) << 1;
+    this.keys = new long[capacity];
+    this.values = new long[capacity];
+  }
+
+  /**
+   * Spreads the bits of a key, so that keys differing in only a few bits land far apart.
+   *
+   * @param key the key
+   * @return the mixed key
+   */
+  private static long mix(long key) {
+    key = (key ^ (key >>> 33)) * 0xFF51AFD7ED558CCDL;
+    key = (key ^ (key >>> 33)) * 0xC4CEB9FE1A85EC53L;
+    return key ^ (key >>> 33);
+  }
+
+  /**
+   * Returns the value of the given key.
+   *
+   * @param key     the key
+   * @param missing the value to return if the key is not in the map
+   * @return the key's value, or (@code missing)
+   */
+  long get(long key, long missing) {
+    if (key == 0) {
+      return this.hasZero ? this.zeroValue : missing;
+    }
+    int mask = this.keys.length - 1;
+    for (int slot = (int) mix(key) & mask; ; slot = (slot + 1) & mask) {
+      if (this.keys[slot] == key) {
+        return this.values[slot];
+      }
+      if (this.keys[slot] == 0) {
+        return missing;
+      }
+    }
+  }
+
+  /**
+   * Sets the value of the given key, adding the key if it is not in the map.
+   *
+   * @param key   the key
+   * @param value the value
+   */
+  void put(long key, long value) {
+    if (key == 0) {
+      this.hasZero = true;
+      this.zeroValue = value;
+      return;
+    }
+    int mask = this.keys.length - 1;
+    int slot = (int) mix(key) & mask;
+    while (this.keys[slot] != 0 && this.keys[slot] != key) {
+      slot = (slot + 1) & mask;
+    }
+    if (this.keys[slot] == 0) {
+      this.keys[slot] = key;
+      this.size += 1;
+      if (this.size > this.keys.length / 4 * 3) {
+        this.values[slot] = value;
+        this.grow();
+        return;
+      }
+    }
+    this.values[slot] = value;
+  }
+
+  /**
+   * Doubles the table, placing every entry again.
+   */
+  private void grow() {
+    long[] oldKeys = this.keys;
+    long[] oldValues = this.values;
+    this.keys = new long[oldKeys.length * 2];
+    this.values = new long[oldValues.length * 2];
+    int mask = this.keys.length - 1;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != 0) {
+        int slot = (int) mix(oldKeys[i]) & mask;
+        while (this.keys[slot] != 0) {
+          slot = (slot + 1) & mask;
+        }
+        this.keys[slot] = oldKeys[i];
+        this.values[slot] = oldValues[i];
+      }
+    }
+  }
+
+  /**
+   * Returns the number of entries in the map.
+   *
+   * @return the number of entries
+   */
+  long size() {
+    return this.size + (this.hasZero ? 1 : 0);
+  }
+
+  /**
+   * Removes every entry, keeping the table at its current size.
+   */
+  void clear() {
+    Arrays.fill(this.keys, 0);
+    this.size = 0;
+    this.hasZero = false;
+  }
+}
@@ -31,5 +31,54 @@ public interface MarbleSolitaireModel extends MarbleSolitaireModelState {
    */
   boolean isGameOver();
 
+  /**
+   * Return an independent copy of this game in its current position, sharing no mutable state
+   * with it, so either can be played on without affecting the other. The copy has no moves to
+   * undo or redo. This default copies the board slot by slot; models that keep a packed board
+   * override it to copy in time proportional to the packed words.
+   *
+   * @return the copy of the game
+   */
+  default MarbleSolitaireModel fork() {
+    return BitsetSolitaireModel.copyOf(this);
+  }
+
+  /**
+   * Determine if there is a move to take back with (@code undo()).
+   *
+   * @return true if a move has been made and not undone, false otherwise or if this model does
+   *         not support undo
+   */
+  default boolean canUndo() {
+    return false;
+  }
+
+  /**
+   * Determine if there is a move to make again with (@code redo()).
+   *
+   * @return true if a move has been undone and no new move made since, false otherwise or if this
+   *         model does not support redo
+   */
+  default boolean canRedo() {
+    return false;
+  }
 
+  /**
+   * Take back the last move made that has not already been undone, restoring the board and score
+   * to how they were before it.
+   *
+   * @throws IllegalStateException if there is no move to undo
+   */
+  default void undo() throws IllegalStateException {
+    throw new IllegalStateException("No move to undo");
+  }
+
+  /**
+   * Make the last undone move again. Making any new move drops the moves that could be redone.
+   *
+   * @throws IllegalStateException if there is no move to redo
+   */
+  default void redo() throws IllegalStateException {
+    throw new IllegalStateException("No move to redo");
+  }
 }
@@ -11,6 +11,35 @@ public interface MarbleSolitaireModelState {
    */
   enum SlotState { Empty, Marble, Invalid }
 
+  /**
+   * This enum represents the outcome of checking a move without making it. A move is either
+   * valid, or invalid for the first of these reasons that applies to it.
+   */
+  enum MoveResult {
+    Valid("Valid move"),
+    NotTwoSlots("Must move 2 slots"),
+    FromOutOfBounds("From position out of bounds"),
+    ToOutOfBounds("To position out of bounds"),
+    FromNotMarble("Must move from a marble"),
+    ToNotEmpty("Must move to an empty slot"),
+    OverNotMarble("Must move over a marble");
+
+    private final String message;
+
+    MoveResult(String message) {
+      this.message = message;
+    }
+
+    /**
+     * Returns a description of this result, as used in the message of an invalid move.
+     *
+     * @return the description of the result
+     */
+    public String getMessage() {
+      return this.message;
+    }
+  }
+
   /**
    * Return the size of this board. The size is roughly the longest dimension of a board
    *
@@ -35,4 +64,97 @@ public interface MarbleSolitaireModelState {
    * @return the number of marbles currently on the board
    */
   int getScore();
+
+  /**
+   * Check whether a marble could be moved from a given position to another given position,
+   * without making the move and without throwing for an invalid move. A valid move jumps a marble
+   * two slots over a marble into an empty slot. This default checks orthogonal jumps only; models
+   * that permit other jumps override it.
+   *
+   * @param fromRow the row number of the position to be moved from (starts at 0)
+   * @param fromCol the column number of the position to be moved from (starts at 0)
+   * @param toRow   the row number of the position to be moved to (starts at 0)
+   * @param toCol   the column number of the position to be moved to (starts at 0)
+   * @return (@code MoveResult.Valid) if the move is possible, otherwise the reason it is not
+   */
+  default MoveResult canMove(int fromRow, int fromCol, int toRow, int toCol) {
+    // check that they are 2 slots away
+    if (!((Math.abs(toRow - fromRow) == 2 && toCol == fromCol)
+            || (Math.abs(toCol - fromCol) == 2 && toRow == fromRow))) {
+      return MoveResult.NotTwoSlots;
+    }
+    int size = this.getBoardSize();
+    if (fromRow < 0 || fromRow >= size || fromCol < 0 || fromCol >= size) {
+      return MoveResult.FromOutOfBounds;
+    }
+    if (toRow < 0 || toRow >= size || toCol < 0 || toCol >= size) {
+      return MoveResult.ToOutOfBounds;
+    }
+    if (this.getSlotAt(fromRow, fromCol) != SlotState.Marble) {
+      return MoveResult.FromNotMarble;
+    }
+    if (this.getSlotAt(toRow, toCol) != SlotState.Empty) {
+      return MoveResult.ToNotEmpty;
+    }
+    if (this.getSlotAt((fromRow + toRow) / 2, (fromCol + toCol) / 2) != SlotState.Marble) {
+      return MoveResult.OverNotMarble;
+    }
+    return MoveResult.Valid;
+  }
+
+  /**
+   * Write every valid move on the board into the given buffer, packed by (@code PackedMove), and
+   * return how many were written. Nothing is allocated, so the same buffer can be reused for
+   * every call. A buffer of length (@code 8 * getScore()) is always large enough, since each
+   * marble has at most eight moves. This default checks orthogonal jumps only; models that permit
+   * other jumps override it.
+   *
+   * @param moves the buffer to write the moves into, starting at index 0
+   * @return the number of valid moves
+   * @throws IllegalArgumentException if the buffer is null or too small to hold every move, or a
+   *                                  move starts from a slot (@code PackedMove) cannot pack
+   */
+  default int getLegalMoves(int[] moves) throws IllegalArgumentException {
+    if (moves == null) {
+      throw new IllegalArgumentException("Must provide a non-null move buffer");
+    }
+    int size = this.getBoardSize();
+    int count = 0;
+    for (int row = 0; row < size; row++) {
+      for (int col = 0; col < size; col++) {
+        for (int dir = 0; dir < 4; dir++) {
+          if (this.canMove(row, col, row + 2 * PackedMove.rowStep(dir),
+                  col + 2 * PackedMove.colStep(dir)) == MoveResult.Valid) {
+            if (count == moves.length) {
+              throw new IllegalArgumentException("Move buffer is too small");
+            }
+            moves[count] = PackedMove.of(row, col, dir, size);
+            count += 1;
+          }
+        }
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Return a 64-bit hash of the current position: the XOR of the Zobrist keys of every slot that
+   * holds a marble, as given by (@code BoardGeometry.zobristKey). Equal positions on boards of the
+   * same size always have equal hashes. This default hashes the whole board on every call; models
+   * that keep the hash up to date as moves are made override it.
+   *
+   * @return the hash of the position
+   */
+  default long getPositionHash() {
+    int size = this.getBoardSize();
+    long hash = 0;
+    for (int row = 0; row < size; row++) {
+      for (int col = 0; col < size; col++) {
+        if (this.getSlotAt(row, col) == SlotState.Marble) {
+          hash ^= BoardGeometry.zobristKey(size, row, col);
+        }
+      }
+    }
+    return hash;
+  }
 }
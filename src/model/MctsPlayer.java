@@ -0,0 +1,523 @@
+package model;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Chooses moves by Monte Carlo tree search, for boards too large to search exhaustively. Each
+ * iteration walks down a tree of the positions reachable from the game, picking at each position
+ * the move with the best upper confidence bound (UCT), adds the moves of the position it stops at
+ * to the tree, and plays random moves from there to the end of the game; the fewer marbles that
+ * game leaves, the more it adds to the score of every position on its way.
+ *
+ * <p>The move chosen is the first move of the best game any iteration has played, so following
+ * the player's moves never leaves more marbles than a game it has already seen. The part of the
+ * tree below the move played, and the rest of the best game, are kept for the next move: when the
+ * player is next asked about the game after that move, it carries on from what it already knows.
+ * Any other position starts a new tree.
+ *
+ * <p>The tree is kept in flat arrays indexed by node rather than in an object per node: each node
+ * is the jump that led to it, its visits, its total score and the index and number of its
+ * children, which take a block of consecutive nodes. Several threads search the same tree at
+ * once. A node's visits are counted on the way down, so threads that pass it before the score of
+ * the first comes back see a worse average and spread out; a node's children are added by the
+ * first thread to claim it with a compare-and-set, while others play out from it. When the arrays
+ * are full, the tree stops growing and iterations play out from its leaves.
+ *
+ * <p>Each move stops after a given number of iterations or a given time, whichever comes first.
+ * On large boards a single game played out can take longer than the whole budget, so games
+ * look at the clock as they go, and one cut off by the deadline counts for nothing. If time runs
+ * out before any game is played to its end, the player still suggests a valid move. A player is
+ * not safe to use from several threads at once.
+ */
+public class MctsPlayer {
+  // the time budget of a move when none is given
+  private static final long DEFAULT_BUDGET_MILLIS = 1000;
+  // the nodes of the tree when none is given, 24 MB
+  private static final int DEFAULT_CAPACITY = 1 << 20;
+  // the weight of exploring over the average score, on scores between 0 and 1
+  private static final double EXPLORATION = 0.5;
+  // scores are summed in fixed point, a game's score in units of 1 / SCALE
+  private static final double SCALE = 1 << 20;
+  // the number of iterations of a thread between looks at the clock, less one
+  private static final int CLOCK_MASK = 15;
+  // the number of jumps looked at between looks at the clock within a game played out, a few
+  // dozen microseconds of work
+  private static final int CLOCK_JUMPS = 1 << 16;
+  // the child count of a node whose children have not been added, or are being added
+  private static final int LEAF = -1;
+  private static final int EXPANDING = -2;
+
+  private static final VarHandle INTS = MethodHandles.arrayElementVarHandle(int[].class);
+  private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+
+  private final int parallelism;
+  private final long iterations;
+  private final long budgetNanos;
+  private final int capacity;
+
+  // the tree, by node: the jump that led to it, its first child, its number of children (or LEAF
+  // or EXPANDING), its visits and its total score
+  private int[] jump;
+  private int[] first;
+  private int[] children;
+  private int[] visits;
+  private long[] score;
+  private final AtomicInteger size = new AtomicInteger();
+  private int root;
+
+  // the board the tree was built for, and the packed position at its root
+  private BoardGeometry geometry;
+  private PlayoutEngine.Playout playout;
+  private long[] board;
+  private int marbles;
+  // the jumps of the best game played from the root, and the marbles it left
+  private int[] bestLine;
+  private int bestLength;
+  private volatile int bestMarbles;
+  private long lastIterations;
+
+  /**
+   * Constructs a player that uses every available core and takes a second per move.
+   */
+  public MctsPlayer() {
+    this(Runtime.getRuntime().availableProcessors(), Long.MAX_VALUE, DEFAULT_BUDGET_MILLIS);
+  }
+
+  /**
+   * Constructs a player that uses the given number of threads, and stops searching for a move
+   * after the given number of iterations or the given time, whichever comes first.
+   *
+   * @param parallelism  the number of threads to search with
+   * @param iterations   the most iterations per move
+   * @param budgetMillis the most time per move, in milliseconds
+   * @throws IllegalArgumentException when any argument is not positive
+   */
+  public MctsPlayer(int parallelism, long iterations, long budgetMillis)
+          throws IllegalArgumentException {
+    this(parallelism, iterations, budgetMillis, DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Constructs a player that uses the given number of threads, stops searching for a move after
+   * the given number of iterations or the given time, whichever comes first, and keeps a tree of
+   * up to the given number of nodes.
+   *
+   * @param parallelism  the number of threads to search with
+   * @param iterations   the most iterations per move
+   * @param budgetMillis the most time per move, in milliseconds
+   * @param capacity     the most nodes of the tree
+   * @throws IllegalArgumentException when any argument is not positive
+   */
+  public MctsPlayer(int parallelism, long iterations, long budgetMillis, int capacity)
+          throws IllegalArgumentException {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Parallelism must be positive");
+    }
+    if (iterations < 1) {
+      throw new IllegalArgumentException("Iteration budget must be positive");
+    }
+    if (budgetMillis < 1) {
+      throw new IllegalArgumentException("Time budget must be positive");
+    }
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Capacity must be positive");
+    }
+    this.parallelism = parallelism;
+    this.iterations = iterations;
+    this.budgetNanos = Math.min(budgetMillis, Long.MAX_VALUE / 1_000_000) * 1_000_000;
+    this.capacity = capacity;
+  }
+
+  /**
+   * Suggests a move for the given game.
+   *
+   * @param model the game, which is left unchanged
+   * @return the suggested move, packed by (@code PackedMove), or -1 if there is no valid move
+   * @throws IllegalArgumentException when (@code model) is null or its board is of no known type
+   */
+  public int suggest(MarbleSolitaireModelState model) throws IllegalArgumentException {
+    long deadline = System.nanoTime() + this.budgetNanos;
+    BoardGeometry geometry = BoardGeometry.of(model);
+    long[] board = new long[(geometry.getCellCount() + 63) >>> 6];
+    geometry.pack(model, board);
+    this.moveTo(geometry, board);
+    this.search(deadline);
+    int jump;
+    if (this.bestLength > 0) {
+      jump = this.bestLine[0];
+    } else {
+      // no game was played to its end in time, so any valid move will do
+      int[] jumps = new int[geometry.getJumpCount()];
+      if (this.playout.validJumps(board, jumps) == 0) {
+        return -1;
+      }
+      jump = jumps[0];
+    }
+    int from = geometry.getJumpFrom(jump);
+    return PackedMove.of(geometry.getCellRow(from), geometry.getCellCol(from),
+            geometry.getJumpDirection(jump), geometry.getDimension());
+  }
+
+  /**
+   * Plays the given game to its end, making the move suggested at every turn.
+   *
+   * @param model the game, which is played on
+   * @return the moves made, packed by (@code PackedMove)
+   * @throws IllegalArgumentException when (@code model) is null or its board is of no known type
+   */
+  public int[] play(MarbleSolitaireModel model) throws IllegalArgumentException {
+    int[] moves = new int[model == null ? 0 : model.getScore()];
+    int made = 0;
+    for (int move = this.suggest(model); move >= 0; move = this.suggest(model)) {
+      PackedMove.apply(model, move);
+      moves[made] = move;
+      made += 1;
+    }
+    return Arrays.copyOf(moves, made);
+  }
+
+  /**
+   * Returns the number of iterations of the last search.
+   *
+   * @return the number of iterations
+   */
+  public long getIterations() {
+    return this.lastIterations;
+  }
+
+  /**
+   * Returns the number of nodes of the tree, including those kept from earlier moves that are no
+   * longer reachable.
+   *
+   * @return the number of nodes
+   */
+  public int getNodeCount() {
+    return Math.min(this.size.get(), this.capacity);
+  }
+
+  /**
+   * Makes the tree's root the given position, keeping the subtree below it if it is the root or
+   * one of the root's children and starting a new tree otherwise, and keeping the rest of the best
+   * game if the position follows its first jump.
+   *
+   * @param geometry the board
+   * @param board    the packed position
+   */
+  private void moveTo(BoardGeometry geometry, long[] board) {
+    boolean kept = false;
+    if (geometry.equals(this.geometry)) {
+      if (Arrays.equals(board, this.board)) {
+        return;
+      }
+      if (this.bestLength > 0 && this.follows(board, this.bestLine[0])) {
+        System.arraycopy(this.bestLine, 1, this.bestLine, 0, this.bestLength - 1);
+        this.bestLength -= 1;
+        kept = true;
+      }
+      int count = this.children[this.root];
+      for (int child = this.first[this.root]; count > 0 && child < this.first[this.root] + count;
+           child++) {
+        if (this.follows(board, this.jump[child])) {
+          this.forget(kept);
+          this.board = board.clone();
+          this.marbles -= 1;
+          this.root = child;
+          if (this.size.get() > this.capacity / 2) {
+            this.compact();
+          }
+          return;
+        }
+      }
+    } else {
+      this.geometry = geometry;
+      this.playout = new PlayoutEngine.Playout(geometry);
+      this.bestLine = new int[geometry.getCellCount()];
+    }
+    if (this.jump == null) {
+      this.allocate();
+    }
+    this.forget(kept);
+    this.board = board.clone();
+    this.marbles = 0;
+    for (long word : board) {
+      this.marbles += Long.bitCount(word);
+    }
+    this.root = 0;
+    this.size.set(1);
+    this.reset(0, -1);
+  }
+
+  /**
+   * Determines whether the given position is the root's after the given jump.
+   *
+   * @param board the packed position
+   * @param jump  the index of the jump
+   * @return true if the jump leads from the root to the position
+   */
+  private boolean follows(long[] board, int jump) {
+    this.playout.jump(this.board, jump);
+    boolean follows = Arrays.equals(board, this.board);
+    this.playout.jump(this.board, jump);
+    return follows;
+  }
+
+  /**
+   * Forgets the best game played, unless it was kept.
+   *
+   * @param kept whether the rest of the best game was kept
+   */
+  private void forget(boolean kept) {
+    if (!kept) {
+      this.bestLength = 0;
+      this.bestMarbles = Integer.MAX_VALUE;
+    }
+  }
+
+  /**
+   * Allocates empty arrays for the tree.
+   */
+  private void allocate() {
+    this.jump = new int[this.capacity];
+    this.first = new int[this.capacity];
+    this.children = new int[this.capacity];
+    this.visits = new int[this.capacity];
+    this.score = new long[this.capacity];
+  }
+
+  /**
+   * Makes the given node an unvisited leaf.
+   *
+   * @param node the index of the node
+   * @param jump the jump that leads to it
+   */
+  private void reset(int node, int jump) {
+    this.jump[node] = jump;
+    this.first[node] = 0;
+    this.children[node] = LEAF;
+    this.visits[node] = 0;
+    this.score[node] = 0;
+  }
+
+  /**
+   * Copies the subtree below the root to the front of new arrays, dropping the rest of the tree.
+   */
+  private void compact() {
+    int[] jump = this.jump;
+    int[] first = this.first;
+    int[] children = this.children;
+    int[] visits = this.visits;
+    long[] score = this.score;
+    this.allocate();
+    // the old index of each copied node, in order, each node's children after it in one block
+    int[] from = new int[this.capacity];
+    from[0] = this.root;
+    int copied = 1;
+    for (int node = 0; node < copied; node++) {
+      int old = from[node];
+      this.jump[node] = jump[old];
+      this.children[node] = children[old];
+      this.visits[node] = visits[old];
+      this.score[node] = score[old];
+      if (children[old] > 0) {
+        this.first[node] = copied;
+        for (int child = 0; child < children[old]; child++) {
+          from[copied + child] = first[old] + child;
+        }
+        copied += children[old];
+      }
+    }
+    this.root = 0;
+    this.size.set(copied);
+  }
+
+  /**
+   * Searches from the root until either budget runs out.
+   *
+   * @param deadline the time to stop at, by (@code System.nanoTime)
+   */
+  private void search(long deadline) {
+    AtomicLong started = new AtomicLong();
+    List<Callable<Void>> workers = new ArrayList<>();
+    SplittableRandom random = new SplittableRandom();
+    for (int i = 0; i < this.parallelism; i++) {
+      SplittableRandom own = random.split();
+      workers.add(() -> {
+        this.iterate(started, deadline, own);
+        return null;
+      });
+    }
+    ForkJoinPool pool = new ForkJoinPool(this.parallelism);
+    try {
+      for (Future<Void> result : pool.invokeAll(workers)) {
+        result.get();
+      }
+    } catch (InterruptedException | ExecutionException e) {
+      throw new IllegalStateException(e);
+    } finally {
+      pool.shutdown();
+    }
+    this.lastIterations = Math.min(started.get(), this.iterations);
+  }
+
+  /**
+   * Runs iterations on one thread until either budget runs out or the best game is won.
+   *
+   * @param started  the iterations started by every thread
+   * @param deadline the time to stop at, by (@code System.nanoTime)
+   * @param random   the thread's own generator
+   */
+  private void iterate(AtomicLong started, long deadline, SplittableRandom random) {
+    int cells = this.geometry.getCellCount();
+    long[] board = new long[this.board.length];
+    int[] jumps = new int[this.geometry.getJumpCount()];
+    int[] path = new int[cells + 1];
+    int[] line = new int[cells];
+    int clockJumps = Math.max(1, CLOCK_JUMPS / Math.max(1, jumps.length));
+    for (long i = 0; started.getAndIncrement() < this.iterations; i++) {
+      if (((i & CLOCK_MASK) == 0 && System.nanoTime() - deadline > 0) || this.bestMarbles == 1) {
+        return;
+      }
+      System.arraycopy(this.board, 0, board, 0, board.length);
+      int depth = this.descend(board, jumps, path, line, random);
+      int played = this.playout.playOut(board, jumps, random, line, depth, clockJumps, deadline);
+      if (played < 0) {
+        // the game was cut off, so it takes back its visits and counts for nothing
+        for (int step = 0; step <= depth; step++) {
+          INTS.getAndAdd(this.visits, path[step], -1);
+        }
+        return;
+      }
+      int length = depth + played;
+      int left = this.marbles - length;
+      long reward = this.marbles <= 1 ? (long) SCALE
+              : (long) (SCALE * (this.marbles - left) / (this.marbles - 1));
+      for (int step = 0; step <= depth; step++) {
+        LONGS.getAndAdd(this.score, path[step], reward);
+      }
+      if (left < this.bestMarbles) {
+        this.record(line, length, left);
+      }
+    }
+  }
+
+  /**
+   * Walks down the tree from the root by UCT, adding the children of the leaf it stops at and
+   * stepping into one of them, and counts a visit to every node on the way.
+   *
+   * @param board  the packed board at the root, moved along the walk
+   * @param jumps  a buffer of at least one entry per jump of the board
+   * @param path   filled with the nodes walked through, from the root
+   * @param line   filled with the jumps made, from the start
+   * @param random the thread's own generator
+   * @return the number of jumps made
+   */
+  private int descend(long[] board, int[] jumps, int[] path, int[] line,
+                      SplittableRandom random) {
+    int node = this.root;
+    int depth = 0;
+    path[0] = node;
+    INTS.getAndAdd(this.visits, node, 1);
+    while (true) {
+      int count = (int) INTS.getAcquire(this.children, node);
+      if (count == LEAF && this.size.get() + jumps.length <= this.capacity
+              && INTS.compareAndSet(this.children, node, LEAF, EXPANDING)) {
+        count = this.expand(node, board, jumps);
+        if (count > 0) {
+          node = this.first[node] + random.nextInt(count);
+          this.playout.jump(board, this.jump[node]);
+          line[depth] = this.jump[node];
+          depth += 1;
+          path[depth] = node;
+          INTS.getAndAdd(this.visits, node, 1);
+        }
+        return depth;
+      }
+      if (count <= 0) {
+        return depth;
+      }
+      node = this.select(node, count);
+      this.playout.jump(board, this.jump[node]);
+      line[depth] = this.jump[node];
+      depth += 1;
+      path[depth] = node;
+      INTS.getAndAdd(this.visits, node, 1);
+    }
+  }
+
+  /**
+   * Adds the children of a node this thread has claimed.
+   *
+   * @param node  the index of the node
+   * @param board the packed board at the node
+   * @param jumps a buffer of at least one entry per jump of the board
+   * @return the number of children
+   */
+  private int expand(int node, long[] board, int[] jumps) {
+    int count = this.playout.validJumps(board, jumps);
+    int block = count == 0 ? 0 : this.size.getAndAdd(count);
+    if (block + count > this.capacity) {
+      // another thread took the room first, so the node stays a leaf
+      INTS.setRelease(this.children, node, LEAF);
+      return 0;
+    }
+    for (int i = 0; i < count; i++) {
+      this.reset(block + i, jumps[i]);
+    }
+    this.first[node] = block;
+    INTS.setRelease(this.children, node, count);
+    return count;
+  }
+
+  /**
+   * Picks the child of a node with the best upper confidence bound, or the first unvisited one.
+   *
+   * @param node  the index of the node
+   * @param count the number of its children
+   * @return the index of the child
+   */
+  private int select(int node, int count) {
+    int start = this.first[node];
+    double log = Math.log(Math.max(1, (int) INTS.getOpaque(this.visits, node)));
+    int best = start;
+    double bestBound = Double.NEGATIVE_INFINITY;
+    for (int child = start; child < start + count; child++) {
+      int seen = (int) INTS.getOpaque(this.visits, child);
+      if (seen == 0) {
+        return child;
+      }
+      double bound = (long) LONGS.getOpaque(this.score, child) / SCALE / seen
+              + EXPLORATION * Math.sqrt(log / seen);
+      if (bound > bestBound) {
+        best = child;
+        bestBound = bound;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Keeps the given game as the best played, if no thread has played a better one.
+   *
+   * @param line   the jumps of the game
+   * @param length the number of jumps
+   * @param left   the marbles it left
+   */
+  private synchronized void record(int[] line, int length, int left) {
+    if (left < this.bestMarbles) {
+      System.arraycopy(line, 0, this.bestLine, 0, length);
+      this.bestLength = length;
+      this.bestMarbles = left;
+    }
+  }
+}
@@ -0,0 +1,167 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Records the moves of a game, each packed into a long by (@code pack), so they can be undone and
+ * redone. A long holds the whole row and column of a move's starting slot and its direction, so
+ * every model records its moves the same way on a board of any size. The moves are kept in a plain
+ * long array that grows as needed, and every operation is O(1) (amortized for recording). Making a
+ * new move after undoing drops the moves that could have been redone, as in any editor.
+ */
+public final class MoveJournal {
+  // a move holds its direction in the low bits, then its column, then its row
+  private static final int COL_SHIFT = 3;
+  private static final int ROW_SHIFT = COL_SHIFT + Integer.SIZE - 1;
+
+  // the moves made so far, followed by the moves that were undone and can be redone
+  private long[] moves;
+  // the number of moves made and not undone
+  private int position;
+  // the number of moves that can be reached by redoing
+  private int length;
+
+  /**
+   * Constructs an empty journal.
+   */
+  public MoveJournal() {
+    this.moves = new long[16];
+  }
+
+  /**
+   * Packs a valid move into a long, for recording.
+   *
+   * @param fromRow the row of the starting position
+   * @param fromCol the column of the starting position
+   * @param toRow   the row of the end position
+   * @param toCol   the column of the end position
+   * @return the packed move
+   */
+  public static long pack(int fromRow, int fromCol, int toRow, int toCol) {
+    return ((long) fromRow << ROW_SHIFT) | ((long) fromCol << COL_SHIFT)
+            | BoardGeometry.directionOf(toRow - fromRow, toCol - fromCol);
+  }
+
+  /**
+   * Returns the row of a packed move's starting position.
+   *
+   * @param move the packed move
+   * @return the row
+   */
+  public static int fromRow(long move) {
+    return (int) (move >>> ROW_SHIFT);
+  }
+
+  /**
+   * Returns the column of a packed move's starting position.
+   *
+   * @param move the packed move
+   * @return the column
+   */
+  public static int fromCol(long move) {
+    return (int) ((move >>> COL_SHIFT) & Integer.MAX_VALUE);
+  }
+
+  /**
+   * Returns the row of a packed move's end position.
+   *
+   * @param move the packed move
+   * @return the row
+   */
+  public static int toRow(long move) {
+    return fromRow(move) + 2 * BoardGeometry.ROW_STEP[(int) (move & ((1 << COL_SHIFT) - 1))];
+  }
+
+  /**
+   * Returns the column of a packed move's end position.
+   *
+   * @param move the packed move
+   * @return the column
+   */
+  public static int toCol(long move) {
+    return fromCol(move) + 2 * BoardGeometry.COL_STEP[(int) (move & ((1 << COL_SHIFT) - 1))];
+  }
+
+  /**
+   * Records a move that was just made, dropping any moves that could have been redone.
+   *
+   * @param move the move, as packed by (@code pack)
+   */
+  public void record(long move) {
+    if (this.position == this.moves.length) {
+      this.moves = Arrays.copyOf(this.moves, 2 * this.moves.length);
+    }
+    this.moves[this.position] = move;
+    this.position += 1;
+    this.length = this.position;
+  }
+
+  /**
+   * Determines if there is a move to undo.
+   *
+   * @return true if any move has been made and not undone
+   */
+  public boolean canUndo() {
+    return this.position > 0;
+  }
+
+  /**
+   * Determines if there is a move to redo.
+   *
+   * @return true if a move has been undone and no new move made since
+   */
+  public boolean canRedo() {
+    return this.position < this.length;
+  }
+
+  /**
+   * Steps back over the last move made, which the caller must then take back on its board.
+   *
+   * @return the move to take back, as packed by (@code pack)
+   * @throws IllegalStateException if there is no move to undo
+   */
+  public long undo() throws IllegalStateException {
+    if (!this.canUndo()) {
+      throw new IllegalStateException("No move to undo");
+    }
+    this.position -= 1;
+    return this.moves[this.position];
+  }
+
+  /**
+   * Steps forward over the last move undone, which the caller must then make again on its board.
+   *
+   * @return the move to make again, as packed by (@code pack)
+   * @throws IllegalStateException if there is no move to redo
+   */
+  public long redo() throws IllegalStateException {
+    if (!this.canRedo()) {
+      throw new IllegalStateException("No move to redo");
+    }
+    this.position += 1;
+    return this.moves[this.position - 1];
+  }
+
+  /**
+   * Returns the number of moves made and not undone.
+   *
+   * @return the number of moves
+   */
+  public int size() {
+    return this.position;
+  }
+
+  /**
+   * Returns one of the moves made and not undone, in the order they were made.
+   *
+   * @param i the index of the move, from 0 to (@code size() - 1)
+   * @return the move, as packed by (@code pack)
+   * @throws IllegalArgumentException if the index is out of range
+   */
+  public long get(int i) throws IllegalArgumentException {
+    if (i < 0 || i >= this.position) {
+      throw new IllegalArgumentException("Move index out of range");
+    }
+    return this.moves[i];
+  }
+}
@@ -0,0 +1,147 @@
+package model;
+
+/**
+ * Packs a move into a single int, so lists of moves can be kept in plain int arrays. A packed
+ * move holds the slot the marble starts from, as (@code row * boardSize + col), and the direction
+ * it jumps in, as one of the eight directions below. The from slot must be below 2^28, which holds
+ * for any board up to 16384 slots wide; packing a move from any other slot throws.
+ *
+ * <p>The directions are numbered: 0 up, 1 down, 2 left, 3 right, 4 up-left, 5 down-right,
+ * 6 down-left and 7 up-right. Only the Triangle board uses the diagonals (4 to 7).
+ */
+public final class PackedMove {
+  // the number of low bits holding the direction
+  private static final int DIRECTION_BITS = 3;
+  // the first from slot that does not fit in the bits above the direction
+  private static final int CELL_LIMIT = 1 << (Integer.SIZE - 1 - DIRECTION_BITS);
+
+  private PackedMove() {
+    // only static helpers
+  }
+
+  /**
+   * Packs the given move.
+   *
+   * @param fromCell  the slot the marble starts from, as (@code row * boardSize + col)
+   * @param direction the direction of the jump, from 0 to 7
+   * @return the packed move
+   * @throws IllegalArgumentException when (@code fromCell) is negative or not below 2^28
+   */
+  public static int of(int fromCell, int direction) throws IllegalArgumentException {
+    if (fromCell < 0 || fromCell >= CELL_LIMIT) {
+      throw new IllegalArgumentException("Slot " + fromCell + " is too large to pack");
+    }
+    return (fromCell << DIRECTION_BITS) | direction;
+  }
+
+  /**
+   * Packs the given move.
+   *
+   * @param fromRow   the row the marble starts from
+   * @param fromCol   the column the marble starts from
+   * @param direction the direction of the jump, from 0 to 7
+   * @param boardSize the number of rows/columns of the board
+   * @return the packed move
+   * @throws IllegalArgumentException when the from slot is negative or not below 2^28
+   */
+  public static int of(int fromRow, int fromCol, int direction, int boardSize)
+          throws IllegalArgumentException {
+    return of((int) Math.min(Integer.MAX_VALUE, (long) fromRow * boardSize + fromCol), direction);
+  }
+
+  /**
+   * Returns the slot the marble of the given move starts from.
+   *
+   * @param move the packed move
+   * @return the from slot, as (@code row * boardSize + col)
+   */
+  public static int fromCell(int move) {
+    return move >>> DIRECTION_BITS;
+  }
+
+  /**
+   * Returns the direction of the given move.
+   *
+   * @param move the packed move
+   * @return the direction of the jump, from 0 to 7
+   */
+  public static int direction(int move) {
+    return move & ((1 << DIRECTION_BITS) - 1);
+  }
+
+  /**
+   * Returns the row step of a single slot in the given direction.
+   *
+   * @param direction the direction, from 0 to 7
+   * @return -1, 0 or 1
+   */
+  public static int rowStep(int direction) {
+    return BoardGeometry.ROW_STEP[direction];
+  }
+
+  /**
+   * Returns the column step of a single slot in the given direction.
+   *
+   * @param direction the direction, from 0 to 7
+   * @return -1, 0 or 1
+   */
+  public static int colStep(int direction) {
+    return BoardGeometry.COL_STEP[direction];
+  }
+
+  /**
+   * Returns the row the marble of the given move starts from.
+   *
+   * @param move      the packed move
+   * @param boardSize the number of rows/columns of the board
+   * @return the from row
+   */
+  public static int fromRow(int move, int boardSize) {
+    return fromCell(move) / boardSize;
+  }
+
+  /**
+   * Returns the column the marble of the given move starts from.
+   *
+   * @param move      the packed move
+   * @param boardSize the number of rows/columns of the board
+   * @return the from column
+   */
+  public static int fromCol(int move, int boardSize) {
+    return fromCell(move) % boardSize;
+  }
+
+  /**
+   * Returns the row the marble of the given move lands in.
+   *
+   * @param move      the packed move
+   * @param boardSize the number of rows/columns of the board
+   * @return the to row
+   */
+  public static int toRow(int move, int boardSize) {
+    return fromRow(move, boardSize) + 2 * rowStep(direction(move));
+  }
+
+  /**
+   * Returns the column the marble of the given move lands in.
+   *
+   * @param move      the packed move
+   * @param boardSize the number of rows/columns of the board
+   * @return the to column
+   */
+  public static int toCol(int move, int boardSize) {
+    return fromCol(move, boardSize) + 2 * colStep(direction(move));
+  }
+
+  /**
+   * Makes the given move on the given model.
+   *
+   * @param model the model to move on
+   * @param move  the packed move
+   * @throws IllegalArgumentException if the move is not possible
+   */
+  public static void apply(MarbleSolitaireModel model, int move) throws IllegalArgumentException {
+    int size = model.getBoardSize();
+    model.move(fromRow(move, size), fromCol(move, size), toRow(move, size), toCol(move, size));
+  }
+}
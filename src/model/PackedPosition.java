@@ -0,0 +1,357 @@
+package model;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A position for the search engines of this package: the board packed one bit per valid slot,
+ * numbered by its (@code BoardGeometry), where a jump is made or taken back by flipping three bits.
+ * Jumps are named by their index in the geometry's jump tables.
+ *
+ * <p>Each position also knows its canonical key under the board's symmetries, so that a search
+ * only visits one of every set of symmetric positions. Boards of up to 64 slots use the exact
+ * canonical board as the key; larger boards use the smallest Zobrist hash of the position's
+ * images, which are kept up to date as jumps are made.
+ *
+ * <p>A position may be given a target slot for its last marble. Its key then only uses the
+ * symmetries that leave the target in place, and it keeps the value of each of the board's useful
+ * pagoda functions up to date, so a search can tell in constant time per function that the target
+ * is out of reach.
+ */
+final class PackedPosition {
+  private final BoardGeometry geometry;
+  private final BoardSymmetry symmetry;
+  // the shared from, over and to slots of each jump
+  private final int[] from;
+  private final int[] over;
+  private final int[] to;
+  // bit i of word i / 64 is set when the valid slot with dense index i holds a marble
+  private final long[] board;
+  private int marbles;
+  // the transforms that the key is the smallest image under, those that leave the target alone
+  private final int[] transforms;
+  // for boards of more than 64 slots, the Zobrist hash of the position's image per transform
+  private final long[] hashes;
+  // the slot the last marble should be left in, or -1 for any slot
+  private final int target;
+  // the pagoda functions that can rule the target out, with the weight of the target in each
+  private final int[] needed;
+  // the change in value of each pagoda function per jump, indexed by jump * functions + function
+  private final int[] deltas;
+  // the current value of each pagoda function
+  private final int[] values;
+
+  /**
+   * Constructs the position of the given game.
+   *
+   * @param model the game
+   * @throws IllegalArgumentException when (@code model) is null or its board is of no known type
+   */
+  PackedPosition(MarbleSolitaireModelState model) throws IllegalArgumentException {
+    this(model, -1);
+  }
+
+  /**
+   * Constructs the position of the given game, to be cleared down to one marble in the given slot.
+   *
+   * @param model  the game
+   * @param target the dense index of the slot the last marble should be left in, or -1 for any
+   * @throws IllegalArgumentException when (@code model) is null, its board is of no known type, or
+   *                                  the target is not a slot of the board
+   */
+  PackedPosition(MarbleSolitaireModelState model, int target) throws IllegalArgumentException {
+    this(BoardGeometry.of(model), packed(model), target);
+  }
+
+  /**
+   * Constructs the position of the given packed board, to be cleared down to one marble in the
+   * given slot.
+   *
+   * @param geometry the board
+   * @param board    the packed board, one word per 64 slots, which is copied
+   * @param target   the dense index of the slot the last marble should be left in, or -1 for any
+   * @throws IllegalArgumentException when the target is not a slot of the board
+   */
+  PackedPosition(BoardGeometry geometry, long[] board, int target)
+          throws IllegalArgumentException {
+    this.geometry = geometry;
+    this.symmetry = BoardSymmetry.of(this.geometry);
+    this.from = this.geometry.jumpFromTable();
+    this.over = this.geometry.jumpOverTable();
+    this.to = this.geometry.jumpToTable();
+    this.board = board.clone();
+    for (long word : this.board) {
+      this.marbles += Long.bitCount(word);
+    }
+    if (target < -1 || target >= this.geometry.getCellCount()) {
+      throw new IllegalArgumentException("Position out of bounds");
+    }
+    this.target = target;
+
+    int count = 0;
+    int[] transforms = new int[this.symmetry.getTransformCount()];
+    for (int t = 0; t < transforms.length; t++) {
+      if (target < 0 || this.symmetry.transformCell(t, target) == target) {
+        transforms[count] = t;
+        count += 1;
+      }
+    }
+    this.transforms = Arrays.copyOf(transforms, count);
+    if (this.board.length > 1) {
+      this.hashes = new long[this.transforms.length];
+      for (int t = 0; t < this.hashes.length; t++) {
+        long[] keys = this.symmetry.imageKeys(this.transforms[t]);
+        for (int cell = 0; cell < keys.length; cell++) {
+          if (this.hasMarble(cell)) {
+            this.hashes[t] ^= keys[cell];
+          }
+        }
+      }
+    } else {
+      this.hashes = null;
+    }
+
+    List<PagodaFunction> pagodas = target < 0 ? Collections.emptyList()
+            : PagodaFunction.libraryOf(this.geometry, target);
+    this.needed = new int[pagodas.size()];
+    this.values = new int[pagodas.size()];
+    this.deltas = new int[this.getJumpCount() * pagodas.size()];
+    for (int i = 0; i < pagodas.size(); i++) {
+      PagodaFunction pagoda = pagodas.get(i);
+      this.needed[i] = pagoda.getWeight(target);
+      this.values[i] = pagoda.valueOf(this.board);
+      for (int jump = 0; jump < this.getJumpCount(); jump++) {
+        this.deltas[jump * this.values.length + i] = pagoda.getJumpDelta(jump);
+      }
+    }
+  }
+
+  /**
+   * Packs the given game's board.
+   *
+   * @param model the game
+   * @return the packed board, one word per 64 slots
+   * @throws IllegalArgumentException when (@code model) is null or its board is of no known type
+   */
+  private static long[] packed(MarbleSolitaireModelState model) throws IllegalArgumentException {
+    BoardGeometry geometry = BoardGeometry.of(model);
+    long[] board = new long[(geometry.getCellCount() + 63) >>> 6];
+    geometry.pack(model, board);
+    return board;
+  }
+
+  /**
+   * Constructs an independent copy of the given position.
+   *
+   * @param other the position to copy
+   */
+  PackedPosition(PackedPosition other) {
+    this.geometry = other.geometry;
+    this.symmetry = other.symmetry;
+    this.from = other.from;
+    this.over = other.over;
+    this.to = other.to;
+    this.board = other.board.clone();
+    this.marbles = other.marbles;
+    this.transforms = other.transforms;
+    this.hashes = other.hashes == null ? null : other.hashes.clone();
+    this.target = other.target;
+    this.needed = other.needed;
+    this.deltas = other.deltas;
+    this.values = other.values.clone();
+  }
+
+  /**
+   * Returns the board this position is on.
+   *
+   * @return the geometry of the board
+   */
+  BoardGeometry getGeometry() {
+    return this.geometry;
+  }
+
+  /**
+   * Returns the slot the last marble should be left in.
+   *
+   * @return the dense index of the target slot, or -1 for any slot
+   */
+  int getTarget() {
+    return this.target;
+  }
+
+  /**
+   * Determines if the position is of a class that can be cleared down to one marble, in the target
+   * slot if there is one. Moves never change the class, so this only needs to be asked once.
+   *
+   * @return false if the position's class proves it can never be won
+   */
+  boolean isClassWinnable() {
+    PositionClass classes = PositionClass.of(this.geometry);
+    int positionClass = classes.classOf(this.board);
+    return this.target < 0 ? classes.canFinish(positionClass)
+            : classes.canFinishAt(positionClass, this.target);
+  }
+
+  /**
+   * Returns the number of jumps on the board, valid or not.
+   *
+   * @return the number of jumps
+   */
+  int getJumpCount() {
+    return this.from.length;
+  }
+
+  /**
+   * Returns the number of marbles on the board.
+   *
+   * @return the number of marbles
+   */
+  int getMarbles() {
+    return this.marbles;
+  }
+
+  /**
+   * Returns the packed board, which the caller must not modify.
+   *
+   * @return the words of the board
+   */
+  long[] getBoard() {
+    return this.board;
+  }
+
+  /**
+   * Determines if the valid slot with the given index holds a marble.
+   *
+   * @param cell the dense index of the slot
+   * @return true if the slot holds a marble
+   */
+  boolean hasMarble(int cell) {
+    return (this.board[cell >>> 6] & (1L << cell)) != 0;
+  }
+
+  /**
+   * Determines if the given jump is a valid move in this position.
+   *
+   * @param jump the index of the jump
+   * @return true if its from and over slots hold marbles and its to slot is empty
+   */
+  boolean canJump(int jump) {
+    return this.hasMarble(this.from[jump]) && this.hasMarble(this.over[jump])
+            && !this.hasMarble(this.to[jump]);
+  }
+
+  /**
+   * Makes the given jump, which must be valid.
+   *
+   * @param jump the index of the jump
+   */
+  void jump(int jump) {
+    this.flip(jump);
+    this.marbles -= 1;
+    int base = jump * this.values.length;
+    for (int i = 0; i < this.values.length; i++) {
+      this.values[i] += this.deltas[base + i];
+    }
+  }
+
+  /**
+   * Takes back the given jump, which must have been the last one made.
+   *
+   * @param jump the index of the jump
+   */
+  void unjump(int jump) {
+    this.flip(jump);
+    this.marbles += 1;
+    int base = jump * this.values.length;
+    for (int i = 0; i < this.values.length; i++) {
+      this.values[i] -= this.deltas[base + i];
+    }
+  }
+
+  /**
+   * Determines if this position is won: one marble is left, in the target slot if there is one.
+   *
+   * @return true if the position is won
+   */
+  boolean isWon() {
+    return this.marbles == 1 && (this.target < 0 || this.hasMarble(this.target));
+  }
+
+  /**
+   * Determines if the target slot is still within reach of every pagoda function, which is always
+   * so when there is no target.
+   *
+   * @return false if some pagoda function proves the position cannot be won
+   */
+  boolean canReachTarget() {
+    for (int i = 0; i < this.values.length; i++) {
+      if (this.values[i] < this.needed[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Flips the three slots of the given jump, and the hashes of the position's images with them.
+   *
+   * @param jump the index of the jump
+   */
+  private void flip(int jump) {
+    int f = this.from[jump];
+    int o = this.over[jump];
+    int t = this.to[jump];
+    this.board[f >>> 6] ^= 1L << f;
+    this.board[o >>> 6] ^= 1L << o;
+    this.board[t >>> 6] ^= 1L << t;
+    if (this.hashes != null) {
+      for (int i = 0; i < this.hashes.length; i++) {
+        long[] keys = this.symmetry.imageKeys(this.transforms[i]);
+        this.hashes[i] ^= keys[f] ^ keys[o] ^ keys[t];
+      }
+    }
+  }
+
+  /**
+   * Returns the key shared by this position and every position symmetric to it under a symmetry
+   * that leaves the target in place.
+   *
+   * @return the canonical board for boards of up to 64 slots, or else the smallest hash of the
+   *         position's images
+   */
+  long key() {
+    if (this.hashes == null) {
+      if (this.target < 0) {
+        return this.symmetry.canonical(this.board[0]);
+      }
+      long key = this.board[0];
+      for (int t = 1; t < this.transforms.length; t++) {
+        long image = this.symmetry.transform(this.transforms[t], this.board[0]);
+        if (Long.compareUnsigned(image, key) < 0) {
+          key = image;
+        }
+      }
+      return key;
+    }
+    long key = this.hashes[0];
+    for (int t = 1; t < this.hashes.length; t++) {
+      if (Long.compareUnsigned(this.hashes[t], key) < 0) {
+        key = this.hashes[t];
+      }
+    }
+    return key;
+  }
+
+  /**
+   * Returns the given jump as a move of the game, packed by (@code PackedMove).
+   *
+   * @param jump the index of the jump
+   * @return the packed move
+   */
+  int toMove(int jump) {
+    int cell = this.from[jump];
+    return PackedMove.of(this.geometry.getCellRow(cell), this.geometry.getCellCol(cell),
+            this.geometry.getJumpDirection(jump), this.geometry.getDimension());
+  }
+}
@@ -0,0 +1,396 @@
+package model;
+
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Represents a pagoda function of a board: a weight for every valid slot such that, for every
+ * jump, the weight of its to slot is at most the weights of its from and over slots together. The
+ * value of a position, the total weight of its marbles, can then never rise as moves are made, so a
+ * position whose value is already below the weight of a target slot can never be cleared down to
+ * one marble in that slot.
+ *
+ * <p>Each board has a library of pagoda functions, built from weights that depend on a single line
+ * of the board (its row, column or one of its diagonals): runs that rise like the Fibonacci numbers
+ * towards an edge or a peak, and the repeating pattern of one empty line in every three. Products
+ * of a row weighting and a column weighting are tried as well, which weigh one region of the board
+ * above the rest. Only the weightings that turn out to be pagoda functions of the board are kept.
+ * Pagoda functions are immutable, and each board's library is cached.
+ */
+public final class PagodaFunction {
+  // the longest run of rising weights, which keeps every value well within an int
+  private static final int MAX_RISE = 20;
+  // the most functions handed out for one target: past the strongest few, the rest only ever cut
+  // positions the strongest already cut, while costing time on every jump
+  private static final int MAX_USEFUL = 16;
+  // the longest line whose weightings are multiplied together, as the products grow with its square
+  private static final int MAX_PRODUCT_LENGTH = 64;
+
+  // every library that has been built so far, keyed by geometry
+  private static final ConcurrentMap<BoardGeometry, List<PagodaFunction>> LIBRARIES =
+          new ConcurrentHashMap<>();
+
+  private final BoardGeometry geometry;
+  private final int[] weights;
+  // the change in value each jump makes, never positive
+  private final int[] deltas;
+  private final int minWeight;
+  private final int totalWeight;
+
+  /**
+   * Constructs the pagoda function of the given board with the given weights.
+   *
+   * @param geometry the board
+   * @param weights  the weight of each valid slot, by dense index
+   * @throws IllegalArgumentException when either argument is null, there is not one weight per
+   *                                  valid slot, or some jump lands on a slot that weighs more
+   *                                  than the two it leaves
+   */
+  public PagodaFunction(BoardGeometry geometry, int[] weights) throws IllegalArgumentException {
+    if (geometry == null) {
+      throw new IllegalArgumentException("Must provide a non-null board geometry");
+    }
+    if (weights == null || weights.length != geometry.getCellCount()) {
+      throw new IllegalArgumentException("Must provide one weight per valid slot");
+    }
+    if (!isPagoda(geometry, weights)) {
+      throw new IllegalArgumentException("Weights are not a pagoda function of the board");
+    }
+    this.geometry = geometry;
+    this.weights = weights.clone();
+    this.deltas = new int[geometry.getJumpCount()];
+    for (int jump = 0; jump < this.deltas.length; jump++) {
+      this.deltas[jump] = this.weights[geometry.getJumpTo(jump)]
+              - this.weights[geometry.getJumpFrom(jump)] - this.weights[geometry.getJumpOver(jump)];
+    }
+    int min = this.weights[0];
+    int total = 0;
+    for (int weight : this.weights) {
+      min = Math.min(min, weight);
+      total += weight;
+    }
+    this.minWeight = min;
+    this.totalWeight = total;
+  }
+
+  /**
+   * Returns the shared library of pagoda functions of the given board.
+   *
+   * @param geometry the board
+   * @return an unmodifiable list of the board's pagoda functions
+   * @throws IllegalArgumentException when (@code geometry) is null
+   */
+  public static List<PagodaFunction> libraryOf(BoardGeometry geometry)
+          throws IllegalArgumentException {
+    if (geometry == null) {
+      throw new IllegalArgumentException("Must provide a non-null board geometry");
+    }
+    List<PagodaFunction> library = LIBRARIES.get(geometry);
+    if (library == null) {
+      // two threads may both build it, but only the first one is ever handed out
+      List<PagodaFunction> built = Collections.unmodifiableList(build(geometry));
+      library = LIBRARIES.putIfAbsent(geometry, built);
+      if (library == null) {
+        library = built;
+      }
+    }
+    return library;
+  }
+
+  /**
+   * Returns the pagoda functions of the given board's library that are most likely to prove a
+   * position unable to finish in the given slot: of those that weigh the slot more than some other
+   * slot, the few whose weight of the slot is the largest share of their total weight.
+   *
+   * @param geometry the board
+   * @param target   the dense index of the slot the last marble should be left in
+   * @return at most 16 of the library's pagoda functions, strongest first
+   * @throws IllegalArgumentException when (@code geometry) is null or the target is not a slot
+   */
+  public static List<PagodaFunction> libraryOf(BoardGeometry geometry, int target)
+          throws IllegalArgumentException {
+    List<PagodaFunction> library = libraryOf(geometry);
+    if (target < 0 || target >= geometry.getCellCount()) {
+      throw new IllegalArgumentException("Position out of bounds");
+    }
+    List<PagodaFunction> useful = new ArrayList<>();
+    for (PagodaFunction function : library) {
+      if (function.weights[target] > function.minWeight) {
+        useful.add(function);
+      }
+    }
+    // the more of a function's total weight the target needs, the sooner it cuts
+    useful.sort(Comparator.comparingDouble(
+        (PagodaFunction function) -> -function.weights[target] / (double) function.totalWeight));
+    return new ArrayList<>(useful.subList(0, Math.min(useful.size(), MAX_USEFUL)));
+  }
+
+  /**
+   * Determines if the given weights form a pagoda function of the given board.
+   *
+   * @param geometry the board
+   * @param weights  the weight of each valid slot, by dense index
+   * @return true if no jump lands on a slot that weighs more than the two it leaves
+   */
+  private static boolean isPagoda(BoardGeometry geometry, int[] weights) {
+    for (int jump = 0; jump < geometry.getJumpCount(); jump++) {
+      if (weights[geometry.getJumpTo(jump)]
+              > weights[geometry.getJumpFrom(jump)] + weights[geometry.getJumpOver(jump)]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Builds the library of the given board by trying every line weighting along every line of the
+   * board in both orientations, then every product of a row and a column weighting, and keeping
+   * each distinct pagoda function found.
+   *
+   * @param geometry the board
+   * @return the pagoda functions of the board
+   */
+  private static List<PagodaFunction> build(BoardGeometry geometry) {
+    List<PagodaFunction> library = new ArrayList<>();
+    Set<IntBuffer> seen = new HashSet<>();
+    int cells = geometry.getCellCount();
+    // the line of each slot, as its row, column, diagonal and anti-diagonal
+    int lines = 4;
+    int[][] lineOf = new int[lines][cells];
+    int dimension = geometry.getDimension();
+    for (int cell = 0; cell < cells; cell++) {
+      int row = geometry.getCellRow(cell);
+      int col = geometry.getCellCol(cell);
+      lineOf[0][cell] = row;
+      lineOf[1][cell] = col;
+      lineOf[2][cell] = row - col + dimension - 1;
+      lineOf[3][cell] = row + col;
+    }
+    int length = 2 * dimension - 1;
+    List<int[]> sequences = sequences(length);
+    for (int[] line : lineOf) {
+      for (int[] sequence : sequences) {
+        for (int orientation = 0; orientation < 2; orientation++) {
+          int[] weights = new int[cells];
+          for (int cell = 0; cell < cells; cell++) {
+            weights[cell] = sequence[orientation == 0 ? line[cell] : length - 1 - line[cell]];
+          }
+          add(geometry, weights, library, seen);
+        }
+      }
+    }
+    // products of row and column weightings, on boards narrow enough to try them all
+    for (int[] rows : length <= MAX_PRODUCT_LENGTH ? sequences : Collections.<int[]>emptyList()) {
+      for (int[] cols : sequences) {
+        for (int orientation = 0; orientation < 4; orientation++) {
+          int[] weights = new int[cells];
+          for (int cell = 0; cell < cells; cell++) {
+            int r = lineOf[0][cell];
+            int c = lineOf[1][cell];
+            weights[cell] = rows[(orientation & 1) == 0 ? r : length - 1 - r]
+                    * cols[(orientation & 2) == 0 ? c : length - 1 - c];
+          }
+          add(geometry, weights, library, seen);
+        }
+      }
+    }
+    return library;
+  }
+
+  /**
+   * Adds the given weights to the library if they form a pagoda function of the board that can
+   * tell slots apart and is not already in the library.
+   *
+   * @param geometry the board
+   * @param weights  the weight of each valid slot, by dense index
+   * @param library  the functions found so far
+   * @param seen     the weights of the functions found so far
+   */
+  private static void add(BoardGeometry geometry, int[] weights, List<PagodaFunction> library,
+                          Set<IntBuffer> seen) {
+    long total = 0;
+    for (int weight : weights) {
+      total += weight;
+    }
+    // the value of every position must fit in an int
+    if (total <= Integer.MAX_VALUE && !isFlat(weights) && isPagoda(geometry, weights)
+            && seen.add(IntBuffer.wrap(weights))) {
+      library.add(new PagodaFunction(geometry, weights));
+    }
+  }
+
+  /**
+   * Returns the weightings of a line of the given length that are tried on every line of a board:
+   * one empty place in every three, starting at each of the first three places; a Fibonacci rise
+   * from each place towards the end of the line; and a Fibonacci rise to a peak at each place,
+   * falling again after it.
+   *
+   * @param length the number of places on the line
+   * @return the weight of every place, per weighting
+   */
+  private static List<int[]> sequences(int length) {
+    List<int[]> sequences = new ArrayList<>();
+    for (int start = 0; start < 3; start++) {
+      int[] sequence = new int[length];
+      for (int i = 0; i < length; i++) {
+        sequence[i] = (i - start) % 3 == 0 ? 0 : 1;
+      }
+      sequences.add(sequence);
+    }
+    for (int start = 0; start < length; start++) {
+      int[] rise = new int[length];
+      int[] peak = new int[length];
+      for (int i = 0; i < length; i++) {
+        rise[i] = i < start ? dip(start - 1 - i) : fibonacci(i - start + 1);
+        peak[i] = fibonacci(start + 1 - Math.abs(i - start));
+        if (i > 2 * start) {
+          peak[i] = dip(i - 2 * start - 1);
+        }
+      }
+      sequences.add(rise);
+      sequences.add(peak);
+    }
+    return sequences;
+  }
+
+  /**
+   * Returns the weight of the given place of a line that repeats one empty place in every three.
+   *
+   * @param distance the distance from an empty place
+   * @return the weight, 0 or 1
+   */
+  private static int dip(int distance) {
+    return distance % 3 == 0 ? 0 : 1;
+  }
+
+  /**
+   * Returns the given Fibonacci number, counting 1, 1, 2, 3, ..., held level once the rise is too
+   * long.
+   *
+   * @param n the position in the sequence, from 1
+   * @return the Fibonacci number
+   */
+  private static int fibonacci(int n) {
+    int a = 0;
+    int b = 1;
+    for (int i = 1; i < Math.min(n, MAX_RISE); i++) {
+      int c = a + b;
+      a = b;
+      b = c;
+    }
+    return b;
+  }
+
+  /**
+   * Determines if every slot has the same weight, so the function can never tell slots apart.
+   *
+   * @param weights the weight of each valid slot, by dense index
+   * @return true if every weight equals the first
+   */
+  private static boolean isFlat(int[] weights) {
+    for (int weight : weights) {
+      if (weight != weights[0]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the board this function is defined on.
+   *
+   * @return the geometry of the board
+   */
+  public BoardGeometry getGeometry() {
+    return this.geometry;
+  }
+
+  /**
+   * Returns the weight of the given slot.
+   *
+   * @param cell the dense index of the slot
+   * @return the weight of the slot
+   */
+  public int getWeight(int cell) {
+    return this.weights[cell];
+  }
+
+  /**
+   * Returns the total weight of every slot, the value of a board full of marbles.
+   *
+   * @return the total weight
+   */
+  public int getTotalWeight() {
+    return this.totalWeight;
+  }
+
+  /**
+   * Returns the smallest weight of any slot, which is the least value a single marble can have.
+   *
+   * @return the smallest weight
+   */
+  public int getMinWeight() {
+    return this.minWeight;
+  }
+
+  /**
+   * Returns the change in value that the given jump makes, which is never positive.
+   *
+   * @param jump the index of the jump in the board's jump tables
+   * @return the weight of the jump's to slot less the weights of its from and over slots
+   */
+  public int getJumpDelta(int jump) {
+    return this.deltas[jump];
+  }
+
+  /**
+   * Returns the value of the given packed board: the total weight of its marbles.
+   *
+   * @param board the packed board, as built by (@code BoardGeometry.pack)
+   * @return the value of the board
+   */
+  public int valueOf(long[] board) {
+    int value = 0;
+    for (int w = 0; w < board.length; w++) {
+      for (long bits = board[w]; bits != 0; bits &= bits - 1) {
+        value += this.weights[(w << 6) | Long.numberOfTrailingZeros(bits)];
+      }
+    }
+    return value;
+  }
+
+  /**
+   * Returns the value of the given game: the total weight of its marbles.
+   *
+   * @param model the game, which must be on this function's board
+   * @return the value of the game
+   * @throws IllegalArgumentException when (@code model) is null
+   */
+  public int valueOf(MarbleSolitaireModelState model) throws IllegalArgumentException {
+    if (model == null) {
+      throw new IllegalArgumentException("Must provide a non-null model");
+    }
+    long[] board = new long[(this.geometry.getCellCount() + 63) >>> 6];
+    this.geometry.pack(model, board);
+    return this.valueOf(board);
+  }
+
+  /**
+   * Determines if a position of the given value could still be cleared down to one marble in the
+   * given slot, as far as this function can tell.
+   *
+   * @param value  the value of the position
+   * @param target the dense index of the slot the last marble should be left in
+   * @return false if the position's value is already below the weight of the slot
+   */
+  public boolean canReach(int value, int target) {
+    return value >= this.weights[target];
+  }
+}
@@ -0,0 +1,258 @@
+package model;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Finds a sequence of moves that leaves a single marble on the board, or proves there is none, by
+ * depth-first search spread over several cores. The top levels of the search tree are split into
+ * one task per valid move, run on a (@code ForkJoinPool) whose idle workers steal tasks from busy
+ * ones, and every task below them searches its subtree alone.
+ *
+ * <p>All tasks share one lock-free (@code TranspositionTable) of dead positions, keyed by canonical
+ * key, so a position proven unwinnable by one worker is not searched again by another. As soon as
+ * any task finds a solution, every other task stops at its next node. Positions whose class proves
+ * they can never be won are answered at once, without starting any task.
+ *
+ * <p>The table is kept from one call to the next, cleared at the start of each, so a solver must
+ * not be asked to solve two games at once.
+ */
+public class ParallelSolitaireSolver {
+  // the number of levels of the search tree split into separate tasks, which gives thousands of
+  // tasks on the standard boards, plenty for work stealing to balance
+  private static final int SPLIT_DEPTH = 6;
+
+  private final int parallelism;
+  // whether the table of dead positions is this solver's own, built to suit each board
+  private final boolean ownTable;
+  // the table of dead positions, kept from one search to the next
+  private TranspositionTable dead;
+  // the board the solver's own table was built for
+  private BoardGeometry deadBoard;
+
+  /**
+   * Constructs a solver that uses every available core.
+   */
+  public ParallelSolitaireSolver() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Constructs a solver that uses the given number of worker threads.
+   *
+   * @param parallelism the number of threads to search with
+   * @throws IllegalArgumentException when (@code parallelism) is not positive
+   */
+  public ParallelSolitaireSolver(int parallelism) throws IllegalArgumentException {
+    this(parallelism, null);
+  }
+
+  /**
+   * Constructs a solver that uses the given number of worker threads and keeps the positions it
+   * cannot win in the given table, which it clears at the start of every search.
+   *
+   * @param parallelism the number of threads to search with
+   * @param table       the table of dead positions, or null to build one sized to each board
+   * @throws IllegalArgumentException when (@code parallelism) is not positive
+   */
+  public ParallelSolitaireSolver(int parallelism, TranspositionTable table)
+          throws IllegalArgumentException {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Parallelism must be positive");
+    }
+    this.parallelism = parallelism;
+    this.ownTable = table == null;
+    this.dead = table;
+  }
+
+  /**
+   * Searches for a way to win the given game.
+   *
+   * @param model the game to solve, which is left unchanged
+   * @return the solution if there is one, along with the nodes searched and time taken
+   * @throws IllegalArgumentException when (@code model) is null or its board is of no known type
+   */
+  public SolverResult solve(MarbleSolitaireModelState model) throws IllegalArgumentException {
+    long start = System.nanoTime();
+    PackedPosition position = new PackedPosition(model);
+    if (!position.isClassWinnable()) {
+      return new SolverResult(false, new int[0], 0, System.nanoTime() - start);
+    }
+    if (this.ownTable && position.getGeometry() != this.deadBoard) {
+      this.dead = TranspositionTable.forBoard(position.getGeometry());
+      this.deadBoard = position.getGeometry();
+    } else {
+      this.dead.clear();
+    }
+    Search search = new Search(this.dead);
+    int[] path = new int[Math.max(0, position.getMarbles() - 1)];
+
+    ForkJoinPool pool = new ForkJoinPool(this.parallelism);
+    try {
+      pool.invoke(new SearchTask(search, position, path, 0));
+    } finally {
+      pool.shutdown();
+    }
+    int[] moves = search.solution.get();
+    return new SolverResult(moves != null, moves == null ? new int[0] : moves,
+            search.nodes.sum(), System.nanoTime() - start);
+  }
+
+  /**
+   * The state shared by every task of one search.
+   */
+  private static final class Search {
+    // the canonical keys of the positions that cannot be won
+    private final TranspositionTable dead;
+    // set by the first task to find a solution, telling every other task to stop
+    private final AtomicBoolean found = new AtomicBoolean();
+    private final AtomicReference<int[]> solution = new AtomicReference<>();
+    private final LongAdder nodes = new LongAdder();
+
+    /**
+     * Constructs the state of a search that keeps its dead positions in the given table.
+     *
+     * @param dead the empty table of dead positions
+     */
+    private Search(TranspositionTable dead) {
+      this.dead = dead;
+    }
+  }
+
+  /**
+   * Searches the subtree below one position, which it owns along with the path leading to it.
+   */
+  // tasks are only ever run in this process, never serialized
+  @SuppressWarnings("serial")
+  private static final class SearchTask extends RecursiveTask<Boolean> {
+    private final Search search;
+    private final PackedPosition position;
+    // the jumps made from the searched position down to this task's position
+    private final int[] path;
+    private int depth;
+    // the nodes this task has visited, added to the shared count when it finishes
+    private long nodes;
+
+    /**
+     * Constructs a task for the given position.
+     *
+     * @param search   the shared state of the search
+     * @param position the position to search from, owned by this task
+     * @param path     the jumps leading to the position, owned by this task
+     * @param depth    the number of jumps in the path
+     */
+    private SearchTask(Search search, PackedPosition position, int[] path, int depth) {
+      this.search = search;
+      this.position = position;
+      this.path = path;
+      this.depth = depth;
+    }
+
+    @Override
+    protected Boolean compute() {
+      boolean solved = this.depth < SPLIT_DEPTH ? this.split() : this.searchAlone();
+      this.search.nodes.add(this.nodes);
+      return solved;
+    }
+
+    /**
+     * Searches this task's position by handing each valid move to a task of its own.
+     *
+     * @return true if the position can be won
+     */
+    private boolean split() {
+      this.nodes += 1;
+      if (this.search.found.get()) {
+        return false;
+      }
+      if (this.position.getMarbles() == 1) {
+        return this.report();
+      }
+      long key = this.position.key();
+      if (this.search.dead.contains(key)) {
+        return false;
+      }
+      SearchTask[] tasks = new SearchTask[this.position.getJumpCount()];
+      int count = 0;
+      for (int jump = 0; jump < this.position.getJumpCount(); jump++) {
+        if (this.position.canJump(jump)) {
+          PackedPosition next = new PackedPosition(this.position);
+          next.jump(jump);
+          int[] path = this.path.clone();
+          path[this.depth] = jump;
+          tasks[count] = new SearchTask(this.search, next, path, this.depth + 1);
+          count += 1;
+        }
+      }
+      invokeAll(Arrays.copyOf(tasks, count));
+      for (int i = 0; i < count; i++) {
+        if (tasks[i].join()) {
+          return true;
+        }
+      }
+      // a stopped search proves nothing about the positions it did not finish
+      if (!this.search.found.get()) {
+        this.search.dead.put(key, this.position.getMarbles());
+      }
+      return false;
+    }
+
+    /**
+     * Searches this task's position depth first on the current thread.
+     *
+     * @return true if the position can be won
+     */
+    private boolean searchAlone() {
+      this.nodes += 1;
+      if (this.search.found.get()) {
+        return false;
+      }
+      if (this.position.getMarbles() == 1) {
+        return this.report();
+      }
+      long key = this.position.key();
+      if (this.search.dead.contains(key)) {
+        return false;
+      }
+      for (int jump = 0; jump < this.position.getJumpCount(); jump++) {
+        if (this.position.canJump(jump)) {
+          this.position.jump(jump);
+          this.path[this.depth] = jump;
+          this.depth += 1;
+          boolean solved = this.searchAlone();
+          this.depth -= 1;
+          this.position.unjump(jump);
+          if (solved) {
+            return true;
+          }
+        }
+      }
+      if (!this.search.found.get()) {
+        this.search.dead.put(key, this.position.getMarbles());
+      }
+      return false;
+    }
+
+    /**
+     * Records the path to this task's single-marble position as the solution, unless another
+     * task got there first, and stops every other task.
+     *
+     * @return true if this task's solution was the one recorded
+     */
+    private boolean report() {
+      if (!this.search.found.compareAndSet(false, true)) {
+        return false;
+      }
+      int[] moves = new int[this.depth];
+      for (int i = 0; i < this.depth; i++) {
+        moves[i] = this.position.toMove(this.path[i]);
+      }
+      this.search.solution.set(moves);
+      return true;
+    }
+  }
+}
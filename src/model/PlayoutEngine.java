@@ -0,0 +1,284 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Plays random games out from a position to estimate how well each first move does: after the
+ * move, valid moves are chosen uniformly at random until none is left, and the number of marbles
+ * left is counted.
+ *
+ * <p>Playouts never go through the game's own model, whose moves check their arguments and whose
+ * end of game scans the whole board. Each one plays on a packed copy of the board, numbered by its
+ * (@code BoardGeometry), making a jump by flipping three bits and finding the valid jumps by one
+ * pass over the geometry's jump tables into a buffer reused from move to move, so a playout
+ * allocates nothing.
+ *
+ * <p>The playouts of each first move are split into batches run as separate tasks on a
+ * (@code ForkJoinPool), each drawing from its own (@code SplittableRandom) split off a generator
+ * seeded by the caller. The batches and their generators are fixed before any runs, so the same
+ * seed gives the same counts on any number of threads.
+ */
+public class PlayoutEngine {
+  // the playouts of one task, enough to keep the scheduling cost out of sight
+  private static final int BATCH = 1 << 12;
+
+  private final int parallelism;
+
+  /**
+   * Constructs an engine that uses every available core.
+   */
+  public PlayoutEngine() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Constructs an engine that uses the given number of worker threads.
+   *
+   * @param parallelism the number of threads to play out with
+   * @throws IllegalArgumentException when (@code parallelism) is not positive
+   */
+  public PlayoutEngine(int parallelism) throws IllegalArgumentException {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Parallelism must be positive");
+    }
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * Plays the given number of random games out after each valid first move of the given game.
+   *
+   * @param model    the game, which is left unchanged
+   * @param playouts the number of games to play after each first move
+   * @param seed     the seed of the random moves
+   * @return the number of marbles each first move's games ended with
+   * @throws IllegalArgumentException when (@code model) is null, its board is of no known type, or
+   *                                  (@code playouts) is not positive
+   */
+  public PlayoutResult run(MarbleSolitaireModelState model, long playouts, long seed)
+          throws IllegalArgumentException {
+    long start = System.nanoTime();
+    BoardGeometry geometry = BoardGeometry.of(model);
+    if (playouts < 1) {
+      throw new IllegalArgumentException("Playout count must be positive");
+    }
+    long[] board = new long[(geometry.getCellCount() + 63) >>> 6];
+    geometry.pack(model, board);
+    Playout playout = new Playout(geometry);
+    int[] jumps = new int[geometry.getJumpCount()];
+    int count = playout.validJumps(board, jumps);
+
+    // every move gets the same number of batches, in order
+    long perMove = (playouts + BATCH - 1) / BATCH;
+    SplittableRandom random = new SplittableRandom(seed);
+    List<Batch> batches = new ArrayList<>();
+    for (int move = 0; move < count; move++) {
+      for (long done = 0; done < playouts; done += BATCH) {
+        batches.add(new Batch(playout, board, jumps[move], (int) Math.min(BATCH,
+                playouts - done), random.split()));
+      }
+    }
+    long[][] counts = new long[count][geometry.getCellCount() + 1];
+    ForkJoinPool pool = new ForkJoinPool(this.parallelism);
+    try {
+      List<Future<long[]>> results = pool.invokeAll(batches);
+      for (int i = 0; i < results.size(); i++) {
+        long[] ended = results.get(i).get();
+        long[] total = counts[(int) (i / perMove)];
+        for (int marbles = 0; marbles < ended.length; marbles++) {
+          total[marbles] += ended[marbles];
+        }
+      }
+    } catch (InterruptedException | ExecutionException e) {
+      throw new IllegalStateException(e);
+    } finally {
+      pool.shutdown();
+    }
+
+    int[] moves = new int[count];
+    for (int move = 0; move < count; move++) {
+      int from = geometry.getJumpFrom(jumps[move]);
+      moves[move] = PackedMove.of(geometry.getCellRow(from), geometry.getCellCol(from),
+              geometry.getJumpDirection(jumps[move]), geometry.getDimension());
+    }
+    return new PlayoutResult(moves, counts, System.nanoTime() - start);
+  }
+
+  /**
+   * Plays random games on one board, shared by any number of threads.
+   */
+  static final class Playout {
+    private final int words;
+    // the shared from, over and to slots of each jump
+    private final int[] from;
+    private final int[] over;
+    private final int[] to;
+    // for boards of up to 64 slots, the slots each jump needs full and the slot it needs empty
+    private final long[] full;
+    private final long[] empty;
+
+    /**
+     * Prepares to play on the given board.
+     *
+     * @param geometry the board
+     */
+    Playout(BoardGeometry geometry) {
+      this.words = (geometry.getCellCount() + 63) >>> 6;
+      this.from = geometry.jumpFromTable();
+      this.over = geometry.jumpOverTable();
+      this.to = geometry.jumpToTable();
+      this.full = new long[this.from.length];
+      this.empty = new long[this.from.length];
+      for (int jump = 0; jump < this.from.length; jump++) {
+        this.full[jump] = (1L << this.from[jump]) | (1L << this.over[jump]);
+        this.empty[jump] = 1L << this.to[jump];
+      }
+    }
+
+    /**
+     * Finds the valid jumps of the given board.
+     *
+     * @param board the packed board
+     * @param jumps filled with the valid jumps, from the start
+     * @return the number of valid jumps
+     */
+    int validJumps(long[] board, int[] jumps) {
+      int count = 0;
+      if (this.words == 1) {
+        long bits = board[0];
+        for (int jump = 0; jump < this.full.length; jump++) {
+          if ((bits & this.full[jump]) == this.full[jump] && (bits & this.empty[jump]) == 0) {
+            jumps[count] = jump;
+            count += 1;
+          }
+        }
+        return count;
+      }
+      for (int jump = 0; jump < this.from.length; jump++) {
+        int f = this.from[jump];
+        int o = this.over[jump];
+        int t = this.to[jump];
+        if ((board[f >>> 6] & (1L << f)) != 0 && (board[o >>> 6] & (1L << o)) != 0
+                && (board[t >>> 6] & (1L << t)) == 0) {
+          jumps[count] = jump;
+          count += 1;
+        }
+      }
+      return count;
+    }
+
+    /**
+     * Makes the given jump on the given board.
+     *
+     * @param board the packed board
+     * @param jump  the index of the jump
+     */
+    void jump(long[] board, int jump) {
+      int f = this.from[jump];
+      int o = this.over[jump];
+      int t = this.to[jump];
+      board[f >>> 6] ^= 1L << f;
+      board[o >>> 6] ^= 1L << o;
+      board[t >>> 6] ^= 1L << t;
+    }
+
+    /**
+     * Makes random valid jumps on the given board until none is left.
+     *
+     * @param board  the packed board
+     * @param jumps  a buffer of at least one entry per jump of the board
+     * @param random the generator
+     * @param line   where the jumps made are recorded, or null to not record them
+     * @param length the index in (@code line) of the first jump to record
+     * @return the number of jumps made
+     */
+    int playOut(long[] board, int[] jumps, SplittableRandom random, int[] line, int length) {
+      return this.playOut(board, jumps, random, line, length, 0, 0);
+    }
+
+    /**
+     * Makes random valid jumps on the given board until none is left, or until the given time
+     * passes. Each jump looks at every jump of the board, so on large boards a single game can take
+     * longer than a whole move's budget.
+     *
+     * @param board      the packed board
+     * @param jumps      a buffer of at least one entry per jump of the board
+     * @param random     the generator
+     * @param line       where the jumps made are recorded, or null to not record them
+     * @param length     the index in (@code line) of the first jump to record
+     * @param clockJumps the number of jumps made between looks at the clock, or 0 to never look
+     * @param deadline   the time to stop at, by (@code System.nanoTime)
+     * @return the number of jumps made, or -1 if time ran out before the game ended
+     */
+    int playOut(long[] board, int[] jumps, SplittableRandom random, int[] line, int length,
+                int clockJumps, long deadline) {
+      int made = 0;
+      int count = this.validJumps(board, jumps);
+      while (count > 0) {
+        if (clockJumps > 0 && made % clockJumps == 0 && System.nanoTime() - deadline > 0) {
+          return -1;
+        }
+        int jump = jumps[random.nextInt(count)];
+        this.jump(board, jump);
+        if (line != null) {
+          line[length + made] = jump;
+        }
+        made += 1;
+        count = this.validJumps(board, jumps);
+      }
+      return made;
+    }
+  }
+
+  /**
+   * Plays a batch of random games after one first move.
+   */
+  private static final class Batch implements Callable<long[]> {
+    private final Playout playout;
+    private final long[] start;
+    private final int first;
+    private final int playouts;
+    private final SplittableRandom random;
+
+    /**
+     * Constructs a batch.
+     *
+     * @param playout  the board's player
+     * @param start    the packed board before the first move, which is never modified
+     * @param first    the first move's jump
+     * @param playouts the number of games to play
+     * @param random   the batch's own generator
+     */
+    private Batch(Playout playout, long[] start, int first, int playouts,
+                  SplittableRandom random) {
+      this.playout = playout;
+      this.start = start;
+      this.first = first;
+      this.playouts = playouts;
+      this.random = random;
+    }
+
+    @Override
+    public long[] call() {
+      int cells = 0;
+      for (long word : this.start) {
+        cells += Long.bitCount(word);
+      }
+      // no game ends with more marbles than it starts with
+      long[] ended = new long[cells + 1];
+      long[] board = new long[this.start.length];
+      int[] jumps = new int[this.playout.from.length];
+      for (int game = 0; game < this.playouts; game++) {
+        System.arraycopy(this.start, 0, board, 0, board.length);
+        this.playout.jump(board, this.first);
+        ended[cells - 1 - this.playout.playOut(board, jumps, this.random, null, 0)] += 1;
+      }
+      return ended;
+    }
+  }
+}
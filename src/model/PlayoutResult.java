@@ -0,0 +1,150 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Represents the outcome of random playouts from a game: for each valid first move, how many of
+ * the games that began with it ended with each number of marbles left, and how long it all took.
+ */
+public final class PlayoutResult {
+  private final int[] moves;
+  // the playouts that ended with each number of marbles left, by [move][marbles]
+  private final long[][] counts;
+  private final long nanos;
+
+  /**
+   * Constructs the outcome of a run of playouts.
+   *
+   * @param moves  the valid first moves, packed by (@code PackedMove)
+   * @param counts for each first move, the playouts that ended with each number of marbles left
+   * @param nanos  the elapsed time, in nanoseconds
+   * @throws IllegalArgumentException when the two arrays differ in length
+   */
+  public PlayoutResult(int[] moves, long[][] counts, long nanos) throws IllegalArgumentException {
+    if (moves.length != counts.length) {
+      throw new IllegalArgumentException("Must provide one distribution per move");
+    }
+    this.moves = moves.clone();
+    this.counts = new long[counts.length][];
+    for (int i = 0; i < counts.length; i++) {
+      this.counts[i] = counts[i].clone();
+    }
+    this.nanos = nanos;
+  }
+
+  /**
+   * Returns the number of valid first moves.
+   *
+   * @return the number of moves, 0 if the game was already over
+   */
+  public int getMoveCount() {
+    return this.moves.length;
+  }
+
+  /**
+   * Returns the given first move.
+   *
+   * @param move the index of the move
+   * @return the move, packed by (@code PackedMove)
+   */
+  public int getMove(int move) {
+    return this.moves[move];
+  }
+
+  /**
+   * Returns the number of playouts that began with the given move and ended with the given number
+   * of marbles left.
+   *
+   * @param move    the index of the move
+   * @param marbles the number of marbles
+   * @return the number of playouts
+   */
+  public long getCount(int move, int marbles) {
+    return marbles < 0 || marbles >= this.counts[move].length ? 0 : this.counts[move][marbles];
+  }
+
+  /**
+   * Returns the number of playouts that began with the given move.
+   *
+   * @param move the index of the move
+   * @return the number of playouts
+   */
+  public long getPlayouts(int move) {
+    long total = 0;
+    for (long count : this.counts[move]) {
+      total += count;
+    }
+    return total;
+  }
+
+  /**
+   * Returns the share of the playouts beginning with the given move that left one marble.
+   *
+   * @param move the index of the move
+   * @return the share won, from 0 to 1
+   */
+  public double getWinRate(int move) {
+    long playouts = this.getPlayouts(move);
+    return playouts == 0 ? 0 : this.getCount(move, 1) / (double) playouts;
+  }
+
+  /**
+   * Returns the average number of marbles left by the playouts beginning with the given move.
+   *
+   * @param move the index of the move
+   * @return the average number of marbles
+   */
+  public double getMeanMarbles(int move) {
+    long playouts = this.getPlayouts(move);
+    long marbles = 0;
+    for (int left = 0; left < this.counts[move].length; left++) {
+      marbles += left * this.counts[move][left];
+    }
+    return playouts == 0 ? 0 : marbles / (double) playouts;
+  }
+
+  /**
+   * Returns the number of playouts over every first move.
+   *
+   * @return the total number of playouts
+   */
+  public long getTotalPlayouts() {
+    long total = 0;
+    for (int move = 0; move < this.moves.length; move++) {
+      total += this.getPlayouts(move);
+    }
+    return total;
+  }
+
+  /**
+   * Returns the time the playouts took.
+   *
+   * @return the elapsed time, in nanoseconds
+   */
+  public long getNanos() {
+    return this.nanos;
+  }
+
+  @Override
+  public String toString() {
+    long playouts = this.getTotalPlayouts();
+    return playouts + " playouts, " + (this.nanos / 1_000_000) + " ms, "
+            + (long) (playouts * 1e9 / Math.max(1, this.nanos)) + " playouts/s";
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (!(other instanceof PlayoutResult)) {
+      return false;
+    }
+    PlayoutResult that = (PlayoutResult) other;
+    return Arrays.equals(this.moves, that.moves) && Arrays.deepEquals(this.counts, that.counts)
+            && this.nanos == that.nanos;
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(this.moves) ^ Arrays.deepHashCode(this.counts)
+            ^ Long.hashCode(this.nanos);
+  }
+}
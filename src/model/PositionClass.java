@@ -0,0 +1,279 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Represents the position classes of a board, after Conway: parities of marble counts over sets of
+ * slots that no jump can change. Every set used here is made of whole lines of the board (rows,
+ * columns or diagonals) whose index falls in some of the three residues modulo 3. A set qualifies
+ * when every jump on the board flips an even number of its slots. Each qualifying set contributes
+ * one bit to a position's class, and since moves never change the class, a position can only ever
+ * be cleared down to one marble in a slot whose single-marble position is of the same class.
+ *
+ * <p>On the English and European boards these are the classic diagonals modulo 3, which give 16
+ * classes. The Triangle board's extra diagonal jumps leave fewer invariant sets. Classes are found
+ * from the board's own jump tables, so every size is covered. Position classes are immutable and
+ * cached, so every game on the same board shares a single instance.
+ */
+public final class PositionClass {
+  // every set of position classes that has been found so far, keyed by geometry
+  private static final ConcurrentMap<BoardGeometry, PositionClass> CACHE =
+          new ConcurrentHashMap<>();
+
+  private final BoardGeometry geometry;
+  // the packed slots of each invariant set, one set per bit of a class
+  private final long[][] masks;
+  // the class of the position with a single marble in each slot
+  private final int[] cellClass;
+  // whether some single-marble position is of each class
+  private final boolean[] finishable;
+
+  /**
+   * Finds the position classes of the given board.
+   *
+   * @param geometry the board
+   */
+  private PositionClass(BoardGeometry geometry) {
+    this.geometry = geometry;
+    int cells = geometry.getCellCount();
+    int words = (cells + 63) >>> 6;
+    int dimension = geometry.getDimension();
+
+    List<long[]> basis = new ArrayList<>();
+    // the lowest set bit of each basis set, which no later set of the basis has
+    List<Integer> pivots = new ArrayList<>();
+    for (int line = 0; line < 4; line++) {
+      for (int residues = 1; residues < 7; residues++) {
+        long[] mask = new long[words];
+        for (int cell = 0; cell < cells; cell++) {
+          int row = geometry.getCellRow(cell);
+          int col = geometry.getCellCol(cell);
+          int index = line == 0 ? row : line == 1 ? col
+                  : line == 2 ? row + col : row - col + dimension;
+          if ((residues & (1 << (index % 3))) != 0) {
+            mask[cell >>> 6] |= 1L << cell;
+          }
+        }
+        if (isInvariant(geometry, mask)) {
+          // keep the set only if it is not a sum of the sets already kept
+          for (int i = 0; i < basis.size(); i++) {
+            int pivot = pivots.get(i);
+            if ((mask[pivot >>> 6] & (1L << pivot)) != 0) {
+              long[] other = basis.get(i);
+              for (int w = 0; w < words; w++) {
+                mask[w] ^= other[w];
+              }
+            }
+          }
+          int pivot = lowestBit(mask);
+          if (pivot >= 0) {
+            // clear the new pivot from the sets already kept, so each pivot is in one set only
+            for (long[] other : basis) {
+              if ((other[pivot >>> 6] & (1L << pivot)) != 0) {
+                for (int w = 0; w < words; w++) {
+                  other[w] ^= mask[w];
+                }
+              }
+            }
+            basis.add(mask);
+            pivots.add(pivot);
+          }
+        }
+      }
+    }
+    this.masks = basis.toArray(new long[0][]);
+
+    this.cellClass = new int[cells];
+    this.finishable = new boolean[1 << this.masks.length];
+    for (int cell = 0; cell < cells; cell++) {
+      for (int i = 0; i < this.masks.length; i++) {
+        if ((this.masks[i][cell >>> 6] & (1L << cell)) != 0) {
+          this.cellClass[cell] |= 1 << i;
+        }
+      }
+      this.finishable[this.cellClass[cell]] = true;
+    }
+  }
+
+  /**
+   * Returns the shared position classes of the given board.
+   *
+   * @param geometry the board
+   * @return the position classes of the board
+   * @throws IllegalArgumentException when (@code geometry) is null
+   */
+  public static PositionClass of(BoardGeometry geometry) throws IllegalArgumentException {
+    if (geometry == null) {
+      throw new IllegalArgumentException("Must provide a non-null board geometry");
+    }
+    PositionClass classes = CACHE.get(geometry);
+    if (classes == null) {
+      // two threads may both build it, but only the first one is ever handed out
+      PositionClass built = new PositionClass(geometry);
+      classes = CACHE.putIfAbsent(geometry, built);
+      if (classes == null) {
+        classes = built;
+      }
+    }
+    return classes;
+  }
+
+  /**
+   * Determines if every jump on the given board flips an even number of the given slots.
+   *
+   * @param geometry the board
+   * @param mask     the packed slots
+   * @return true if no jump changes the parity of the marbles in the slots
+   */
+  private static boolean isInvariant(BoardGeometry geometry, long[] mask) {
+    for (int jump = 0; jump < geometry.getJumpCount(); jump++) {
+      int flipped = 0;
+      for (int cell : new int[] {geometry.getJumpFrom(jump), geometry.getJumpOver(jump),
+          geometry.getJumpTo(jump)}) {
+        flipped += (int) (mask[cell >>> 6] >>> cell) & 1;
+      }
+      if (flipped % 2 != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the lowest set bit of the given packed slots.
+   *
+   * @param mask the packed slots
+   * @return the dense index of the lowest slot, or -1 if there is none
+   */
+  private static int lowestBit(long[] mask) {
+    for (int w = 0; w < mask.length; w++) {
+      if (mask[w] != 0) {
+        return (w << 6) | Long.numberOfTrailingZeros(mask[w]);
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the board these classes are defined on.
+   *
+   * @return the geometry of the board
+   */
+  public BoardGeometry getGeometry() {
+    return this.geometry;
+  }
+
+  /**
+   * Returns the number of position classes of the board.
+   *
+   * @return the number of classes, a power of two
+   */
+  public int getClassCount() {
+    return this.finishable.length;
+  }
+
+  /**
+   * Returns the class of the given packed board.
+   *
+   * @param board the packed board, as built by (@code BoardGeometry.pack)
+   * @return the class of the board
+   */
+  public int classOf(long[] board) {
+    int positionClass = 0;
+    for (int i = 0; i < this.masks.length; i++) {
+      int parity = 0;
+      for (int w = 0; w < board.length; w++) {
+        parity ^= Long.bitCount(board[w] & this.masks[i][w]);
+      }
+      positionClass |= (parity & 1) << i;
+    }
+    return positionClass;
+  }
+
+  /**
+   * Returns the class of the given game.
+   *
+   * @param model the game, which must be on this board
+   * @return the class of the game
+   * @throws IllegalArgumentException when (@code model) is null
+   */
+  public int classOf(MarbleSolitaireModelState model) throws IllegalArgumentException {
+    if (model == null) {
+      throw new IllegalArgumentException("Must provide a non-null model");
+    }
+    long[] board = new long[(this.geometry.getCellCount() + 63) >>> 6];
+    this.geometry.pack(model, board);
+    return this.classOf(board);
+  }
+
+  /**
+   * Returns the class of the position with a single marble in the given slot.
+   *
+   * @param cell the dense index of the slot
+   * @return the class of the slot
+   */
+  public int classOfCell(int cell) {
+    return this.cellClass[cell];
+  }
+
+  /**
+   * Determines if a position of the given class could be cleared down to one marble in the given
+   * slot, as far as position classes can tell.
+   *
+   * @param positionClass the class of the position
+   * @param cell          the dense index of the slot the last marble should be left in
+   * @return false if the slot is of another class, so the position can never finish there
+   */
+  public boolean canFinishAt(int positionClass, int cell) {
+    return this.cellClass[cell] == positionClass;
+  }
+
+  /**
+   * Determines if a position of the given class could be cleared down to one marble in some slot,
+   * as far as position classes can tell.
+   *
+   * @param positionClass the class of the position
+   * @return false if no slot is of the class, so the position can never be won
+   */
+  public boolean canFinish(int positionClass) {
+    return this.finishable[positionClass];
+  }
+
+  /**
+   * Determines if the given game could be cleared down to one marble in the given slot, as far as
+   * position classes can tell.
+   *
+   * @param model the game
+   * @param row   the row of the slot the last marble should be left in, starting at 0
+   * @param col   the column of the slot the last marble should be left in, starting at 0
+   * @return false if the game is of another class than the slot, so it can never finish there
+   * @throws IllegalArgumentException when (@code model) is null, its board is of no known type, or
+   *                                  the slot is not valid
+   */
+  public static boolean canFinishAt(MarbleSolitaireModelState model, int row, int col)
+          throws IllegalArgumentException {
+    BoardGeometry geometry = BoardGeometry.of(model);
+    if (!geometry.isValid(row, col)) {
+      throw new IllegalArgumentException("Invalid target position (" + row + "," + col + ")");
+    }
+    PositionClass classes = of(geometry);
+    return classes.canFinishAt(classes.classOf(model), geometry.cellIndex(row, col));
+  }
+
+  /**
+   * Determines if the given game could be cleared down to one marble in some slot, as far as
+   * position classes can tell.
+   *
+   * @param model the game
+   * @return false if no slot is of the game's class, so it can never be won
+   * @throws IllegalArgumentException when (@code model) is null or its board is of no known type
+   */
+  public static boolean canFinish(MarbleSolitaireModelState model)
+          throws IllegalArgumentException {
+    PositionClass classes = of(BoardGeometry.of(model));
+    return classes.canFinish(classes.classOf(model));
+  }
+}
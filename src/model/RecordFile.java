@@ -0,0 +1,224 @@
+package model;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Sequential access to a file of fixed-size records of longs, through a direct buffer that is
+ * filled from or drained to the file's channel a window of records at a time. Records go to and
+ * from disk without being copied through a heap buffer, and since the file is never mapped into
+ * memory, it can be renamed or deleted as soon as it is closed, on every platform.
+ */
+final class RecordFile {
+  // the size of each buffered window, large enough that each read or write is a long sequential
+  // transfer, and small enough for a merge to hold one per run
+  private static final int WINDOW_BYTES = 1 << 20;
+
+  private RecordFile() {
+  }
+
+  /**
+   * Returns the number of records of a window, rounded down to whole records, and at least one.
+   *
+   * @param words the words of each record
+   * @return the number of records per window
+   */
+  private static int windowRecords(int words) {
+    return Math.max(1, WINDOW_BYTES / (8 * words));
+  }
+
+  /**
+   * Reads the records of a file in order, starting at some offset.
+   */
+  static final class Reader implements Closeable {
+    private final FileChannel channel;
+    private final long offset;
+    private final int words;
+    private final long count;
+    private final ByteBuffer buffer;
+    private final LongBuffer window;
+    // the index of the next record to read, and the first record past the current window
+    private long next;
+    private long windowEnd;
+
+    /**
+     * Opens the records of the given file.
+     *
+     * @param path   the file
+     * @param offset the byte offset of the first record
+     * @param words  the words of each record
+     * @param count  the number of records
+     * @throws IOException if the file cannot be opened
+     */
+    Reader(Path path, long offset, int words, long count) throws IOException {
+      this.channel = FileChannel.open(path, StandardOpenOption.READ);
+      this.offset = offset;
+      this.words = words;
+      this.count = count;
+      this.buffer = ByteBuffer.allocateDirect(windowRecords(words) * words * 8)
+              .order(ByteOrder.LITTLE_ENDIAN);
+      this.window = this.buffer.asLongBuffer();
+    }
+
+    /**
+     * Returns the number of records not yet read.
+     *
+     * @return the number of records left
+     */
+    long remaining() {
+      return this.count - this.next;
+    }
+
+    /**
+     * Reads the next record into the given array.
+     *
+     * @param record the array to fill
+     * @param at     the index of the first word to fill
+     * @return false if every record has been read
+     * @throws IOException if the file cannot be read, or ends before its last record
+     */
+    boolean read(long[] record, int at) throws IOException {
+      if (this.next == this.count) {
+        return false;
+      }
+      if (this.next == this.windowEnd) {
+        long records = Math.min(windowRecords(this.words), this.count - this.next);
+        long position = this.offset + this.next * this.words * 8;
+        this.buffer.clear().limit((int) (records * this.words * 8));
+        while (this.buffer.hasRemaining()) {
+          int read = this.channel.read(this.buffer, position);
+          if (read < 0) {
+            throw new EOFException("Record file ends after " + this.next + " records");
+          }
+          position += read;
+        }
+        this.window.clear().limit((int) (records * this.words));
+        this.windowEnd = this.next + records;
+      }
+      this.window.get(record, at, this.words);
+      this.next += 1;
+      return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+      this.channel.close();
+    }
+  }
+
+  /**
+   * Writes records to a new file in order, starting at some offset, growing it as it goes.
+   */
+  static final class Writer implements Closeable {
+    private final FileChannel channel;
+    private final long offset;
+    private final int words;
+    private final ByteBuffer buffer;
+    private final LongBuffer window;
+    // the number of records written, and the number of those already drained to the file
+    private long count;
+    private long written;
+
+    /**
+     * Creates the given file, replacing any file already there.
+     *
+     * @param path   the file
+     * @param offset the byte offset of the first record, leaving room for a header
+     * @param words  the words of each record
+     * @throws IOException if the file cannot be created
+     */
+    Writer(Path path, long offset, int words) throws IOException {
+      this.channel = FileChannel.open(path, StandardOpenOption.CREATE,
+              StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+              StandardOpenOption.WRITE);
+      this.offset = offset;
+      this.words = words;
+      this.buffer = ByteBuffer.allocateDirect(windowRecords(words) * words * 8)
+              .order(ByteOrder.LITTLE_ENDIAN);
+      this.window = this.buffer.asLongBuffer();
+    }
+
+    /**
+     * Returns the channel of the file, for writing its header.
+     *
+     * @return the channel
+     */
+    FileChannel channel() {
+      return this.channel;
+    }
+
+    /**
+     * Returns the number of records written.
+     *
+     * @return the number of records
+     */
+    long count() {
+      return this.count;
+    }
+
+    /**
+     * Writes the record at the given index of the given array.
+     *
+     * @param record the array holding the record
+     * @param at     the index of the record's first word
+     * @throws IOException if the file cannot be written
+     */
+    void write(long[] record, int at) throws IOException {
+      if (!this.window.hasRemaining()) {
+        this.flush();
+      }
+      this.window.put(record, at, this.words);
+      this.count += 1;
+    }
+
+    /**
+     * Writes the given records, one after another.
+     *
+     * @param records the records
+     * @param length  the number of words to write, from the start
+     * @throws IOException if the file cannot be written
+     */
+    void writeAll(long[] records, int length) throws IOException {
+      for (int at = 0; at < length; at += this.words) {
+        this.write(records, at);
+      }
+    }
+
+    /**
+     * Drains the records of the current window to the file, and empties the window.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    private void flush() throws IOException {
+      long position = this.offset + this.written * this.words * 8;
+      this.buffer.clear().limit(this.window.position() * 8);
+      while (this.buffer.hasRemaining()) {
+        position += this.channel.write(this.buffer, position);
+      }
+      this.written = this.count;
+      this.window.clear();
+    }
+
+    /**
+     * Drains every record to the file and forces the file to disk.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+      try {
+        this.flush();
+        this.channel.force(true);
+      } finally {
+        this.channel.close();
+      }
+    }
+  }
+}
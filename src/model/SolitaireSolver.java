@@ -0,0 +1,186 @@
+package model;
+
+/**
+ * Finds a sequence of moves that leaves a single marble on the board, or proves there is none, by
+ * depth-first search. Every position found not to lead to a solution is remembered by its
+ * canonical key in a (@code TranspositionTable), so neither it nor any position symmetric to it is
+ * searched twice while the table has room for it. When the table is full, positions with more
+ * marbles left, which took longer to search, are kept over those with fewer.
+ *
+ * <p>Positions whose class (@code PositionClass) proves they can never be won are answered at
+ * once, without searching. The search may also be asked to leave the last marble in a given slot.
+ * It then cuts off every position that one of the board's pagoda functions proves cannot reach
+ * that slot, before searching any of the moves from it.
+ *
+ * <p>A solver may also be given an (@code EndgameTablebase) of the board. Once few enough marbles
+ * are left, a search for any last slot then asks the tablebase instead of searching further:
+ * losing positions are dropped at once, and from winning ones each move is checked by one lookup,
+ * so the search walks straight down to the last marble.
+ *
+ * <p>The search works on a packed copy of the game, so the given game is never changed. A solver
+ * keeps its table of dead positions from one call to the next, clearing it at the start of
+ * each, and is not safe to use from several threads at once.
+ */
+public class SolitaireSolver {
+  // whether to cut off positions that pagoda functions prove cannot reach the target
+  private final boolean pagoda;
+  // whether the table of dead positions is this solver's own, built to suit each board
+  private final boolean ownTable;
+  // the canonical keys of the positions that cannot be won, for the current search
+  private TranspositionTable dead;
+  // the board the solver's own table was built for
+  private BoardGeometry deadBoard;
+  // the tablebase to end searches with, or null for none
+  private final EndgameTablebase tablebase;
+  // the most marbles of the positions the tablebase answers in the current search, or 0
+  private int tablebaseMarbles;
+  private PackedPosition position;
+  // the jumps made from the searched position down to the current one
+  private int[] path;
+  private int depth;
+  private long nodes;
+
+  /**
+   * Constructs a solver that uses pagoda functions when searching for a target slot.
+   */
+  public SolitaireSolver() {
+    this(true);
+  }
+
+  /**
+   * Constructs a solver, choosing whether to use pagoda functions when searching for a target slot.
+   *
+   * @param pagoda true to cut off positions that pagoda functions prove cannot reach the target
+   */
+  public SolitaireSolver(boolean pagoda) {
+    this(pagoda, null);
+  }
+
+  /**
+   * Constructs a solver that keeps the positions it cannot win in the given table, which it clears
+   * at the start of every search.
+   *
+   * @param pagoda true to cut off positions that pagoda functions prove cannot reach the target
+   * @param table  the table of dead positions, or null to build one sized to each board
+   */
+  public SolitaireSolver(boolean pagoda, TranspositionTable table) {
+    this(pagoda, table, null);
+  }
+
+  /**
+   * Constructs a solver that ends its searches for any last slot with the given tablebase, when
+   * they are on the tablebase's board.
+   *
+   * @param pagoda    true to cut off positions that pagoda functions prove cannot reach the target
+   * @param table     the table of dead positions, or null to build one sized to each board
+   * @param tablebase the tablebase, or null for none
+   */
+  public SolitaireSolver(boolean pagoda, TranspositionTable table, EndgameTablebase tablebase) {
+    this.pagoda = pagoda;
+    this.ownTable = table == null;
+    this.dead = table;
+    this.tablebase = tablebase;
+  }
+
+  /**
+   * Searches for a way to win the given game.
+   *
+   * @param model the game to solve, which is left unchanged
+   * @return the solution if there is one, along with the nodes searched and time taken
+   * @throws IllegalArgumentException when (@code model) is null or its board is of no known type
+   */
+  public SolverResult solve(MarbleSolitaireModelState model) throws IllegalArgumentException {
+    return this.solve(new PackedPosition(model));
+  }
+
+  /**
+   * Searches for a way to win the given game with the last marble in the given slot.
+   *
+   * @param model     the game to solve, which is left unchanged
+   * @param targetRow the row of the slot the last marble should be left in, starting at 0
+   * @param targetCol the column of the slot the last marble should be left in, starting at 0
+   * @return the solution if there is one, along with the nodes searched and time taken
+   * @throws IllegalArgumentException when (@code model) is null, its board is of no known type, or
+   *                                  the target is not a valid slot
+   */
+  public SolverResult solve(MarbleSolitaireModelState model, int targetRow, int targetCol)
+          throws IllegalArgumentException {
+    BoardGeometry geometry = BoardGeometry.of(model);
+    if (!geometry.isValid(targetRow, targetCol)) {
+      throw new IllegalArgumentException("Invalid target position (" + targetRow + ","
+              + targetCol + ")");
+    }
+    return this.solve(new PackedPosition(model, geometry.cellIndex(targetRow, targetCol)));
+  }
+
+  /**
+   * Searches for a way to win the given position.
+   *
+   * @param position the position to solve, owned by this search
+   * @return the solution if there is one, along with the nodes searched and time taken
+   */
+  private SolverResult solve(PackedPosition position) {
+    long start = System.nanoTime();
+    if (!position.isClassWinnable()) {
+      return new SolverResult(false, new int[0], 0, System.nanoTime() - start);
+    }
+    this.position = position;
+    this.path = new int[Math.max(0, this.position.getMarbles() - 1)];
+    this.depth = 0;
+    this.nodes = 0;
+    if (this.ownTable && position.getGeometry() != this.deadBoard) {
+      this.dead = TranspositionTable.forBoard(position.getGeometry());
+      this.deadBoard = position.getGeometry();
+    } else {
+      this.dead.clear();
+    }
+    // a tablebase only knows if a position can be won, not where its last marble ends up
+    this.tablebaseMarbles = this.tablebase != null && position.getTarget() < 0
+            && position.getGeometry() == this.tablebase.getGeometry()
+            ? this.tablebase.getMaxMarbles() : 0;
+
+    boolean solved = this.search();
+    int[] moves = new int[solved ? this.depth : 0];
+    for (int i = 0; i < moves.length; i++) {
+      moves[i] = this.position.toMove(this.path[i]);
+    }
+    return new SolverResult(solved, moves, this.nodes, System.nanoTime() - start);
+  }
+
+  /**
+   * Searches the current position, leaving the winning jumps in the path if it finds them.
+   *
+   * @return true if the current position can be won
+   */
+  private boolean search() {
+    this.nodes += 1;
+    if (this.position.getMarbles() == 1) {
+      return this.position.isWon();
+    }
+    if (this.pagoda && !this.position.canReachTarget()) {
+      return false;
+    }
+    if (this.position.getMarbles() <= this.tablebaseMarbles
+            && !this.tablebase.isWon(this.position.getBoard()[0], this.position.getMarbles())) {
+      return false;
+    }
+    long key = this.position.key();
+    if (this.dead.contains(key)) {
+      return false;
+    }
+    for (int jump = 0; jump < this.position.getJumpCount(); jump++) {
+      if (this.position.canJump(jump)) {
+        this.position.jump(jump);
+        this.path[this.depth] = jump;
+        this.depth += 1;
+        if (this.search()) {
+          return true;
+        }
+        this.depth -= 1;
+        this.position.unjump(jump);
+      }
+    }
+    this.dead.put(key, this.position.getMarbles());
+    return false;
+  }
+}
@@ -0,0 +1,147 @@
+package model;
+
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Counts the distinct solutions of a game: every sequence of moves that leaves a single marble on
+ * the board. Two sequences are distinct when they differ in any move, so a game can have a great
+ * many; the English board's center game has about 4 * 10^16.
+ *
+ * <p>The count of a position is the sum of the counts of the positions one jump away, and
+ * symmetric positions have the same count, so each canonical position's count is worked out once
+ * and remembered. Counts are kept in a map of primitive longs; the few that do not fit in a long
+ * are kept apart as (@code BigInteger) values. The table is kept from one call to the next while
+ * the board and target stay the same, so counting several games on one board shares the work.
+ *
+ * <p>A counter works on a packed copy of the game, so the given game is never changed. It is not
+ * safe to use from several threads at once.
+ */
+public class SolutionCounter {
+  // the stored count of a position whose count is kept in the table of large counts
+  private static final long LARGE = -1;
+  // the value the table gives for a position that has not been counted yet
+  private static final long MISSING = -2;
+
+  // the board and target slot the table was built for
+  private BoardGeometry geometry;
+  private int target;
+  // the count of each canonical position counted so far, or LARGE
+  private LongLongMap counts = new LongLongMap(0);
+  // the counts that do not fit in a long, by canonical position
+  private final Map<Long, BigInteger> largeCounts = new HashMap<>();
+  private PackedPosition position;
+
+  /**
+   * Counts the ways to win the given game.
+   *
+   * @param model the game to count, which is left unchanged
+   * @return the number of move sequences that leave one marble on the board
+   * @throws IllegalArgumentException when (@code model) is null or its board is of no known type
+   */
+  public BigInteger count(MarbleSolitaireModelState model) throws IllegalArgumentException {
+    return this.count(new PackedPosition(model));
+  }
+
+  /**
+   * Counts the ways to win the given game with the last marble in the given slot.
+   *
+   * @param model     the game to count, which is left unchanged
+   * @param targetRow the row of the slot the last marble should be left in, starting at 0
+   * @param targetCol the column of the slot the last marble should be left in, starting at 0
+   * @return the number of move sequences that leave one marble, in the target slot
+   * @throws IllegalArgumentException when (@code model) is null, its board is of no known type, or
+   *                                  the target is not a valid slot
+   */
+  public BigInteger count(MarbleSolitaireModelState model, int targetRow, int targetCol)
+          throws IllegalArgumentException {
+    BoardGeometry geometry = BoardGeometry.of(model);
+    if (!geometry.isValid(targetRow, targetCol)) {
+      throw new IllegalArgumentException("Invalid target position (" + targetRow + ","
+              + targetCol + ")");
+    }
+    return this.count(new PackedPosition(model, geometry.cellIndex(targetRow, targetCol)));
+  }
+
+  /**
+   * Returns the number of positions whose count is remembered, which is the number of canonical
+   * positions with more than one marble counted on the current board and target.
+   *
+   * @return the size of the table
+   */
+  public long getPositionCount() {
+    return this.counts.size();
+  }
+
+  /**
+   * Counts the ways to win the given position.
+   *
+   * @param position the position to count, owned by this counter
+   * @return the number of solutions
+   */
+  private BigInteger count(PackedPosition position) {
+    if (position.getGeometry() != this.geometry || position.getTarget() != this.target) {
+      // a count means nothing on another board or for another target, so start afresh
+      this.geometry = position.getGeometry();
+      this.target = position.getTarget();
+      this.counts = new LongLongMap(1 << 16);
+      this.largeCounts.clear();
+    }
+    if (!position.isClassWinnable()) {
+      return BigInteger.ZERO;
+    }
+    this.position = position;
+    long count = this.search();
+    BigInteger result = count == LARGE ? this.largeCounts.get(position.key())
+            : BigInteger.valueOf(count);
+    this.position = null;
+    return result;
+  }
+
+  /**
+   * Counts the ways to win the current position.
+   *
+   * @return the number of solutions, or (@code LARGE) if it is kept in the table of large counts
+   */
+  private long search() {
+    if (this.position.getMarbles() == 1) {
+      return this.position.isWon() ? 1 : 0;
+    }
+    if (!this.position.canReachTarget()) {
+      return 0;
+    }
+    long key = this.position.key();
+    long known = this.counts.get(key, MISSING);
+    if (known != MISSING) {
+      return known;
+    }
+    long total = 0;
+    // the total once it no longer fits in a long
+    BigInteger large = null;
+    for (int jump = 0; jump < this.position.getJumpCount(); jump++) {
+      if (this.position.canJump(jump)) {
+        this.position.jump(jump);
+        long count = this.search();
+        if (count == LARGE) {
+          BigInteger child = this.largeCounts.get(this.position.key());
+          large = large == null ? child.add(BigInteger.valueOf(total)) : large.add(child);
+        } else if (large != null) {
+          large = large.add(BigInteger.valueOf(count));
+        } else if (total > Long.MAX_VALUE - count) {
+          large = BigInteger.valueOf(total).add(BigInteger.valueOf(count));
+        } else {
+          total += count;
+        }
+        this.position.unjump(jump);
+      }
+    }
+    if (large != null) {
+      this.largeCounts.put(key, large);
+      this.counts.put(key, LARGE);
+      return LARGE;
+    }
+    this.counts.put(key, total);
+    return total;
+  }
+}
@@ -0,0 +1,363 @@
+package model;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Records, for every starting hole of some boards, the slots the last marble can be left in. A
+ * game can be won exactly when that set is not empty, so a game that cannot be won can be spotted
+ * before it is played, in constant time.
+ *
+ * <p>A table is built once by solving every start and target pair of every board up to some size,
+ * in parallel. Boards small enough to keep every position they reach are solved depth-first; the
+ * rest with a (@code BidirectionalSolver), which settles a pair of the 37-hole European board in
+ * seconds where a depth-first search takes minutes. It is saved as a compact binary file, which
+ * holds a magic number and the number of boards, then for each board its shape, size and number
+ * of slots, followed by one bit per start and target pair, by dense slot index, start major.
+ * Tables are immutable.
+ */
+public final class SolvabilityTable {
+  // "SOLV", the first four bytes of every table file
+  private static final int MAGIC = 0x534F4C56;
+  // the entries of the dead-position tables of all the solves running at once, 64 MB of memory
+  // split between the threads
+  private static final long TABLE_CAPACITY = 1L << 22;
+  // the positions one solve of a larger board keeps, few enough that its narrowed levels meet
+  // soon: a pair of a 33- or 37-hole board takes a few seconds at this budget, and a minute at 4M
+  private static final long MAX_POSITIONS = 1L << 18;
+
+  // the geometry of each board in the table, and its bits, by shape and size
+  private final Map<Long, BoardGeometry> geometries;
+  private final Map<Long, byte[]> ends;
+  // whether each start of each board has any slot to end in, so that looking it up is one read
+  private final Map<Long, boolean[]> winnable = new TreeMap<>();
+
+  /**
+   * Constructs a table of the given boards.
+   *
+   * @param geometries the boards, by key
+   * @param ends       the bits of each board, by key
+   */
+  private SolvabilityTable(Map<Long, BoardGeometry> geometries, Map<Long, byte[]> ends) {
+    this.geometries = geometries;
+    this.ends = ends;
+    for (Map.Entry<Long, BoardGeometry> entry : geometries.entrySet()) {
+      int cells = entry.getValue().getCellCount();
+      byte[] bits = ends.get(entry.getKey());
+      boolean[] starts = new boolean[cells];
+      for (int bit = 0; bit < cells * cells; bit++) {
+        if ((bits[bit >>> 3] & (1 << (bit & 7))) != 0) {
+          starts[bit / cells] = true;
+        }
+      }
+      this.winnable.put(entry.getKey(), starts);
+    }
+  }
+
+  /**
+   * Returns the key of a board in the table.
+   *
+   * @param shape the type of board
+   * @param size  the size of the board
+   * @return the key
+   */
+  private static long keyOf(BoardGeometry.Shape shape, int size) {
+    return ((long) shape.ordinal() << 32) | size;
+  }
+
+  /**
+   * Builds the table of every board of each given shape, from the smallest size up to the given
+   * one.
+   *
+   * @param maxSizes    the largest size of each shape to include
+   * @param parallelism the number of threads to solve with
+   * @return the table
+   * @throws IllegalArgumentException when (@code maxSizes) is null or (@code parallelism) is not
+   *                                  positive
+   */
+  public static SolvabilityTable build(Map<BoardGeometry.Shape, Integer> maxSizes,
+                                       int parallelism) throws IllegalArgumentException {
+    if (maxSizes == null) {
+      throw new IllegalArgumentException("Must provide non-null board sizes");
+    }
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Parallelism must be positive");
+    }
+    Map<Long, BoardGeometry> geometries = new TreeMap<>();
+    Map<Long, byte[]> ends = new TreeMap<>();
+    // one solve per starting hole, which tries every target in turn with a single solver, so the
+    // solver's table is built once per hole, with its share of the memory
+    long capacity = Math.max(1, TABLE_CAPACITY / parallelism);
+    List<Callable<boolean[]>> solves = new ArrayList<>();
+    List<BoardGeometry> boards = new ArrayList<>();
+    List<Integer> starts = new ArrayList<>();
+    for (Map.Entry<BoardGeometry.Shape, Integer> entry : maxSizes.entrySet()) {
+      for (int size = 1; size <= entry.getValue(); size++) {
+        if (!BoardGeometry.isValidSize(entry.getKey(), size)) {
+          continue;
+        }
+        BoardGeometry geometry = BoardGeometry.of(entry.getKey(), size);
+        int cells = geometry.getCellCount();
+        geometries.put(keyOf(geometry.getShape(), size), geometry);
+        ends.put(keyOf(geometry.getShape(), size), new byte[(cells * cells + 7) / 8]);
+        for (int start : representatives(geometry)) {
+          solves.add(() -> endsOf(geometry, start, capacity));
+          boards.add(geometry);
+          starts.add(start);
+        }
+      }
+    }
+
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    try {
+      List<Future<boolean[]>> results = pool.invokeAll(solves);
+      for (int i = 0; i < results.size(); i++) {
+        boolean[] targets = results.get(i).get();
+        BoardGeometry geometry = boards.get(i);
+        for (int target = 0; target < targets.length; target++) {
+          if (targets[target]) {
+            setEverySymmetric(geometry, ends.get(keyOf(geometry.getShape(), geometry.getSize())),
+                    starts.get(i), target);
+          }
+        }
+      }
+    } catch (InterruptedException | ExecutionException e) {
+      throw new IllegalStateException(e);
+    } finally {
+      pool.shutdown();
+    }
+    return new SolvabilityTable(geometries, ends);
+  }
+
+  /**
+   * Finds the slots the game started at the given hole can end in, skipping the slots its
+   * position class rules out. A board whose every position fits in the given table size is
+   * searched depth-first, which drops nothing it learns; a larger one is searched from both ends.
+   *
+   * @param geometry the board
+   * @param start    the dense index of the starting hole
+   * @param capacity the most entries of a depth-first solver's table of dead positions
+   * @return whether the last marble can be left in each slot, by dense index
+   */
+  private static boolean[] endsOf(BoardGeometry geometry, int start, long capacity) {
+    MarbleSolitaireModel model = newGame(geometry, start);
+    PositionClass classes = PositionClass.of(geometry);
+    int startClass = classes.classOf(model);
+    boolean small = geometry.getCellCount() < Long.SIZE - 1
+            && 1L << geometry.getCellCount() <= capacity;
+    SolitaireSolver depthFirst = small
+            ? new SolitaireSolver(true, TranspositionTable.forBoard(geometry, capacity)) : null;
+    BidirectionalSolver bothEnds = small ? null : new BidirectionalSolver(1, MAX_POSITIONS);
+    boolean[] targets = new boolean[geometry.getCellCount()];
+    for (int target = 0; target < targets.length; target++) {
+      int row = geometry.getCellRow(target);
+      int col = geometry.getCellCol(target);
+      targets[target] = classes.canFinishAt(startClass, target) && (small
+              ? depthFirst.solve(model, row, col) : bothEnds.solve(model, row, col)).isSolved();
+    }
+    return targets;
+  }
+
+  /**
+   * Returns the starting holes of the given board that no symmetry maps onto a lower slot, one of
+   * every set of holes that play out alike.
+   *
+   * @param geometry the board
+   * @return the dense indices of the holes
+   */
+  private static List<Integer> representatives(BoardGeometry geometry) {
+    BoardSymmetry symmetry = BoardSymmetry.of(geometry);
+    List<Integer> holes = new ArrayList<>();
+    for (int cell = 0; cell < geometry.getCellCount(); cell++) {
+      boolean lowest = true;
+      for (int t = 0; t < symmetry.getTransformCount() && lowest; t++) {
+        lowest = symmetry.transformCell(t, cell) >= cell;
+      }
+      if (lowest) {
+        holes.add(cell);
+      }
+    }
+    return holes;
+  }
+
+  /**
+   * Records that the game started at the given hole can end in the given slot, along with every
+   * start and end pair symmetric to it.
+   *
+   * @param geometry the board
+   * @param bits     the bits of the board
+   * @param start    the dense index of the starting hole
+   * @param target   the dense index of the slot the last marble is left in
+   */
+  private static void setEverySymmetric(BoardGeometry geometry, byte[] bits, int start,
+                                        int target) {
+    BoardSymmetry symmetry = BoardSymmetry.of(geometry);
+    for (int t = 0; t < symmetry.getTransformCount(); t++) {
+      int bit = symmetry.transformCell(t, start) * geometry.getCellCount()
+              + symmetry.transformCell(t, target);
+      bits[bit >>> 3] |= (byte) (1 << (bit & 7));
+    }
+  }
+
+  /**
+   * Starts a new game on the given board with the given hole.
+   *
+   * @param geometry the board
+   * @param hole     the dense index of the empty slot
+   * @return the game
+   */
+  private static MarbleSolitaireModel newGame(BoardGeometry geometry, int hole) {
+    int row = geometry.getCellRow(hole);
+    int col = geometry.getCellCol(hole);
+    switch (geometry.getShape()) {
+      case English:
+        return new EnglishSolitaireModel(geometry.getSize(), row, col);
+      case European:
+        return new EuropeanSolitaireModel(geometry.getSize(), row, col);
+      default:
+        return new TriangleSolitaireModel(geometry.getSize(), row, col);
+    }
+  }
+
+  /**
+   * Reads a table saved by (@code write).
+   *
+   * @param in the stream to read from, which is left open
+   * @return the table
+   * @throws IOException if the stream cannot be read or does not hold a table
+   */
+  public static SolvabilityTable read(InputStream in) throws IOException {
+    DataInputStream data = new DataInputStream(in);
+    if (data.readInt() != MAGIC) {
+      throw new IOException("Not a solvability table");
+    }
+    int boards = data.readInt();
+    Map<Long, BoardGeometry> geometries = new TreeMap<>();
+    Map<Long, byte[]> ends = new TreeMap<>();
+    for (int i = 0; i < boards; i++) {
+      int shape = data.readUnsignedByte();
+      int size = data.readInt();
+      int cells = data.readInt();
+      if (shape >= BoardGeometry.Shape.values().length
+              || !BoardGeometry.isValidSize(BoardGeometry.Shape.values()[shape], size)) {
+        throw new IOException("Not a solvability table");
+      }
+      BoardGeometry geometry = BoardGeometry.of(BoardGeometry.Shape.values()[shape], size);
+      if (geometry.getCellCount() != cells) {
+        throw new IOException("Not a solvability table");
+      }
+      byte[] bits = new byte[(cells * cells + 7) / 8];
+      data.readFully(bits);
+      geometries.put(keyOf(geometry.getShape(), size), geometry);
+      ends.put(keyOf(geometry.getShape(), size), bits);
+    }
+    return new SolvabilityTable(geometries, ends);
+  }
+
+  /**
+   * Saves this table.
+   *
+   * @param out the stream to write to, which is flushed but left open
+   * @throws IOException if the stream cannot be written
+   */
+  public void write(OutputStream out) throws IOException {
+    DataOutputStream data = new DataOutputStream(out);
+    data.writeInt(MAGIC);
+    data.writeInt(this.geometries.size());
+    for (Map.Entry<Long, BoardGeometry> entry : this.geometries.entrySet()) {
+      BoardGeometry geometry = entry.getValue();
+      data.writeByte(geometry.getShape().ordinal());
+      data.writeInt(geometry.getSize());
+      data.writeInt(geometry.getCellCount());
+      data.write(this.ends.get(entry.getKey()));
+    }
+    data.flush();
+  }
+
+  /**
+   * Determines if the given board is in this table.
+   *
+   * @param shape the type of board
+   * @param size  the size of the board
+   * @return true if every start of the board is recorded
+   */
+  public boolean covers(BoardGeometry.Shape shape, int size) {
+    return this.geometries.containsKey(keyOf(shape, size));
+  }
+
+  /**
+   * Returns the first bit of the given start's slots, checking the board and hole.
+   *
+   * @param shape the type of board
+   * @param size  the size of the board
+   * @param row   the row of the starting hole, starting at 0
+   * @param col   the column of the starting hole, starting at 0
+   * @return the index of the bit of the start's first slot
+   * @throws IllegalArgumentException when the board is not in this table or the hole is not valid
+   */
+  private int startBit(BoardGeometry.Shape shape, int size, int row, int col)
+          throws IllegalArgumentException {
+    BoardGeometry geometry = this.geometries.get(keyOf(shape, size));
+    if (geometry == null) {
+      throw new IllegalArgumentException("Board is not in the table");
+    }
+    if (!geometry.isValid(row, col)) {
+      throw new IllegalArgumentException("Invalid empty cell position (" + row + "," + col + ")");
+    }
+    return geometry.cellIndex(row, col) * geometry.getCellCount();
+  }
+
+  /**
+   * Determines if the game started at the given hole can be won.
+   *
+   * @param shape the type of board
+   * @param size  the size of the board
+   * @param row   the row of the starting hole, starting at 0
+   * @param col   the column of the starting hole, starting at 0
+   * @return true if the game can be cleared down to one marble
+   * @throws IllegalArgumentException when the board is not in this table or the hole is not valid
+   */
+  public boolean canWin(BoardGeometry.Shape shape, int size, int row, int col)
+          throws IllegalArgumentException {
+    int first = this.startBit(shape, size, row, col);
+    return this.winnable.get(keyOf(shape, size))[first / this.geometries.get(keyOf(shape, size))
+            .getCellCount()];
+  }
+
+  /**
+   * Determines if the game started at the given hole can be won with the last marble in the given
+   * slot.
+   *
+   * @param shape     the type of board
+   * @param size      the size of the board
+   * @param row       the row of the starting hole, starting at 0
+   * @param col       the column of the starting hole, starting at 0
+   * @param targetRow the row of the slot the last marble should be left in, starting at 0
+   * @param targetCol the column of the slot the last marble should be left in, starting at 0
+   * @return true if the game can be cleared down to one marble in the slot
+   * @throws IllegalArgumentException when the board is not in this table or either slot is not
+   *                                  valid
+   */
+  public boolean canFinishAt(BoardGeometry.Shape shape, int size, int row, int col,
+                             int targetRow, int targetCol) throws IllegalArgumentException {
+    int first = this.startBit(shape, size, row, col);
+    BoardGeometry geometry = this.geometries.get(keyOf(shape, size));
+    if (!geometry.isValid(targetRow, targetCol)) {
+      throw new IllegalArgumentException("Invalid target position (" + targetRow + ","
+              + targetCol + ")");
+    }
+    int bit = first + geometry.cellIndex(targetRow, targetCol);
+    return (this.ends.get(keyOf(shape, size))[bit >>> 3] & (1 << (bit & 7))) != 0;
+  }
+}
@@ -0,0 +1,86 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Represents the outcome of a search for a solution: whether the game can be won, the moves that
+ * win it, and how much work the search took.
+ */
+public final class SolverResult {
+  private final boolean solved;
+  private final int[] moves;
+  private final long nodes;
+  private final long nanos;
+
+  /**
+   * Constructs the outcome of a search.
+   *
+   * @param solved true if a solution was found
+   * @param moves  the moves of the solution, packed by (@code PackedMove), or none
+   * @param nodes  the number of positions the search visited
+   * @param nanos  the time the search took, in nanoseconds
+   */
+  public SolverResult(boolean solved, int[] moves, long nodes, long nanos) {
+    this.solved = solved;
+    this.moves = moves.clone();
+    this.nodes = nodes;
+    this.nanos = nanos;
+  }
+
+  /**
+   * Determines if the search found a solution.
+   *
+   * @return true if the game can be won from the searched position
+   */
+  public boolean isSolved() {
+    return this.solved;
+  }
+
+  /**
+   * Returns the moves of the solution, in order, to be played on the searched game.
+   *
+   * @return the moves, packed by (@code PackedMove), or an empty array if there is no solution
+   */
+  public int[] getMoves() {
+    return this.moves.clone();
+  }
+
+  /**
+   * Returns the number of positions the search visited.
+   *
+   * @return the number of nodes searched
+   */
+  public long getNodeCount() {
+    return this.nodes;
+  }
+
+  /**
+   * Returns the time the search took.
+   *
+   * @return the elapsed time, in nanoseconds
+   */
+  public long getNanos() {
+    return this.nanos;
+  }
+
+  @Override
+  public String toString() {
+    return (this.solved ? "Solved in " + this.moves.length + " moves" : "No solution")
+            + ", " + this.nodes + " nodes, " + (this.nanos / 1_000_000) + " ms";
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (!(other instanceof SolverResult)) {
+      return false;
+    }
+    SolverResult that = (SolverResult) other;
+    return this.solved == that.solved && Arrays.equals(this.moves, that.moves)
+            && this.nodes == that.nodes && this.nanos == that.nanos;
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(this.moves) ^ Long.hashCode(this.nodes) ^ Long.hashCode(this.nanos);
+  }
+}
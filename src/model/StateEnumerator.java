@@ -0,0 +1,344 @@
+package model;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts every position that can be reached from a game, level by level: all positions after one
+ * move, then all after two, and so on, each counted once up to the board's symmetries. This is a
+ * breadth-first search that keeps only one level at a time.
+ *
+ * <p>A level is a sorted array of primitive longs with no duplicates: each position is stored as
+ * its canonical packed board, one word per 64 slots. The next level is built on a
+ * (@code ForkJoinPool): the level is split into chunks, each chunk's children are generated, sorted
+ * and deduplicated by one task, and the sorted results are merged back together in pairs, dropping
+ * duplicates as they meet.
+ */
+public class StateEnumerator {
+  // the number of positions expanded by one task, which keeps each task's children in a few MB
+  private static final int CHUNK = 1 << 13;
+
+  private final int parallelism;
+
+  /**
+   * Constructs an enumerator that uses every available core.
+   */
+  public StateEnumerator() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Constructs an enumerator that uses the given number of worker threads.
+   *
+   * @param parallelism the number of threads to enumerate with
+   * @throws IllegalArgumentException when (@code parallelism) is not positive
+   */
+  public StateEnumerator(int parallelism) throws IllegalArgumentException {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Parallelism must be positive");
+    }
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * Counts every position that can be reached from the given game.
+   *
+   * @param model the game to start from, which is left unchanged
+   * @return the number of positions and the time taken at each level
+   * @throws IllegalArgumentException when (@code model) is null or its board is of no known type
+   */
+  public EnumerationResult enumerate(MarbleSolitaireModelState model)
+          throws IllegalArgumentException {
+    return this.enumerate(model, 1);
+  }
+
+  /**
+   * Counts every position that can be reached from the given game with at least the given number
+   * of marbles left.
+   *
+   * @param model      the game to start from, which is left unchanged
+   * @param minMarbles the number of marbles to stop at
+   * @return the number of positions and the time taken at each level
+   * @throws IllegalArgumentException when (@code model) is null or its board is of no known type
+   */
+  public EnumerationResult enumerate(MarbleSolitaireModelState model, int minMarbles)
+          throws IllegalArgumentException {
+    long start = System.nanoTime();
+    Expansion expansion = new Expansion(BoardGeometry.of(model));
+    long[] level = expansion.keyOf(model);
+    int marbles = model.getScore();
+
+    long[] positions = new long[Math.max(1, marbles - Math.max(minMarbles, 1) + 1)];
+    long[] nanos = new long[positions.length];
+    positions[0] = 1;
+    nanos[0] = System.nanoTime() - start;
+    int levels = 1;
+    ForkJoinPool pool = new ForkJoinPool(this.parallelism);
+    try {
+      while (levels < positions.length) {
+        start = System.nanoTime();
+        level = expand(pool, expansion, level, level.length / expansion.words);
+        if (level.length == 0) {
+          break;
+        }
+        positions[levels] = level.length / expansion.words;
+        nanos[levels] = System.nanoTime() - start;
+        levels += 1;
+      }
+    } finally {
+      pool.shutdown();
+    }
+    return new EnumerationResult(model.getScore(), Arrays.copyOf(positions, levels),
+            Arrays.copyOf(nanos, levels));
+  }
+
+  /**
+   * Returns the sorted, deduplicated children of the given positions, generated on the given pool.
+   *
+   * @param pool      the pool to generate on
+   * @param expansion the board's child generator
+   * @param source    the records of the positions
+   * @param count     the number of positions, from the start of the records
+   * @return the records of the children
+   */
+  static long[] expand(ForkJoinPool pool, Expansion expansion, long[] source, int count) {
+    return pool.invoke(new ExpandTask(expansion, source, 0, count));
+  }
+
+  /**
+   * Generates the children of positions on one board: every position one jump away, by its
+   * canonical packed board.
+   */
+  static final class Expansion {
+    private final BoardGeometry geometry;
+    private final BoardSymmetry symmetry;
+    // the words of each packed board
+    final int words;
+    // the shared from, over and to slots of each jump
+    private final int[] from;
+    private final int[] over;
+    private final int[] to;
+
+    /**
+     * Prepares to expand positions on the given board.
+     *
+     * @param geometry the board
+     */
+    Expansion(BoardGeometry geometry) {
+      this.geometry = geometry;
+      this.symmetry = BoardSymmetry.of(geometry);
+      this.words = (geometry.getCellCount() + 63) >>> 6;
+      this.from = geometry.jumpFromTable();
+      this.over = geometry.jumpOverTable();
+      this.to = geometry.jumpToTable();
+    }
+
+    /**
+     * Returns the canonical packed board of the given game, as a single record.
+     *
+     * @param model the game, which must be on this board
+     * @return the record of the game
+     */
+    long[] keyOf(MarbleSolitaireModelState model) {
+      long[] board = new long[this.words];
+      long[] key = new long[this.words];
+      this.geometry.pack(model, board);
+      this.symmetry.canonical(board, key, new long[this.words]);
+      return key;
+    }
+
+    /**
+     * Returns the sorted, deduplicated children of the given positions.
+     *
+     * @param source the records of the positions
+     * @param lo     the index of the first position to expand
+     * @param hi     the index after the last position to expand
+     * @return the records of the children
+     */
+    long[] expand(long[] source, int lo, int hi) {
+      int words = this.words;
+      long[] children = new long[Math.max(words, (hi - lo) * words * 4)];
+      int count = 0;
+      long[] board = new long[words];
+      long[] scratch = new long[words];
+      long[] key = new long[words];
+      for (int position = lo; position < hi; position++) {
+        System.arraycopy(source, position * words, board, 0, words);
+        for (int jump = 0; jump < this.from.length; jump++) {
+          int f = this.from[jump];
+          int o = this.over[jump];
+          int t = this.to[jump];
+          if ((board[f >>> 6] & (1L << f)) == 0 || (board[o >>> 6] & (1L << o)) == 0
+                  || (board[t >>> 6] & (1L << t)) != 0) {
+            continue;
+          }
+          if ((count + 1) * words > children.length) {
+            children = Arrays.copyOf(children, children.length * 2);
+          }
+          if (words == 1) {
+            children[count] = this.symmetry.canonical(
+                    board[0] ^ (1L << f) ^ (1L << o) ^ (1L << t));
+          } else {
+            board[f >>> 6] ^= 1L << f;
+            board[o >>> 6] ^= 1L << o;
+            board[t >>> 6] ^= 1L << t;
+            this.symmetry.canonical(board, key, scratch);
+            System.arraycopy(key, 0, children, count * words, words);
+            board[f >>> 6] ^= 1L << f;
+            board[o >>> 6] ^= 1L << o;
+            board[t >>> 6] ^= 1L << t;
+          }
+          count += 1;
+        }
+      }
+      sort(children, count, words);
+      return Arrays.copyOf(children, unique(children, count, words) * words);
+    }
+  }
+
+  /**
+   * Expands a range of a level's positions, splitting it between tasks when it is large.
+   */
+  // tasks are only ever run in this process, never serialized
+  @SuppressWarnings("serial")
+  private static final class ExpandTask extends RecursiveTask<long[]> {
+    private final Expansion expansion;
+    private final long[] source;
+    private final int lo;
+    private final int hi;
+
+    /**
+     * Constructs a task for the given range of positions.
+     *
+     * @param expansion the board's child generator
+     * @param source    the records of the level
+     * @param lo        the index of the first position to expand
+     * @param hi        the index after the last position to expand
+     */
+    private ExpandTask(Expansion expansion, long[] source, int lo, int hi) {
+      this.expansion = expansion;
+      this.source = source;
+      this.lo = lo;
+      this.hi = hi;
+    }
+
+    @Override
+    protected long[] compute() {
+      if (this.hi - this.lo <= CHUNK) {
+        return this.expansion.expand(this.source, this.lo, this.hi);
+      }
+      int mid = (this.lo + this.hi) >>> 1;
+      ExpandTask left = new ExpandTask(this.expansion, this.source, this.lo, mid);
+      left.fork();
+      long[] right = new ExpandTask(this.expansion, this.source, mid, this.hi).compute();
+      return merge(left.join(), right, this.expansion.words);
+    }
+  }
+
+  /**
+   * Compares two records of the given number of words, as signed numbers from the highest word.
+   *
+   * @param a     the records holding the first
+   * @param i     the index of the first word of the first
+   * @param b     the records holding the second
+   * @param j     the index of the first word of the second
+   * @param words the words of each record
+   * @return a negative number, zero or a positive number as the first is below, equal to or above
+   *         the second
+   */
+  static int compare(long[] a, int i, long[] b, int j, int words) {
+    for (int w = words - 1; w >= 0; w--) {
+      int result = Long.compare(a[i + w], b[j + w]);
+      if (result != 0) {
+        return result;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Sorts the given records of the given number of words each.
+   *
+   * @param records the records
+   * @param count   the number of records to sort, from the start
+   * @param words   the words of each record
+   */
+  static void sort(long[] records, int count, int words) {
+    if (words == 1) {
+      Arrays.sort(records, 0, count);
+      return;
+    }
+    // a bottom-up merge sort, moving whole records between the two buffers
+    long[] source = records;
+    long[] target = new long[count * words];
+    for (int width = 1; width < count; width *= 2) {
+      for (int lo = 0; lo < count; lo += 2 * width) {
+        int mid = Math.min(lo + width, count);
+        int hi = Math.min(lo + 2 * width, count);
+        int i = lo;
+        int j = mid;
+        for (int k = lo; k < hi; k++) {
+          int from = j >= hi || (i < mid && compare(source, i * words, source, j * words, words)
+                  <= 0) ? i++ : j++;
+          System.arraycopy(source, from * words, target, k * words, words);
+        }
+      }
+      long[] swap = source;
+      source = target;
+      target = swap;
+    }
+    if (source != records) {
+      System.arraycopy(source, 0, records, 0, count * words);
+    }
+  }
+
+  /**
+   * Drops the repeats from the given sorted records, keeping the first of each.
+   *
+   * @param records the sorted records
+   * @param count   the number of records, from the start
+   * @param words   the words of each record
+   * @return the number of distinct records, which now come first
+   */
+  static int unique(long[] records, int count, int words) {
+    int kept = 0;
+    for (int i = 0; i < count; i++) {
+      if (kept == 0 || compare(records, i * words, records, (kept - 1) * words, words) != 0) {
+        System.arraycopy(records, i * words, records, kept * words, words);
+        kept += 1;
+      }
+    }
+    return kept;
+  }
+
+  /**
+   * Merges two sorted arrays of distinct records into one, dropping the records they share.
+   *
+   * @param a     the first records
+   * @param b     the second records
+   * @param words the words of each record
+   * @return the sorted, distinct records of both
+   */
+  static long[] merge(long[] a, long[] b, int words) {
+    long[] merged = new long[a.length + b.length];
+    int i = 0;
+    int j = 0;
+    int k = 0;
+    while (i < a.length || j < b.length) {
+      int order = i >= a.length ? 1 : j >= b.length ? -1 : compare(a, i, b, j, words);
+      if (order <= 0) {
+        System.arraycopy(a, i, merged, k, words);
+        i += words;
+        if (order == 0) {
+          j += words;
+        }
+      } else {
+        System.arraycopy(b, j, merged, k, words);
+        j += words;
+      }
+      k += words;
+    }
+    return k == merged.length ? merged : Arrays.copyOf(merged, k);
+  }
+}
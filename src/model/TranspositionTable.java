@@ -0,0 +1,322 @@
+package model;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-size hash table from long keys to long values, kept outside the Java heap and shared by
+ * any number of threads without locks. Each entry takes 16 bytes of direct memory, next to the
+ * 50 or so bytes a boxed entry of a (@code HashSet) costs on the heap, and the garbage collector
+ * never has to scan it. The table is split into segments of up to a gigabyte, so it can hold
+ * billions of entries.
+ *
+ * <p>A key is looked for in a short window of slots from its hash. A writer claims a slot, empty or
+ * not, with a compare-and-set of its value word to a busy mark that only the winner can replace, so
+ * two writers never leave halves of different entries in one slot. Every entry is stored as its
+ * value beside its key XOR its value, so a reader that races with a writer sees either the whole
+ * entry or no match at all. When every slot of the window is taken, the table's
+ * (@code Replacement) policy decides which entry, if any, the new one replaces. A table that drops
+ * entries is still a sound cache of facts such as "this position cannot be won": a lost entry only
+ * costs searching again.
+ *
+ * <p>Values must not be negative. A table is cleared with (@code clear), which must not overlap
+ * any other use of it.
+ */
+public final class TranspositionTable {
+  /**
+   * What to do with a new entry when every slot it may go in is taken.
+   */
+  public enum Replacement {
+    // drop the new entry, keeping whatever was stored first
+    Never,
+    // replace the entry in the key's first slot
+    Always,
+    // replace the entry with the smallest value, if the new value is larger
+    Largest
+  }
+
+  // a view of a direct buffer as longs, for volatile and compare-and-set access
+  private static final VarHandle LONGS =
+          MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+  // the number of slots a key may be stored in, a cache line or two apart from its first
+  private static final int WINDOW = 8;
+  // the entries of each segment, 1 GB of memory
+  private static final int SEGMENT_SHIFT = 26;
+  private static final int ENTRY_BYTES = 16;
+  // the most entries of a table, 16 TB of memory
+  private static final long MAX_CAPACITY = 1L << 40;
+  // the most entries of a table built to suit a board when no limit is given, 64 MB of memory
+  private static final long BOARD_CAPACITY = 1L << 22;
+  // the value word of a slot being written, which has its top bit clear so it is never an entry
+  private static final long BUSY = 1;
+  // the outcomes of one attempt to store an entry
+  private static final int STORED = 0;
+  private static final int DROPPED = 1;
+  private static final int RACED = 2;
+
+  private final ByteBuffer[] segments;
+  private final int slotMask;
+  private final int segmentMask;
+  private final Replacement replacement;
+  private final LongAdder size = new LongAdder();
+
+  /**
+   * Constructs an empty table of at least the given number of entries, rounded up to a power of
+   * two.
+   *
+   * @param capacity    the number of entries the table can hold
+   * @param replacement what to do when a new entry finds no free slot
+   * @throws IllegalArgumentException when (@code capacity) is not positive or
+   *                                  (@code replacement) is null
+   */
+  public TranspositionTable(long capacity, Replacement replacement)
+          throws IllegalArgumentException {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Capacity must be positive");
+    }
+    if (capacity > MAX_CAPACITY) {
+      throw new IllegalArgumentException("Capacity is too large");
+    }
+    if (replacement == null) {
+      throw new IllegalArgumentException("Must provide a non-null replacement policy");
+    }
+    long entries = Math.max(WINDOW, Long.highestOneBit(capacity - 1) << 1);
+    int slots = (int) Math.min(entries, 1L << SEGMENT_SHIFT);
+    this.segments = new ByteBuffer[(int) (entries / slots)];
+    for (int i = 0; i < this.segments.length; i++) {
+      this.segments[i] = ByteBuffer.allocateDirect(slots * ENTRY_BYTES)
+              .order(ByteOrder.nativeOrder());
+    }
+    this.slotMask = slots - 1;
+    this.segmentMask = this.segments.length - 1;
+    this.replacement = replacement;
+  }
+
+  /**
+   * Constructs an empty table suited to searching the given board: large enough for most searches
+   * of a standard board to keep what they learn, but no larger than the board's number of
+   * positions. Entries with larger values, such as positions with more marbles left, are kept over
+   * those with smaller ones.
+   *
+   * @param geometry the board
+   * @return the table
+   */
+  static TranspositionTable forBoard(BoardGeometry geometry) {
+    return forBoard(geometry, BOARD_CAPACITY);
+  }
+
+  /**
+   * Constructs an empty table suited to searching the given board, as (@code forBoard) does, but
+   * of no more than the given number of entries, for a job that runs many searches at once.
+   *
+   * @param geometry the board
+   * @param capacity the most entries of the table
+   * @return the table
+   */
+  static TranspositionTable forBoard(BoardGeometry geometry, long capacity) {
+    long positions = 1L << Math.min(geometry.getCellCount(), 62);
+    return new TranspositionTable(Math.min(positions, capacity), Replacement.Largest);
+  }
+
+  /**
+   * Spreads the bits of a key, so that keys differing in only a few bits land far apart.
+   *
+   * @param key the key
+   * @return the mixed key
+   */
+  private static long mix(long key) {
+    key = (key ^ (key >>> 33)) * 0xFF51AFD7ED558CCDL;
+    key = (key ^ (key >>> 33)) * 0xC4CEB9FE1A85EC53L;
+    return key ^ (key >>> 33);
+  }
+
+  /**
+   * Returns the segment the given key is stored in.
+   *
+   * @param hash the mixed key
+   * @return the segment's buffer
+   */
+  private ByteBuffer segmentOf(long hash) {
+    return this.segments[(int) (hash >>> 40) & this.segmentMask];
+  }
+
+  /**
+   * Returns the value of the given key.
+   *
+   * @param key     the key
+   * @param missing the value to return if the key is not in the table
+   * @return the key's value, or (@code missing)
+   */
+  public long get(long key, long missing) {
+    long hash = mix(key);
+    ByteBuffer segment = this.segmentOf(hash);
+    int first = (int) hash;
+    for (int i = 0; i < WINDOW; i++) {
+      int at = ((first + i) & this.slotMask) * ENTRY_BYTES;
+      long data = (long) LONGS.getVolatile(segment, at + 8);
+      if (data == 0) {
+        return missing;
+      }
+      if (data != BUSY && ((long) LONGS.getVolatile(segment, at) ^ data) == key) {
+        return data & Long.MAX_VALUE;
+      }
+    }
+    return missing;
+  }
+
+  /**
+   * Determines if the given key is in the table.
+   *
+   * @param key the key
+   * @return true if the key is in the table
+   */
+  public boolean contains(long key) {
+    return this.get(key, -1) >= 0;
+  }
+
+  /**
+   * Adds the given key to the table with a value of 0, for tables used as sets.
+   *
+   * @param key the key
+   * @return false if the key could not be stored
+   */
+  public boolean add(long key) {
+    return this.put(key, 0);
+  }
+
+  /**
+   * Sets the value of the given key, adding the key if it is not in the table.
+   *
+   * @param key   the key
+   * @param value the value, which must not be negative
+   * @return false if the key could not be stored under the table's replacement policy
+   * @throws IllegalArgumentException when (@code value) is negative
+   */
+  public boolean put(long key, long value) throws IllegalArgumentException {
+    if (value < 0) {
+      throw new IllegalArgumentException("Value must not be negative");
+    }
+    // the top bit is always set, so a stored entry never looks empty or busy
+    long data = value | Long.MIN_VALUE;
+    long hash = mix(key);
+    ByteBuffer segment = this.segmentOf(hash);
+    int first = (int) hash;
+    int outcome;
+    do {
+      outcome = this.store(segment, first, key, data);
+    } while (outcome == RACED);
+    return outcome == STORED;
+  }
+
+  /**
+   * Makes one attempt to store an entry in its window of slots.
+   *
+   * @param segment the segment holding the window
+   * @param first   the key's first slot, before masking
+   * @param key     the key
+   * @param data    the value with its top bit set
+   * @return (@code STORED), (@code DROPPED) under the replacement policy, or (@code RACED) when
+   *         another writer took the chosen slot first, and the attempt should be made again
+   */
+  private int store(ByteBuffer segment, int first, long key, long data) {
+    int victim = -1;
+    long victimData = 0;
+    long smallest = data & Long.MAX_VALUE;
+    for (int i = 0; i < WINDOW; i++) {
+      int at = ((first + i) & this.slotMask) * ENTRY_BYTES;
+      long stored = (long) LONGS.getVolatile(segment, at + 8);
+      if (stored == 0) {
+        if (this.write(segment, at, 0, key, data)) {
+          this.size.increment();
+          return STORED;
+        }
+        // another thread took the slot first, so look at what it stored
+        stored = (long) LONGS.getVolatile(segment, at + 8);
+      }
+      if (stored == BUSY) {
+        // another writer is filling the slot in, so it can be neither matched nor replaced
+        continue;
+      }
+      if (((long) LONGS.getVolatile(segment, at) ^ stored) == key) {
+        return this.write(segment, at, stored, key, data) ? STORED : RACED;
+      }
+      if ((stored & Long.MAX_VALUE) < smallest) {
+        smallest = stored & Long.MAX_VALUE;
+        victim = at;
+        victimData = stored;
+      }
+    }
+    switch (this.replacement) {
+      case Always: {
+        int at = (first & this.slotMask) * ENTRY_BYTES;
+        long stored = (long) LONGS.getVolatile(segment, at + 8);
+        if (stored == BUSY) {
+          return DROPPED;
+        }
+        return this.write(segment, at, stored, key, data) ? STORED : RACED;
+      }
+      case Largest:
+        if (victim >= 0) {
+          return this.write(segment, victim, victimData, key, data) ? STORED : RACED;
+        }
+        return DROPPED;
+      default:
+        return DROPPED;
+    }
+  }
+
+  /**
+   * Writes an entry over a slot, if the slot still holds what the caller saw. The slot is marked
+   * busy while its key is written, so no other writer can claim it in between, and the value goes
+   * last, so a reader between the writes matches neither the old key nor the new one.
+   *
+   * @param segment  the segment holding the slot
+   * @param at       the byte offset of the slot
+   * @param expected the value word the caller saw in the slot, 0 if it was empty
+   * @param key      the key
+   * @param data     the value with its top bit set
+   * @return false if another writer changed the slot first
+   */
+  private boolean write(ByteBuffer segment, int at, long expected, long key, long data) {
+    if (!LONGS.compareAndSet(segment, at + 8, expected, BUSY)) {
+      return false;
+    }
+    LONGS.setVolatile(segment, at, key ^ data);
+    LONGS.setVolatile(segment, at + 8, data);
+    return true;
+  }
+
+  /**
+   * Returns the number of entries the table was built to hold.
+   *
+   * @return the number of slots
+   */
+  public long getCapacity() {
+    return (long) this.segments.length * (this.slotMask + 1);
+  }
+
+  /**
+   * Returns the number of slots that have been filled since the table was last cleared. Entries
+   * that replaced others are not counted again.
+   *
+   * @return the number of filled slots
+   */
+  public long size() {
+    return this.size.sum();
+  }
+
+  /**
+   * Empties the table. No other thread may use the table until this returns.
+   */
+  public void clear() {
+    for (ByteBuffer segment : this.segments) {
+      for (int at = 0; at < segment.capacity(); at += 8) {
+        segment.putLong(at, 0);
+      }
+    }
+    this.size.reset();
+  }
+}
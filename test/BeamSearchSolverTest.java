@@ -0,0 +1,103 @@
+import org.junit.Test;
+
+import model.BeamSearchResult;
+import model.BeamSearchSolver;
+import model.EnglishSolitaireModel;
+import model.EnumerationResult;
+import model.EuropeanSolitaireModel;
+import model.MarbleSolitaireModel;
+import model.SolitaireSolver;
+import model.StateEnumerator;
+import model.TriangleSolitaireModel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the beam search solver, against the exact solver on small boards.
+ */
+public class BeamSearchSolverTest {
+
+  @Test
+  public void agreesWithSolverWhenWide() {
+    // wide enough to keep every position of the Triangle board, so the search is exact
+    for (BeamSearchSolver.Heuristic heuristic : BeamSearchSolver.Heuristic.values()) {
+      BeamSearchSolver beam = new BeamSearchSolver(1 << 12, heuristic);
+      for (int row = 0; row < 5; row++) {
+        for (int col = 0; col <= row; col++) {
+          MarbleSolitaireModel model = new TriangleSolitaireModel(row, col);
+          BeamSearchResult result = beam.solve(model);
+          assertEquals(new SolitaireSolver().solve(model).isSolved(), result.getMarbles() == 1);
+          assertEquals(14 - result.getMarbles(), result.getDepthCount());
+          assertEquals(14, model.getScore());
+        }
+      }
+    }
+  }
+
+  @Test
+  public void keepsEachPositionOnce() {
+    // wide enough to keep every position, whatever their ranks
+    MarbleSolitaireModel model = new TriangleSolitaireModel(5);
+    EnumerationResult positions = new StateEnumerator().enumerate(model);
+    for (BeamSearchSolver.Heuristic heuristic : BeamSearchSolver.Heuristic.values()) {
+      BeamSearchResult result = new BeamSearchSolver(1 << 12, heuristic).solve(model);
+      for (int depth = 1; depth < positions.getLevelCount(); depth++) {
+        assertEquals(positions.getPositionCount(depth), result.getWidth(depth));
+      }
+    }
+  }
+
+  @Test
+  public void keepsWidth() {
+    BeamSearchResult result = new BeamSearchSolver(64, BeamSearchSolver.Heuristic.Spread)
+            .solve(new EnglishSolitaireModel());
+    assertEquals(1, result.getMarbles());
+    assertEquals(31, result.getDepthCount());
+    long total = 0;
+    for (int depth = 1; depth <= result.getDepthCount(); depth++) {
+      assertTrue(result.getWidth(depth) >= 1 && result.getWidth(depth) <= 64);
+      total += result.getDepthNanos(depth);
+    }
+    assertTrue(total <= result.getNanos());
+    // a width of one plays greedily, and still never stops early
+    result = new BeamSearchSolver(1, BeamSearchSolver.Heuristic.Isolated)
+            .solve(new EnglishSolitaireModel());
+    assertEquals(32 - result.getMarbles(), result.getDepthCount());
+  }
+
+  @Test
+  public void solvesLargeBoards() {
+    BeamSearchSolver beam = new BeamSearchSolver(256, BeamSearchSolver.Heuristic.Spread);
+    assertEquals(1, beam.solve(new EuropeanSolitaireModel(3, 0, 2)).getMarbles());
+    // far too large for the exact solvers, with 216 marbles over four words
+    MarbleSolitaireModel model = new EnglishSolitaireModel(7);
+    BeamSearchResult result = new BeamSearchSolver(16, BeamSearchSolver.Heuristic.Pagoda)
+            .solve(model);
+    assertEquals(216 - result.getMarbles(), result.getDepthCount());
+    assertTrue(result.getMarbles() < 20);
+  }
+
+  @Test
+  public void invalidArguments() {
+    try {
+      new BeamSearchSolver(0, BeamSearchSolver.Heuristic.Spread);
+      fail("Width must be positive");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Width must be positive", e.getMessage());
+    }
+    try {
+      new BeamSearchSolver(1, null);
+      fail("Heuristic must be non-null");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Must provide a non-null heuristic", e.getMessage());
+    }
+    try {
+      new BeamSearchSolver().solve(null);
+      fail("Model must be non-null");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Must provide a non-null model", e.getMessage());
+    }
+  }
+}
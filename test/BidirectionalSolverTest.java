@@ -0,0 +1,107 @@
+import org.junit.Test;
+
+import model.BidirectionalSolver;
+import model.EnglishSolitaireModel;
+import model.EuropeanSolitaireModel;
+import model.MarbleSolitaireModel;
+import model.MarbleSolitaireModelState;
+import model.PackedMove;
+import model.SolitaireSolver;
+import model.SolverResult;
+import model.TriangleSolitaireModel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the solver that searches from both ends, against the depth-first solver.
+ */
+public class BidirectionalSolverTest {
+
+  /**
+   * Plays the moves of the given solution on the given game and checks that one marble is left.
+   */
+  private void assertWins(MarbleSolitaireModel model, SolverResult result) {
+    assertTrue(result.isSolved());
+    assertEquals(model.getScore() - 1, result.getMoves().length);
+    for (int move : result.getMoves()) {
+      PackedMove.apply(model, move);
+    }
+    assertEquals(1, model.getScore());
+  }
+
+  @Test
+  public void agreesWithSolver() {
+    // whole levels meet, narrowed levels meet, and the depth-first bridge from a single level
+    for (long budget : new long[] {1 << 20, 100, 1}) {
+      BidirectionalSolver solver = new BidirectionalSolver(2, budget);
+      for (int row = 0; row < 5; row++) {
+        for (int col = 0; col <= row; col++) {
+          for (int targetRow = 0; targetRow < 5; targetRow++) {
+            for (int targetCol = 0; targetCol <= targetRow; targetCol++) {
+              MarbleSolitaireModel model = new TriangleSolitaireModel(row, col);
+              SolverResult result = solver.solve(model, targetRow, targetCol);
+              assertEquals(new SolitaireSolver().solve(model, targetRow, targetCol).isSolved(),
+                      result.isSolved());
+              if (result.isSolved()) {
+                this.assertWins(model, result);
+                assertEquals(MarbleSolitaireModelState.SlotState.Marble,
+                        model.getSlotAt(targetRow, targetCol));
+              }
+            }
+          }
+          this.assertWins(new TriangleSolitaireModel(row, col),
+                  solver.solve(new TriangleSolitaireModel(row, col)));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void solveEuropean() {
+    // the depth-first solver does not finish this within minutes
+    MarbleSolitaireModel model = new EuropeanSolitaireModel(3, 0, 2);
+    SolverResult result = new BidirectionalSolver().solve(model);
+    assertEquals(36, model.getScore());
+    this.assertWins(model, result);
+  }
+
+  @Test
+  public void unwinnable() {
+    // no game from the European board's center can be won
+    SolverResult result = new BidirectionalSolver().solve(new EuropeanSolitaireModel());
+    assertFalse(result.isSolved());
+    assertEquals(0, result.getMoves().length);
+    assertFalse(new BidirectionalSolver().solve(new EnglishSolitaireModel(), 0, 2).isSolved());
+  }
+
+  @Test
+  public void invalidArguments() {
+    try {
+      new BidirectionalSolver(0, 1);
+      fail("Expected an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Parallelism must be positive", e.getMessage());
+    }
+    try {
+      new BidirectionalSolver(1, 0);
+      fail("Expected an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Capacity must be positive", e.getMessage());
+    }
+    try {
+      new BidirectionalSolver().solve(new EnglishSolitaireModel(), 0, 0);
+      fail("Expected an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Invalid target position (0,0)", e.getMessage());
+    }
+    try {
+      new BidirectionalSolver().solve(null);
+      fail("Expected an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Must provide a non-null model", e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,229 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import model.BitboardEnglishSolitaireModel;
+import model.EnglishSolitaireModel;
+import model.MarbleSolitaireModel;
+import model.MarbleSolitaireModelState;
+import view.MarbleSolitaireTextView;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the bitboard version of the default English solitaire board.
+ */
+public class BitboardEnglishSolitaireModelTest {
+  BitboardEnglishSolitaireModel defaultBoard;
+  BitboardEnglishSolitaireModel emptyPosBoard;
+
+  // the moves of a full game on the default board, as {fromRow, fromCol, toRow, toCol}
+  int[][] fullGame = {
+      {5, 3, 3, 3}, {4, 5, 4, 3}, {6, 4, 4, 4}, {3, 4, 5, 4}, {6, 2, 6, 4}, {6, 4, 4, 4},
+      {1, 4, 3, 4}, {2, 6, 2, 4}, {2, 3, 2, 5}, {4, 6, 2, 6}, {2, 6, 2, 4}, {2, 1, 2, 3},
+      {0, 2, 2, 2}, {3, 2, 1, 2}, {0, 4, 0, 2}, {0, 2, 2, 2}, {5, 2, 3, 2}, {4, 0, 4, 2},
+      {2, 0, 4, 0}, {4, 3, 4, 1}, {4, 0, 4, 2}, {2, 3, 2, 1}, {2, 1, 4, 1}, {4, 1, 4, 3},
+      {4, 3, 4, 5}, {4, 5, 2, 5}, {2, 5, 2, 3}, {3, 3, 3, 5}, {1, 3, 3, 3}, {3, 2, 3, 4},
+      {3, 5, 3, 3}};
+
+  @Before
+  public void init() {
+    this.defaultBoard = new BitboardEnglishSolitaireModel();
+    this.emptyPosBoard = new BitboardEnglishSolitaireModel(2, 3);
+  }
+
+  @Test
+  public void testValidInitialization() {
+    assertEquals(32, this.defaultBoard.getScore());
+    assertEquals(32, this.emptyPosBoard.getScore());
+    assertEquals(MarbleSolitaireModelState.SlotState.Empty, this.emptyPosBoard.getSlotAt(2, 3));
+  }
+
+  @Test
+  public void testInvalidInitialization() {
+    // given pos is in an invalid corner
+    try {
+      this.emptyPosBoard = new BitboardEnglishSolitaireModel(0, 0);
+      fail("Should have thrown an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      //do nothing; test successfully threw an exception
+    }
+    // given pos is outside the board, in line with the marble cross
+    try {
+      this.emptyPosBoard = new BitboardEnglishSolitaireModel(8, 3);
+      fail("Should have thrown an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      //do nothing; test successfully threw an exception
+    }
+    // given pos is in the guard column
+    try {
+      this.emptyPosBoard = new BitboardEnglishSolitaireModel(3, 7);
+      fail("Should have thrown an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      //do nothing; test successfully threw an exception
+    }
+  }
+
+  @Test
+  public void move() {
+    // invalid move : from out of bounds
+    try {
+      this.defaultBoard.move(3, 7, 3, 5);
+      fail("Should have thrown an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      //do nothing; test successfully threw an exception
+    }
+    // invalid move : to out of bounds
+    try {
+      this.defaultBoard.move(3, 5, 3, 7);
+      fail("Should have thrown an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      //do nothing; test successfully threw an exception
+    }
+    // invalid move : to not empty
+    try {
+      this.defaultBoard.move(5, 3, 5, 1);
+      fail("Should have thrown an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      //do nothing; test successfully threw an exception
+    }
+    this.defaultBoard.move(5, 3, 3, 3);
+    // invalid move : not 2 slots away
+    try {
+      this.defaultBoard.move(2, 3, 5, 3);
+      fail("Should have thrown an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      //do nothing; test successfully threw an exception
+    }
+    // invalid move : 2 diagonally
+    try {
+      this.defaultBoard.move(2, 1, 4, 3);
+      fail("Should have thrown an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      //do nothing; test successfully threw an exception
+    }
+    // invalid move : from not marble
+    try {
+      this.defaultBoard.move(5, 1, 5, 3);
+      fail("Should have thrown an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      //do nothing; test successfully threw an exception
+    }
+    // invalid move : middle slot not marble
+    try {
+      this.defaultBoard.move(3, 3, 5, 3);
+      fail("Should have thrown an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      //do nothing; test successfully threw an exception
+    }
+    // invalid move : jumping into the invalid corner
+    try {
+      this.defaultBoard.move(2, 3, 0, 1);
+      fail("Should have thrown an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      //do nothing; test successfully threw an exception
+    }
+  }
+
+  @Test
+  public void isGameOver() {
+    for (int[] move : this.fullGame) {
+      assertFalse(this.defaultBoard.isGameOver());
+      this.defaultBoard.move(move[0], move[1], move[2], move[3]);
+    }
+    assertTrue(this.defaultBoard.isGameOver());
+    assertEquals(1, this.defaultBoard.getScore());
+  }
+
+  @Test
+  public void matchesEnglishSolitaireModel() {
+    EnglishSolitaireModel english = new EnglishSolitaireModel();
+    for (int[] move : this.fullGame) {
+      this.defaultBoard.move(move[0], move[1], move[2], move[3]);
+      english.move(move[0], move[1], move[2], move[3]);
+      assertEquals(english.getScore(), this.defaultBoard.getScore());
+      assertEquals(english.isGameOver(), this.defaultBoard.isGameOver());
+      assertEquals(english.getPositionHash(), this.defaultBoard.getPositionHash());
+      int[] expected = new int[8 * english.getScore()];
+      int[] actual = new int[8 * english.getScore()];
+      assertEquals(english.getLegalMoves(expected), this.defaultBoard.getLegalMoves(actual));
+      assertArrayEquals(expected, actual);
+      assertEquals(new MarbleSolitaireTextView(english).toString(),
+              new MarbleSolitaireTextView(this.defaultBoard).toString());
+    }
+  }
+
+  @Test
+  public void undoRedo() {
+    EnglishSolitaireModel english = new EnglishSolitaireModel();
+    for (int[] move : this.fullGame) {
+      this.defaultBoard.move(move[0], move[1], move[2], move[3]);
+    }
+    // take back half the game, then play it again
+    for (int i = 0; i < this.fullGame.length / 2; i++) {
+      this.defaultBoard.undo();
+    }
+    for (int i = 0; i < this.fullGame.length - this.fullGame.length / 2; i++) {
+      int[] move = this.fullGame[i];
+      english.move(move[0], move[1], move[2], move[3]);
+    }
+    assertEquals(english.getPositionHash(), this.defaultBoard.getPositionHash());
+    assertEquals(new MarbleSolitaireTextView(english).toString(),
+            new MarbleSolitaireTextView(this.defaultBoard).toString());
+    while (this.defaultBoard.canRedo()) {
+      this.defaultBoard.redo();
+    }
+    assertTrue(this.defaultBoard.isGameOver());
+    assertEquals(1, this.defaultBoard.getScore());
+  }
+
+  @Test
+  public void fork() {
+    this.defaultBoard.move(5, 3, 3, 3);
+    MarbleSolitaireModel fork = this.defaultBoard.fork();
+    fork.move(4, 5, 4, 3);
+    assertEquals(30, fork.getScore());
+    assertEquals(31, this.defaultBoard.getScore());
+    assertEquals(MarbleSolitaireModelState.SlotState.Marble, this.defaultBoard.getSlotAt(4, 5));
+    this.defaultBoard.move(4, 5, 4, 3);
+    assertEquals(this.defaultBoard.getPositionHash(), fork.getPositionHash());
+  }
+
+  @Test
+  public void getBoardSize() {
+    assertEquals(7, this.defaultBoard.getBoardSize());
+    assertEquals(7, this.emptyPosBoard.getBoardSize());
+  }
+
+  @Test
+  public void getSlotAt() {
+    // invalid slot position (off the board)
+    try {
+      this.defaultBoard.getSlotAt(100, 100);
+      fail("Should have thrown an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      //do nothing; test successfully threw an exception
+    }
+    try {
+      this.defaultBoard.getSlotAt(3, 7);
+      fail("Should have thrown an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      //do nothing; test successfully threw an exception
+    }
+    assertEquals(MarbleSolitaireModelState.SlotState.Invalid, this.defaultBoard.getSlotAt(0, 0));
+    assertEquals(MarbleSolitaireModelState.SlotState.Marble, this.defaultBoard.getSlotAt(3, 2));
+    assertEquals(MarbleSolitaireModelState.SlotState.Empty, this.defaultBoard.getSlotAt(3, 3));
+  }
+
+  @Test
+  public void getScore() {
+    // score decreases after moves
+    this.defaultBoard.move(5, 3, 3, 3);
+    assertEquals(31, this.defaultBoard.getScore());
+    this.defaultBoard.move(4, 5, 4, 3);
+    assertEquals(30, this.defaultBoard.getScore());
+  }
+}
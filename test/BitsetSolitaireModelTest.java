@@ -0,0 +1,288 @@
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import model.BitsetSolitaireModel;
+import model.BoardGeometry;
+import model.EnglishSolitaireModel;
+import model.EuropeanSolitaireModel;
+import model.MarbleSolitaireModel;
+import model.MarbleSolitaireModelState;
+import model.TriangleSolitaireModel;
+import view.MarbleSolitaireTextView;
+import view.TriangleSolitaireTextView;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the bitset model against the array-backed models it stands in for.
+ */
+public class BitsetSolitaireModelTest {
+
+  /**
+   * Asserts that both boards have the same slots and score.
+   */
+  private void assertSameBoard(MarbleSolitaireModelState expected,
+                               MarbleSolitaireModelState actual) {
+    assertEquals(expected.getBoardSize(), actual.getBoardSize());
+    assertEquals(expected.getScore(), actual.getScore());
+    for (int row = 0; row < expected.getBoardSize(); row++) {
+      for (int col = 0; col < expected.getBoardSize(); col++) {
+        assertEquals(expected.getSlotAt(row, col), actual.getSlotAt(row, col));
+      }
+    }
+  }
+
+  @Test
+  public void testValidInitialization() {
+    assertSameBoard(new EnglishSolitaireModel(),
+            new BitsetSolitaireModel(BoardGeometry.Shape.English));
+    assertSameBoard(new EnglishSolitaireModel(2, 3),
+            new BitsetSolitaireModel(BoardGeometry.Shape.English, 2, 3));
+    assertSameBoard(new EnglishSolitaireModel(9),
+            new BitsetSolitaireModel(BoardGeometry.Shape.English, 9));
+    assertSameBoard(new EnglishSolitaireModel(5, 1, 5),
+            new BitsetSolitaireModel(BoardGeometry.Shape.English, 5, 1, 5));
+
+    assertSameBoard(new EuropeanSolitaireModel(),
+            new BitsetSolitaireModel(BoardGeometry.Shape.European));
+    assertSameBoard(new EuropeanSolitaireModel(1, 2),
+            new BitsetSolitaireModel(BoardGeometry.Shape.European, 1, 2));
+    assertSameBoard(new EuropeanSolitaireModel(4),
+            new BitsetSolitaireModel(BoardGeometry.Shape.European, 4));
+    assertSameBoard(new EuropeanSolitaireModel(6, 4, 1),
+            new BitsetSolitaireModel(BoardGeometry.Shape.European, 6, 4, 1));
+
+    assertSameBoard(new TriangleSolitaireModel(),
+            new BitsetSolitaireModel(BoardGeometry.Shape.Triangle));
+    assertSameBoard(new TriangleSolitaireModel(3, 2),
+            new BitsetSolitaireModel(BoardGeometry.Shape.Triangle, 3, 2));
+    assertSameBoard(new TriangleSolitaireModel(9),
+            new BitsetSolitaireModel(BoardGeometry.Shape.Triangle, 9));
+    assertSameBoard(new TriangleSolitaireModel(6, 4, 3),
+            new BitsetSolitaireModel(BoardGeometry.Shape.Triangle, 6, 4, 3));
+  }
+
+  @Test
+  public void testInvalidInitialization() {
+    int[][] badArgs = {{-3}, {2}, {3, 0, 0}, {3, 8, 3}, {-3, 2, 2}, {2, 2, 2}};
+    for (int[] args : badArgs) {
+      try {
+        if (args.length == 1) {
+          new BitsetSolitaireModel(BoardGeometry.Shape.English, args[0]);
+        } else {
+          new BitsetSolitaireModel(BoardGeometry.Shape.English, args[0], args[1], args[2]);
+        }
+        fail("Should have thrown an IllegalArgumentException");
+      } catch (IllegalArgumentException e) {
+        //do nothing; test successfully threw an exception
+      }
+    }
+    try {
+      new BitsetSolitaireModel(BoardGeometry.Shape.European, 0, 0);
+      fail("Should have thrown an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      //do nothing; test successfully threw an exception
+    }
+    try {
+      new BitsetSolitaireModel(BoardGeometry.Shape.Triangle, 4, 2, 3);
+      fail("Should have thrown an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      //do nothing; test successfully threw an exception
+    }
+    try {
+      new BitsetSolitaireModel(null);
+      fail("Should have thrown an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      //do nothing; test successfully threw an exception
+    }
+  }
+
+  @Test
+  public void testGeometryMatchesModels() {
+    for (int size = 1; size <= 11; size++) {
+      MarbleSolitaireModelState european = new EuropeanSolitaireModel(size);
+      assertSameBoard(european, new BitsetSolitaireModel(BoardGeometry.Shape.European, size));
+      MarbleSolitaireModelState triangle = new TriangleSolitaireModel(size);
+      assertSameBoard(triangle, new BitsetSolitaireModel(BoardGeometry.Shape.Triangle, size));
+      if (size % 2 == 1) {
+        MarbleSolitaireModelState english = new EnglishSolitaireModel(size);
+        assertSameBoard(english, new BitsetSolitaireModel(BoardGeometry.Shape.English, size));
+      }
+    }
+  }
+
+  @Test
+  public void move() {
+    MarbleSolitaireModel english = new EnglishSolitaireModel();
+    MarbleSolitaireModel bitset = new BitsetSolitaireModel(BoardGeometry.Shape.English);
+    int[][] moves = {{5, 3, 3, 3}, {4, 5, 4, 3}, {6, 4, 4, 4}, {3, 4, 5, 4}, {6, 2, 6, 4}};
+    for (int[] move : moves) {
+      english.move(move[0], move[1], move[2], move[3]);
+      bitset.move(move[0], move[1], move[2], move[3]);
+      assertSameBoard(english, bitset);
+    }
+
+    // invalid moves : out of bounds, not 2 slots, diagonal, from empty, to full, over empty
+    int[][] invalid = {{3, 7, 3, 5}, {3, 5, 3, 7}, {2, 3, 5, 3}, {2, 1, 4, 3},
+        {3, 4, 3, 2}, {2, 2, 2, 4}, {6, 2, 6, 4}};
+    for (int[] move : invalid) {
+      try {
+        bitset.move(move[0], move[1], move[2], move[3]);
+        fail("Should have thrown an IllegalArgumentException");
+      } catch (IllegalArgumentException e) {
+        //do nothing; test successfully threw an exception
+      }
+    }
+    assertSameBoard(english, bitset);
+  }
+
+  @Test
+  public void moveTriangleDiagonals() {
+    MarbleSolitaireModel triangle = new TriangleSolitaireModel();
+    MarbleSolitaireModel bitset = new BitsetSolitaireModel(BoardGeometry.Shape.Triangle);
+    int[][] moves = {{2, 2, 0, 0}, {4, 0, 2, 2}, {3, 3, 3, 1}, {1, 0, 3, 2}, {2, 2, 4, 0},
+        {3, 0, 1, 0}, {0, 0, 2, 0}, {4, 3, 2, 1}, {2, 0, 2, 2}};
+    for (int[] move : moves) {
+      triangle.move(move[0], move[1], move[2], move[3]);
+      bitset.move(move[0], move[1], move[2], move[3]);
+      assertSameBoard(triangle, bitset);
+    }
+    assertEquals(new TriangleSolitaireTextView(triangle).toString(),
+            new TriangleSolitaireTextView(bitset).toString());
+  }
+
+  @Test
+  public void isGameOver() {
+    MarbleSolitaireModel triangle = new BitsetSolitaireModel(BoardGeometry.Shape.Triangle);
+    int[][] moves = {{2, 0, 0, 0}, {2, 2, 2, 0}, {0, 0, 2, 2}, {4, 1, 2, 1}, {3, 0, 1, 0},
+        {2, 2, 2, 0}, {1, 0, 3, 0}, {4, 0, 2, 0}, {3, 3, 3, 1}, {4, 3, 4, 1}, {2, 0, 4, 2},
+        {4, 1, 4, 3}, {4, 4, 4, 2}};
+    for (int[] move : moves) {
+      assertFalse(triangle.isGameOver());
+      triangle.move(move[0], move[1], move[2], move[3]);
+    }
+    assertTrue(triangle.isGameOver());
+  }
+
+  @Test
+  public void isGameOverMatchesModels() {
+    for (long seed = 0; seed < 20; seed++) {
+      playInLockstep(new EnglishSolitaireModel(5, 2, 6),
+              new BitsetSolitaireModel(BoardGeometry.Shape.English, 5, 2, 6), seed);
+      playInLockstep(new EuropeanSolitaireModel(),
+              new BitsetSolitaireModel(BoardGeometry.Shape.European), seed);
+      playInLockstep(new TriangleSolitaireModel(7, 3, 1),
+              new BitsetSolitaireModel(BoardGeometry.Shape.Triangle, 7, 3, 1), seed);
+    }
+  }
+
+  /**
+   * Plays the same random valid moves on both boards until the game is over, checking that they
+   * agree on whether the game is over after every move.
+   */
+  private void playInLockstep(MarbleSolitaireModel expected, MarbleSolitaireModel actual,
+                              long seed) {
+    Random random = new Random(seed);
+    while (!expected.isGameOver()) {
+      assertFalse(actual.isGameOver());
+      List<int[]> moves = RandomGames.validMoves(expected);
+      int[] move = moves.get(random.nextInt(moves.size()));
+      expected.move(move[0], move[1], move[2], move[3]);
+      actual.move(move[0], move[1], move[2], move[3]);
+      assertSameBoard(expected, actual);
+      assertEquals(expected.getPositionHash(), actual.getPositionHash());
+      int[] expectedMoves = new int[8 * expected.getScore()];
+      int[] actualMoves = new int[8 * expected.getScore()];
+      assertEquals(expected.getLegalMoves(expectedMoves), actual.getLegalMoves(actualMoves));
+      assertArrayEquals(expectedMoves, actualMoves);
+    }
+    assertTrue(actual.isGameOver());
+  }
+
+  @Test
+  public void undoRedo() {
+    for (long seed = 0; seed < 5; seed++) {
+      MarbleSolitaireModel triangle = new BitsetSolitaireModel(BoardGeometry.Shape.Triangle, 7);
+      MarbleSolitaireModel copy = new BitsetSolitaireModel(BoardGeometry.Shape.Triangle, 7);
+      playInLockstep(new TriangleSolitaireModel(7, 0, 0), triangle, seed);
+      // taking every move back returns to the starting board
+      while (triangle.canUndo()) {
+        triangle.undo();
+      }
+      assertSameBoard(copy, triangle);
+      assertEquals(copy.getPositionHash(), triangle.getPositionHash());
+      assertFalse(triangle.isGameOver());
+      while (triangle.canRedo()) {
+        triangle.redo();
+      }
+      assertTrue(triangle.isGameOver());
+    }
+  }
+
+  @Test
+  public void fork() {
+    MarbleSolitaireModel european = new BitsetSolitaireModel(BoardGeometry.Shape.European);
+    european.move(1, 3, 3, 3);
+    MarbleSolitaireModel fork = european.fork();
+    assertSameBoard(european, fork);
+    fork.move(2, 1, 2, 3);
+    assertEquals(MarbleSolitaireModelState.SlotState.Marble, european.getSlotAt(2, 1));
+    european.undo();
+    assertEquals(fork.getScore() + 2, european.getScore());
+
+    // copying a model without a packed board of its own gives the same game
+    MarbleSolitaireModel copy = BitsetSolitaireModel.copyOf(new EuropeanSolitaireModel(4, 1, 2));
+    assertSameBoard(new EuropeanSolitaireModel(4, 1, 2), copy);
+    assertEquals(new EuropeanSolitaireModel(4, 1, 2).getPositionHash(), copy.getPositionHash());
+  }
+
+  @Test
+  public void testLargeBoard() {
+    // about 1.7 million slots, stored in about 210 KB
+    MarbleSolitaireModel large = new BitsetSolitaireModel(BoardGeometry.Shape.English, 601);
+    assertEquals(1801, large.getBoardSize());
+    assertEquals(5 * 601 * 601 - 4 * 601 - 1, large.getScore());
+    assertEquals(MarbleSolitaireModelState.SlotState.Empty, large.getSlotAt(900, 900));
+    large.move(900, 902, 900, 900);
+    assertEquals(MarbleSolitaireModelState.SlotState.Empty, large.getSlotAt(900, 901));
+    assertFalse(large.isGameOver());
+    // undoing puts back exactly the marbles and score the move changed
+    large.undo();
+    assertEquals(MarbleSolitaireModelState.SlotState.Empty, large.getSlotAt(900, 900));
+    assertEquals(MarbleSolitaireModelState.SlotState.Marble, large.getSlotAt(900, 902));
+    assertEquals(5 * 601 * 601 - 4 * 601 - 1, large.getScore());
+    large.redo();
+    assertEquals(5 * 601 * 601 - 4 * 601 - 2, large.getScore());
+  }
+
+  @Test
+  public void testUndoBeyondPackedMoves() {
+    // over 2^29 slots in the grid, too many for the slot of a packed move
+    MarbleSolitaireModel huge = new BitsetSolitaireModel(BoardGeometry.Shape.Triangle, 40000,
+            39999, 39997);
+    int marbles = huge.getScore();
+    huge.move(39999, 39999, 39999, 39997);
+    assertEquals(MarbleSolitaireModelState.SlotState.Empty, huge.getSlotAt(39999, 39999));
+    huge.undo();
+    assertEquals(marbles, huge.getScore());
+    assertEquals(MarbleSolitaireModelState.SlotState.Marble, huge.getSlotAt(39999, 39999));
+    assertEquals(MarbleSolitaireModelState.SlotState.Marble, huge.getSlotAt(39999, 39998));
+    assertEquals(MarbleSolitaireModelState.SlotState.Empty, huge.getSlotAt(39999, 39997));
+    huge.redo();
+    assertEquals(marbles - 1, huge.getScore());
+    assertEquals(MarbleSolitaireModelState.SlotState.Marble, huge.getSlotAt(39999, 39997));
+  }
+
+  @Test
+  public void testTextView() {
+    assertEquals(new MarbleSolitaireTextView(new EuropeanSolitaireModel(2, 3)).toString(),
+            new MarbleSolitaireTextView(
+                    new BitsetSolitaireModel(BoardGeometry.Shape.European, 2, 3)).toString());
+  }
+}
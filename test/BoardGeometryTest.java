@@ -0,0 +1,104 @@
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import model.BoardGeometry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the shared shape and jump tables of the board types.
+ */
+public class BoardGeometryTest {
+
+  @Test
+  public void testShared() {
+    assertSame(BoardGeometry.of(BoardGeometry.Shape.English, 3),
+            BoardGeometry.of(BoardGeometry.Shape.English, 3));
+    assertSame(BoardGeometry.of(BoardGeometry.Shape.Triangle, 5),
+            BoardGeometry.of(BoardGeometry.Shape.Triangle, 5));
+  }
+
+  @Test
+  public void testInvalidSize() {
+    int[][] badArgs = {{0, -1}, {0, 2}, {1, 0}, {2, -3}};
+    for (int[] args : badArgs) {
+      try {
+        BoardGeometry.of(BoardGeometry.Shape.values()[args[0]], args[1]);
+        fail("Should have thrown an IllegalArgumentException");
+      } catch (IllegalArgumentException e) {
+        //do nothing; test successfully threw an exception
+      }
+    }
+  }
+
+  @Test
+  public void testJumpCounts() {
+    // the classic boards: 76 jumps on the English cross and 92 on the European, while the
+    // triangle has 36 plus the two anti-diagonal jumps along its bottom rows
+    assertEquals(76, BoardGeometry.of(BoardGeometry.Shape.English, 3).getJumpCount());
+    assertEquals(92, BoardGeometry.of(BoardGeometry.Shape.European, 3).getJumpCount());
+    assertEquals(38, BoardGeometry.of(BoardGeometry.Shape.Triangle, 5).getJumpCount());
+  }
+
+  @Test
+  public void testJumps() {
+    for (BoardGeometry.Shape shape : BoardGeometry.Shape.values()) {
+      BoardGeometry geometry = BoardGeometry.of(shape, BoardGeometry.defaultSize(shape));
+      for (int jump = 0; jump < geometry.getJumpCount(); jump++) {
+        int from = geometry.getJumpFrom(jump);
+        int dir = geometry.getJumpDirection(jump);
+        assertEquals(jump, geometry.getJump(from, dir));
+        // the three slots lie on a line, one step apart
+        int rowStep = geometry.getCellRow(geometry.getJumpOver(jump)) - geometry.getCellRow(from);
+        int colStep = geometry.getCellCol(geometry.getJumpOver(jump)) - geometry.getCellCol(from);
+        assertEquals(dir, BoardGeometry.directionOf(2 * rowStep, 2 * colStep));
+        assertEquals(geometry.getCellRow(from) + 2 * rowStep,
+                geometry.getCellRow(geometry.getJumpTo(jump)));
+        assertEquals(geometry.getCellCol(from) + 2 * colStep,
+                geometry.getCellCol(geometry.getJumpTo(jump)));
+        assertTrue(geometry.jumpTouches(jump, geometry.getJumpTo(jump)));
+      }
+      // every jump touches exactly three slots
+      int touching = 0;
+      for (int cell = 0; cell < geometry.getCellCount(); cell++) {
+        touching += geometry.getTouchingCount(cell);
+        assertEquals(cell, geometry.cellIndex(geometry.getCellRow(cell),
+                geometry.getCellCol(cell)));
+      }
+      assertEquals(3 * geometry.getJumpCount(), touching);
+    }
+  }
+
+  @Test
+  public void testNoJumpOffTheBoard() {
+    BoardGeometry english = BoardGeometry.of(BoardGeometry.Shape.English, 3);
+    // from (2, 1) upward would land in the invalid corner
+    assertEquals(-1, english.getJump(english.cellIndex(2, 1), 0));
+    // English boards have no diagonal jumps
+    assertEquals(-1, BoardGeometry.directionOf(2, 3));
+    assertEquals(4, english.getDirectionCount());
+  }
+
+  @Test
+  public void testZobristKeysDistinctAcrossGrids() {
+    // slot k of one grid and slot k - 1 of the next grid up used to share a key
+    assertNotEquals(BoardGeometry.zobristKey(7, 0, 5), BoardGeometry.zobristKey(8, 0, 4));
+    Set<Long> keys = new HashSet<>();
+    int slots = 0;
+    for (int dimension = 1; dimension <= 40; dimension++) {
+      for (int row = 0; row < dimension; row++) {
+        for (int col = 0; col < dimension; col++) {
+          keys.add(BoardGeometry.zobristKey(dimension, row, col));
+          slots += 1;
+        }
+      }
+    }
+    assertEquals(slots, keys.size());
+  }
+}
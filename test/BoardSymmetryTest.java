@@ -0,0 +1,127 @@
+import org.junit.Test;
+
+import model.BoardGeometry;
+import model.BoardSymmetry;
+import model.EnglishSolitaireModel;
+import model.EuropeanSolitaireModel;
+import model.MarbleSolitaireModel;
+import model.PackedMove;
+import model.TriangleSolitaireModel;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the symmetries of the board types and their canonical keys.
+ */
+public class BoardSymmetryTest {
+
+  @Test
+  public void testGeometryOfModel() {
+    assertSame(BoardGeometry.of(BoardGeometry.Shape.English, 3),
+            BoardGeometry.of(new EnglishSolitaireModel()));
+    assertSame(BoardGeometry.of(BoardGeometry.Shape.European, 3),
+            BoardGeometry.of(new EuropeanSolitaireModel()));
+    assertSame(BoardGeometry.of(BoardGeometry.Shape.Triangle, 5),
+            BoardGeometry.of(new TriangleSolitaireModel()));
+    assertSame(BoardGeometry.of(BoardGeometry.Shape.European, 4),
+            BoardGeometry.of(new EuropeanSolitaireModel(4)));
+  }
+
+  @Test
+  public void testTransformCount() {
+    assertEquals(8, BoardSymmetry.of(BoardGeometry.of(BoardGeometry.Shape.English, 3))
+            .getTransformCount());
+    assertEquals(8, BoardSymmetry.of(BoardGeometry.of(BoardGeometry.Shape.European, 4))
+            .getTransformCount());
+    // the anti-diagonal jumps leave only the identity and one mirror
+    assertEquals(2, BoardSymmetry.of(BoardGeometry.of(BoardGeometry.Shape.Triangle, 5))
+            .getTransformCount());
+    try {
+      BoardSymmetry.of(null);
+      fail("Should have thrown an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      //do nothing; test successfully threw an exception
+    }
+  }
+
+  @Test
+  public void testMirroredOpeningsShareKey() {
+    BoardGeometry geometry = BoardGeometry.of(BoardGeometry.Shape.English, 3);
+    BoardSymmetry symmetry = BoardSymmetry.of(geometry);
+    // the four opening moves all lead to the same position, turned
+    int[][] openings = {{1, 3, 3, 3}, {5, 3, 3, 3}, {3, 1, 3, 3}, {3, 5, 3, 3}};
+    long key = 0;
+    for (int[] opening : openings) {
+      MarbleSolitaireModel model = new EnglishSolitaireModel();
+      model.move(opening[0], opening[1], opening[2], opening[3]);
+      long board = geometry.pack(model);
+      if (key == 0) {
+        key = symmetry.canonical(board);
+      }
+      assertEquals(key, symmetry.canonical(board));
+      assertEquals(key, symmetry.transform(symmetry.canonicalTransform(board), board));
+    }
+    assertNotEquals(key, symmetry.canonical(geometry.pack(new EnglishSolitaireModel())));
+  }
+
+  @Test
+  public void testMovesMapBack() {
+    BoardGeometry geometry = BoardGeometry.of(BoardGeometry.Shape.European, 3);
+    BoardSymmetry symmetry = BoardSymmetry.of(geometry);
+    MarbleSolitaireModel model = new EuropeanSolitaireModel(1, 2);
+    long board = geometry.pack(model);
+    for (int t = 0; t < symmetry.getTransformCount(); t++) {
+      assertEquals(board, symmetry.transform(symmetry.inverse(t), symmetry.transform(t, board)));
+    }
+    // a move in the canonical position, mapped back, is a move of the original position
+    int t = symmetry.canonicalTransform(board);
+    int[] moves = new int[8 * model.getScore()];
+    int count = model.getLegalMoves(moves);
+    for (int i = 0; i < count; i++) {
+      int image = symmetry.transformMove(t, moves[i]);
+      assertEquals(moves[i], symmetry.transformMove(symmetry.inverse(t), image));
+    }
+    PackedMove.apply(model, symmetry.transformMove(symmetry.inverse(t),
+            symmetry.transformMove(t, moves[0])));
+    assertEquals(geometry.getCellCount() - 2, model.getScore());
+  }
+
+  @Test
+  public void testTriangleMirror() {
+    BoardGeometry geometry = BoardGeometry.of(BoardGeometry.Shape.Triangle, 5);
+    BoardSymmetry symmetry = BoardSymmetry.of(geometry);
+    // the top slot and the bottom right corner swap
+    assertEquals(geometry.cellIndex(4, 4), symmetry.transformCell(1, geometry.cellIndex(0, 0)));
+    assertEquals(symmetry.canonical(geometry.pack(new TriangleSolitaireModel(0, 0))),
+            symmetry.canonical(geometry.pack(new TriangleSolitaireModel(4, 4))));
+  }
+
+  @Test
+  public void testLargeBoard() {
+    // 105 slots, packed into two words
+    BoardGeometry geometry = BoardGeometry.of(BoardGeometry.Shape.English, 5);
+    BoardSymmetry symmetry = BoardSymmetry.of(geometry);
+    long[] left = new long[2];
+    long[] right = new long[2];
+    geometry.pack(new EnglishSolitaireModel(5, 6, 4), left);
+    geometry.pack(new EnglishSolitaireModel(5, 6, 8), right);
+    long[] leftKey = new long[2];
+    long[] rightKey = new long[2];
+    long[] scratch = new long[2];
+    symmetry.canonical(left, leftKey, scratch);
+    int t = symmetry.canonical(right, rightKey, scratch);
+    assertArrayEquals(leftKey, rightKey);
+    symmetry.transform(t, right, scratch);
+    assertArrayEquals(rightKey, scratch);
+    try {
+      symmetry.canonical(left[0]);
+      fail("Should have thrown an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      //do nothing; test successfully threw an exception
+    }
+  }
+}
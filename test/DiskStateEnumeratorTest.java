@@ -0,0 +1,140 @@
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import model.DiskStateEnumerator;
+import model.EnglishSolitaireModel;
+import model.EnumerationResult;
+import model.MarbleSolitaireModel;
+import model.StateEnumerator;
+import model.TriangleSolitaireModel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the enumeration of reachable positions with its levels kept on disk.
+ */
+public class DiskStateEnumeratorTest {
+
+  /**
+   * Checks that two enumerations found the same number of positions at every level.
+   */
+  private void assertSameCounts(EnumerationResult expected, EnumerationResult actual) {
+    assertEquals(expected.getLevelCount(), actual.getLevelCount());
+    for (int level = 0; level < expected.getLevelCount(); level++) {
+      assertEquals(expected.getMarbles(level), actual.getMarbles(level));
+      assertEquals(expected.getPositionCount(level), actual.getPositionCount(level));
+    }
+  }
+
+  /**
+   * Deletes the given directory and the files in it.
+   */
+  private void delete(Path directory) {
+    File[] files = directory.toFile().listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+    directory.toFile().delete();
+  }
+
+  @Test
+  public void enumerateTriangle() throws IOException {
+    Path directory = Files.createTempDirectory("levels");
+    try {
+      MarbleSolitaireModel model = new TriangleSolitaireModel();
+      // small batches, so each level is merged from many runs
+      EnumerationResult result = new DiskStateEnumerator(directory, 2, 7).enumerate(model);
+      assertSameCounts(new StateEnumerator().enumerate(model), result);
+      // only the last level is kept
+      assertEquals(1, directory.toFile().listFiles().length);
+    } finally {
+      this.delete(directory);
+    }
+  }
+
+  @Test
+  public void enumerateLargeBoard() throws IOException {
+    Path directory = Files.createTempDirectory("levels");
+    try {
+      MarbleSolitaireModel model = new EnglishSolitaireModel(5);
+      EnumerationResult result = new DiskStateEnumerator(directory, 3, 100).enumerate(model, 99);
+      assertSameCounts(new StateEnumerator().enumerate(model, 99), result);
+    } finally {
+      this.delete(directory);
+    }
+  }
+
+  @Test
+  public void resume() throws IOException {
+    Path directory = Files.createTempDirectory("levels");
+    try {
+      MarbleSolitaireModel model = new EnglishSolitaireModel();
+      DiskStateEnumerator enumerator = new DiskStateEnumerator(directory, 1, 50);
+      enumerator.enumerate(model, 27);
+      assertTrue(directory.resolve("level-5.bin").toFile().exists());
+      // the leftovers of a level that was being built when the process stopped
+      Files.write(directory.resolve("level-6.run-0"), new byte[16]);
+      Files.write(directory.resolve("level-6.tmp"), new byte[64]);
+      // and an older level it stopped before deleting
+      Files.write(directory.resolve("level-4.bin"), new byte[64]);
+
+      EnumerationResult result = enumerator.enumerate(model, 24);
+      assertSameCounts(new StateEnumerator().enumerate(model, 24), result);
+      assertFalse(directory.resolve("level-6.run-0").toFile().exists());
+      assertFalse(directory.resolve("level-4.bin").toFile().exists());
+      assertFalse(directory.resolve("level-5.bin").toFile().exists());
+      assertTrue(directory.resolve("level-8.bin").toFile().exists());
+
+      // asking for fewer levels than are done reads them back without any work
+      assertSameCounts(new StateEnumerator().enumerate(model, 28),
+              enumerator.enumerate(model, 28));
+    } finally {
+      this.delete(directory);
+    }
+  }
+
+  @Test
+  public void anotherGame() throws IOException {
+    Path directory = Files.createTempDirectory("levels");
+    try {
+      new DiskStateEnumerator(directory).enumerate(new EnglishSolitaireModel(), 30);
+      try {
+        new DiskStateEnumerator(directory).enumerate(new EnglishSolitaireModel(2, 3), 30);
+        fail("Should have thrown an IllegalArgumentException");
+      } catch (IllegalArgumentException e) {
+        //do nothing; test successfully threw an exception
+      }
+    } finally {
+      this.delete(directory);
+    }
+  }
+
+  @Test
+  public void invalidArguments() {
+    Path directory = new File("levels").toPath();
+    int[][] badArgs = {{0, 10}, {1, 0}};
+    for (int[] args : badArgs) {
+      try {
+        new DiskStateEnumerator(directory, args[0], args[1]);
+        fail("Should have thrown an IllegalArgumentException");
+      } catch (IllegalArgumentException e) {
+        //do nothing; test successfully threw an exception
+      }
+    }
+    try {
+      new DiskStateEnumerator(null);
+      fail("Should have thrown an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      //do nothing; test successfully threw an exception
+    }
+  }
+}
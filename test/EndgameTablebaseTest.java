@@ -0,0 +1,153 @@
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import model.BoardGeometry;
+import model.EndgameTablebase;
+import model.EnglishSolitaireModel;
+import model.HintEngine;
+import model.MarbleSolitaireModel;
+import model.PackedMove;
+import model.SolitaireSolver;
+import model.SolverResult;
+import model.TriangleSolitaireModel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the endgame tablebase, against the solver.
+ */
+public class EndgameTablebaseTest {
+
+  @Test
+  public void agreesWithSolver() throws IOException {
+    Path file = Files.createTempFile("endgame", ".bin");
+    try {
+      BoardGeometry geometry = BoardGeometry.of(BoardGeometry.Shape.Triangle, 5);
+      EndgameTablebase.generate(geometry, 15, file, 2);
+      // the header and each level's bits, padded to whole longs
+      long expected = 32;
+      long choose = 1;
+      for (int marbles = 1; marbles <= 15; marbles++) {
+        choose = choose * (16 - marbles) / marbles;
+        expected += (choose + 63) / 64 * 8;
+      }
+      assertEquals(expected, Files.size(file));
+
+      EndgameTablebase tablebase = EndgameTablebase.open(file);
+      assertEquals(geometry, tablebase.getGeometry());
+      assertEquals(15, tablebase.getMaxMarbles());
+      for (int row = 0; row < 5; row++) {
+        for (int col = 0; col <= row; col++) {
+          MarbleSolitaireModel model = new TriangleSolitaireModel(row, col);
+          SolverResult result = new SolitaireSolver().solve(model);
+          assertEquals(result.isSolved(), tablebase.canWin(model));
+          // every position on the way to one marble can be won too
+          for (int move : result.getMoves()) {
+            PackedMove.apply(model, move);
+            assertTrue(tablebase.canWin(model));
+          }
+        }
+      }
+      // a full board has no move, and two marbles apart have none either
+      assertFalse(tablebase.canWin((1L << 15) - 1));
+      assertFalse(tablebase.canWin((1L << 0) | (1L << 14)));
+      assertTrue(tablebase.canWin((1L << 0) | (1L << 1)));
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test
+  public void endsSearches() throws IOException {
+    Path file = Files.createTempFile("endgame", ".bin");
+    try {
+      EndgameTablebase.generate(BoardGeometry.of(BoardGeometry.Shape.English, 3), 6, file, 1);
+      EndgameTablebase tablebase = EndgameTablebase.open(file);
+
+      MarbleSolitaireModel model = new EnglishSolitaireModel();
+      SolverResult result = new SolitaireSolver(true, null, tablebase).solve(model);
+      assertTrue(result.isSolved());
+      for (int move : result.getMoves()) {
+        PackedMove.apply(model, move);
+      }
+      assertEquals(1, model.getScore());
+
+      // play the start of the solution, then follow the hints from six marbles down to one
+      model = new EnglishSolitaireModel();
+      for (int i = 0; i < 26; i++) {
+        PackedMove.apply(model, result.getMoves()[i]);
+      }
+      assertTrue(tablebase.canWin(model));
+      HintEngine engine = new HintEngine(1000, tablebase);
+      while (!model.isGameOver()) {
+        PackedMove.apply(model, engine.hint(model));
+      }
+      assertEquals(1, model.getScore());
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test
+  public void invalidArguments() throws IOException {
+    Path file = Files.createTempFile("endgame", ".bin");
+    try {
+      BoardGeometry geometry = BoardGeometry.of(BoardGeometry.Shape.Triangle, 4);
+      try {
+        EndgameTablebase.generate(geometry, 11, file, 1);
+        fail("Expected an IllegalArgumentException");
+      } catch (IllegalArgumentException e) {
+        assertEquals("Invalid number of marbles 11", e.getMessage());
+      }
+      try {
+        EndgameTablebase.generate(geometry, 3, file, 0);
+        fail("Expected an IllegalArgumentException");
+      } catch (IllegalArgumentException e) {
+        assertEquals("Parallelism must be positive", e.getMessage());
+      }
+      try {
+        EndgameTablebase.generate(BoardGeometry.of(BoardGeometry.Shape.English, 5), 3, file, 1);
+        fail("Expected an IllegalArgumentException");
+      } catch (IllegalArgumentException e) {
+        assertEquals("Board has too many slots", e.getMessage());
+      }
+      try {
+        EndgameTablebase.generate(null, 3, file, 1);
+        fail("Expected an IllegalArgumentException");
+      } catch (IllegalArgumentException e) {
+        assertEquals("Must provide a non-null board geometry", e.getMessage());
+      }
+
+      EndgameTablebase.generate(geometry, 3, file, 1);
+      EndgameTablebase tablebase = EndgameTablebase.open(file);
+      try {
+        tablebase.canWin(0b1111);
+        fail("Expected an IllegalArgumentException");
+      } catch (IllegalArgumentException e) {
+        assertEquals("Position is not covered by the tablebase", e.getMessage());
+      }
+      try {
+        tablebase.canWin(new EnglishSolitaireModel());
+        fail("Expected an IllegalArgumentException");
+      } catch (IllegalArgumentException e) {
+        assertEquals("Game is on another board", e.getMessage());
+      }
+
+      Files.write(file, new byte[64]);
+      try {
+        EndgameTablebase.open(file);
+        fail("Expected an IOException");
+      } catch (IOException e) {
+        assertEquals("Not an endgame tablebase", e.getMessage());
+      }
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+}
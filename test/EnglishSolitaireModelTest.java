@@ -2,11 +2,16 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import model.BoardGeometry;
 import model.EnglishSolitaireModel;
+import model.MarbleSolitaireModel;
 import model.MarbleSolitaireModelState;
+import model.PackedMove;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -269,6 +274,177 @@ public class EnglishSolitaireModelTest {
     assertTrue(this.defaultBoard.isGameOver());
   }
 
+  @Test
+  public void canMove() {
+    assertEquals(MarbleSolitaireModelState.MoveResult.Valid, this.defaultBoard.canMove(5,3,3,3));
+    assertEquals(MarbleSolitaireModelState.MoveResult.NotTwoSlots,
+            this.defaultBoard.canMove(2,3,5,3));
+    assertEquals(MarbleSolitaireModelState.MoveResult.NotTwoSlots,
+            this.defaultBoard.canMove(5,5,3,3));
+    assertEquals(MarbleSolitaireModelState.MoveResult.FromOutOfBounds,
+            this.defaultBoard.canMove(3,7,3,5));
+    assertEquals(MarbleSolitaireModelState.MoveResult.ToOutOfBounds,
+            this.defaultBoard.canMove(3,5,3,7));
+    assertEquals(MarbleSolitaireModelState.MoveResult.ToNotEmpty,
+            this.defaultBoard.canMove(5,3,5,1));
+    this.defaultBoard.move(5,3,3,3);
+    assertEquals(MarbleSolitaireModelState.MoveResult.FromNotMarble,
+            this.defaultBoard.canMove(5,3,3,3));
+    assertEquals(MarbleSolitaireModelState.MoveResult.OverNotMarble,
+            this.defaultBoard.canMove(3,3,5,3));
+    // probing never changes the board
+    assertEquals(31, this.defaultBoard.getScore());
+  }
+
+  @Test
+  public void getLegalMoves() {
+    int[] moves = new int[8 * this.defaultBoard.getScore()];
+    // the four moves into the center, in slot order
+    assertEquals(4, this.defaultBoard.getLegalMoves(moves));
+    assertEquals(PackedMove.of(1, 3, 1, 7), moves[0]);
+    assertEquals(PackedMove.of(3, 1, 3, 7), moves[1]);
+    assertEquals(PackedMove.of(3, 5, 2, 7), moves[2]);
+    assertEquals(PackedMove.of(5, 3, 0, 7), moves[3]);
+    PackedMove.apply(this.defaultBoard, moves[3]);
+    assertEquals(MarbleSolitaireModelState.SlotState.Marble, this.defaultBoard.getSlotAt(3,3));
+    assertEquals(3, this.defaultBoard.getLegalMoves(moves));
+    // a buffer that is too small
+    try {
+      this.defaultBoard.getLegalMoves(new int[2]);
+      fail("Should have thrown an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      //do nothing; test successfully threw an exception
+    }
+    // the last slot a packed move can start from, and the first it cannot
+    int last = (1 << 28) - 1;
+    assertEquals(last, PackedMove.fromCell(PackedMove.of(last, 7)));
+    assertEquals(7, PackedMove.direction(PackedMove.of(last, 7)));
+    try {
+      PackedMove.of(1 << 28, 0);
+      fail("Should have thrown an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Slot 268435456 is too large to pack", e.getMessage());
+    }
+    try {
+      PackedMove.of(20000, 0, 0, 20000);
+      fail("Should have thrown an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      //do nothing; test successfully threw an exception
+    }
+  }
+
+  @Test
+  public void getPositionHash() {
+    assertEquals(hashFromScratch(this.defaultBoard), this.defaultBoard.getPositionHash());
+    assertEquals(hashFromScratch(this.armAndPosBoard), this.armAndPosBoard.getPositionHash());
+    assertNotEquals(this.defaultBoard.getPositionHash(), this.emptyPosBoard.getPositionHash());
+
+    // the same position reached in two different orders has the same hash
+    EnglishSolitaireModel other = new EnglishSolitaireModel();
+    int[][] opening = {{1, 3, 3, 3}, {2, 1, 2, 3}};
+    for (int[] move : opening) {
+      this.defaultBoard.move(move[0], move[1], move[2], move[3]);
+      other.move(move[0], move[1], move[2], move[3]);
+    }
+    this.defaultBoard.move(0, 2, 2, 2);
+    this.defaultBoard.move(3, 3, 1, 3);
+    other.move(3, 3, 1, 3);
+    other.move(0, 2, 2, 2);
+    assertEquals(hashFromScratch(this.defaultBoard), this.defaultBoard.getPositionHash());
+    assertEquals(this.defaultBoard.getPositionHash(), other.getPositionHash());
+    // and one more move changes it
+    int[] moves = new int[8 * other.getScore()];
+    other.getLegalMoves(moves);
+    PackedMove.apply(other, moves[0]);
+    assertNotEquals(this.defaultBoard.getPositionHash(), other.getPositionHash());
+  }
+
+  /**
+   * Hashes the given board by XORing the key of every marble.
+   */
+  private long hashFromScratch(MarbleSolitaireModelState model) {
+    long hash = 0;
+    for (int row = 0; row < model.getBoardSize(); row++) {
+      for (int col = 0; col < model.getBoardSize(); col++) {
+        if (model.getSlotAt(row, col) == MarbleSolitaireModelState.SlotState.Marble) {
+          hash ^= BoardGeometry.zobristKey(model.getBoardSize(), row, col);
+        }
+      }
+    }
+    return hash;
+  }
+
+  @Test
+  public void undoRedo() {
+    assertFalse(this.defaultBoard.canUndo());
+    assertFalse(this.defaultBoard.canRedo());
+    try {
+      this.defaultBoard.undo();
+      fail("Should have thrown an IllegalStateException");
+    } catch (IllegalStateException e) {
+      //do nothing; test successfully threw an exception
+    }
+    long start = this.defaultBoard.getPositionHash();
+    this.defaultBoard.move(5, 3, 3, 3);
+    long afterFirst = this.defaultBoard.getPositionHash();
+    this.defaultBoard.move(4, 5, 4, 3);
+    assertEquals(30, this.defaultBoard.getScore());
+
+    this.defaultBoard.undo();
+    assertEquals(31, this.defaultBoard.getScore());
+    assertEquals(afterFirst, this.defaultBoard.getPositionHash());
+    assertEquals(MarbleSolitaireModelState.SlotState.Marble, this.defaultBoard.getSlotAt(4, 5));
+    assertEquals(MarbleSolitaireModelState.SlotState.Marble, this.defaultBoard.getSlotAt(4, 4));
+    assertEquals(MarbleSolitaireModelState.SlotState.Empty, this.defaultBoard.getSlotAt(4, 3));
+    this.defaultBoard.undo();
+    assertEquals(32, this.defaultBoard.getScore());
+    assertEquals(start, this.defaultBoard.getPositionHash());
+    assertFalse(this.defaultBoard.canUndo());
+    // the count of valid moves is restored too
+    int[] moves = new int[8 * this.defaultBoard.getScore()];
+    assertEquals(4, this.defaultBoard.getLegalMoves(moves));
+
+    this.defaultBoard.redo();
+    this.defaultBoard.redo();
+    assertEquals(30, this.defaultBoard.getScore());
+    assertFalse(this.defaultBoard.canRedo());
+    // a new move drops the moves that could be redone
+    this.defaultBoard.undo();
+    this.defaultBoard.move(2, 3, 4, 3);
+    assertFalse(this.defaultBoard.canRedo());
+    try {
+      this.defaultBoard.redo();
+      fail("Should have thrown an IllegalStateException");
+    } catch (IllegalStateException e) {
+      //do nothing; test successfully threw an exception
+    }
+  }
+
+  @Test
+  public void fork() {
+    this.defaultBoard.move(5, 3, 3, 3);
+    MarbleSolitaireModel fork = this.defaultBoard.fork();
+    assertEquals(this.defaultBoard.getScore(), fork.getScore());
+    assertEquals(this.defaultBoard.getPositionHash(), fork.getPositionHash());
+    assertFalse(fork.canUndo());
+
+    // moves on either copy leave the other alone
+    fork.move(4, 5, 4, 3);
+    assertEquals(30, fork.getScore());
+    assertEquals(31, this.defaultBoard.getScore());
+    assertEquals(MarbleSolitaireModelState.SlotState.Marble, this.defaultBoard.getSlotAt(4, 5));
+    this.defaultBoard.move(4, 1, 4, 3);
+    assertEquals(MarbleSolitaireModelState.SlotState.Marble, fork.getSlotAt(4, 1));
+    assertEquals(hashFromScratch(fork), fork.getPositionHash());
+    assertEquals(hashFromScratch(this.defaultBoard), this.defaultBoard.getPositionHash());
+    // a fork of a fork still lists the same moves
+    int[] forkMoves = new int[8 * fork.getScore()];
+    int[] boardMoves = new int[8 * fork.getScore()];
+    assertEquals(this.defaultBoard.getLegalMoves(boardMoves),
+            this.defaultBoard.fork().fork().getLegalMoves(forkMoves));
+    assertArrayEquals(boardMoves, forkMoves);
+  }
+
   @Test
   public void getBoardSize() {
     assertEquals(7, this.defaultBoard.getBoardSize());
@@ -257,6 +257,15 @@ public class EuropeanSolitaireModelTest {
     // game over now; no more valid moves available
   }
 
+  @Test
+  public void isGameOverAfterRandomGames() {
+    for (long seed = 0; seed < 20; seed++) {
+      RandomGames.play(new EuropeanSolitaireModel(), seed);
+      RandomGames.play(new EuropeanSolitaireModel(4), seed);
+      RandomGames.play(new EuropeanSolitaireModel(5, 2, 6), seed);
+    }
+  }
+
   @Test
   public void getBoardSize() {
     assertEquals(7, this.defaultBoard.getBoardSize());
@@ -314,4 +323,4 @@ public class EuropeanSolitaireModelTest {
     assertEquals(33, this.defaultBoard.getScore());
 
   }
-}
\ No newline at end of file
+}
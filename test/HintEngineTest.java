@@ -0,0 +1,97 @@
+import org.junit.Test;
+
+import model.EnglishSolitaireModel;
+import model.HintEngine;
+import model.MarbleSolitaireModel;
+import model.PackedMove;
+import model.TriangleSolitaireModel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the time-bounded hint engine.
+ */
+public class HintEngineTest {
+
+  @Test
+  public void hintsWinTriangle() {
+    // the Triangle board is small enough to search to the end, so following every hint wins
+    HintEngine engine = new HintEngine(1000);
+    for (int row = 0; row < 5; row++) {
+      for (int col = 0; col <= row; col++) {
+        MarbleSolitaireModel model = new TriangleSolitaireModel(row, col);
+        while (!model.isGameOver()) {
+          PackedMove.apply(model, engine.hint(model));
+        }
+        assertEquals(1, model.getScore());
+      }
+    }
+  }
+
+  @Test
+  public void hintKeepsDeadline() {
+    // the budget is 50 ms; the bound allows for a slow or busy machine, and only a hint that
+    // ignored its deadline would take longer
+    HintEngine engine = new HintEngine(50);
+    MarbleSolitaireModel model = new EnglishSolitaireModel(7);
+    int marbles = model.getScore();
+    engine.prepare(model);
+    for (int i = 0; i < 6; i++) {
+      long start = System.nanoTime();
+      int move = engine.hint(model);
+      long millis = (System.nanoTime() - start) / 1_000_000;
+      assertTrue("hint took " + millis + " ms", millis < 1000);
+      PackedMove.apply(model, move);
+    }
+    // the hints never change the game themselves, only the moves made from them
+    assertEquals(marbles - 6, model.getScore());
+
+    // on a board this large each position looks at over 30,000 jumps, so the clock is checked at
+    // every one
+    model = new EnglishSolitaireModel(41);
+    marbles = model.getScore();
+    engine.prepare(model);
+    long start = System.nanoTime();
+    int move = engine.hint(model);
+    long millis = (System.nanoTime() - start) / 1_000_000;
+    assertTrue("hint took " + millis + " ms", millis < 1000);
+    PackedMove.apply(model, move);
+    assertEquals(marbles - 1, model.getScore());
+  }
+
+  @Test
+  public void rankingSurvivesDeadline() {
+    // a hint cut off at any point still gives a valid move
+    MarbleSolitaireModel model = new EnglishSolitaireModel(9);
+    for (long millis = 1; millis <= 16; millis *= 2) {
+      HintEngine engine = new HintEngine(millis);
+      engine.prepare(model);
+      MarbleSolitaireModel copy = new EnglishSolitaireModel(9);
+      PackedMove.apply(copy, engine.hint(model));
+      assertEquals(model.getScore() - 1, copy.getScore());
+    }
+  }
+
+  @Test
+  public void noHint() {
+    assertEquals(-1, new HintEngine().hint(new TriangleSolitaireModel(2)));
+  }
+
+  @Test
+  public void invalidArguments() {
+    try {
+      new HintEngine(0);
+      fail("Expected an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Time budget must be positive", e.getMessage());
+    }
+    try {
+      new HintEngine().hint(null);
+      fail("Expected an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Must provide a non-null model", e.getMessage());
+    }
+  }
+}
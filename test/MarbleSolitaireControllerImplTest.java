@@ -6,7 +6,9 @@ import java.io.StringReader;
 import controller.MarbleSolitaireController;
 import controller.MarbleSolitaireControllerImpl;
 import model.EnglishSolitaireModel;
+import model.HintEngine;
 import model.MarbleSolitaireModel;
+import model.MarbleSolitaireModelState;
 import model.EuropeanSolitaireModel;
 import model.TriangleSolitaireModel;
 import view.MarbleSolitaireTextView;
@@ -39,6 +41,12 @@ public class MarbleSolitaireControllerImplTest {
       log.append("from: (" + fromRow + "," + fromCol + "), to: (" + toRow + "," + toCol + ")\n");
     }
 
+    @Override
+    public MoveResult canMove(int fromRow, int fromCol, int toRow, int toCol) {
+      // the mock does not judge moves, so every move is passed on to move()
+      return MoveResult.Valid;
+    }
+
     @Override
     public boolean isGameOver() {
       return false;
@@ -671,4 +679,52 @@ public class MarbleSolitaireControllerImplTest {
     assertEquals(85, messages.length);
 
   }
-}
\ No newline at end of file
+
+  @Test
+  // tests the hint token, with the real engine and with a board it does not know
+  public void testHint() {
+    // a hint on a fresh game is a valid move, and the game carries on afterwards
+    in = new StringReader("hint q");
+    controller = new MarbleSolitaireControllerImpl(modelOut, viewOut, in, new HintEngine(50));
+    controller.playGame();
+    messages = out.toString().split("\n");
+    assertTrue(messages[8].startsWith("Hint: "));
+    String[] hint = messages[8].substring(6).split(" ");
+    assertEquals(MarbleSolitaireModelState.MoveResult.Valid, new EnglishSolitaireModel().canMove(
+            Integer.parseInt(hint[0]) - 1, Integer.parseInt(hint[1]) - 1,
+            Integer.parseInt(hint[2]) - 1, Integer.parseInt(hint[3]) - 1));
+    assertEquals("Game quit!", messages[9]);
+    assertEquals(32, modelOut.getScore());
+
+    // a hint in the middle of typing a move keeps what was typed
+    in = new StringReader("6 4 hint 4 4 hint q");
+    controller = new MarbleSolitaireControllerImpl(modelIn, viewIn, in);
+    controller.playGame();
+    assertEquals("from: (5,3), to: (3,3)\n", log.toString());
+    assertTrue(out.toString().contains("No hint available.\n"));
+
+    try {
+      new MarbleSolitaireControllerImpl(modelOut, viewOut, new StringReader(""), null);
+      fail("Expected an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("must have non-null model, view, and input", e.getMessage());
+    }
+  }
+
+  @Test
+  // tests that a move the model's canMove accepts but its move() rejects is reported as invalid
+  public void testMoveRejected() {
+    MarbleSolitaireModel model = new ModelMock(log) {
+      @Override
+      public void move(int fromRow, int fromCol, int toRow, int toCol)
+              throws IllegalArgumentException {
+        throw new IllegalArgumentException("Invalid move");
+      }
+    };
+    in = new StringReader("6 4 4 4 q");
+    controller = new MarbleSolitaireControllerImpl(model, new MarbleSolitaireTextView(model, out),
+            in);
+    controller.playGame();
+    assertTrue(out.toString().contains("Invalid move. Play again.\n"));
+  }
+}
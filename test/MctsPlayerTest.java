@@ -0,0 +1,122 @@
+import org.junit.Test;
+
+import model.EnglishSolitaireModel;
+import model.MarbleSolitaireModel;
+import model.MctsPlayer;
+import model.PackedMove;
+import model.TriangleSolitaireModel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the Monte Carlo tree search player.
+ */
+public class MctsPlayerTest {
+
+  @Test
+  public void winsTriangle() {
+    MctsPlayer player = new MctsPlayer(1, 20_000, 60_000);
+    MarbleSolitaireModel model = new TriangleSolitaireModel();
+    int[] moves = player.play(model);
+    assertEquals(13, moves.length);
+    assertEquals(1, model.getScore());
+    assertTrue(model.isGameOver());
+    // once a win has been played out, the rest of it is kept and each move takes one iteration
+    assertEquals(1, player.getIterations());
+  }
+
+  @Test
+  public void suggestLeavesGameUnchanged() {
+    MctsPlayer player = new MctsPlayer(2, 500, 60_000);
+    MarbleSolitaireModel model = new EnglishSolitaireModel();
+    int move = player.suggest(model);
+    assertEquals(32, model.getScore());
+    assertTrue(player.getIterations() <= 500);
+    // every valid first move jumps into the center
+    assertEquals(3, PackedMove.toRow(move, 7));
+    assertEquals(3, PackedMove.toCol(move, 7));
+    // asking again about the same game carries on with the same tree
+    int nodes = player.getNodeCount();
+    player.suggest(model);
+    assertTrue(player.getNodeCount() >= nodes);
+  }
+
+  @Test
+  public void playsWithThreads() {
+    MctsPlayer player = new MctsPlayer(3, 2_000, 60_000, 1 << 12);
+    MarbleSolitaireModel model = new EnglishSolitaireModel();
+    int[] moves = player.play(model);
+    assertEquals(32 - moves.length, model.getScore());
+    assertTrue(model.isGameOver());
+    assertTrue(model.getScore() <= 8);
+    assertTrue(player.getNodeCount() <= 1 << 12);
+  }
+
+  @Test
+  public void keepsTimeBudget() {
+    MctsPlayer player = new MctsPlayer(1, Long.MAX_VALUE, 100);
+    MarbleSolitaireModel model = new EnglishSolitaireModel(7);
+    long start = System.nanoTime();
+    int move = player.suggest(model);
+    assertTrue(move >= 0);
+    assertTrue(System.nanoTime() - start < 1_000_000_000L);
+    assertTrue(player.getIterations() > 0);
+
+    // a single game on this board takes longer than the budget, and is cut off, but a valid move is
+    // still suggested in time
+    model = new EnglishSolitaireModel(41);
+    int marbles = model.getScore();
+    player.suggest(model);
+    start = System.nanoTime();
+    move = player.suggest(model);
+    assertTrue(System.nanoTime() - start < 1_000_000_000L);
+    PackedMove.apply(model, move);
+    assertEquals(marbles - 1, model.getScore());
+  }
+
+  @Test
+  public void gameOver() {
+    MarbleSolitaireModel model = new TriangleSolitaireModel(3, 0, 0);
+    model.move(2, 0, 0, 0);
+    model.move(2, 2, 2, 0);
+    model.move(0, 0, 2, 2);
+    assertEquals(-1, new MctsPlayer(1, 10, 1000).suggest(model));
+    assertEquals(0, new MctsPlayer(1, 10, 1000).play(model).length);
+  }
+
+  @Test
+  public void invalidArguments() {
+    try {
+      new MctsPlayer(0, 1, 1);
+      fail("Parallelism must be positive");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Parallelism must be positive", e.getMessage());
+    }
+    try {
+      new MctsPlayer(1, 0, 1);
+      fail("Iterations must be positive");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Iteration budget must be positive", e.getMessage());
+    }
+    try {
+      new MctsPlayer(1, 1, 0);
+      fail("Time must be positive");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Time budget must be positive", e.getMessage());
+    }
+    try {
+      new MctsPlayer(1, 1, 1, 0);
+      fail("Capacity must be positive");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Capacity must be positive", e.getMessage());
+    }
+    try {
+      new MctsPlayer(1, 1, 1).suggest(null);
+      fail("Model must be non-null");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Must provide a non-null model", e.getMessage());
+    }
+  }
+}
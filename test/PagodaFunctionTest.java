@@ -0,0 +1,113 @@
+import org.junit.Test;
+
+import java.util.List;
+
+import model.BoardGeometry;
+import model.EnglishSolitaireModel;
+import model.MarbleSolitaireModel;
+import model.PackedMove;
+import model.PagodaFunction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the pagoda function libraries of the board types.
+ */
+public class PagodaFunctionTest {
+
+  @Test
+  public void testShared() {
+    BoardGeometry geometry = BoardGeometry.of(BoardGeometry.Shape.English, 3);
+    assertSame(PagodaFunction.libraryOf(geometry), PagodaFunction.libraryOf(geometry));
+  }
+
+  @Test
+  public void testLibraries() {
+    for (BoardGeometry.Shape shape : BoardGeometry.Shape.values()) {
+      BoardGeometry geometry = BoardGeometry.of(shape, BoardGeometry.defaultSize(shape));
+      List<PagodaFunction> library = PagodaFunction.libraryOf(geometry);
+      assertFalse(library.isEmpty());
+      for (PagodaFunction pagoda : library) {
+        assertSame(geometry, pagoda.getGeometry());
+        for (int jump = 0; jump < geometry.getJumpCount(); jump++) {
+          assertTrue(pagoda.getJumpDelta(jump) <= 0);
+          assertEquals(pagoda.getWeight(geometry.getJumpTo(jump))
+                  - pagoda.getWeight(geometry.getJumpFrom(jump))
+                  - pagoda.getWeight(geometry.getJumpOver(jump)), pagoda.getJumpDelta(jump));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testTargetLibrary() {
+    BoardGeometry geometry = BoardGeometry.of(BoardGeometry.Shape.English, 3);
+    int center = geometry.cellIndex(3, 3);
+    List<PagodaFunction> useful = PagodaFunction.libraryOf(geometry, center);
+    assertFalse(useful.isEmpty());
+    assertTrue(useful.size() <= 16);
+    for (PagodaFunction pagoda : useful) {
+      assertTrue(pagoda.getWeight(center) > pagoda.getMinWeight());
+    }
+  }
+
+  @Test
+  public void testValueNeverRises() {
+    MarbleSolitaireModel model = new EnglishSolitaireModel();
+    List<PagodaFunction> library = PagodaFunction.libraryOf(BoardGeometry.of(model));
+    int[] values = new int[library.size()];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = library.get(i).valueOf(model);
+    }
+    int[] moves = new int[8 * model.getScore()];
+    while (!model.isGameOver()) {
+      model.getLegalMoves(moves);
+      PackedMove.apply(model, moves[0]);
+      for (int i = 0; i < values.length; i++) {
+        int value = library.get(i).valueOf(model);
+        assertTrue(value <= values[i]);
+        values[i] = value;
+      }
+    }
+  }
+
+  @Test
+  public void testCanReach() {
+    BoardGeometry geometry = BoardGeometry.of(BoardGeometry.Shape.English, 3);
+    // every row but one in three
+    int[] weights = new int[geometry.getCellCount()];
+    for (int cell = 0; cell < weights.length; cell++) {
+      weights[cell] = geometry.getCellRow(cell) % 3 == 2 ? 0 : 1;
+    }
+    PagodaFunction pagoda = new PagodaFunction(geometry, weights);
+    int target = geometry.cellIndex(0, 3);
+    assertTrue(pagoda.canReach(1, target));
+    assertFalse(pagoda.canReach(0, target));
+    assertEquals(23, pagoda.getTotalWeight());
+    assertEquals(22, pagoda.valueOf(new EnglishSolitaireModel()));
+  }
+
+  @Test
+  public void testNotPagoda() {
+    BoardGeometry geometry = BoardGeometry.of(BoardGeometry.Shape.English, 3);
+    int[] weights = new int[geometry.getCellCount()];
+    // a marble can jump into the center from two empty slots
+    weights[geometry.cellIndex(3, 3)] = 1;
+    try {
+      new PagodaFunction(geometry, weights);
+      fail("Should have thrown an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      //do nothing; test successfully threw an exception
+    }
+    try {
+      new PagodaFunction(geometry, new int[3]);
+      fail("Should have thrown an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      //do nothing; test successfully threw an exception
+    }
+  }
+}
@@ -0,0 +1,86 @@
+import org.junit.Test;
+
+import model.EnglishSolitaireModel;
+import model.EuropeanSolitaireModel;
+import model.MarbleSolitaireModel;
+import model.PackedMove;
+import model.ParallelSolitaireSolver;
+import model.SolverResult;
+import model.TriangleSolitaireModel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the parallel solver on each board type and with different numbers of threads.
+ */
+public class ParallelSolitaireSolverTest {
+
+  /**
+   * Plays the moves of the given solution on the given game and checks that one marble is left.
+   */
+  private void assertWins(MarbleSolitaireModel model, SolverResult result) {
+    assertTrue(result.isSolved());
+    assertEquals(model.getScore() - 1, result.getMoves().length);
+    for (int move : result.getMoves()) {
+      PackedMove.apply(model, move);
+    }
+    assertEquals(1, model.getScore());
+    assertTrue(model.isGameOver());
+  }
+
+  @Test
+  public void solveEnglish() {
+    for (int threads = 1; threads <= 4; threads *= 2) {
+      MarbleSolitaireModel model = new EnglishSolitaireModel();
+      SolverResult result = new ParallelSolitaireSolver(threads).solve(model);
+      // the model itself is left alone
+      assertEquals(32, model.getScore());
+      assertTrue(result.getNodeCount() > 0);
+      assertWins(model, result);
+    }
+  }
+
+  @Test
+  public void solveTriangle() {
+    ParallelSolitaireSolver solver = new ParallelSolitaireSolver(2);
+    for (int row = 0; row < 5; row++) {
+      for (int col = 0; col <= row; col++) {
+        MarbleSolitaireModel model = new TriangleSolitaireModel(row, col);
+        assertWins(model, solver.solve(model));
+      }
+    }
+  }
+
+  @Test
+  public void solveEuropean() {
+    ParallelSolitaireSolver solver = new ParallelSolitaireSolver(3);
+    MarbleSolitaireModel model = new EuropeanSolitaireModel(2, 0, 1);
+    assertWins(model, solver.solve(model));
+    SolverResult result = solver.solve(new EuropeanSolitaireModel(2, 1, 1));
+    assertFalse(result.isSolved());
+    assertEquals(0, result.getMoves().length);
+  }
+
+  @Test
+  public void invalidParallelism() {
+    try {
+      new ParallelSolitaireSolver(0);
+      fail("Should have thrown an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      //do nothing; test successfully threw an exception
+    }
+  }
+
+  @Test
+  public void solveNull() {
+    try {
+      new ParallelSolitaireSolver().solve(null);
+      fail("Should have thrown an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      //do nothing; test successfully threw an exception
+    }
+  }
+}
@@ -0,0 +1,98 @@
+import org.junit.Test;
+
+import model.EnglishSolitaireModel;
+import model.EuropeanSolitaireModel;
+import model.MarbleSolitaireModel;
+import model.PackedMove;
+import model.PlayoutEngine;
+import model.PlayoutResult;
+import model.TriangleSolitaireModel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the random playout engine.
+ */
+public class PlayoutEngineTest {
+
+  @Test
+  public void countsEveryPlayout() {
+    MarbleSolitaireModel model = new EnglishSolitaireModel();
+    PlayoutResult result = new PlayoutEngine(2).run(model, 10_000, 7);
+    // the four jumps into the center
+    assertEquals(4, result.getMoveCount());
+    assertEquals(40_000, result.getTotalPlayouts());
+    for (int i = 0; i < result.getMoveCount(); i++) {
+      assertEquals(10_000, result.getPlayouts(i));
+      assertEquals(0, result.getCount(i, 0));
+      assertEquals(0, result.getCount(i, 32));
+      double mean = result.getMeanMarbles(i);
+      assertTrue(mean > 1 && mean < 31);
+      int move = result.getMove(i);
+      assertEquals(3, PackedMove.toRow(move, 7));
+      assertEquals(3, PackedMove.toCol(move, 7));
+    }
+    // the game is left as it was
+    assertEquals(32, model.getScore());
+  }
+
+  @Test
+  public void sameSeedSameCounts() {
+    MarbleSolitaireModel model = new EuropeanSolitaireModel(3, 0, 2);
+    PlayoutResult one = new PlayoutEngine(1).run(model, 9_000, 42);
+    PlayoutResult three = new PlayoutEngine(3).run(model, 9_000, 42);
+    assertEquals(one.getMoveCount(), three.getMoveCount());
+    for (int i = 0; i < one.getMoveCount(); i++) {
+      assertEquals(one.getMove(i), three.getMove(i));
+      for (int marbles = 0; marbles <= 37; marbles++) {
+        assertEquals(one.getCount(i, marbles), three.getCount(i, marbles));
+      }
+    }
+  }
+
+  @Test
+  public void findsWins() {
+    PlayoutResult result = new PlayoutEngine().run(new TriangleSolitaireModel(), 20_000, 1);
+    assertEquals(2, result.getMoveCount());
+    for (int i = 0; i < result.getMoveCount(); i++) {
+      assertTrue(result.getWinRate(i) > 0);
+      assertEquals(result.getCount(i, 1) / 20_000.0, result.getWinRate(i), 1e-12);
+    }
+  }
+
+  @Test
+  public void gameOver() {
+    MarbleSolitaireModel model = new TriangleSolitaireModel(3, 0, 0);
+    model.move(2, 0, 0, 0);
+    model.move(2, 2, 2, 0);
+    model.move(0, 0, 2, 2);
+    assertTrue(model.isGameOver());
+    PlayoutResult result = new PlayoutEngine(1).run(model, 100, 0);
+    assertEquals(0, result.getMoveCount());
+    assertEquals(0, result.getTotalPlayouts());
+  }
+
+  @Test
+  public void invalidArguments() {
+    try {
+      new PlayoutEngine(0);
+      fail("Parallelism must be positive");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Parallelism must be positive", e.getMessage());
+    }
+    try {
+      new PlayoutEngine(1).run(null, 1, 0);
+      fail("Model must be non-null");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Must provide a non-null model", e.getMessage());
+    }
+    try {
+      new PlayoutEngine(1).run(new EnglishSolitaireModel(), 0, 0);
+      fail("Playouts must be positive");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Playout count must be positive", e.getMessage());
+    }
+  }
+}
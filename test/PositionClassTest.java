@@ -0,0 +1,95 @@
+import org.junit.Test;
+
+import model.BoardGeometry;
+import model.EnglishSolitaireModel;
+import model.EuropeanSolitaireModel;
+import model.MarbleSolitaireModel;
+import model.PackedMove;
+import model.PositionClass;
+import model.SolitaireSolver;
+import model.TriangleSolitaireModel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the position classes of the board types.
+ */
+public class PositionClassTest {
+
+  @Test
+  public void testShared() {
+    BoardGeometry geometry = BoardGeometry.of(BoardGeometry.Shape.English, 3);
+    assertSame(PositionClass.of(geometry), PositionClass.of(geometry));
+  }
+
+  @Test
+  public void testClassCounts() {
+    // the classic sixteen classes of the square boards
+    assertEquals(16, PositionClass.of(BoardGeometry.of(BoardGeometry.Shape.English, 3))
+            .getClassCount());
+    assertEquals(16, PositionClass.of(BoardGeometry.of(BoardGeometry.Shape.English, 5))
+            .getClassCount());
+    assertEquals(16, PositionClass.of(BoardGeometry.of(BoardGeometry.Shape.European, 3))
+            .getClassCount());
+  }
+
+  @Test
+  public void testEuropeanCenter() {
+    // the well-known European game from the center cannot be won anywhere
+    MarbleSolitaireModel model = new EuropeanSolitaireModel();
+    assertFalse(PositionClass.canFinish(model));
+    assertFalse(PositionClass.canFinishAt(model, 3, 3));
+    assertTrue(PositionClass.canFinish(new EuropeanSolitaireModel(3, 1, 3)));
+  }
+
+  @Test
+  public void testEnglishCenter() {
+    MarbleSolitaireModel model = new EnglishSolitaireModel();
+    assertTrue(PositionClass.canFinish(model));
+    assertTrue(PositionClass.canFinishAt(model, 3, 3));
+    // the slots next to the center are of another class
+    assertFalse(PositionClass.canFinishAt(model, 3, 4));
+    assertFalse(PositionClass.canFinishAt(model, 2, 3));
+  }
+
+  @Test
+  public void testClassNeverChanges() {
+    MarbleSolitaireModel model = new EnglishSolitaireModel();
+    PositionClass classes = PositionClass.of(BoardGeometry.of(model));
+    int start = classes.classOf(model);
+    int[] moves = new int[8 * model.getScore()];
+    while (!model.isGameOver()) {
+      int count = model.getLegalMoves(moves);
+      PackedMove.apply(model, moves[count - 1]);
+      assertEquals(start, classes.classOf(model));
+    }
+  }
+
+  @Test
+  public void testAgreesWithSolver() {
+    // a slot ruled out by its class is never one the solver can finish in
+    BoardGeometry geometry = BoardGeometry.of(BoardGeometry.Shape.Triangle, 5);
+    MarbleSolitaireModel model = new TriangleSolitaireModel();
+    for (int cell = 0; cell < geometry.getCellCount(); cell++) {
+      int row = geometry.getCellRow(cell);
+      int col = geometry.getCellCol(cell);
+      if (new SolitaireSolver().solve(model, row, col).isSolved()) {
+        assertTrue(PositionClass.canFinishAt(model, row, col));
+      }
+    }
+  }
+
+  @Test
+  public void testInvalidTarget() {
+    try {
+      PositionClass.canFinishAt(new EnglishSolitaireModel(), 0, 0);
+      fail("Should have thrown an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      //do nothing; test successfully threw an exception
+    }
+  }
+}
@@ -0,0 +1,61 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import model.MarbleSolitaireModel;
+import model.MarbleSolitaireModelState;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Random games for testing any model, checked against a full scan of the board for valid moves.
+ */
+public final class RandomGames {
+  // every jump of every board, on and off the diagonals
+  private static final int[][] STEPS =
+      {{2, 0}, {-2, 0}, {0, 2}, {0, -2}, {2, 2}, {-2, -2}, {2, -2}, {-2, 2}};
+
+  private RandomGames() {
+  }
+
+  /**
+   * Finds the valid moves of the given game by asking about every move of every slot.
+   *
+   * @param model the game
+   * @return each valid move, as its from row, from column, to row and to column
+   */
+  static List<int[]> validMoves(MarbleSolitaireModelState model) {
+    List<int[]> moves = new ArrayList<int[]>();
+    for (int row = 0; row < model.getBoardSize(); row++) {
+      for (int col = 0; col < model.getBoardSize(); col++) {
+        for (int[] step : STEPS) {
+          if (model.canMove(row, col, row + step[0], col + step[1])
+                  == MarbleSolitaireModelState.MoveResult.Valid) {
+            moves.add(new int[]{row, col, row + step[0], col + step[1]});
+          }
+        }
+      }
+    }
+    return moves;
+  }
+
+  /**
+   * Plays random valid moves until the game is over, checking after every move that the
+   * game is only over when no slot has a valid move in any direction.
+   *
+   * @param model the game, which is played on
+   * @param seed  the seed of the random moves
+   */
+  static void play(MarbleSolitaireModel model, long seed) {
+    Random random = new Random(seed);
+    while (true) {
+      List<int[]> moves = validMoves(model);
+      assertEquals(moves.isEmpty(), model.isGameOver());
+      if (moves.isEmpty()) {
+        return;
+      }
+      int[] move = moves.get(random.nextInt(moves.size()));
+      model.move(move[0], move[1], move[2], move[3]);
+    }
+  }
+}
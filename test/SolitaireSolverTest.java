@@ -0,0 +1,129 @@
+import org.junit.Test;
+
+import model.EnglishSolitaireModel;
+import model.EuropeanSolitaireModel;
+import model.MarbleSolitaireModel;
+import model.MarbleSolitaireModelState;
+import model.PackedMove;
+import model.SolitaireSolver;
+import model.SolverResult;
+import model.TriangleSolitaireModel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the depth-first solver on each board type.
+ */
+public class SolitaireSolverTest {
+
+  /**
+   * Plays the moves of the given solution on the given game and checks that one marble is left.
+   */
+  private void assertWins(MarbleSolitaireModel model, SolverResult result) {
+    assertTrue(result.isSolved());
+    assertEquals(model.getScore() - 1, result.getMoves().length);
+    for (int move : result.getMoves()) {
+      PackedMove.apply(model, move);
+    }
+    assertEquals(1, model.getScore());
+    assertTrue(model.isGameOver());
+  }
+
+  @Test
+  public void solveEnglish() {
+    MarbleSolitaireModel model = new EnglishSolitaireModel();
+    SolverResult result = new SolitaireSolver().solve(model);
+    // the model itself is left alone
+    assertEquals(32, model.getScore());
+    assertTrue(result.getNodeCount() > 0);
+    assertTrue(result.getNanos() > 0);
+    assertWins(model, result);
+  }
+
+  @Test
+  public void solveTriangle() {
+    for (int row = 0; row < 5; row++) {
+      for (int col = 0; col <= row; col++) {
+        MarbleSolitaireModel model = new TriangleSolitaireModel(row, col);
+        assertWins(model, new SolitaireSolver().solve(model));
+      }
+    }
+  }
+
+  @Test
+  public void solveEuropean() {
+    SolitaireSolver solver = new SolitaireSolver();
+    MarbleSolitaireModel model = new EuropeanSolitaireModel(2, 0, 1);
+    assertWins(model, solver.solve(model));
+    // the middle slots of the smallest octagon cannot be cleared down to one marble
+    SolverResult result = solver.solve(new EuropeanSolitaireModel(2, 1, 1));
+    assertFalse(result.isSolved());
+    assertEquals(0, result.getMoves().length);
+  }
+
+  @Test
+  public void solveEuropeanCenter() {
+    // ruled out by its position class before any search
+    SolverResult result = new SolitaireSolver().solve(new EuropeanSolitaireModel());
+    assertFalse(result.isSolved());
+    assertEquals(0, result.getNodeCount());
+  }
+
+  @Test
+  public void solveMidGame() {
+    MarbleSolitaireModel model = new EnglishSolitaireModel();
+    model.move(5, 3, 3, 3);
+    model.move(4, 5, 4, 3);
+    assertWins(model, new SolitaireSolver().solve(model));
+  }
+
+  @Test
+  public void solveTarget() {
+    MarbleSolitaireModel model = new EnglishSolitaireModel();
+    SolverResult result = new SolitaireSolver().solve(model, 3, 3);
+    assertWins(model, result);
+    assertEquals(MarbleSolitaireModelState.SlotState.Marble, model.getSlotAt(3, 3));
+
+    model = new TriangleSolitaireModel();
+    result = new SolitaireSolver().solve(model, 4, 2);
+    assertWins(model, result);
+    assertEquals(MarbleSolitaireModelState.SlotState.Marble, model.getSlotAt(4, 2));
+  }
+
+  @Test
+  public void solveTargetPagoda() {
+    // cutting positions off with pagoda functions never changes which targets can be reached
+    for (int row = 0; row < 5; row++) {
+      for (int col = 0; col <= row; col++) {
+        MarbleSolitaireModel model = new TriangleSolitaireModel(1, 1);
+        SolverResult cut = new SolitaireSolver().solve(model, row, col);
+        SolverResult full = new SolitaireSolver(false).solve(model, row, col);
+        assertEquals(full.isSolved(), cut.isSolved());
+        assertTrue(cut.getNodeCount() <= full.getNodeCount());
+      }
+    }
+  }
+
+  @Test
+  public void solveInvalidTarget() {
+    try {
+      new SolitaireSolver().solve(new EnglishSolitaireModel(), 0, 0);
+      fail("Should have thrown an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      //do nothing; test successfully threw an exception
+    }
+  }
+
+  @Test
+  public void solveNull() {
+    try {
+      new SolitaireSolver().solve(null);
+      fail("Should have thrown an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      //do nothing; test successfully threw an exception
+    }
+  }
+}
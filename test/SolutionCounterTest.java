@@ -0,0 +1,112 @@
+import org.junit.Test;
+
+import java.math.BigInteger;
+
+import model.BoardGeometry;
+import model.EnglishSolitaireModel;
+import model.EuropeanSolitaireModel;
+import model.MarbleSolitaireModel;
+import model.SolutionCounter;
+import model.TriangleSolitaireModel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the memoized solution counter against counting every move sequence one by one.
+ */
+public class SolutionCounterTest {
+
+  /**
+   * Counts the solutions of the given packed board the slow way, playing out every sequence.
+   */
+  private long bruteForce(BoardGeometry geometry, long board, int marbles, int target) {
+    if (marbles == 1) {
+      return target < 0 || (board & (1L << target)) != 0 ? 1 : 0;
+    }
+    long total = 0;
+    for (int jump = 0; jump < geometry.getJumpCount(); jump++) {
+      long from = 1L << geometry.getJumpFrom(jump);
+      long over = 1L << geometry.getJumpOver(jump);
+      long to = 1L << geometry.getJumpTo(jump);
+      if ((board & from) != 0 && (board & over) != 0 && (board & to) == 0) {
+        total += this.bruteForce(geometry, board ^ from ^ over ^ to, marbles - 1, target);
+      }
+    }
+    return total;
+  }
+
+  @Test
+  public void countTriangle() {
+    SolutionCounter counter = new SolutionCounter();
+    for (int row = 0; row < 5; row++) {
+      for (int col = 0; col <= row; col++) {
+        MarbleSolitaireModel model = new TriangleSolitaireModel(row, col);
+        BoardGeometry geometry = BoardGeometry.of(model);
+        assertEquals(BigInteger.valueOf(this.bruteForce(geometry, geometry.pack(model), 14, -1)),
+                counter.count(model));
+        // the model itself is left alone
+        assertEquals(14, model.getScore());
+      }
+    }
+    assertTrue(counter.getPositionCount() > 0);
+  }
+
+  @Test
+  public void countTriangleTarget() {
+    SolutionCounter counter = new SolutionCounter();
+    MarbleSolitaireModel model = new TriangleSolitaireModel(2, 1);
+    BoardGeometry geometry = BoardGeometry.of(model);
+    BigInteger any = counter.count(model);
+    BigInteger sum = BigInteger.ZERO;
+    for (int row = 0; row < 5; row++) {
+      for (int col = 0; col <= row; col++) {
+        BigInteger count = counter.count(model, row, col);
+        assertEquals(BigInteger.valueOf(this.bruteForce(geometry, geometry.pack(model), 14,
+                geometry.cellIndex(row, col))), count);
+        sum = sum.add(count);
+      }
+    }
+    // every solution ends in exactly one slot
+    assertEquals(any, sum);
+  }
+
+  @Test
+  public void countEuropean() {
+    SolutionCounter counter = new SolutionCounter();
+    assertEquals(BigInteger.ZERO, counter.count(new EuropeanSolitaireModel()));
+    MarbleSolitaireModel model = new EuropeanSolitaireModel(2, 0, 1);
+    BoardGeometry geometry = BoardGeometry.of(model);
+    assertEquals(BigInteger.valueOf(this.bruteForce(geometry, geometry.pack(model),
+            model.getScore(), -1)), counter.count(model));
+  }
+
+  @Test
+  public void countEveryEuropeanHole() {
+    // symmetric starts share the table, and must still each get their own count
+    SolutionCounter counter = new SolutionCounter();
+    BoardGeometry geometry = BoardGeometry.of(new EuropeanSolitaireModel(2, 0, 1));
+    for (int cell = 0; cell < geometry.getCellCount(); cell++) {
+      MarbleSolitaireModel model = new EuropeanSolitaireModel(2, geometry.getCellRow(cell),
+              geometry.getCellCol(cell));
+      assertEquals(BigInteger.valueOf(this.bruteForce(geometry, geometry.pack(model),
+              model.getScore(), -1)), counter.count(model));
+    }
+  }
+
+  @Test
+  public void countInvalidTarget() {
+    try {
+      new SolutionCounter().count(new EnglishSolitaireModel(), 0, 0);
+      fail("Expected an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Invalid target position (0,0)", e.getMessage());
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void countNull() {
+    new SolutionCounter().count(null);
+  }
+}
@@ -0,0 +1,140 @@
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+
+import model.BoardGeometry;
+import model.EuropeanSolitaireModel;
+import model.MarbleSolitaireModel;
+import model.SolitaireSolver;
+import model.SolvabilityTable;
+import model.TriangleSolitaireModel;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the table of which starting holes can be won, against the solver.
+ */
+public class SolvabilityTableTest {
+
+  /**
+   * Builds the table of the small boards used by these tests.
+   */
+  private SolvabilityTable smallTable() {
+    Map<BoardGeometry.Shape, Integer> maxSizes = new EnumMap<>(BoardGeometry.Shape.class);
+    maxSizes.put(BoardGeometry.Shape.European, 2);
+    maxSizes.put(BoardGeometry.Shape.Triangle, 5);
+    return SolvabilityTable.build(maxSizes, 2);
+  }
+
+  @Test
+  public void agreesWithSolver() {
+    SolvabilityTable table = this.smallTable();
+    assertTrue(table.covers(BoardGeometry.Shape.Triangle, 4));
+    assertTrue(table.covers(BoardGeometry.Shape.European, 2));
+    assertFalse(table.covers(BoardGeometry.Shape.Triangle, 6));
+    assertFalse(table.covers(BoardGeometry.Shape.English, 3));
+
+    for (int row = 0; row < 5; row++) {
+      for (int col = 0; col <= row; col++) {
+        MarbleSolitaireModel model = new TriangleSolitaireModel(5, row, col);
+        assertTrue(table.canWin(BoardGeometry.Shape.Triangle, 5, row, col));
+        for (int targetRow = 0; targetRow < 5; targetRow++) {
+          for (int targetCol = 0; targetCol <= targetRow; targetCol++) {
+            assertEquals(new SolitaireSolver().solve(model, targetRow, targetCol).isSolved(),
+                    table.canFinishAt(BoardGeometry.Shape.Triangle, 5, row, col, targetRow,
+                            targetCol));
+          }
+        }
+      }
+    }
+
+    BoardGeometry geometry = BoardGeometry.of(BoardGeometry.Shape.European, 2);
+    for (int cell = 0; cell < geometry.getCellCount(); cell++) {
+      int row = geometry.getCellRow(cell);
+      int col = geometry.getCellCol(cell);
+      assertEquals(new SolitaireSolver().solve(new EuropeanSolitaireModel(2, row, col))
+              .isSolved(), table.canWin(BoardGeometry.Shape.European, 2, row, col));
+    }
+    // the smallest boards have a single slot, which starts empty
+    assertFalse(table.canWin(BoardGeometry.Shape.Triangle, 1, 0, 0));
+  }
+
+  @Test
+  public void writeAndRead() throws IOException {
+    SolvabilityTable table = this.smallTable();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    table.write(out);
+    byte[] bytes = out.toByteArray();
+    // each board takes its header and one bit per start and target pair
+    int expected = 8;
+    for (BoardGeometry.Shape shape : new BoardGeometry.Shape[] {BoardGeometry.Shape.European,
+        BoardGeometry.Shape.Triangle}) {
+      for (int size = 1; size <= (shape == BoardGeometry.Shape.European ? 2 : 5); size++) {
+        int cells = BoardGeometry.of(shape, size).getCellCount();
+        expected += 9 + (cells * cells + 7) / 8;
+      }
+    }
+    assertEquals(expected, bytes.length);
+
+    SolvabilityTable read = SolvabilityTable.read(new ByteArrayInputStream(bytes));
+    ByteArrayOutputStream again = new ByteArrayOutputStream();
+    read.write(again);
+    assertArrayEquals(bytes, again.toByteArray());
+    for (int row = 0; row < 5; row++) {
+      for (int col = 0; col <= row; col++) {
+        assertEquals(table.canWin(BoardGeometry.Shape.Triangle, 5, row, col),
+                read.canWin(BoardGeometry.Shape.Triangle, 5, row, col));
+      }
+    }
+
+    try {
+      SolvabilityTable.read(new ByteArrayInputStream(new byte[] {1, 2, 3, 4, 0, 0, 0, 0}));
+      fail("Expected an IOException");
+    } catch (IOException e) {
+      assertEquals("Not a solvability table", e.getMessage());
+    }
+  }
+
+  @Test
+  public void invalidArguments() {
+    SolvabilityTable table = this.smallTable();
+    try {
+      table.canWin(BoardGeometry.Shape.English, 3, 3, 3);
+      fail("Expected an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Board is not in the table", e.getMessage());
+    }
+    try {
+      table.canWin(BoardGeometry.Shape.Triangle, 5, 0, 1);
+      fail("Expected an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Invalid empty cell position (0,1)", e.getMessage());
+    }
+    try {
+      table.canFinishAt(BoardGeometry.Shape.Triangle, 5, 0, 0, 0, 1);
+      fail("Expected an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Invalid target position (0,1)", e.getMessage());
+    }
+    try {
+      SolvabilityTable.build(new EnumMap<>(BoardGeometry.Shape.class), 0);
+      fail("Expected an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Parallelism must be positive", e.getMessage());
+    }
+    try {
+      SolvabilityTable.build(null, 1);
+      fail("Expected an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Must provide non-null board sizes", e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,122 @@
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import model.BoardGeometry;
+import model.BoardSymmetry;
+import model.EnglishSolitaireModel;
+import model.EnumerationResult;
+import model.MarbleSolitaireModel;
+import model.StateEnumerator;
+import model.TriangleSolitaireModel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the breadth-first enumeration of reachable positions.
+ */
+public class StateEnumeratorTest {
+
+  /**
+   * Counts the positions at each level from the given game the slow way, with a set of canonical
+   * boards per level, and checks the enumerator agrees.
+   */
+  private void assertCounts(MarbleSolitaireModel model, int minMarbles, EnumerationResult result) {
+    BoardGeometry geometry = BoardGeometry.of(model);
+    BoardSymmetry symmetry = BoardSymmetry.of(geometry);
+    int words = (geometry.getCellCount() + 63) / 64;
+    long[] board = new long[words];
+    geometry.pack(model, board);
+    Set<String> level = new HashSet<>();
+    Set<long[]> boards = new HashSet<>();
+    boards.add(board);
+    level.add(Arrays.toString(board));
+    int levels = 0;
+    while (!boards.isEmpty() && model.getScore() - levels >= minMarbles) {
+      assertEquals(boards.size(), result.getPositionCount(levels));
+      levels += 1;
+      Set<long[]> next = new HashSet<>();
+      level.clear();
+      for (long[] position : boards) {
+        for (int jump = 0; jump < geometry.getJumpCount(); jump++) {
+          int from = geometry.getJumpFrom(jump);
+          int over = geometry.getJumpOver(jump);
+          int to = geometry.getJumpTo(jump);
+          if (has(position, from) && has(position, over) && !has(position, to)) {
+            long[] child = position.clone();
+            child[from / 64] ^= 1L << from;
+            child[over / 64] ^= 1L << over;
+            child[to / 64] ^= 1L << to;
+            long[] key = new long[words];
+            symmetry.canonical(child, key, new long[words]);
+            if (level.add(Arrays.toString(key))) {
+              next.add(key);
+            }
+          }
+        }
+      }
+      boards = next;
+    }
+    assertEquals(levels, result.getLevelCount());
+  }
+
+  private boolean has(long[] board, int cell) {
+    return (board[cell / 64] & (1L << cell)) != 0;
+  }
+
+  @Test
+  public void enumerateEnglish() {
+    MarbleSolitaireModel model = new EnglishSolitaireModel();
+    EnumerationResult result = new StateEnumerator(2).enumerate(model, 24);
+    // the first levels of the well-known counts of the English game
+    long[] known = {1, 1, 2, 8, 39, 171, 719, 2757, 9751};
+    assertEquals(known.length, result.getLevelCount());
+    for (int level = 0; level < known.length; level++) {
+      assertEquals(known[level], result.getPositionCount(level));
+      assertEquals(32 - level, result.getMarbles(level));
+    }
+  }
+
+  @Test
+  public void enumerateTriangle() {
+    MarbleSolitaireModel model = new TriangleSolitaireModel();
+    EnumerationResult result = new StateEnumerator().enumerate(model);
+    assertCounts(model, 1, result);
+    assertEquals(3269, result.getTotalPositions());
+  }
+
+  @Test
+  public void enumerateLargeBoard() {
+    // more than 64 slots, so each position takes several words
+    MarbleSolitaireModel model = new EnglishSolitaireModel(5);
+    assertCounts(model, 98, new StateEnumerator(3).enumerate(model, 98));
+  }
+
+  @Test
+  public void enumerateNoMoves() {
+    // no three slots of the smallest triangles are in a line
+    MarbleSolitaireModel model = new TriangleSolitaireModel(2);
+    EnumerationResult result = new StateEnumerator().enumerate(model);
+    assertEquals(1, result.getLevelCount());
+    assertEquals(1, result.getPositionCount(0));
+  }
+
+  @Test
+  public void invalidArguments() {
+    try {
+      new StateEnumerator(0);
+      fail("Should have thrown an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      //do nothing; test successfully threw an exception
+    }
+    try {
+      new StateEnumerator().enumerate(null);
+      fail("Should have thrown an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      //do nothing; test successfully threw an exception
+    }
+  }
+}
@@ -0,0 +1,160 @@
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import model.EnglishSolitaireModel;
+import model.MarbleSolitaireModel;
+import model.ParallelSolitaireSolver;
+import model.SolitaireSolver;
+import model.TranspositionTable;
+import model.TranspositionTable.Replacement;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the off-heap transposition table and the solvers that keep their dead positions in it.
+ */
+public class TranspositionTableTest {
+
+  @Test
+  public void putAndGet() {
+    TranspositionTable table = new TranspositionTable(4000, Replacement.Never);
+    assertEquals(4096, table.getCapacity());
+    for (long key = 0; key < 500; key++) {
+      assertTrue(table.put(key * 0x9E3779B97F4A7C15L, key));
+    }
+    assertEquals(500, table.size());
+    for (long key = 0; key < 500; key++) {
+      assertEquals(key, table.get(key * 0x9E3779B97F4A7C15L, -1));
+    }
+    assertEquals(-1, table.get(12345, -1));
+    assertFalse(table.contains(12345));
+
+    // a key put again keeps a single entry with its new value
+    assertTrue(table.put(0, 42));
+    assertEquals(42, table.get(0, -1));
+    assertEquals(500, table.size());
+
+    table.clear();
+    assertEquals(0, table.size());
+    assertFalse(table.contains(0));
+    assertTrue(table.add(7));
+    assertTrue(table.contains(7));
+  }
+
+  @Test
+  public void replacement() {
+    // a table of 8 slots fits a single window, so the ninth key has nowhere free to go
+    TranspositionTable never = new TranspositionTable(8, Replacement.Never);
+    TranspositionTable always = new TranspositionTable(8, Replacement.Always);
+    TranspositionTable largest = new TranspositionTable(8, Replacement.Largest);
+    for (long key = 1; key <= 8; key++) {
+      assertTrue(never.put(key, key));
+      assertTrue(always.put(key, key));
+      assertTrue(largest.put(key, key + 10));
+    }
+
+    assertFalse(never.put(100, 5));
+    assertFalse(never.contains(100));
+    assertTrue(always.put(100, 5));
+    assertEquals(5, always.get(100, -1));
+    // a smaller value than every entry is dropped, a larger one replaces the smallest
+    assertFalse(largest.put(100, 5));
+    assertFalse(largest.contains(100));
+    assertTrue(largest.put(100, 50));
+    assertEquals(50, largest.get(100, -1));
+    assertFalse(largest.contains(1));
+    for (long key = 2; key <= 8; key++) {
+      assertEquals(key + 10, largest.get(key, -1));
+    }
+  }
+
+  @Test
+  public void concurrentPuts() throws InterruptedException {
+    TranspositionTable table = new TranspositionTable(1 << 16, Replacement.Never);
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      // every thread puts the same keys, so they race for the same slots
+      threads.add(new Thread(() -> {
+        for (long key = 1; key <= 10000; key++) {
+          table.put(key, key);
+        }
+      }));
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    for (long key = 1; key <= 10000; key++) {
+      assertEquals(key, table.get(key, -1));
+    }
+  }
+
+  @Test
+  public void concurrentReplacement() throws InterruptedException {
+    // a single window that every thread keeps replacing entries of
+    TranspositionTable table = new TranspositionTable(8, Replacement.Largest);
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      long offset = t;
+      threads.add(new Thread(() -> {
+        for (long key = 1; key <= 100000; key++) {
+          table.put(key * 4 + offset, key * 4 + offset);
+        }
+      }));
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    // every key still found has its own value, and the largest keys are the ones kept
+    int found = 0;
+    for (long key = 1; key <= 400003; key++) {
+      long value = table.get(key, -1);
+      assertTrue(value == -1 || value == key);
+      found += value == key ? 1 : 0;
+    }
+    assertEquals(8, found);
+    assertTrue(table.contains(400003));
+  }
+
+  @Test
+  public void solveWithTable() {
+    // a table far too small for the search still gives a correct answer
+    TranspositionTable table = new TranspositionTable(64, Replacement.Largest);
+    MarbleSolitaireModel model = new EnglishSolitaireModel();
+    assertTrue(new SolitaireSolver(true, table).solve(model).isSolved());
+    assertTrue(table.size() > 0);
+    assertTrue(new ParallelSolitaireSolver(2, table).solve(model).isSolved());
+  }
+
+  @Test
+  public void invalidArguments() {
+    try {
+      new TranspositionTable(0, Replacement.Always);
+      fail("Expected an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Capacity must be positive", e.getMessage());
+    }
+    try {
+      new TranspositionTable(8, null);
+      fail("Expected an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Must provide a non-null replacement policy", e.getMessage());
+    }
+    try {
+      new TranspositionTable(8, Replacement.Always).put(1, -1);
+      fail("Expected an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Value must not be negative", e.getMessage());
+    }
+  }
+}
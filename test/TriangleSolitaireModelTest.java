@@ -2,7 +2,9 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import model.MarbleSolitaireModel;
 import model.MarbleSolitaireModelState;
+import model.PackedMove;
 import model.TriangleSolitaireModel;
 
 import static org.junit.Assert.assertEquals;
@@ -211,6 +213,64 @@ public class TriangleSolitaireModelTest {
     assertTrue(this.defaultBoard.isGameOver());
   }
 
+  @Test
+  public void canMove() {
+    // all the diagonals are permitted
+    assertEquals(MarbleSolitaireModelState.MoveResult.Valid, this.defaultBoard.canMove(2,2,0,0));
+    assertEquals(MarbleSolitaireModelState.MoveResult.Valid, this.defaultBoard.canMove(2,0,0,0));
+    assertEquals(MarbleSolitaireModelState.MoveResult.NotTwoSlots,
+            this.defaultBoard.canMove(4,0,1,0));
+    assertEquals(MarbleSolitaireModelState.MoveResult.ToNotEmpty,
+            this.defaultBoard.canMove(4,0,2,2));
+    assertEquals(MarbleSolitaireModelState.MoveResult.ToNotEmpty,
+            this.defaultBoard.canMove(2,0,0,2));
+    assertEquals(MarbleSolitaireModelState.MoveResult.ToOutOfBounds,
+            this.defaultBoard.canMove(3,0,5,0));
+  }
+
+  @Test
+  public void isGameOverAfterRandomGames() {
+    for (long seed = 0; seed < 20; seed++) {
+      RandomGames.play(new TriangleSolitaireModel(), seed);
+      RandomGames.play(new TriangleSolitaireModel(7), seed);
+      RandomGames.play(new TriangleSolitaireModel(8, 5, 2), seed);
+    }
+  }
+
+  @Test
+  public void getLegalMoves() {
+    int[] moves = new int[8 * this.defaultBoard.getScore()];
+    // straight up and diagonally up-left into the top slot
+    assertEquals(2, this.defaultBoard.getLegalMoves(moves));
+    assertEquals(PackedMove.of(2, 0, 0, 5), moves[0]);
+    assertEquals(PackedMove.of(2, 2, 4, 5), moves[1]);
+    assertEquals(0, PackedMove.toRow(moves[1], 5));
+    assertEquals(0, PackedMove.toCol(moves[1], 5));
+    // the anti-diagonals are listed too
+    this.defaultBoard.move(2,2,0,0);
+    int count = this.defaultBoard.getLegalMoves(moves);
+    boolean antiDiagonal = false;
+    for (int i = 0; i < count; i++) {
+      antiDiagonal |= moves[i] == PackedMove.of(4, 0, 7, 5);
+    }
+    assertTrue(antiDiagonal);
+  }
+
+  @Test
+  public void fork() {
+    MarbleSolitaireModel fork = this.defaultBoard.fork();
+    // the copy permits diagonal jumps too
+    fork.move(2, 2, 0, 0);
+    assertEquals(MarbleSolitaireModelState.SlotState.Empty, fork.getSlotAt(2, 2));
+    assertEquals(MarbleSolitaireModelState.SlotState.Marble, this.defaultBoard.getSlotAt(2, 2));
+    assertEquals(MarbleSolitaireModelState.SlotState.Empty, this.defaultBoard.getSlotAt(0, 0));
+    fork.move(4, 0, 2, 2);
+    this.defaultBoard.move(2, 2, 0, 0);
+    this.defaultBoard.move(4, 0, 2, 2);
+    assertEquals(this.defaultBoard.getPositionHash(), fork.getPositionHash());
+    assertEquals(this.defaultBoard.isGameOver(), fork.isGameOver());
+  }
+
   @Test
   public void getBoardSize() {
     assertEquals(5, this.defaultBoard.getBoardSize());
@@ -267,4 +327,4 @@ public class TriangleSolitaireModelTest {
     this.defaultBoard.move(0,0,2,2);
     assertEquals(11, this.defaultBoard.getScore());
   }
-}
\ No newline at end of file
+}